@@ -0,0 +1,48 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.PostFilterChainActionsFilter;
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.PreFilterChainActionsFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.Filter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PreFilterChainActionsFilter} and {@link PostFilterChainActionsFilter} with
+ * different numbers of cheap actions.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ActionsFilterBenchmark {
+    @Param({"0", "1", "4", "16"})
+    public int actionCount;
+
+    private final InMemoryRequest request = new InMemoryRequest();
+    private final InMemoryResponse response = new InMemoryResponse();
+    private Filter preFilterChainActionsFilter;
+    private Filter postFilterChainActionsFilter;
+    private ConsumingFilterChain filterChain;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        FilterAction[] actions = new FilterAction[actionCount];
+        for (int i = 0; i < actionCount; ++i)
+            actions[i] = new CountingAction();
+        preFilterChainActionsFilter = new PreFilterChainActionsFilter(actions);
+        postFilterChainActionsFilter = new PostFilterChainActionsFilter(actions);
+        filterChain = new ConsumingFilterChain(blackhole);
+    }
+
+    @Benchmark
+    public void preFilterChainActions() throws Exception {
+        preFilterChainActionsFilter.doFilter(request, response, filterChain);
+    }
+
+    @Benchmark
+    public void postFilterChainActions() throws Exception {
+        postFilterChainActionsFilter.doFilter(request, response, filterChain);
+    }
+}
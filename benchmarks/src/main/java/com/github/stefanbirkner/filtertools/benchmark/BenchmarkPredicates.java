@@ -0,0 +1,22 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+class BenchmarkPredicates {
+    static final Predicate<ServletRequest> IS_API_REQUEST = new Predicate<ServletRequest>() {
+        @Override
+        public boolean test(ServletRequest request) {
+            return ((HttpServletRequest) request).getRequestURI().startsWith(RequestMix.MATCHING_PREFIX);
+        }
+    };
+
+    static final Predicate<HttpServletRequest> IS_API_HTTP_REQUEST = new Predicate<HttpServletRequest>() {
+        @Override
+        public boolean test(HttpServletRequest request) {
+            return request.getRequestURI().startsWith(RequestMix.MATCHING_PREFIX);
+        }
+    };
+}
@@ -0,0 +1,25 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+/**
+ * The end of the filter chain. It hands the request and the response over to JMH's
+ * {@link Blackhole}, so that the work of the filters cannot be eliminated.
+ */
+public class ConsumingFilterChain implements FilterChain {
+    private final Blackhole blackhole;
+
+    public ConsumingFilterChain(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response) {
+        blackhole.consume(request);
+        blackhole.consume(response);
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A cheap {@link FilterAction} that only counts its executions. The benchmarks measure the cost
+ * of the infrastructure and not the cost of the action.
+ */
+class CountingAction implements FilterAction {
+    long executions = 0;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void execute(HttpServletRequest request, HttpServletResponse response) {
+        ++executions;
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.http.DisableEncodeUrlFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DisableEncodeUrlFilter} with a servlet that encodes a single URL. The second
+ * servlet lets the response escape like a servlet container does, so that the JIT cannot
+ * eliminate the allocation of the wrapper.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class DisableEncodeUrlFilterBenchmark {
+    private final InMemoryRequest request = new InMemoryRequest();
+    private final InMemoryResponse response = new InMemoryResponse();
+    private final Filter filter = new DisableEncodeUrlFilter();
+    private FilterChain encodingServlet;
+    private FilterChain escapingServlet;
+
+    @Setup
+    public void setUp(final Blackhole blackhole) {
+        encodingServlet = new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                blackhole.consume(((HttpServletResponse) response).encodeURL("/orders"));
+            }
+        };
+        escapingServlet = new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                blackhole.consume(response);
+                blackhole.consume(((HttpServletResponse) response).encodeURL("/orders"));
+            }
+        };
+    }
+
+    @Benchmark
+    public void doFilter() throws Exception {
+        filter.doFilter(request, response, encodingServlet);
+    }
+
+    @Benchmark
+    public void doFilterWithEscapingResponse() throws Exception {
+        filter.doFilter(request, response, escapingServlet);
+    }
+}
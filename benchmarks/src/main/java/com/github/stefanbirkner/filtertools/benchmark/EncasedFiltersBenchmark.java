@@ -0,0 +1,39 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.EncasedFilters;
+import com.github.stefanbirkner.filtertools.filter.NoOpFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.Filter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link EncasedFilters} for chains of {@link NoOpFilter}s.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class EncasedFiltersBenchmark {
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    public int depth;
+
+    private final InMemoryRequest request = new InMemoryRequest();
+    private final InMemoryResponse response = new InMemoryResponse();
+    private Filter filter;
+    private ConsumingFilterChain filterChain;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Filter[] filters = new Filter[depth];
+        for (int i = 0; i < depth; ++i)
+            filters[i] = new NoOpFilter();
+        filter = new EncasedFilters(filters);
+        filterChain = new ConsumingFilterChain(blackhole);
+    }
+
+    @Benchmark
+    public void doFilter() throws Exception {
+        filter.doFilter(request, response, filterChain);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.github.stefanbirkner.filtertools.benchmark.BenchmarkPredicates.IS_API_HTTP_REQUEST;
+import static com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterActionSwitch.execute;
+
+/**
+ * Measures a {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterActionSwitch}
+ * whose predicate matches a share of the requests.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FilterActionSwitchBenchmark {
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    private final InMemoryResponse response = new InMemoryResponse();
+    private final CountingAction actionForHits = new CountingAction();
+    private final CountingAction actionForMisses = new CountingAction();
+    private RequestMix requests;
+    private FilterAction actionSwitch;
+
+    @Setup
+    public void setUp() {
+        actionSwitch = execute(actionForHits).when(IS_API_HTTP_REQUEST).otherwiseExecute(actionForMisses);
+        requests = new RequestMix(hitRatio);
+    }
+
+    @Benchmark
+    public void executeSwitch() throws Exception {
+        actionSwitch.execute(requests.next(), response);
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A lightweight in-memory {@link HttpServletRequest} for benchmarks. It supports the methods that
+ * are used by filters and predicates. All other methods throw an
+ * {@link UnsupportedOperationException}.
+ */
+public class InMemoryRequest extends HttpServletRequestWrapper {
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+    private final Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+    private String method = "GET";
+    private String requestUri = "/";
+    private String queryString;
+    private Cookie[] cookies;
+
+    public InMemoryRequest() {
+        super(Unsupported.instanceOf(HttpServletRequest.class));
+    }
+
+    public InMemoryRequest withMethod(String method) {
+        this.method = method;
+        return this;
+    }
+
+    public InMemoryRequest withRequestUri(String requestUri) {
+        this.requestUri = requestUri;
+        return this;
+    }
+
+    public InMemoryRequest withQueryString(String queryString) {
+        this.queryString = queryString;
+        return this;
+    }
+
+    public InMemoryRequest withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public InMemoryRequest withCookies(Cookie... cookies) {
+        this.cookies = cookies;
+        return this;
+    }
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public String getServletPath() {
+        return requestUri;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    @Override
+    public Enumeration getHeaders(String name) {
+        String value = getHeader(name);
+        return Collections.enumeration(value == null
+            ? Collections.<String>emptyList() : Collections.singletonList(value));
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return cookies == null ? null : cookies.clone();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null)
+            attributes.remove(name);
+        else
+            attributes.put(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return "127.0.0.1";
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+}
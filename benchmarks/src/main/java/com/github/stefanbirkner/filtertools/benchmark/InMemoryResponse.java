@@ -0,0 +1,160 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A lightweight in-memory {@link HttpServletResponse} for benchmarks. The body is discarded, but
+ * its length is counted. All methods that are not needed by the benchmarks throw an
+ * {@link UnsupportedOperationException}.
+ */
+public class InMemoryResponse extends HttpServletResponseWrapper {
+    private final Map<String, String> headers = new HashMap<String, String>();
+    private final CountingOutputStream outputStream = new CountingOutputStream();
+    private PrintWriter writer;
+    private int status = SC_OK;
+    private boolean committed = false;
+
+    public InMemoryResponse() {
+        super(Unsupported.instanceOf(HttpServletResponse.class));
+    }
+
+    /**
+     * Prepares the response for the next invocation of a benchmark.
+     */
+    public void reset() {
+        headers.clear();
+        outputStream.count = 0;
+        writer = null;
+        status = SC_OK;
+        committed = false;
+    }
+
+    public int getStatusCode() {
+        return status;
+    }
+
+    public long getBodyLength() {
+        return outputStream.count;
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url + ";jsessionid=benchmark";
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url + ";jsessionid=benchmark";
+    }
+
+    @Override
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    @Override
+    public void sendError(int status) {
+        this.status = status;
+        committed = true;
+    }
+
+    @Override
+    public void sendError(int status, String message) {
+        sendError(status);
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name.toLowerCase());
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        headers.put(name.toLowerCase(), value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        setHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, Long.toString(date));
+    }
+
+    @Override
+    public void setContentType(String type) {
+        setHeader("Content-Type", type);
+    }
+
+    @Override
+    public String getContentType() {
+        return headers.get("content-type");
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setIntHeader("Content-Length", length);
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return "UTF-8";
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null)
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null)
+            writer.flush();
+        committed = true;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void resetBuffer() {
+        outputStream.count = 0;
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
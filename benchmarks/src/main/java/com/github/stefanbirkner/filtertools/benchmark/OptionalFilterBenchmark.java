@@ -0,0 +1,46 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.EncasedFilters;
+import com.github.stefanbirkner.filtertools.filter.NoOpFilter;
+import com.github.stefanbirkner.filtertools.filter.OptionalFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.Filter;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.stefanbirkner.filtertools.benchmark.BenchmarkPredicates.IS_API_REQUEST;
+
+/**
+ * Measures chains of {@link OptionalFilter}s whose predicate matches a share of the requests.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class OptionalFilterBenchmark {
+    @Param({"1", "8", "64"})
+    public int depth;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    private final InMemoryResponse response = new InMemoryResponse();
+    private RequestMix requests;
+    private Filter filter;
+    private ConsumingFilterChain filterChain;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        Filter[] filters = new Filter[depth];
+        for (int i = 0; i < depth; ++i)
+            filters[i] = new OptionalFilter(IS_API_REQUEST, new NoOpFilter());
+        filter = new EncasedFilters(filters);
+        requests = new RequestMix(hitRatio);
+        filterChain = new ConsumingFilterChain(blackhole);
+    }
+
+    @Benchmark
+    public void doFilter() throws Exception {
+        filter.doFilter(requests.next(), response, filterChain);
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.http.path.PathPredicate;
+import com.github.stefanbirkner.filtertools.filter.http.path.PathPredicates;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares a {@link PathPredicate} for many Ant patterns with testing the path against a regular
+ * expression for each pattern and against a single regular expression with an alternative for
+ * each pattern.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class PathPredicatesBenchmark {
+    @Param({"1", "10", "100", "1000"})
+    public int patterns;
+
+    @Param({"0.0", "0.5", "1.0"})
+    public double hitRatio;
+
+    private PathPredicate predicate;
+    private List<Pattern> regularExpressions;
+    private Pattern alternation;
+    private InMemoryRequest[] requests;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        String[] antPatterns = new String[patterns];
+        regularExpressions = new ArrayList<Pattern>();
+        StringBuilder alternatives = new StringBuilder();
+        for (int i = 0; i < patterns; ++i) {
+            antPatterns[i] = "/area" + i + "/**/*.html";
+            String regularExpression = "/area" + i + "/(.*/)?[^/]*\\.html";
+            regularExpressions.add(Pattern.compile(regularExpression));
+            if (i > 0)
+                alternatives.append('|');
+            alternatives.append(regularExpression);
+        }
+        predicate = PathPredicates.anyOfAnt(antPatterns);
+        alternation = Pattern.compile(alternatives.toString());
+        //the last pattern is the worst case for the loop
+        String hit = "/area" + (patterns - 1) + "/products/shoes/index.html";
+        String miss = "/area" + (patterns - 1) + "/products/shoes/index.json";
+        requests = new InMemoryRequest[100];
+        for (int i = 0; i < requests.length; ++i)
+            requests[i] = new InMemoryRequest().withRequestUri(i < hitRatio * requests.length ? hit : miss);
+    }
+
+    @Benchmark
+    public boolean pathPredicate() {
+        return predicate.test(nextRequest());
+    }
+
+    @Benchmark
+    public boolean regularExpressionForEachPattern() {
+        String path = nextRequest().getRequestURI();
+        for (Pattern regularExpression : regularExpressions)
+            if (regularExpression.matcher(path).matches())
+                return true;
+        return false;
+    }
+
+    @Benchmark
+    public boolean singleRegularExpression() {
+        return alternation.matcher(nextRequest().getRequestURI()).matches();
+    }
+
+    private InMemoryRequest nextRequest() {
+        next = (next + 1) % requests.length;
+        return requests[next];
+    }
+}
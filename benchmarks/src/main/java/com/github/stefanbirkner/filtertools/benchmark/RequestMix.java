@@ -0,0 +1,43 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import java.util.Random;
+
+/**
+ * A fixed sequence of requests. A part of them has a request URI below {@link #MATCHING_PREFIX},
+ * all others don't. The requests are shuffled with a constant seed, so that every run of a
+ * benchmark sees the same sequence and the branch predictor cannot simply learn the outcome.
+ */
+public class RequestMix {
+    public static final String MATCHING_PREFIX = "/api/";
+    private static final int SIZE = 1024;
+    private final InMemoryRequest[] requests = new InMemoryRequest[SIZE];
+    private int index = 0;
+
+    /**
+     * Creates the sequence.
+     *
+     * @param hitRatio the share of requests that have a request URI below {@link #MATCHING_PREFIX}.
+     */
+    public RequestMix(double hitRatio) {
+        int hits = (int) Math.round(SIZE * hitRatio);
+        for (int i = 0; i < SIZE; ++i)
+            requests[i] = new InMemoryRequest().withRequestUri(
+                i < hits ? MATCHING_PREFIX + "orders/" + i : "/static/img/" + i + ".png");
+        shuffle(new Random(42));
+    }
+
+    private void shuffle(Random random) {
+        for (int i = SIZE - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            InMemoryRequest request = requests[i];
+            requests[i] = requests[j];
+            requests[j] = request;
+        }
+    }
+
+    public InMemoryRequest next() {
+        InMemoryRequest request = requests[index];
+        index = (index + 1) & (SIZE - 1);
+        return request;
+    }
+}
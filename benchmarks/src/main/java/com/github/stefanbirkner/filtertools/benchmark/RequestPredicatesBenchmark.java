@@ -0,0 +1,42 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import com.github.stefanbirkner.filtertools.filter.http.RequestPredicates;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.ServletRequest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the predicates of {@link RequestPredicates}. Run it with {@code -prof gc} in order to
+ * see that they do not allocate memory.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RequestPredicatesBenchmark {
+    private final Predicate<ServletRequest> queryParameter
+        = RequestPredicates.queryParameterEquals("mode", "beta");
+    private final Predicate<ServletRequest> cookie = RequestPredicates.cookiePresent("beta");
+    private final Predicate<ServletRequest> headerToken
+        = RequestPredicates.headerHasToken("Accept-Encoding", "gzip");
+    private final InMemoryRequest request = new InMemoryRequest()
+        .withQueryString("page=2&sort=name&order=asc&mode=beta")
+        .withHeader("Cookie", "session=5f2b7c; theme=dark; locale=en; beta=1")
+        .withHeader("Accept-Encoding", "deflate, br;q=0.9, gzip;q=0.8");
+
+    @Benchmark
+    public boolean queryParameterEquals() {
+        return queryParameter.test(request);
+    }
+
+    @Benchmark
+    public boolean cookiePresent() {
+        return cookie.test(request);
+    }
+
+    @Benchmark
+    public boolean headerHasToken() {
+        return headerToken.test(request);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.EncasedFilters;
+import com.github.stefanbirkner.filtertools.filter.NoOpFilter;
+import com.github.stefanbirkner.filtertools.filter.OptionalFilter;
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import com.github.stefanbirkner.filtertools.filter.http.RoutedFilters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.Filter;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.stefanbirkner.filtertools.filter.http.RoutedFilters.bind;
+
+/**
+ * Compares {@link RoutedFilters} with the equivalent {@link EncasedFilters} of
+ * {@link OptionalFilter}s. Every filter is bound to its own area {@code /area<n>/*} and every
+ * request hits one of the areas.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class RoutedFiltersBenchmark {
+    @Param({"1", "8", "64"})
+    public int bindings;
+
+    private final InMemoryResponse response = new InMemoryResponse();
+    private InMemoryRequest[] requests;
+    private int index = 0;
+    private Filter routedFilters;
+    private Filter optionalFilters;
+    private ConsumingFilterChain filterChain;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        RoutedFilters.Binding[] routes = new RoutedFilters.Binding[bindings];
+        Filter[] filters = new Filter[bindings];
+        requests = new InMemoryRequest[bindings];
+        for (int i = 0; i < bindings; ++i) {
+            String area = "/area" + i;
+            routes[i] = bind(area + "/*", new NoOpFilter());
+            filters[i] = new OptionalFilter(isBelow(area), new NoOpFilter());
+            requests[i] = new InMemoryRequest().withRequestUri(area + "/orders/42");
+        }
+        routedFilters = new RoutedFilters(routes);
+        optionalFilters = new EncasedFilters(filters);
+        filterChain = new ConsumingFilterChain(blackhole);
+    }
+
+    private static Predicate<ServletRequest> isBelow(String area) {
+        final String prefix = area + "/";
+        return new Predicate<ServletRequest>() {
+            @Override
+            public boolean test(ServletRequest request) {
+                return ((HttpServletRequest) request).getRequestURI().startsWith(prefix);
+            }
+        };
+    }
+
+    private InMemoryRequest nextRequest() {
+        InMemoryRequest request = requests[index];
+        index = (index + 1) % requests.length;
+        return request;
+    }
+
+    @Benchmark
+    public void routedFilters() throws Exception {
+        routedFilters.doFilter(nextRequest(), response, filterChain);
+    }
+
+    @Benchmark
+    public void optionalFilters() throws Exception {
+        optionalFilters.doFilter(nextRequest(), response, filterChain);
+    }
+}
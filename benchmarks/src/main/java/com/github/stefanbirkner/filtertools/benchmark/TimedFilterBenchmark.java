@@ -0,0 +1,43 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import com.github.stefanbirkner.filtertools.filter.NoOpFilter;
+import com.github.stefanbirkner.filtertools.timing.TimedFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.servlet.Filter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of a {@link TimedFilter} compared to the bare filter. Run it with
+ * {@code -t <threads>} to see the effect of concurrent updates of the histograms.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TimedFilterBenchmark {
+    private final Filter bareFilter = new NoOpFilter();
+    private final Filter timedFilter = new TimedFilter("benchmark", new NoOpFilter());
+
+    @State(Scope.Thread)
+    public static class Request {
+        final InMemoryRequest request = new InMemoryRequest();
+        final InMemoryResponse response = new InMemoryResponse();
+        ConsumingFilterChain filterChain;
+
+        @Setup
+        public void setUp(Blackhole blackhole) {
+            filterChain = new ConsumingFilterChain(blackhole);
+        }
+    }
+
+    @Benchmark
+    public void bareFilter(Request request) throws Exception {
+        bareFilter.doFilter(request.request, request.response, request.filterChain);
+    }
+
+    @Benchmark
+    public void timedFilter(Request request) throws Exception {
+        timedFilter.doFilter(request.request, request.response, request.filterChain);
+    }
+}
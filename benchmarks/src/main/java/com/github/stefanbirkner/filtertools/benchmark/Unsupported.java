@@ -0,0 +1,28 @@
+package com.github.stefanbirkner.filtertools.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Creates objects that throw an {@link UnsupportedOperationException} for every method. The
+ * stand-ins use them as delegates of the servlet API wrappers, so that they only have to override
+ * the methods that are needed by the benchmarks. This keeps the stand-ins independent of the
+ * version of the servlet API.
+ */
+class Unsupported {
+    static <T> T instanceOf(final Class<T> type) {
+        Object proxy = Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[]{type},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    throw new UnsupportedOperationException(
+                        "The stand-in for " + type.getSimpleName() + " does not support "
+                            + method.getName() + ".");
+                }
+            });
+        return type.cast(proxy);
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A conjunction or disjunction of predicates that reorders its terms by measured cost and
+ * selectivity. Every {@value #SAMPLING_INTERVAL}th evaluation is a sample: all terms are evaluated
+ * and their time and result are recorded. After {@value #SAMPLES_PER_REORDERING} samples the terms
+ * are sorted by their expected cost per decision and the new order is published. All other
+ * evaluations read the current order and short-circuit like {@link Predicates#and(Predicate[])}
+ * and {@link Predicates#or(Predicate[])}.
+ *
+ * <p>Only one thread samples at a time, so the statistics need no synchronization. The other
+ * threads are not blocked, they take the fast path.
+ */
+class AdaptivePredicate<T> implements Predicate<T> {
+    static final int SAMPLING_INTERVAL = 64;
+    static final int SAMPLES_PER_REORDERING = 256;
+    private final boolean disjunction;
+    private final Term<T>[] terms;
+    private final AtomicBoolean sampling = new AtomicBoolean(false);
+    private volatile Term<T>[] order;
+    private int evaluations = 0; //updates may get lost, it only selects samples
+    private int samples = 0;
+
+    AdaptivePredicate(boolean disjunction, Predicate<? super T>[] predicates) {
+        this.disjunction = disjunction;
+        this.terms = newTerms(predicates);
+        this.order = terms.clone();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) //Java cannot create an array of Term<T>
+    private Term<T>[] newTerms(Predicate<? super T>[] predicates) {
+        Term<T>[] terms = new Term[predicates.length];
+        for (int i = 0; i < predicates.length; ++i)
+            terms[i] = new Term<T>(predicates[i]);
+        return terms;
+    }
+
+    @Override
+    public boolean test(T object) {
+        if ((++evaluations & (SAMPLING_INTERVAL - 1)) == 0 && sampling.compareAndSet(false, true))
+            try {
+                return testAndMeasure(object);
+            } finally {
+                sampling.set(false);
+            }
+        for (Term<T> term : order)
+            if (term.predicate.test(object) == disjunction)
+                return disjunction;
+        return !disjunction;
+    }
+
+    private boolean testAndMeasure(T object) {
+        boolean decided = false;
+        for (Term<T> term : order) {
+            long start = System.nanoTime();
+            boolean result = term.predicate.test(object);
+            term.record(System.nanoTime() - start, result == disjunction);
+            decided |= result == disjunction;
+        }
+        if (++samples == SAMPLES_PER_REORDERING) {
+            samples = 0;
+            reorder();
+        }
+        return decided == disjunction;
+    }
+
+    List<Predicate<? super T>> currentOrder() {
+        Term<T>[] currentOrder = order;
+        List<Predicate<? super T>> predicates = new ArrayList<Predicate<? super T>>();
+        for (Term<T> term : currentOrder)
+            predicates.add(term.predicate);
+        return predicates;
+    }
+
+    private void reorder() {
+        Term<T>[] newOrder = terms.clone();
+        for (Term<T> term : newOrder)
+            term.updateRank();
+        Arrays.sort(newOrder, new Comparator<Term<T>>() {
+            @Override
+            public int compare(Term<T> first, Term<T> second) {
+                return Double.compare(first.rank, second.rank);
+            }
+        });
+        order = newOrder;
+    }
+
+    private static class Term<T> {
+        final Predicate<? super T> predicate;
+        long nanos = 0;
+        long decisions = 0;
+        long count = 0;
+        double rank = 0;
+
+        Term(Predicate<? super T> predicate) {
+            this.predicate = predicate;
+        }
+
+        void record(long nanos, boolean decision) {
+            this.nanos += nanos;
+            this.count += 1;
+            if (decision)
+                this.decisions += 1;
+        }
+
+        /**
+         * The rank is the expected cost of the term divided by the probability that it decides
+         * the result. Sorting the terms by rank minimizes the expected cost of the whole
+         * predicate. The measurements are halved afterwards, so that older measurements lose
+         * their weight.
+         */
+        void updateRank() {
+            double decisionProbability = (decisions + 1.0) / (count + 2.0);
+            rank = (nanos + 1.0) / Math.max(count, 1) / decisionProbability;
+            nanos /= 2;
+            decisions /= 2;
+            count /= 2;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.github.stefanbirkner.filtertools.filter;
 
-import com.github.stefanbirkner.filtertools.filterchain.FilterWithFilterChain;
+import com.github.stefanbirkner.filtertools.filterchain.FiltersWithFilterChain;
+import com.github.stefanbirkner.filtertools.timing.SamplingProfiler;
+
+import javax.management.JMException;
 
 import javax.servlet.*;
 import java.io.IOException;
+import java.util.List;
 
-import static java.util.Arrays.copyOfRange;
+import static java.util.Arrays.asList;
 
 /**
  * Encase multiple filters into a single filter.
@@ -52,42 +56,132 @@ import static java.util.Arrays.copyOfRange;
  *   &lt;url-pattern&gt;/*&lt;/url-pattern&gt;
  * &lt;/filter-mapping&gt;
  * </pre>
+ *
+ * <p>The filters are initialized and destroyed one after another. The filters that have been
+ * initialized are destroyed if the initialization of a filter fails. Provide a
+ * {@link ParallelLifecycle} if the filters are independent of each other and need a long time to
+ * start.
+ *
+ * <p>Provide a {@link SamplingProfiler} to measure the filters for a sample of the requests.
+ *
+ * <p>A request runs through a single {@link FiltersWithFilterChain}. Therefore a filter must not
+ * call the filter chain after it returned, e.g. from an asynchronous task.
  */
 public class EncasedFilters implements Filter {
-    private static final Filter NO_OP_FILTER = new NoOpFilter();
-    private final Filter firstFilter;
-    private final Filter secondFilter;
+    private static final ParallelLifecycle.Member<Filter> FILTER = new ParallelLifecycle.Member<Filter>() {
+        @Override
+        public void init(Filter filter, FilterConfig filterConfig) throws ServletException {
+            filter.init(filterConfig);
+        }
+
+        @Override
+        public void destroy(Filter filter) {
+            filter.destroy();
+        }
+    };
+    private final Filter[] filters;
+    private final ParallelLifecycle parallelLifecycle;
+    private final SamplingProfiler profiler;
 
     public EncasedFilters(Filter... filters) {
-        this.firstFilter = (filters.length == 0) ? NO_OP_FILTER : filters[0];
-        this.secondFilter = (filters.length > 1) ? new EncasedFilters(rest(filters)) : NO_OP_FILTER;
+        this.filters = filters.clone();
+        this.parallelLifecycle = null;
+        this.profiler = null;
+    }
+
+    /**
+     * Creates an {@code EncasedFilters} whose filters are initialized and destroyed in parallel.
+     *
+     * @param parallelLifecycle initializes and destroys the filters.
+     * @param filters           the filters.
+     * @since 1.5.0
+     */
+    public EncasedFilters(ParallelLifecycle parallelLifecycle, Filter... filters) {
+        if (parallelLifecycle == null)
+            throw new NullPointerException("The parallel lifecycle is missing.");
+        this.filters = filters.clone();
+        this.parallelLifecycle = parallelLifecycle;
+        this.profiler = null;
     }
 
-    private Filter[] rest(Filter[] filters) {
-        return copyOfRange(filters, 1, filters.length);
+    /**
+     * Creates an {@code EncasedFilters} whose filters are profiled for a sample of the requests.
+     * The profiler is registered as an MBean while the filters are initialized.
+     *
+     * @param profiler the profiler. It must not be used by another chain of filters.
+     * @param filters  the filters.
+     * @since 1.5.0
+     */
+    public EncasedFilters(SamplingProfiler profiler, Filter... filters) {
+        if (profiler == null)
+            throw new NullPointerException("The profiler is missing.");
+        this.filters = filters.clone();
+        this.parallelLifecycle = null;
+        this.profiler = profiler;
+        profiler.attach(this.filters);
     }
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-        firstFilter.init(filterConfig);
-        secondFilter.init(filterConfig);
+        initFilters(filterConfig);
+        if (profiler != null)
+            try {
+                profiler.register();
+            } catch (JMException e) {
+                destroy();
+                throw new ServletException("Cannot register the profiler " + profiler.getName() + ".", e);
+            }
+    }
+
+    private void initFilters(FilterConfig filterConfig) throws ServletException {
+        if (parallelLifecycle != null) {
+            parallelLifecycle.init(asList(filters), FILTER, filterConfig);
+            return;
+        }
+        int initializedFilters = 0;
+        try {
+            for (Filter filter : filters) {
+                filter.init(filterConfig);
+                ++initializedFilters;
+            }
+        } catch (ServletException e) {
+            destroyRemainingFilters(asList(filters).subList(0, initializedFilters), 0);
+            throw e;
+        } catch (RuntimeException e) {
+            destroyRemainingFilters(asList(filters).subList(0, initializedFilters), 0);
+            throw e;
+        }
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response,
                          final FilterChain filterChain)
         throws IOException, ServletException {
-        FilterChain secondFilterWithFilterChain = new FilterWithFilterChain(
-            secondFilter, filterChain);
-        firstFilter.doFilter(request, response, secondFilterWithFilterChain);
+        FilterChain filtersWithFilterChain = profiler == null
+            ? new FiltersWithFilterChain(filters, filterChain)
+            : profiler.createFilterChain(filters, filterChain);
+        filtersWithFilterChain.doFilter(request, response);
     }
 
     @Override
     public void destroy() {
         try {
-            firstFilter.destroy();
+            if (parallelLifecycle == null)
+                destroyRemainingFilters(asList(filters), 0);
+            else
+                parallelLifecycle.destroy(asList(filters), FILTER);
         } finally {
-            secondFilter.destroy();
+            if (profiler != null)
+                profiler.unregister();
         }
     }
+
+    private void destroyRemainingFilters(List<Filter> filtersToDestroy, int index) {
+        if (index < filtersToDestroy.size())
+            try {
+                filtersToDestroy.get(index).destroy();
+            } finally {
+                destroyRemainingFilters(filtersToDestroy, index + 1);
+            }
+    }
 }
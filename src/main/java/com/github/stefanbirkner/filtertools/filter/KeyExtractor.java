@@ -0,0 +1,19 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+/**
+ * Extracts a key from an object, e.g. the HTTP method of a request. Could be used as functional
+ * interface in Java 8.
+ *
+ * @param <T> the type of the object.
+ * @param <K> the type of the key.
+ * @since 1.5.0
+ */
+public interface KeyExtractor<T, K> {
+    /**
+     * Extracts the key from the given object.
+     *
+     * @param object the input object
+     * @return the key or {@code null} if the object has no key.
+     */
+    K extract(T object);
+}
@@ -0,0 +1,129 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import javax.servlet.ServletRequest;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A predicate that evaluates another predicate at most once per request. Use it for expensive
+ * predicates that are used by multiple filters and actions. All of them have to use the same
+ * instance of the {@code MemoizedPredicate}. The predicates of a chain of filters share a
+ * {@link Scope}. Create a new scope whenever you create the chain.
+ * <pre>
+ * MemoizedPredicate.Scope scope = new MemoizedPredicate.Scope();
+ * Predicate&lt;HttpServletRequest&gt; isApiClient = new MemoizedPredicate&lt;HttpServletRequest&gt;(
+ *     scope, new IsAuthenticatedApiClient());
+ * </pre>
+ *
+ * <p>The results of all memoized predicates of a scope are stored in a single request attribute.
+ * Every {@code MemoizedPredicate} owns a slot of this attribute, so that a result is found by an
+ * array access instead of a lookup by name. The result is kept until the request is finished, even
+ * if the request is forwarded or wrapped by another filter. The size of the attribute only depends
+ * on the number of predicates of its scope. Predicates of other scopes, e.g. the predicates of a
+ * chain that has been replaced by a {@link SwappableFilter}, do not enlarge it.
+ *
+ * <p>A memoized predicate may be tested by multiple threads for the same request, e.g. by actions
+ * of a {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.ParallelFilterActions}.
+ * Neither the attribute nor the results are locked, because a request is usually processed by a
+ * single thread. A thread sees the results that have been stored before it has been started, but
+ * it may miss a result that another thread stores concurrently. Then the predicate is evaluated
+ * once more. Memoize only predicates that may be evaluated more than once.
+ *
+ * @param <T> the type of the request.
+ * @since 1.5.0
+ */
+public class MemoizedPredicate<T extends ServletRequest> implements Predicate<T> {
+    static final String RESULTS_ATTRIBUTE = MemoizedPredicate.class.getName() + ".results";
+    private static final byte UNKNOWN = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private final Scope scope;
+    private final Predicate<? super T> predicate;
+    private final int slot;
+
+    /**
+     * Creates a {@code MemoizedPredicate}.
+     *
+     * @param scope     the scope of the chain of filters that uses the predicate.
+     * @param predicate the predicate that is evaluated at most once per request.
+     */
+    public MemoizedPredicate(Scope scope, Predicate<? super T> predicate) {
+        if (scope == null)
+            throw new NullPointerException("The scope is missing.");
+        if (predicate == null)
+            throw new NullPointerException("The predicate is missing.");
+        this.scope = scope;
+        this.predicate = predicate;
+        this.slot = scope.newSlot();
+    }
+
+    @Override
+    public boolean test(T request) {
+        Results results = scope.resultsOf(request);
+        byte result = results.get(slot);
+        if (result == UNKNOWN) {
+            boolean value = predicate.test(request);
+            results.set(slot, value ? TRUE : FALSE);
+            return value;
+        } else
+            return result == TRUE;
+    }
+
+    /**
+     * The memoized predicates of a chain of filters. Every scope stores the results in its own
+     * request attribute.
+     */
+    public static class Scope {
+        private static final AtomicLong NEXT_ID = new AtomicLong();
+        private final String attribute = RESULTS_ATTRIBUTE + "." + NEXT_ID.getAndIncrement();
+        private volatile int size = 0;
+
+        private synchronized int newSlot() {
+            return size++;
+        }
+
+        String getAttribute() {
+            return attribute;
+        }
+
+        /**
+         * Returns the results of the request. The attribute is request-confined, therefore it is
+         * created without a lock. Threads that create it concurrently only lose results.
+         */
+        private Results resultsOf(ServletRequest request) {
+            Object results = request.getAttribute(attribute);
+            if (results instanceof Results)
+                return (Results) results;
+            Results newResults = new Results(size);
+            request.setAttribute(attribute, newResults);
+            return newResults;
+        }
+    }
+
+    /**
+     * The results of the predicates of a scope. A result that is lost by a concurrent update is
+     * computed again.
+     */
+    private static class Results {
+        private volatile byte[] values;
+
+        Results(int size) {
+            values = new byte[size];
+        }
+
+        byte get(int slot) {
+            byte[] values = this.values;
+            return (slot < values.length) ? values[slot] : UNKNOWN;
+        }
+
+        void set(int slot, byte value) {
+            byte[] values = this.values;
+            if (slot >= values.length) { //the predicate has been created after the results
+                byte[] newValues = new byte[slot + 1];
+                System.arraycopy(values, 0, newValues, 0, values.length);
+                newValues[slot] = value;
+                this.values = newValues;
+            } else
+                values[slot] = value;
+        }
+    }
+}
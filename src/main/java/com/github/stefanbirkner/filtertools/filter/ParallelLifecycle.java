@@ -0,0 +1,285 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Initializes and destroys independent members of a filter (e.g. the filters of an
+ * {@link EncasedFilters}) in parallel. Use it if some members need a long time to start, because
+ * they load data or warm caches.
+ * <pre>
+ * public class MyEncasedFilters extends EncasedFilters {
+ *   public MyEncasedFilters() {
+ *     super(new ParallelLifecycle(4, 30000), new GeoIpFilter(), new RulesFilter());
+ *   }
+ * }
+ * </pre>
+ * <p>The members are initialized by a pool with a fixed number of threads that is created for
+ * each initialization and shut down afterwards. The initialization fails if a member fails or if
+ * not all members have been initialized before the timeout. In this case the members that have
+ * been initialized are destroyed. A member whose initialization is still running is interrupted
+ * and it is destroyed as soon as its initialization returns.
+ *
+ * <p>If the members are initialized during a hand-over of MBeans (see
+ * {@link MBeanRegistration#beginHandOver()}), then they are initialized during a hand-over in the
+ * threads of the pool, too.
+ *
+ * <p>The members are destroyed the same way. All members are destroyed even if some of them fail.
+ * Afterwards the exception of the first failing member (in the order of the members) is rethrown.
+ * Members whose destruction takes longer than the timeout are left to finish in the background.
+ *
+ * <p><em>Caution!</em> The members must not depend on each other, because they are initialized
+ * in no particular order.
+ *
+ * @since 1.5.0
+ */
+public class ParallelLifecycle {
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+    private final int numberOfThreads;
+    private final long timeoutMillis;
+
+    /**
+     * Creates a {@code ParallelLifecycle}.
+     *
+     * @param numberOfThreads the maximum number of members that are initialized or destroyed at
+     *                        the same time.
+     * @param timeoutMillis   the maximum time in milliseconds for initializing or destroying all
+     *                        members.
+     */
+    public ParallelLifecycle(int numberOfThreads, long timeoutMillis) {
+        if (numberOfThreads <= 0)
+            throw new IllegalArgumentException(
+                "The number of threads must be positive, but it is " + numberOfThreads + ".");
+        if (timeoutMillis <= 0)
+            throw new IllegalArgumentException("The timeout must be positive, but it is " + timeoutMillis + ".");
+        this.numberOfThreads = numberOfThreads;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * The lifecycle methods of a type of member.
+     *
+     * @param <T> the type of the member.
+     */
+    public interface Member<T> {
+        void init(T member, FilterConfig filterConfig) throws ServletException;
+
+        void destroy(T member);
+    }
+
+    /**
+     * Initializes the members in parallel.
+     *
+     * @param members      the members.
+     * @param lifecycle    initializes and destroys a single member.
+     * @param filterConfig the configuration that is passed to every member.
+     * @param <T>          the type of the members.
+     * @throws ServletException if a member failed with a {@code ServletException} or if the
+     *                          members have not been initialized before the timeout.
+     */
+    public <T> void init(List<T> members, Member<? super T> lifecycle, FilterConfig filterConfig)
+        throws ServletException {
+        if (members.isEmpty())
+            return;
+        List<InitTask<T>> tasks = new ArrayList<InitTask<T>>(members.size());
+        ExecutorService executor = createExecutor(members.size());
+        Throwable firstFailure = null;
+        try {
+            for (T member : members) {
+                InitTask<T> task = new InitTask<T>(member, lifecycle, filterConfig);
+                tasks.add(task);
+                executor.execute(task);
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            for (InitTask<T> task : tasks) {
+                Throwable failure = task.await(deadline);
+                if (firstFailure == null)
+                    firstFailure = failure;
+            }
+        } finally {
+            if (firstFailure == null)
+                executor.shutdown();
+            else
+                executor.shutdownNow();
+        }
+        if (firstFailure != null) {
+            try {
+                destroy(abandon(tasks), lifecycle);
+            } finally {
+                rethrow(firstFailure);
+            }
+        }
+    }
+
+    private <T> List<T> abandon(List<InitTask<T>> tasks) {
+        List<T> initializedMembers = new ArrayList<T>();
+        for (InitTask<T> task : tasks)
+            if (task.abandon())
+                initializedMembers.add(task.member);
+        return initializedMembers;
+    }
+
+    /**
+     * Destroys the members in parallel.
+     *
+     * @param members   the members.
+     * @param lifecycle destroys a single member.
+     * @param <T>       the type of the members.
+     */
+    public <T> void destroy(List<T> members, Member<? super T> lifecycle) {
+        if (members.isEmpty())
+            return;
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(members.size());
+        ExecutorService executor = createExecutor(members.size());
+        try {
+            for (T member : members) {
+                FutureTask<Void> task = new FutureTask<Void>(new DestroyMember<T>(member, lifecycle), null);
+                tasks.add(task);
+                executor.execute(task);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Throwable firstFailure = null;
+        for (FutureTask<Void> task : tasks) {
+            Throwable failure = waitFor(task, deadline);
+            if (firstFailure == null)
+                firstFailure = failure;
+        }
+        if (firstFailure instanceof RuntimeException)
+            throw (RuntimeException) firstFailure;
+        else if (firstFailure instanceof Error)
+            throw (Error) firstFailure;
+    }
+
+    private static Throwable waitFor(FutureTask<Void> task, long deadline) {
+        try {
+            task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            return null; //the member is destroyed in the background
+        }
+    }
+
+    private ExecutorService createExecutor(int numberOfMembers) {
+        return Executors.newFixedThreadPool(Math.min(numberOfThreads, numberOfMembers), new LifecycleThreadFactory());
+    }
+
+    private static void rethrow(Throwable failure) throws ServletException {
+        if (failure instanceof ServletException)
+            throw (ServletException) failure;
+        else if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        else if (failure instanceof Error)
+            throw (Error) failure;
+        else
+            throw new ServletException(failure);
+    }
+
+    private class InitTask<T> implements Runnable {
+        final T member;
+        private final Member<? super T> lifecycle;
+        private final FilterConfig filterConfig;
+        private final boolean handOver = MBeanRegistration.isHandingOver();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile Throwable failure;
+        private boolean initialized = false; //guarded by this
+        private boolean abandoned = false; //guarded by this
+
+        InitTask(T member, Member<? super T> lifecycle, FilterConfig filterConfig) {
+            this.member = member;
+            this.lifecycle = lifecycle;
+            this.filterConfig = filterConfig;
+        }
+
+        @Override
+        public void run() {
+            try {
+                initMember();
+                if (!markInitialized())
+                    lifecycle.destroy(member);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void initMember() throws ServletException {
+            if (handOver)
+                MBeanRegistration.beginHandOver();
+            try {
+                lifecycle.init(member, filterConfig);
+            } finally {
+                if (handOver)
+                    MBeanRegistration.endHandOver();
+            }
+        }
+
+        private synchronized boolean markInitialized() {
+            initialized = !abandoned;
+            return initialized;
+        }
+
+        Throwable await(long deadline) {
+            try {
+                if (finished.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS))
+                    return failure;
+                else
+                    return new ServletException(
+                        "The initialization did not finish within " + timeoutMillis + " ms.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ServletException("The initialization has been interrupted.", e);
+            }
+        }
+
+        /**
+         * Prevents that the member stays initialized. Returns {@code true} if the member has
+         * already been initialized and has to be destroyed by the caller.
+         */
+        synchronized boolean abandon() {
+            abandoned = true;
+            return initialized;
+        }
+    }
+
+    private static class DestroyMember<T> implements Runnable {
+        private final T member;
+        private final Member<? super T> lifecycle;
+
+        DestroyMember(T member, Member<? super T> lifecycle) {
+            this.member = member;
+            this.lifecycle = lifecycle;
+        }
+
+        @Override
+        public void run() {
+            lifecycle.destroy(member);
+        }
+    }
+
+    private static class LifecycleThreadFactory implements ThreadFactory {
+        private final String prefix = "filter-lifecycle-" + POOL_NUMBER.incrementAndGet() + "-";
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.github.stefanbirkner.filtertools.filter;
 
 /**
  * A predicate that is used for enabling the {@link OptionalFilter}. Could be used as functional
- * interface in Java 8.
+ * interface in Java 8. Predicates can be combined by {@link Predicates}.
  *
  * @param <T> the type of the input to the predicate.
  */
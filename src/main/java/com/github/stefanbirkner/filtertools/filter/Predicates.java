@@ -0,0 +1,303 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+/**
+ * Combines {@link Predicate}s.
+ * <pre>
+ * Predicate&lt;ServletRequest&gt; predicate = and(isApiRequest, not(isHealthCheck));
+ * </pre>
+ *
+ * <p>{@link #and(Predicate[])} and {@link #or(Predicate[])} evaluate their predicates in the
+ * specified order and stop as soon as the result is known. The adaptive variants
+ * {@link #adaptiveAnd(Predicate[])} and {@link #adaptiveOr(Predicate[])} measure the cost and the
+ * outcome of their predicates and reorder them, so that cheap predicates that decide the result
+ * are evaluated first. They evaluate their predicates in any order and evaluate all of them for a
+ * sample of the requests. Therefore the predicates must not have side effects and must not rely on
+ * another predicate that guards them. E.g. {@code adaptiveAnd(isHttpRequest, hasHeader)} calls
+ * {@code hasHeader} for requests that are not HTTP requests, too. Use {@link #and(Predicate[])}
+ * for such predicates.
+ *
+ * <p>Every method has overloads for two, three and four predicates. A call of the method with
+ * variable arguments creates a generic array, which causes an unchecked warning at the call site
+ * (Java 6 has no {@code @SafeVarargs}). The overloads avoid this warning.
+ *
+ * @since 1.5.0
+ */
+public class Predicates {
+    /**
+     * Returns a predicate that matches if the specified predicate does not match.
+     *
+     * @param predicate the predicate that is negated.
+     * @param <T>       the type of the input to the predicate.
+     * @return the negated predicate.
+     */
+    public static <T> Predicate<T> not(final Predicate<? super T> predicate) {
+        notNull(predicate);
+        return new Predicate<T>() {
+            @Override
+            public boolean test(T object) {
+                return !predicate.test(object);
+            }
+        };
+    }
+
+    /**
+     * Returns a predicate that matches if all specified predicates match. The predicates are
+     * evaluated in the specified order until a predicate does not match.
+     *
+     * @param predicates the predicates.
+     * @param <T>        the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    @SuppressWarnings("unchecked") //the array is only read
+    public static <T> Predicate<T> and(Predicate<? super T>... predicates) {
+        final Predicate<? super T>[] terms = notNull(predicates.clone());
+        return new Predicate<T>() {
+            @Override
+            public boolean test(T object) {
+                for (Predicate<? super T> term : terms)
+                    if (!term.test(object))
+                        return false;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #and(Predicate[])} for two predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> and(Predicate<? super T> first, Predicate<? super T> second) {
+        return and(Predicates.<T>array(first, second));
+    }
+
+    /**
+     * Same as {@link #and(Predicate[])} for three predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> and(
+        Predicate<? super T> first, Predicate<? super T> second, Predicate<? super T> third) {
+        return and(Predicates.<T>array(first, second, third));
+    }
+
+    /**
+     * Same as {@link #and(Predicate[])} for four predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param fourth the fourth predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> and(
+        Predicate<? super T> first, Predicate<? super T> second,
+        Predicate<? super T> third, Predicate<? super T> fourth) {
+        return and(Predicates.<T>array(first, second, third, fourth));
+    }
+
+    /**
+     * Returns a predicate that matches if at least one of the specified predicates matches. The
+     * predicates are evaluated in the specified order until a predicate matches.
+     *
+     * @param predicates the predicates.
+     * @param <T>        the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    @SuppressWarnings("unchecked") //the array is only read
+    public static <T> Predicate<T> or(Predicate<? super T>... predicates) {
+        final Predicate<? super T>[] terms = notNull(predicates.clone());
+        return new Predicate<T>() {
+            @Override
+            public boolean test(T object) {
+                for (Predicate<? super T> term : terms)
+                    if (term.test(object))
+                        return true;
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Same as {@link #or(Predicate[])} for two predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> or(Predicate<? super T> first, Predicate<? super T> second) {
+        return or(Predicates.<T>array(first, second));
+    }
+
+    /**
+     * Same as {@link #or(Predicate[])} for three predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> or(
+        Predicate<? super T> first, Predicate<? super T> second, Predicate<? super T> third) {
+        return or(Predicates.<T>array(first, second, third));
+    }
+
+    /**
+     * Same as {@link #or(Predicate[])} for four predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param fourth the fourth predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> or(
+        Predicate<? super T> first, Predicate<? super T> second,
+        Predicate<? super T> third, Predicate<? super T> fourth) {
+        return or(Predicates.<T>array(first, second, third, fourth));
+    }
+
+    /**
+     * Returns a predicate that matches if all specified predicates match. It evaluates the
+     * predicates in the order that has the lowest expected cost according to its measurements.
+     * The order may change at any time and for a sample of the evaluations all predicates are
+     * evaluated.
+     *
+     * @param predicates the predicates. They must not have side effects and must not depend on
+     *                   being evaluated after another predicate.
+     * @param <T>        the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    @SuppressWarnings("unchecked") //the array is only read
+    public static <T> Predicate<T> adaptiveAnd(Predicate<? super T>... predicates) {
+        return new AdaptivePredicate<T>(false, notNull(predicates.clone()));
+    }
+
+    /**
+     * Same as {@link #adaptiveAnd(Predicate[])} for two predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> adaptiveAnd(Predicate<? super T> first, Predicate<? super T> second) {
+        return adaptiveAnd(Predicates.<T>array(first, second));
+    }
+
+    /**
+     * Same as {@link #adaptiveAnd(Predicate[])} for three predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> adaptiveAnd(
+        Predicate<? super T> first, Predicate<? super T> second, Predicate<? super T> third) {
+        return adaptiveAnd(Predicates.<T>array(first, second, third));
+    }
+
+    /**
+     * Same as {@link #adaptiveAnd(Predicate[])} for four predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param fourth the fourth predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> adaptiveAnd(
+        Predicate<? super T> first, Predicate<? super T> second,
+        Predicate<? super T> third, Predicate<? super T> fourth) {
+        return adaptiveAnd(Predicates.<T>array(first, second, third, fourth));
+    }
+
+    /**
+     * Returns a predicate that matches if at least one of the specified predicates matches. It
+     * evaluates the predicates in the order that has the lowest expected cost according to its
+     * measurements. The order may change at any time and for a sample of the evaluations all
+     * predicates are evaluated.
+     *
+     * @param predicates the predicates. They must not have side effects and must not depend on
+     *                   being evaluated after another predicate.
+     * @param <T>        the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    @SuppressWarnings("unchecked") //the array is only read
+    public static <T> Predicate<T> adaptiveOr(Predicate<? super T>... predicates) {
+        return new AdaptivePredicate<T>(true, notNull(predicates.clone()));
+    }
+
+    /**
+     * Same as {@link #adaptiveOr(Predicate[])} for two predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> adaptiveOr(Predicate<? super T> first, Predicate<? super T> second) {
+        return adaptiveOr(Predicates.<T>array(first, second));
+    }
+
+    /**
+     * Same as {@link #adaptiveOr(Predicate[])} for three predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> adaptiveOr(
+        Predicate<? super T> first, Predicate<? super T> second, Predicate<? super T> third) {
+        return adaptiveOr(Predicates.<T>array(first, second, third));
+    }
+
+    /**
+     * Same as {@link #adaptiveOr(Predicate[])} for four predicates.
+     *
+     * @param first  the first predicate.
+     * @param second the second predicate.
+     * @param third  the third predicate.
+     * @param fourth the fourth predicate.
+     * @param <T>    the type of the input to the predicates.
+     * @return the combined predicate.
+     */
+    public static <T> Predicate<T> adaptiveOr(
+        Predicate<? super T> first, Predicate<? super T> second,
+        Predicate<? super T> third, Predicate<? super T> fourth) {
+        return adaptiveOr(Predicates.<T>array(first, second, third, fourth));
+    }
+
+    @SuppressWarnings("unchecked") //Java cannot create an array of Predicate<? super T>
+    private static <T> Predicate<? super T>[] array(Predicate<?>... predicates) {
+        return (Predicate<? super T>[]) predicates;
+    }
+
+    private static <P> P notNull(P predicate) {
+        if (predicate == null)
+            throw new NullPointerException("The predicate is missing.");
+        return predicate;
+    }
+
+    private static <P> P[] notNull(P[] predicates) {
+        for (P predicate : predicates)
+            notNull(predicate);
+        return predicates;
+    }
+}
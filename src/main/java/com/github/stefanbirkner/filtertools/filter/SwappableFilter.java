@@ -0,0 +1,170 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.servlet.*;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A filter whose delegate can be replaced at runtime, e.g. for enabling a debug filter or for
+ * replacing a rule set without a redeployment.
+ * <pre>
+ * SwappableFilter filter = new SwappableFilter(new EncasedFilters(new RulesFilter(oldRules)));
+ * ...
+ * filter.swap(new EncasedFilters(new RulesFilter(newRules), new DebugFilter()));
+ * </pre>
+ * <p>The current delegate is published by an atomic reference. Requests don't acquire a lock.
+ * A request that started before a swap is finished by the old delegate, new requests are
+ * processed by the new delegate immediately. The old delegate is destroyed as soon as the last of
+ * its requests is finished. This is done by the thread of that request and a failure is ignored,
+ * because it must not fail the request.
+ *
+ * <p>A delegate that is swapped in after the filter has been initialized is initialized with the
+ * filter's configuration before it is published. The old delegate still exists at this time. The
+ * MBeans of the new delegate take over the object names of the old delegate's MBeans (see
+ * {@link MBeanRegistration#beginHandOver()}), so that a delegate can be replaced by a delegate
+ * with the same {@link com.github.stefanbirkner.filtertools.timing.TimedFilter}s or profiler. The
+ * old delegate keeps working without MBeans until it is destroyed. If the new delegate cannot be
+ * initialized then the old delegate stays in place, but it may have lost its MBeans.
+ *
+ * <p>Other resources are not handed over. E.g. if both delegates write an access log to the same
+ * file, then both write to the file until the old delegate's last request is finished.
+ *
+ * <p><em>Caution!</em> A request that started asynchronous processing is finished when the
+ * delegate's {@code doFilter} returns. Don't swap delegates that are used by the asynchronous
+ * processing afterwards.
+ *
+ * @since 1.5.0
+ */
+public class SwappableFilter implements Filter {
+    private final AtomicReference<Generation> current;
+    private FilterConfig filterConfig; //guarded by this
+
+    /**
+     * Creates a {@code SwappableFilter}.
+     *
+     * @param filter the initial delegate.
+     */
+    public SwappableFilter(Filter filter) {
+        current = new AtomicReference<Generation>(new Generation(notNull(filter)));
+    }
+
+    /**
+     * Returns the delegate that processes new requests.
+     *
+     * @return the delegate that processes new requests.
+     */
+    public Filter getFilter() {
+        return current.get().filter;
+    }
+
+    @Override
+    public synchronized void init(FilterConfig filterConfig) throws ServletException {
+        current.get().filter.init(filterConfig);
+        this.filterConfig = filterConfig;
+    }
+
+    /**
+     * Replaces the delegate. The new delegate is initialized before it is published if this
+     * filter has been initialized. Its MBeans take over the object names of the old delegate's
+     * MBeans. The old delegate is destroyed after its last request has been finished.
+     *
+     * @param filter the new delegate.
+     * @throws ServletException if the new delegate cannot be initialized. The old delegate stays
+     *                          in place in this case.
+     */
+    public synchronized void swap(Filter filter) throws ServletException {
+        notNull(filter);
+        if (filterConfig != null) {
+            MBeanRegistration.beginHandOver();
+            try {
+                filter.init(filterConfig);
+            } finally {
+                MBeanRegistration.endHandOver();
+            }
+        }
+        Generation oldGeneration = current.getAndSet(new Generation(filter));
+        if (filterConfig != null && oldGeneration.release())
+            oldGeneration.filter.destroy();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        Generation generation = acquireCurrentGeneration();
+        try {
+            generation.filter.doFilter(request, response, filterChain);
+        } finally {
+            if (generation.release())
+                destroyQuietly(generation.filter);
+        }
+    }
+
+    private Generation acquireCurrentGeneration() {
+        while (true) {
+            Generation generation = current.get();
+            if (generation.acquire())
+                return generation;
+            //the generation has been retired after we read it, the next read returns its successor
+        }
+    }
+
+    private static void destroyQuietly(Filter filter) {
+        try {
+            filter.destroy();
+        } catch (RuntimeException ignored) {
+            //the request must not fail because of the old filter
+        }
+    }
+
+    @Override
+    public synchronized void destroy() {
+        Generation generation = current.get();
+        if (filterConfig != null) {
+            filterConfig = null;
+            if (generation.release())
+                generation.filter.destroy();
+            current.set(new Generation(generation.filter));
+        }
+    }
+
+    private static Filter notNull(Filter filter) {
+        if (filter == null)
+            throw new NullPointerException("The filter is missing.");
+        return filter;
+    }
+
+    /**
+     * A delegate and the number of its references. The filter holds a reference to its current
+     * generation and every request that is processed by the generation holds a reference, too.
+     * The generation is drained when the last reference is released. It cannot be acquired
+     * afterwards.
+     */
+    private static class Generation {
+        final Filter filter;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        Generation(Filter filter) {
+            this.filter = filter;
+        }
+
+        boolean acquire() {
+            while (true) {
+                int currentReferences = references.get();
+                if (currentReferences == 0)
+                    return false;
+                if (references.compareAndSet(currentReferences, currentReferences + 1))
+                    return true;
+            }
+        }
+
+        /**
+         * Returns {@code true} if the last reference has been released.
+         */
+        boolean release() {
+            return references.decrementAndGet() == 0;
+        }
+    }
+}
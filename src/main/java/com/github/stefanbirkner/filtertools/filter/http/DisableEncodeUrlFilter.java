@@ -1,11 +1,7 @@
 package com.github.stefanbirkner.filtertools.filter.http;
 
-import javax.servlet.FilterChain;
-import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
-import java.io.IOException;
 
 /**
  * Disables the methods
@@ -19,16 +15,25 @@ import java.io.IOException;
  * <p><em>Caution!</em> This filter disables session support for clients
  * that don't accept cookies, because the session id is no longer
  * added to URLs.
+ * <p>The filter reuses its response wrappers and does not wrap a response
+ * that is already wrapped by a {@code DisableEncodeUrlFilter}.
  */
-public class DisableEncodeUrlFilter extends HttpFilter {
+public class DisableEncodeUrlFilter extends ResponseWrapperFilter<DisableEncodeUrlFilter.DisableEncodeUrlResponse> {
+    private static final int MAXIMUM_POOLED_WRAPPERS = 256;
+
+    public DisableEncodeUrlFilter() {
+        super(DisableEncodeUrlResponse.class, MAXIMUM_POOLED_WRAPPERS);
+    }
+
     @Override
-    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
-        throws IOException, ServletException {
-        DisableEncodeUrlResponse disableEncodeUrlResponse = new DisableEncodeUrlResponse(response);
-        filterChain.doFilter(request, disableEncodeUrlResponse);
+    protected DisableEncodeUrlResponse createWrapper(HttpServletResponse response) {
+        return new DisableEncodeUrlResponse(response);
     }
 
-    private static class DisableEncodeUrlResponse extends HttpServletResponseWrapper {
+    /**
+     * A response whose URL encoding methods return the URL unmodified.
+     */
+    protected static class DisableEncodeUrlResponse extends HttpServletResponseWrapper {
         public DisableEncodeUrlResponse(HttpServletResponse response) {
             super(response);
         }
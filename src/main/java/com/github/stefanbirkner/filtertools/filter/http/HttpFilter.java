@@ -17,6 +17,8 @@ import java.io.IOException;
  * @since 1.1.0
  */
 public abstract class HttpFilter implements Filter {
+    private static final boolean ASYNC_SUPPORTED = isAsyncSupported();
+
     /**
      * Does nothing. Can be overridden.
      *
@@ -69,4 +71,25 @@ public abstract class HttpFilter implements Filter {
     @Override
     public void destroy() {
     }
+
+    /**
+     * Returns {@code true} if the request started asynchronous processing. Always returns
+     * {@code false} with Servlet 2.x containers.
+     *
+     * @param request the request.
+     * @return {@code true} if the request started asynchronous processing.
+     * @since 1.5.0
+     */
+    protected static boolean isAsyncStarted(ServletRequest request) {
+        return ASYNC_SUPPORTED && request.isAsyncStarted();
+    }
+
+    private static boolean isAsyncSupported() {
+        try {
+            ServletRequest.class.getMethod("isAsyncStarted");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false; //Servlet 2.x
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+/**
+ * Compares regions of raw request data (query strings and header values) with expected text
+ * without creating strings for the regions.
+ */
+class RawText {
+    /**
+     * Returns {@code true} if the decoded region is equal to the expected bytes. The region is
+     * decoded like a form field: {@code %XX} is a byte and {@code '+'} is a space. Other
+     * characters are encoded as UTF-8. A {@code '%'} that is not followed by two hexadecimal digits
+     * is taken literally.
+     *
+     * @param text       the raw text.
+     * @param from       the start of the region (inclusive).
+     * @param to         the end of the region (exclusive).
+     * @param expected   the expected text encoded as UTF-8.
+     * @param ignoreCase whether ASCII letters are compared case-insensitively.
+     * @return {@code true} if the decoded region is equal to the expected bytes.
+     */
+    static boolean decodedEquals(String text, int from, int to, byte[] expected, boolean ignoreCase) {
+        int j = 0;
+        int i = from;
+        while (i < to) {
+            char c = text.charAt(i);
+            if (c == '%' && i + 2 < to && hex(text.charAt(i + 1)) >= 0 && hex(text.charAt(i + 2)) >= 0) {
+                if (j == expected.length
+                    || !bytesEqual(hex(text.charAt(i + 1)) << 4 | hex(text.charAt(i + 2)), expected[j++], ignoreCase))
+                    return false;
+                i += 3;
+            } else if (c < 0x80) {
+                if (j == expected.length || !bytesEqual(c == '+' ? ' ' : c, expected[j++], ignoreCase))
+                    return false;
+                ++i;
+            } else {
+                int codePoint = c;
+                ++i;
+                if (Character.isHighSurrogate(c) && i < to && Character.isLowSurrogate(text.charAt(i)))
+                    codePoint = Character.toCodePoint(c, text.charAt(i++));
+                int length = codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+                if (j + length > expected.length)
+                    return false;
+                for (int k = length - 1; k >= 0; --k) {
+                    int b = k == length - 1
+                        ? (0xff00 >> length) & 0xff | codePoint >> 6 * k //e.g. 110xxxxx for two bytes
+                        : 0x80 | (codePoint >> 6 * k) & 0x3f;
+                    if ((byte) b != expected[j++])
+                        return false;
+                }
+            }
+        }
+        return j == expected.length;
+    }
+
+    /**
+     * Returns {@code true} if the region is equal to the expected text.
+     */
+    static boolean regionEquals(String text, int from, int to, String expected, boolean ignoreCase) {
+        return to - from == expected.length() && text.regionMatches(ignoreCase, from, expected, 0, to - from);
+    }
+
+    /**
+     * Returns the index of the character within the region or the end of the region if the region
+     * does not contain it.
+     */
+    static int indexOf(String text, char c, int from, int to) {
+        while (from < to && text.charAt(from) != c)
+            ++from;
+        return from;
+    }
+
+    /**
+     * Returns the index of the first character of the region that is neither a space nor a tab.
+     */
+    static int skipWhitespace(String text, int from, int to) {
+        while (from < to && isWhitespace(text.charAt(from)))
+            ++from;
+        return from;
+    }
+
+    /**
+     * Returns the end of the region without trailing spaces and tabs.
+     */
+    static int trimWhitespace(String text, int from, int to) {
+        while (to > from && isWhitespace(text.charAt(to - 1)))
+            --to;
+        return to;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean bytesEqual(int actual, byte expected, boolean ignoreCase) {
+        return ignoreCase
+            ? toLowerCase(actual & 0xff) == toLowerCase(expected & 0xff)
+            : (byte) actual == expected;
+    }
+
+    private static int toLowerCase(int b) {
+        return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+    }
+
+    private static int hex(char c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        else if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        else if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        else
+            return -1;
+    }
+}
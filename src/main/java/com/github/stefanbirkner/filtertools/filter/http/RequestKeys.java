@@ -0,0 +1,64 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import com.github.stefanbirkner.filtertools.filter.KeyExtractor;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Frequently used {@link KeyExtractor}s for {@link HttpServletRequest}s.
+ *
+ * @since 1.5.0
+ */
+public class RequestKeys {
+    private static final KeyExtractor<HttpServletRequest, String> METHOD
+        = new KeyExtractor<HttpServletRequest, String>() {
+        @Override
+        public String extract(HttpServletRequest request) {
+            return request.getMethod();
+        }
+    };
+
+    private static final KeyExtractor<HttpServletRequest, String> REMOTE_ADDRESS
+        = new KeyExtractor<HttpServletRequest, String>() {
+        @Override
+        public String extract(HttpServletRequest request) {
+            return request.getRemoteAddr();
+        }
+    };
+
+    /**
+     * Returns an extractor for the HTTP method of a request (e.g. {@code GET}).
+     *
+     * @return an extractor for the HTTP method of a request.
+     */
+    public static KeyExtractor<HttpServletRequest, String> method() {
+        return METHOD;
+    }
+
+    /**
+     * Returns an extractor for the IP address of the client.
+     *
+     * @return an extractor for the IP address of the client.
+     */
+    public static KeyExtractor<HttpServletRequest, String> remoteAddress() {
+        return REMOTE_ADDRESS;
+    }
+
+    /**
+     * Returns an extractor for the value of a header. The key is {@code null} if the request
+     * has no such header.
+     *
+     * @param name the name of the header (e.g. {@code Host}).
+     * @return an extractor for the value of the header.
+     */
+    public static KeyExtractor<HttpServletRequest, String> header(final String name) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        return new KeyExtractor<HttpServletRequest, String>() {
+            @Override
+            public String extract(HttpServletRequest request) {
+                return request.getHeader(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,284 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+
+import static com.github.stefanbirkner.filtertools.filter.http.RawText.*;
+
+/**
+ * Creates {@link Predicate}s that inspect the query string, the cookies and the headers of a
+ * request for the {@link com.github.stefanbirkner.filtertools.filter.OptionalFilter} and the
+ * {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterActionSwitch}.
+ * <pre>
+ * public class BetaFilter extends OptionalFilter {
+ *   public BetaFilter() {
+ *     super(
+ *       or(queryParameterEquals("beta", "true"), cookiePresent("beta")),
+ *       new BetaFeaturesFilter());
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>The predicates scan the raw query string and the raw header values and stop as soon as the
+ * result is known. They never call {@link ServletRequest#getParameter(String)}, which parses the
+ * body of form posts, and {@link HttpServletRequest#getCookies()}, which creates new
+ * {@code Cookie}s for every call. The body of the request is never read. Requests that are not
+ * {@link HttpServletRequest}s never match.
+ *
+ * <p>All headers with the name are inspected if a request has multiple headers with that name.
+ * The first header is read by {@link HttpServletRequest#getHeader(String)}. Only if it is present
+ * but does not match, {@link HttpServletRequest#getHeaders(String)} is called for the other
+ * headers. This creates an {@code Enumeration}. Apart from that the predicates do not allocate
+ * memory.
+ *
+ * @since 1.5.0
+ */
+public class RequestPredicates {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Returns a predicate that matches requests whose query string has the specified parameter.
+     * The names are compared after decoding the query string (e.g. {@code %20} and {@code '+'}
+     * are spaces).
+     *
+     * @param name the name of the parameter.
+     * @return the predicate.
+     */
+    public static Predicate<ServletRequest> queryParameterPresent(String name) {
+        return queryParameter(name, null, false);
+    }
+
+    /**
+     * Returns a predicate that matches requests whose query string has the specified parameter
+     * with the specified value. The names and values are compared after decoding the query string
+     * (e.g. {@code %20} and {@code '+'} are spaces). A parameter without {@code '='} has an empty
+     * value.
+     *
+     * @param name  the name of the parameter.
+     * @param value the value of the parameter.
+     * @return the predicate.
+     */
+    public static Predicate<ServletRequest> queryParameterEquals(String name, String value) {
+        return queryParameter(name, notNull(value, "value"), false);
+    }
+
+    /**
+     * Returns a predicate that matches requests whose query string has the specified parameter
+     * with the specified value ignoring the case of ASCII letters. The name of the parameter is
+     * case-sensitive like the name for {@link ServletRequest#getParameter(String)}.
+     *
+     * @param name  the name of the parameter.
+     * @param value the value of the parameter.
+     * @return the predicate.
+     */
+    public static Predicate<ServletRequest> queryParameterEqualsIgnoreCase(String name, String value) {
+        return queryParameter(name, notNull(value, "value"), true);
+    }
+
+    /**
+     * Returns a predicate that matches requests with the specified cookie. The name is
+     * case-sensitive.
+     *
+     * @param name the name of the cookie.
+     * @return the predicate.
+     */
+    public static Predicate<ServletRequest> cookiePresent(String name) {
+        return cookie(name, null);
+    }
+
+    /**
+     * Returns a predicate that matches requests with the specified cookie and value. The name and
+     * the value are case-sensitive. Double quotes around the value are ignored.
+     *
+     * @param name  the name of the cookie.
+     * @param value the value of the cookie.
+     * @return the predicate.
+     */
+    public static Predicate<ServletRequest> cookieEquals(String name, String value) {
+        return cookie(name, notNull(value, "value"));
+    }
+
+    /**
+     * Returns a predicate that matches requests whose header is a comma-separated list that
+     * contains the specified token ignoring case, e.g. {@code headerHasToken("Accept-Encoding",
+     * "gzip")} matches {@code Accept-Encoding: deflate, GZIP;q=0.8}. An element with the quality
+     * {@code q=0} means "not acceptable" and is treated like an absent token, e.g.
+     * {@code Accept-Encoding: gzip;q=0} does not match. Other parameters of the elements of the
+     * list are ignored.
+     *
+     * @param name  the name of the header.
+     * @param token the token.
+     * @return the predicate.
+     */
+    public static Predicate<ServletRequest> headerHasToken(final String name, final String token) {
+        notNull(name, "name");
+        notNull(token, "token");
+        return new HeaderPredicate(name) {
+            @Override
+            boolean matches(String header) {
+                int length = header.length();
+                for (int start = 0; start <= length; ) {
+                    int end = indexOf(header, ',', start, length);
+                    int tokenStart = skipWhitespace(header, start, end);
+                    int parameters = indexOf(header, ';', tokenStart, end);
+                    if (regionEquals(header, tokenStart, trimWhitespace(header, tokenStart, parameters), token, true)
+                        && !hasQualityZero(header, parameters, end))
+                        return true;
+                    start = end + 1;
+                }
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return "headerHasToken(" + name + ", " + token + ")";
+            }
+        };
+    }
+
+    private static Predicate<ServletRequest> queryParameter(
+            final String name, final String value, final boolean ignoreCase) {
+        final byte[] encodedName = notNull(name, "name").getBytes(UTF_8);
+        final byte[] encodedValue = value == null ? null : value.getBytes(UTF_8);
+        return new Predicate<ServletRequest>() {
+            @Override
+            public boolean test(ServletRequest request) {
+                if (!(request instanceof HttpServletRequest))
+                    return false;
+                String query = ((HttpServletRequest) request).getQueryString();
+                if (query == null)
+                    return false;
+                int length = query.length();
+                for (int start = 0; start <= length; ) {
+                    int end = indexOf(query, '&', start, length);
+                    int nameEnd = indexOf(query, '=', start, end);
+                    if (decodedEquals(query, start, nameEnd, encodedName, false)
+                        && (encodedValue == null
+                            || decodedEquals(query, Math.min(nameEnd + 1, end), end, encodedValue, ignoreCase)))
+                        return true;
+                    start = end + 1;
+                }
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return value == null
+                    ? "queryParameterPresent(" + name + ")"
+                    : "queryParameterEquals" + (ignoreCase ? "IgnoreCase(" : "(") + name + ", " + value + ")";
+            }
+        };
+    }
+
+    private static Predicate<ServletRequest> cookie(final String name, final String value) {
+        notNull(name, "name");
+        return new HeaderPredicate("Cookie") {
+            @Override
+            boolean matches(String header) {
+                int length = header.length();
+                for (int start = 0; start <= length; ) {
+                    int end = indexOf(header, ';', start, length);
+                    int nameStart = skipWhitespace(header, start, end);
+                    int equals = indexOf(header, '=', nameStart, end);
+                    if (regionEquals(header, nameStart, trimWhitespace(header, nameStart, equals), name, false)
+                        && (value == null || valueEquals(header, Math.min(equals + 1, end), end)))
+                        return true;
+                    start = end + 1;
+                }
+                return false;
+            }
+
+            private boolean valueEquals(String header, int from, int to) {
+                from = skipWhitespace(header, from, to);
+                to = trimWhitespace(header, from, to);
+                if (to - from >= 2 && header.charAt(from) == '"' && header.charAt(to - 1) == '"') {
+                    ++from;
+                    --to;
+                }
+                return regionEquals(header, from, to, value, false);
+            }
+
+            @Override
+            public String toString() {
+                return value == null
+                    ? "cookiePresent(" + name + ")"
+                    : "cookieEquals(" + name + ", " + value + ")";
+            }
+        };
+    }
+
+    /**
+     * Returns {@code true} if the parameters {@code ;a=b;q=0} of a list element within the region
+     * have the quality zero.
+     */
+    private static boolean hasQualityZero(String header, int from, int to) {
+        for (int start = from; start < to; ) {
+            int end = indexOf(header, ';', start + 1, to);
+            int nameStart = skipWhitespace(header, start + 1, end);
+            int equals = indexOf(header, '=', nameStart, end);
+            if (regionEquals(header, nameStart, trimWhitespace(header, nameStart, equals), "q", true)) {
+                int valueStart = skipWhitespace(header, Math.min(equals + 1, end), end);
+                return isZero(header, valueStart, trimWhitespace(header, valueStart, end));
+            }
+            start = end;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the region is a quality value of zero ({@code 0}, {@code 0.},
+     * {@code 0.0}, {@code 0.00} or {@code 0.000}).
+     */
+    private static boolean isZero(String text, int from, int to) {
+        if (to - from < 1 || to - from > 5 || text.charAt(from) != '0')
+            return false;
+        if (to - from == 1)
+            return true;
+        if (text.charAt(from + 1) != '.')
+            return false;
+        for (int i = from + 2; i < to; ++i)
+            if (text.charAt(i) != '0')
+                return false;
+        return true;
+    }
+
+    private static String notNull(String text, String description) {
+        if (text == null)
+            throw new NullPointerException("The " + description + " is missing.");
+        return text;
+    }
+
+    private abstract static class HeaderPredicate implements Predicate<ServletRequest> {
+        private final String name;
+
+        HeaderPredicate(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean test(ServletRequest request) {
+            if (!(request instanceof HttpServletRequest))
+                return false;
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            String first = httpRequest.getHeader(name);
+            if (first == null)
+                return false;
+            if (matches(first))
+                return true;
+            Enumeration<?> headers = httpRequest.getHeaders(name);
+            if (headers == null || !headers.hasMoreElements())
+                return false;
+            headers.nextElement(); //the first header has been inspected already
+            while (headers.hasMoreElements())
+                if (matches((String) headers.nextElement()))
+                    return true;
+            return false;
+        }
+
+        abstract boolean matches(String header);
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Base class for filters that call the filter chain with a wrapped response. You have to
+ * implement {@link #createWrapper(HttpServletResponse)}.
+ * <pre>
+ * public class YourFilter extends ResponseWrapperFilter&lt;YourResponse&gt; {
+ *   public YourFilter() {
+ *     super(YourResponse.class);
+ *   }
+ *
+ *   protected YourResponse createWrapper(HttpServletResponse response) {
+ *     return new YourResponse(response);
+ *   }
+ * }
+ * </pre>
+ *
+ * <p>By default every request gets a new wrapper. A filter whose wrapper has no state besides
+ * the wrapped response can reuse its wrappers by calling
+ * {@link #ResponseWrapperFilter(Class, int)}. A reused wrapper is re-targeted to the response of
+ * the current request by {@link HttpServletResponseWrapper#setResponse(ServletResponse)}. When the
+ * filter chain returns, the wrapper's response is replaced by a placeholder that throws an
+ * {@link IllegalStateException} and the wrapper is returned to a bounded pool. Therefore code that
+ * keeps a reference to the wrapper fails instead of writing into the response of another request.
+ * A wrapper is never reused if the request started asynchronous processing, because the wrapper
+ * is still in use afterwards.
+ * <p>Wrappers with more state are not reused. Reuse their expensive resources instead, e.g. a
+ * {@link java.util.zip.Deflater}. Take them from a pool while the request is processed and return
+ * them in {@link #releaseWrapper(HttpServletResponseWrapper)}. The wrapper must not use them
+ * afterwards.
+ * <p>The filter calls the filter chain with the original response if the response is already
+ * wrapped by a wrapper of the same class, e.g. because the request has been forwarded. Override
+ * {@link #needsWrapper(HttpServletRequest, HttpServletResponse)} if wrapping twice is not the
+ * same as wrapping once.
+ *
+ * @param <W> the type of the wrapper.
+ * @since 1.5.0
+ */
+public abstract class ResponseWrapperFilter<W extends HttpServletResponseWrapper> extends HttpFilter {
+    private static final HttpServletResponse RELEASED_RESPONSE = releasedResponse();
+    private final Class<W> wrapperClass;
+    private final WrapperPool<W> pool;
+
+    /**
+     * Creates a filter for wrappers of the specified class. Every request gets a new wrapper.
+     *
+     * @param wrapperClass the class of the wrappers.
+     */
+    protected ResponseWrapperFilter(Class<W> wrapperClass) {
+        if (wrapperClass == null)
+            throw new NullPointerException("The wrapper class is missing.");
+        this.wrapperClass = wrapperClass;
+        this.pool = null;
+    }
+
+    /**
+     * Creates a filter for wrappers of the specified class that reuses the wrappers. Use it only
+     * if the wrapped response is the only state of the wrappers.
+     *
+     * @param wrapperClass          the class of the wrappers.
+     * @param maximumPooledWrappers the maximum number of wrappers that are kept for reuse.
+     * @throws IllegalArgumentException if the maximum number of pooled wrappers is not positive.
+     */
+    protected ResponseWrapperFilter(Class<W> wrapperClass, int maximumPooledWrappers) {
+        if (wrapperClass == null)
+            throw new NullPointerException("The wrapper class is missing.");
+        if (maximumPooledWrappers <= 0)
+            throw new IllegalArgumentException(
+                "The maximum number of pooled wrappers must be positive, but it is "
+                    + maximumPooledWrappers + ".");
+        this.wrapperClass = wrapperClass;
+        this.pool = new WrapperPool<W>(maximumPooledWrappers);
+    }
+
+    /**
+     * Creates a new wrapper for the specified response.
+     *
+     * @param response the response that is wrapped.
+     * @return the wrapper.
+     */
+    protected abstract W createWrapper(HttpServletResponse response);
+
+    /**
+     * Releases the resources of a wrapper after the filter chain returned or failed. It is not
+     * called if the request started asynchronous processing, because the wrapper is still in use
+     * afterwards. Does nothing. Override it if your wrapper holds resources like a
+     * {@link java.util.zip.Deflater}.
+     *
+     * @param wrapper the wrapper.
+     */
+    protected void releaseWrapper(W wrapper) {
+    }
+
+    /**
+     * Decides whether the response has to be wrapped. Returns {@code false} if the response is
+     * already wrapped by a wrapper of this filter's wrapper class.
+     *
+     * @param request  the request.
+     * @param response the response.
+     * @return {@code true} if the response has to be wrapped.
+     */
+    protected boolean needsWrapper(HttpServletRequest request, HttpServletResponse response) {
+        ServletResponse currentResponse = response;
+        while (currentResponse instanceof ServletResponseWrapper) {
+            if (wrapperClass.isInstance(currentResponse))
+                return false;
+            currentResponse = ((ServletResponseWrapper) currentResponse).getResponse();
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (!needsWrapper(request, response)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        W wrapper = acquireWrapper(response);
+        try {
+            doFilterWithWrapper(request, wrapper, filterChain);
+        } finally {
+            if (!isAsyncStarted(request)) {
+                releaseWrapper(wrapper);
+                returnWrapper(wrapper);
+            }
+        }
+    }
+
+    /**
+     * Calls the filter chain with the wrapped response. Override it if your filter has to do
+     * something before or after calling the filter chain.
+     *
+     * @param request     an {@link javax.servlet.http.HttpServletRequest}
+     * @param wrapper     the wrapped response
+     * @param filterChain used to invoke the next filter in the chain, or if the calling filter
+     *                    is the last filter in the chain, to invoke the resource at the end of the chain.
+     * @throws IOException      if an input or output exception occurs
+     * @throws ServletException if an exception has occurred that interferes with the filter's normal operation
+     */
+    protected void doFilterWithWrapper(HttpServletRequest request, W wrapper, FilterChain filterChain)
+        throws IOException, ServletException {
+        filterChain.doFilter(request, wrapper);
+    }
+
+    private W acquireWrapper(HttpServletResponse response) {
+        W wrapper = (pool == null) ? null : pool.acquire();
+        if (wrapper == null)
+            return createWrapper(response);
+        wrapper.setResponse(response);
+        return wrapper;
+    }
+
+    private void returnWrapper(W wrapper) {
+        if (pool != null) {
+            wrapper.setResponse(RELEASED_RESPONSE);
+            pool.release(wrapper);
+        }
+    }
+
+    private static HttpServletResponse releasedResponse() {
+        return (HttpServletResponse) Proxy.newProxyInstance(
+            ResponseWrapperFilter.class.getClassLoader(),
+            new Class<?>[]{HttpServletResponse.class},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("toString"))
+                        return "released response";
+                    if (method.getName().equals("hashCode"))
+                        return System.identityHashCode(proxy);
+                    if (method.getName().equals("equals"))
+                        return proxy == args[0];
+                    throw new IllegalStateException(
+                        "The response wrapper has been used after the request has been processed.");
+                }
+            });
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import com.github.stefanbirkner.filtertools.filterchain.FiltersWithFilterChain;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Encase multiple filters that are bound to path patterns into a single filter. A request is
+ * passed to those filters, whose pattern matches the path of the request. The filters are called
+ * in the order of the bindings.
+ *
+ * <p>The path of a request is its servlet path followed by its path info. The container decodes
+ * and normalizes both of them. The raw request URI is not used, because a client could bypass a
+ * filter that is bound to {@code /api/*} by a request URI like {@code /%61pi/x},
+ * {@code /api;jsessionid=1/x} or {@code /foo/../api/x}. The patterns are a subset of the URL
+ * patterns of the web.xml.
+ * <ul>
+ * <li>{@code /*} matches every path.</li>
+ * <li>{@code /some/path/*} matches the path {@code /some/path} and every path below it.</li>
+ * <li>Every other pattern starting with {@code /} matches the path that is equal to the
+ * pattern.</li>
+ * </ul>
+ *
+ * <p>{@code RoutedFilters} behaves like {@link com.github.stefanbirkner.filtertools.filter.EncasedFilters}
+ * of {@link com.github.stefanbirkner.filtertools.filter.OptionalFilter}s with path predicates, but
+ * it does not test every predicate. The patterns are compiled into a trie and the filters for a
+ * request are found by reading the path once. The filters are selected before the first filter is
+ * called. Therefore a filter that wraps the request and changes its URI does not change the
+ * selection.
+ *
+ * <h3>Example</h3>
+ * <pre>
+ * public class MyRoutedFilters extends RoutedFilters {
+ *   public MyRoutedFilters() {
+ *     super(
+ *       bind("/*", new LoggingFilter()),
+ *       bind("/api/*", new ApiKeyFilter()),
+ *       bind("/login", new LoginFilter()));
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 1.5.0
+ */
+public class RoutedFilters extends HttpFilter {
+    private static final Filter[] NO_FILTERS = new Filter[0];
+    private final Binding[] bindings;
+    private final Node root;
+
+    /**
+     * Creates a filter for the specified bindings.
+     *
+     * @param bindings the bindings that are created by {@link #bind(String, Filter)}.
+     */
+    public RoutedFilters(Binding... bindings) {
+        this.bindings = bindings.clone();
+        for (Binding binding : this.bindings)
+            if (binding == null)
+                throw new NullPointerException("A binding is missing.");
+        this.root = compile(this.bindings);
+    }
+
+    /**
+     * Binds a filter to a path pattern.
+     *
+     * @param pattern the pattern of the paths that are handled by the filter.
+     * @param filter  the filter.
+     * @return the binding.
+     * @throws IllegalArgumentException if the pattern is not supported.
+     */
+    public static Binding bind(String pattern, Filter filter) {
+        return new Binding(pattern, filter);
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        for (Binding binding : bindings)
+            binding.filter.init(filterConfig);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        String servletPath = request.getServletPath();
+        Filter[] filters = findFilters((servletPath == null) ? "" : servletPath, request.getPathInfo());
+        if (filters.length == 0)
+            filterChain.doFilter(request, response);
+        else
+            new FiltersWithFilterChain(filters, filterChain).doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+        destroyRemainingFilters(0);
+    }
+
+    private void destroyRemainingFilters(int index) {
+        if (index < bindings.length)
+            try {
+                bindings[index].filter.destroy();
+            } finally {
+                destroyRemainingFilters(index + 1);
+            }
+    }
+
+    private Filter[] findFilters(String servletPath, String pathInfo) {
+        Node node = root;
+        Filter[] filtersForPathsBelowNode = (root.filtersForPathsBelow == null)
+            ? NO_FILTERS : root.filtersForPathsBelow;
+        int servletPathLength = servletPath.length();
+        int length = servletPathLength + ((pathInfo == null) ? 0 : pathInfo.length());
+        for (int i = 0; i < length; ++i) {
+            char c = (i < servletPathLength) ? servletPath.charAt(i) : pathInfo.charAt(i - servletPathLength);
+            if (c == '/' && node.filtersForPathsBelow != null)
+                filtersForPathsBelowNode = node.filtersForPathsBelow;
+            node = node.child(c);
+            if (node == null)
+                return filtersForPathsBelowNode;
+        }
+        return (node.filtersForPath == null) ? filtersForPathsBelowNode : node.filtersForPath;
+    }
+
+    private static Node compile(Binding[] bindings) {
+        Map<String, Node> nodes = new TreeMap<String, Node>();
+        Node root = new Node();
+        nodes.put("", root);
+        for (Binding binding : bindings)
+            addNodesForPath(nodes, binding.path);
+        for (Map.Entry<String, Node> entry : nodes.entrySet()) {
+            Node node = entry.getValue();
+            node.filtersForPath = filtersMatching(bindings, entry.getKey(), false);
+            node.filtersForPathsBelow = filtersMatching(bindings, entry.getKey(), true);
+        }
+        return root;
+    }
+
+    private static void addNodesForPath(Map<String, Node> nodes, String path) {
+        Node parent = nodes.get("");
+        for (int i = 1; i <= path.length(); ++i) {
+            String prefix = path.substring(0, i);
+            Node node = nodes.get(prefix);
+            if (node == null) {
+                node = new Node();
+                nodes.put(prefix, node);
+                parent.addChild(path.charAt(i - 1), node);
+            }
+            parent = node;
+        }
+    }
+
+    /**
+     * Returns the filters for the path of a node or for the paths below the node that are not part
+     * of the trie. Returns {@code null} if no pattern ends at the node, because the filters of the
+     * nearest ancestor that is the end of a pattern are used for such nodes.
+     */
+    private static Filter[] filtersMatching(Binding[] bindings, String path, boolean below) {
+        List<Filter> filters = new ArrayList<Filter>();
+        boolean pathIsEndOfPattern = path.length() == 0;
+        for (Binding binding : bindings) {
+            if (binding.path.equals(path))
+                pathIsEndOfPattern = true;
+            if (below ? binding.matchesPathsBelow(path) : binding.matches(path))
+                filters.add(binding.filter);
+        }
+        return pathIsEndOfPattern ? filters.toArray(new Filter[filters.size()]) : null;
+    }
+
+    /**
+     * A filter that is bound to a path pattern. Bindings are created by
+     * {@link RoutedFilters#bind(String, Filter)}.
+     */
+    public static class Binding {
+        private final String path;
+        private final boolean prefix;
+        private final Filter filter;
+
+        private Binding(String pattern, Filter filter) {
+            if (pattern == null)
+                throw new NullPointerException("The pattern is missing.");
+            if (!pattern.startsWith("/"))
+                throw new IllegalArgumentException(
+                    "The pattern '" + pattern + "' does not start with '/'.");
+            this.prefix = pattern.endsWith("/*");
+            this.path = prefix ? pattern.substring(0, pattern.length() - 2) : pattern;
+            if (path.contains("*"))
+                throw new IllegalArgumentException(
+                    "The pattern '" + pattern + "' has a wildcard that is not at the end.");
+            if (filter == null)
+                throw new NullPointerException("The filter is missing.");
+            this.filter = filter;
+        }
+
+        boolean matches(String path) {
+            return this.path.equals(path) || (prefix && isBelowThisPath(path));
+        }
+
+        boolean matchesPathsBelow(String path) {
+            return prefix && (this.path.equals(path) || isBelowThisPath(path));
+        }
+
+        private boolean isBelowThisPath(String path) {
+            return path.startsWith(this.path + "/");
+        }
+    }
+
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private Filter[] filtersForPath;
+        private Filter[] filtersForPathsBelow;
+
+        Node child(char label) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (labels[middle] < label)
+                    low = middle + 1;
+                else if (labels[middle] > label)
+                    high = middle - 1;
+                else
+                    return children[middle];
+            }
+            return null;
+        }
+
+        void addChild(char label, Node child) {
+            int index = 0;
+            while (index < labels.length && labels[index] < label)
+                ++index;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newLabels[index] = label;
+            newChildren[index] = child;
+            System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+}
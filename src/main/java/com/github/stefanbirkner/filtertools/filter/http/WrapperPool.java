@@ -0,0 +1,62 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free pool of objects. {@link #acquire()} returns {@code null} if the pool is
+ * empty and {@link #release(Object)} drops the object if the pool is full. Therefore the pool never
+ * blocks.
+ */
+class WrapperPool<W> {
+    private final AtomicReferenceArray<W> slots;
+    private final int mask;
+
+    /**
+     * Creates a pool. The size is rounded up to the next power of two.
+     *
+     * @param size the maximum number of pooled objects.
+     */
+    WrapperPool(int size) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < size)
+            powerOfTwo <<= 1;
+        slots = new AtomicReferenceArray<W>(powerOfTwo);
+        mask = powerOfTwo - 1;
+    }
+
+    W acquire() {
+        int start = startIndex();
+        for (int i = 0; i < slots.length(); ++i) {
+            int index = (start + i) & mask;
+            if (slots.get(index) != null) {
+                W object = slots.getAndSet(index, null);
+                if (object != null)
+                    return object;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an object to the pool. The object is dropped if the pool is full. The slot is not
+     * claimed by compare-and-set, because losing a race only drops an object of another thread,
+     * and an object is never handed out twice, because {@link #acquire()} takes it atomically.
+     */
+    void release(W object) {
+        int start = startIndex();
+        for (int i = 0; i < slots.length(); ++i) {
+            int index = (start + i) & mask;
+            if (slots.get(index) == null) {
+                slots.lazySet(index, object);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Threads start at different slots, so that they don't compete for the same slot.
+     */
+    private int startIndex() {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+}
@@ -0,0 +1,447 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link FilterAction} that writes an access log without blocking the request threads.
+ * <pre>
+ * public class AccessLogFilter extends PostFilterChainActionsFilter {
+ *   public AccessLogFilter() {
+ *     super(AccessLogAction.writeTo(new File("/var/log/shop/access.log"))
+ *       .rotateEvery(1, TimeUnit.DAYS)
+ *       .build());
+ *   }
+ * }
+ * </pre>
+ * <p>The request thread writes its entry into a preallocated slot of a bounded ring buffer. A
+ * single writer thread collects the entries in batches and writes every batch to the file with
+ * a single write. If the ring buffer is full then the entry is dropped and counted or the request
+ * thread waits for a free slot, depending on the {@link OverflowPolicy}.
+ *
+ * <p>The entries are written in the Common Log Format. The response status is only logged by
+ * Servlet 3.0 containers and the size of the response is not logged. Override
+ * {@link #format(HttpServletRequest, HttpServletResponse, LogEntry)} for a different format and
+ * create your action with {@link #AccessLogAction(Builder)}.
+ *
+ * <p>The writer thread is started when the action is initialized. It writes the remaining
+ * entries and stops when the action is destroyed. The action's statistics are registered via JMX
+ * (see {@link AccessLogActionMBean}) during the same time.
+ *
+ * @since 1.5.0
+ */
+public class AccessLogAction implements FilterAction, AccessLogActionMBean {
+    private static final boolean STATUS_SUPPORTED = isStatusSupported();
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MILLIS = 10000;
+    private static final int MINIMUM_BATCH_SIZE = 64 * 1024;
+
+    /**
+     * What to do with an entry if the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the entry and count it.
+         */
+        DROP,
+
+        /**
+         * Let the request thread wait until there is a free slot.
+         */
+        BLOCK
+    }
+
+    /**
+     * Starts to build an {@code AccessLogAction}.
+     *
+     * @param file the log file.
+     * @return a builder for the action.
+     */
+    public static Builder writeTo(File file) {
+        return new Builder(file);
+    }
+
+    public static class Builder {
+        private final File file;
+        private String name;
+        private int capacity = 8192;
+        private int maximumEntrySize = 1024;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+        private long maximumFileSize = 0;
+        private long rotationIntervalMillis = 0;
+
+        private Builder(File file) {
+            if (file == null)
+                throw new NullPointerException("The file is missing.");
+            this.file = file;
+            this.name = file.getName();
+        }
+
+        /**
+         * Sets the name of the action's statistics. The default name is the name of the file.
+         *
+         * @param name the name of the statistics.
+         * @return this builder.
+         */
+        public Builder named(String name) {
+            if (name == null)
+                throw new NullPointerException("The name is missing.");
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * Sets the number of entries that can wait for the writer thread. It is rounded up to
+         * the next power of two. The default capacity is 8192.
+         *
+         * @param capacity the number of entries.
+         * @return this builder.
+         */
+        public Builder withCapacity(int capacity) {
+            if (capacity <= 0)
+                throw new IllegalArgumentException("The capacity must be positive, but it is " + capacity + ".");
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of an entry in bytes. Longer entries are truncated. The default
+         * size is 1024 bytes.
+         *
+         * @param maximumEntrySize the maximum size of an entry.
+         * @return this builder.
+         */
+        public Builder withMaximumEntrySize(int maximumEntrySize) {
+            if (maximumEntrySize <= 1)
+                throw new IllegalArgumentException(
+                    "The maximum entry size must be greater than 1, but it is " + maximumEntrySize + ".");
+            this.maximumEntrySize = maximumEntrySize;
+            return this;
+        }
+
+        /**
+         * Sets the {@link OverflowPolicy}. The default policy is {@link OverflowPolicy#DROP}.
+         *
+         * @param overflowPolicy the policy.
+         * @return this builder.
+         */
+        public Builder whenFull(OverflowPolicy overflowPolicy) {
+            if (overflowPolicy == null)
+                throw new NullPointerException("The overflow policy is missing.");
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Rotates the file before it exceeds the specified size.
+         *
+         * @param maximumFileSize the maximum size of the file in bytes.
+         * @return this builder.
+         */
+        public Builder rotateAtSize(long maximumFileSize) {
+            if (maximumFileSize <= 0)
+                throw new IllegalArgumentException(
+                    "The maximum file size must be positive, but it is " + maximumFileSize + ".");
+            this.maximumFileSize = maximumFileSize;
+            return this;
+        }
+
+        /**
+         * Rotates the file periodically. The interval starts when the file is opened.
+         *
+         * @param interval the rotation interval.
+         * @param unit     the unit of the interval.
+         * @return this builder.
+         */
+        public Builder rotateEvery(long interval, TimeUnit unit) {
+            if (interval <= 0)
+                throw new IllegalArgumentException(
+                    "The rotation interval must be positive, but it is " + interval + ".");
+            this.rotationIntervalMillis = unit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Creates the action.
+         *
+         * @return the action.
+         */
+        public AccessLogAction build() {
+            return new AccessLogAction(this);
+        }
+    }
+
+    private final String name;
+    private final MBeanRegistration registration;
+    private final File file;
+    private final LogEntryRingBuffer ringBuffer;
+    private final OverflowPolicy overflowPolicy;
+    private final long maximumFileSize;
+    private final long rotationIntervalMillis;
+    private final AtomicLong droppedEntries = new AtomicLong();
+    private volatile long writtenEntries = 0;
+    private volatile long writeFailures = 0;
+    private volatile boolean running = false;
+    private volatile boolean writerIsIdle = false;
+    private volatile Thread writerThread;
+    private volatile RollingFile rollingFile;
+    private volatile FormattedSecond formattedSecond = new FormattedSecond(-1, "");
+
+    /**
+     * Creates an {@code AccessLogAction}. Use it for subclasses that have their own format.
+     *
+     * @param builder the builder that contains the configuration.
+     */
+    protected AccessLogAction(Builder builder) {
+        this.name = builder.name;
+        this.registration = new MBeanRegistration(this, "type=AccessLog,name=" + ObjectName.quote(name));
+        this.file = builder.file;
+        this.ringBuffer = new LogEntryRingBuffer(builder.capacity, builder.maximumEntrySize);
+        this.overflowPolicy = builder.overflowPolicy;
+        this.maximumFileSize = builder.maximumFileSize;
+        this.rotationIntervalMillis = builder.rotationIntervalMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public synchronized void init(FilterConfig filterConfig) throws ServletException {
+        RollingFile newRollingFile = new RollingFile(file, maximumFileSize, rotationIntervalMillis);
+        try {
+            newRollingFile.open(System.currentTimeMillis());
+        } catch (IOException e) {
+            throw new ServletException("Cannot open the access log " + file + ".", e);
+        }
+        try {
+            registration.register();
+        } catch (JMException e) {
+            closeQuietly(newRollingFile);
+            throw new ServletException("Cannot register the statistics of " + name + ".", e);
+        }
+        rollingFile = newRollingFile;
+        running = true;
+        writerThread = new Thread(new Writer(), "access-log-writer-" + name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void execute(HttpServletRequest request, HttpServletResponse response) {
+        long position = claimSlot();
+        if (position < 0) {
+            droppedEntries.incrementAndGet();
+            return;
+        }
+        try {
+            format(request, response, ringBuffer.entry(position));
+        } finally {
+            ringBuffer.publish(position);
+            if (writerIsIdle)
+                LockSupport.unpark(writerThread);
+        }
+    }
+
+    private long claimSlot() {
+        if (!running)
+            return -1;
+        long position = ringBuffer.claim();
+        while (position < 0 && overflowPolicy == OverflowPolicy.BLOCK && running) {
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+            position = ringBuffer.claim();
+        }
+        return position;
+    }
+
+    /**
+     * Writes the entry of a request. The default format is the Common Log Format, e.g.
+     * <pre>127.0.0.1 - frank [10/Oct/2000:13:55:36 -0700] "GET /apache_pb.gif HTTP/1.0" 200 -</pre>
+     *
+     * @param request  the request.
+     * @param response the response.
+     * @param entry    the entry.
+     */
+    protected void format(HttpServletRequest request, HttpServletResponse response, LogEntry entry) {
+        entry.append(request.getRemoteAddr()).append(" - ").append(request.getRemoteUser())
+            .append(" [").append(formatTime(System.currentTimeMillis())).append("] \"")
+            .append(request.getMethod()).append(' ').append(request.getRequestURI());
+        if (request.getQueryString() != null)
+            entry.append('?').append(request.getQueryString());
+        entry.append(' ').append(request.getProtocol()).append("\" ");
+        if (STATUS_SUPPORTED)
+            entry.append(response.getStatus());
+        else
+            entry.append('-');
+        entry.append(" -");
+    }
+
+    /**
+     * Formats a time like {@code 10/Oct/2000:13:55:36 -0700}. The formatted time is cached for a
+     * second.
+     *
+     * @param millis the time in milliseconds since the epoch.
+     * @return the formatted time.
+     */
+    protected String formatTime(long millis) {
+        long second = millis / 1000;
+        FormattedSecond current = formattedSecond;
+        if (current.second != second) {
+            SimpleDateFormat format = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+            current = new FormattedSecond(second, format.format(new Date(second * 1000)));
+            formattedSecond = current;
+        }
+        return current.text;
+    }
+
+    @Override
+    public void destroy() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writerThread;
+        }
+        try {
+            if (thread != null) {
+                LockSupport.unpark(thread);
+                joinQuietly(thread);
+            }
+        } finally {
+            registration.unregister();
+        }
+    }
+
+    ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return ringBuffer.size();
+    }
+
+    @Override
+    public int getCapacity() {
+        return ringBuffer.capacity();
+    }
+
+    @Override
+    public long getDroppedEntryCount() {
+        return droppedEntries.get();
+    }
+
+    @Override
+    public long getWrittenEntryCount() {
+        return writtenEntries;
+    }
+
+    @Override
+    public long getWriteFailureCount() {
+        return writeFailures;
+    }
+
+    @Override
+    public long getRotationCount() {
+        RollingFile currentFile = rollingFile;
+        return (currentFile == null) ? 0 : currentFile.getRotationCount();
+    }
+
+    private static void joinQuietly(Thread thread) {
+        try {
+            thread.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(RollingFile file) {
+        try {
+            file.close();
+        } catch (IOException ignored) {
+            //nothing we can do
+        }
+    }
+
+    private static boolean isStatusSupported() {
+        try {
+            HttpServletResponse.class.getMethod("getStatus");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false; //Servlet 2.x
+        }
+    }
+
+    /**
+     * Drains the ring buffer until the action is destroyed and the ring buffer is empty.
+     */
+    private class Writer implements Runnable {
+        private final ByteBuffer batch = ByteBuffer.allocateDirect(
+            Math.max(MINIMUM_BATCH_SIZE, ringBuffer.maximumEntrySize()));
+
+        @Override
+        public void run() {
+            RollingFile file = rollingFile;
+            try {
+                while (running || ringBuffer.size() > 0) {
+                    batch.clear();
+                    int count = ringBuffer.drainTo(batch);
+                    if (count == 0)
+                        waitForEntries();
+                    else
+                        write(file, count);
+                }
+            } finally {
+                closeQuietly(file);
+            }
+        }
+
+        private void waitForEntries() {
+            if (!running) {
+                Thread.yield(); //a producer claimed a slot but did not publish it yet
+                return;
+            }
+            writerIsIdle = true;
+            if (ringBuffer.size() == 0)
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            writerIsIdle = false;
+        }
+
+        private void write(RollingFile file, int count) {
+            batch.flip();
+            try {
+                file.write(batch, System.currentTimeMillis());
+                writtenEntries += count;
+            } catch (IOException e) {
+                ++writeFailures;
+                droppedEntries.addAndGet(count);
+            }
+        }
+    }
+
+    private static class FormattedSecond {
+        final long second;
+        final String text;
+
+        FormattedSecond(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+}
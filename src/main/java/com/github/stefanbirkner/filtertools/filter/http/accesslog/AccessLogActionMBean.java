@@ -0,0 +1,41 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+/**
+ * The JMX management interface of {@link AccessLogAction}.
+ *
+ * @since 1.5.0
+ */
+public interface AccessLogActionMBean {
+    /**
+     * Returns the number of entries that wait for the writer thread.
+     *
+     * @return the number of entries that wait for the writer thread.
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns the maximum number of entries that can wait for the writer thread.
+     *
+     * @return the maximum number of entries that can wait for the writer thread.
+     */
+    int getCapacity();
+
+    /**
+     * Returns the number of entries that have been dropped, because the queue was full or the
+     * action was not running.
+     *
+     * @return the number of dropped entries.
+     */
+    long getDroppedEntryCount();
+
+    long getWrittenEntryCount();
+
+    /**
+     * Returns the number of batches that could not be written, e.g. because the disk is full.
+     *
+     * @return the number of failed writes.
+     */
+    long getWriteFailureCount();
+
+    long getRotationCount();
+}
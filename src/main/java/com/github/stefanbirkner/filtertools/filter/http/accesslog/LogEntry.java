@@ -0,0 +1,87 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+/**
+ * A line of the access log. It is a preallocated slot of the {@link AccessLogAction}'s ring
+ * buffer, therefore writing an entry does not create objects.
+ *
+ * <p>The entry is encoded as ASCII. Other characters, including line breaks and other control
+ * characters, are replaced by {@code ?}, so that a request cannot forge entries. Characters that
+ * exceed the maximum size of an entry are dropped.
+ *
+ * @since 1.5.0
+ */
+public final class LogEntry {
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+    private final byte[] bytes;
+    private int length = 0;
+
+    LogEntry(int maximumSize) {
+        bytes = new byte[maximumSize];
+    }
+
+    /**
+     * Appends a character.
+     *
+     * @param character the character.
+     * @return this entry.
+     */
+    public LogEntry append(char character) {
+        if (length < bytes.length - 1) //the last byte is reserved for the line break
+            bytes[length++] = (character >= ' ' && character < 127) ? (byte) character : (byte) '?';
+        return this;
+    }
+
+    /**
+     * Appends text or {@code -} if the text is {@code null}.
+     *
+     * @param text the text.
+     * @return this entry.
+     */
+    public LogEntry append(CharSequence text) {
+        if (text == null)
+            return append('-');
+        for (int i = 0; i < text.length(); ++i)
+            append(text.charAt(i));
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of a number.
+     *
+     * @param number the number.
+     * @return this entry.
+     */
+    public LogEntry append(long number) {
+        if (number == Long.MIN_VALUE) {
+            for (byte digit : MIN_LONG)
+                append((char) digit);
+            return this;
+        }
+        if (number < 0) {
+            append('-');
+            number = -number;
+        }
+        long divisor = 1;
+        while (divisor <= number / 10)
+            divisor *= 10;
+        for (; divisor > 0; divisor /= 10)
+            append((char) ('0' + (number / divisor) % 10));
+        return this;
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * Appends the line break and returns the length of the entry.
+     */
+    int terminate() {
+        bytes[length++] = '\n';
+        return length;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+}
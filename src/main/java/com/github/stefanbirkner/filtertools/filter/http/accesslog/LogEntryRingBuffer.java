@@ -0,0 +1,120 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded queue of {@link LogEntry}s for many producers and a single consumer. The entries are
+ * preallocated. A producer claims a slot, writes its entry into the slot and publishes it. The
+ * consumer copies published entries into a {@link ByteBuffer} and frees their slots.
+ *
+ * <p>Every slot has a sequence number that tells the producers and the consumer whose turn it
+ * is. The slot at position {@code p} is free if its sequence is {@code p}, it is published if
+ * its sequence is {@code p + 1} and it is freed for the next round by setting its sequence to
+ * {@code p + capacity}. The producers only contend for the tail counter.
+ */
+class LogEntryRingBuffer {
+    private final LogEntry[] entries;
+    private final int[] lengths;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final int maximumEntrySize;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity         the number of entries. It is rounded up to the next power of two.
+     * @param maximumEntrySize the maximum size of an entry in bytes (including the line break).
+     */
+    LogEntryRingBuffer(int capacity, int maximumEntrySize) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < capacity)
+            powerOfTwo <<= 1;
+        entries = new LogEntry[powerOfTwo];
+        lengths = new int[powerOfTwo];
+        sequences = new AtomicLongArray(powerOfTwo);
+        for (int i = 0; i < powerOfTwo; ++i) {
+            entries[i] = new LogEntry(maximumEntrySize);
+            sequences.set(i, i);
+        }
+        mask = powerOfTwo - 1;
+        this.maximumEntrySize = maximumEntrySize;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+    int maximumEntrySize() {
+        return maximumEntrySize;
+    }
+
+    /**
+     * Returns the number of entries that have been claimed but not been consumed.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    /**
+     * Claims the next free slot.
+     *
+     * @return the position of the slot or -1 if the buffer is full.
+     */
+    long claim() {
+        while (true) {
+            long position = tail.get();
+            long difference = sequences.get(index(position)) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1))
+                    return position;
+            } else if (difference < 0)
+                return -1; //the consumer has not freed the slot yet
+            //else another producer claimed the slot in the meantime
+        }
+    }
+
+    /**
+     * Returns the empty entry of a claimed slot.
+     */
+    LogEntry entry(long position) {
+        LogEntry entry = entries[index(position)];
+        entry.clear();
+        return entry;
+    }
+
+    void publish(long position) {
+        int index = index(position);
+        lengths[index] = entries[index].terminate();
+        sequences.lazySet(index, position + 1);
+    }
+
+    /**
+     * Copies published entries into the target buffer until the next entry is not published or
+     * does not fit.
+     *
+     * @return the number of entries that have been copied.
+     */
+    int drainTo(ByteBuffer target) {
+        long position = head;
+        int count = 0;
+        while (true) {
+            int index = index(position);
+            if (sequences.get(index) != position + 1 || lengths[index] > target.remaining())
+                break;
+            target.put(entries[index].bytes(), 0, lengths[index]);
+            sequences.lazySet(index, position + entries.length);
+            ++position;
+            ++count;
+        }
+        head = position;
+        return count;
+    }
+
+    private int index(long position) {
+        return (int) position & mask;
+    }
+}
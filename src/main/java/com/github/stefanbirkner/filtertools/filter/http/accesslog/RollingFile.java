@@ -0,0 +1,81 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * A file that is renamed and replaced by a new file when it exceeds a maximum size or when it is
+ * older than the rotation interval. The old file gets the time of the rotation as suffix, e.g.
+ * {@code access.log.20141231-235959}. The rotation is done when the next batch is written.
+ *
+ * <p>The file is only used by the writer thread. Other threads may read the rotation count.
+ */
+class RollingFile {
+    private final File file;
+    private final long maximumSize;
+    private final long rotationIntervalMillis;
+    private FileChannel channel;
+    private long size;
+    private long openedAt;
+    private volatile long rotationCount = 0;
+
+    /**
+     * Creates a {@code RollingFile}.
+     *
+     * @param file                   the file.
+     * @param maximumSize            the maximum size in bytes or 0 if the size is not limited.
+     * @param rotationIntervalMillis the rotation interval in milliseconds or 0 if the file is not
+     *                               rotated periodically.
+     */
+    RollingFile(File file, long maximumSize, long rotationIntervalMillis) {
+        this.file = file;
+        this.maximumSize = maximumSize;
+        this.rotationIntervalMillis = rotationIntervalMillis;
+    }
+
+    void open(long now) throws IOException {
+        channel = new FileOutputStream(file, true).getChannel();
+        size = channel.size();
+        openedAt = now;
+    }
+
+    long getRotationCount() {
+        return rotationCount;
+    }
+
+    void write(ByteBuffer batch, long now) throws IOException {
+        if (needsRotation(batch.remaining(), now))
+            rotate(now);
+        while (batch.hasRemaining())
+            size += channel.write(batch);
+    }
+
+    private boolean needsRotation(int length, long now) {
+        return (maximumSize > 0 && size > 0 && size + length > maximumSize)
+            || (rotationIntervalMillis > 0 && now - openedAt >= rotationIntervalMillis);
+    }
+
+    private void rotate(long now) throws IOException {
+        channel.close();
+        String prefix = file.getPath() + "." + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now));
+        File target = new File(prefix);
+        for (int i = 1; target.exists(); ++i)
+            target = new File(prefix + "-" + i);
+        if (file.renameTo(target))
+            ++rotationCount;
+        //else the entries are appended to the old file and the rotation is retried later
+        open(now);
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
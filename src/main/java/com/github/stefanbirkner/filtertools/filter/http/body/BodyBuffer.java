@@ -0,0 +1,128 @@
+package com.github.stefanbirkner.filtertools.filter.http.body;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An append-only buffer for a request body. The bytes are kept on the heap until the buffer
+ * exceeds the memory threshold. Then all bytes are moved to a temporary file. The file is read
+ * by positional reads of its {@link FileChannel}. It is not memory-mapped, because a mapped file
+ * stays mapped until the garbage collector collects the mapped buffer and a mapped file cannot be
+ * deleted on Windows.
+ *
+ * <p>The buffer can hold at most {@link Integer#MAX_VALUE} bytes. It is not thread-safe.
+ */
+class BodyBuffer {
+    private static final int INITIAL_CAPACITY = 1024;
+    private final int memoryThreshold;
+    private final File temporaryDirectory;
+    private byte[] memory = new byte[0];
+    private long length = 0;
+    private File file;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+
+    /**
+     * Creates a buffer.
+     *
+     * @param memoryThreshold    the maximum number of bytes that are kept on the heap.
+     * @param temporaryDirectory the directory of the temporary file. The default temporary
+     *                           directory is used if it is {@code null}.
+     */
+    BodyBuffer(int memoryThreshold, File temporaryDirectory) {
+        this.memoryThreshold = memoryThreshold;
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    long length() {
+        return length;
+    }
+
+    boolean isSpilled() {
+        return file != null;
+    }
+
+    void append(byte[] bytes, int offset, int count) throws IOException {
+        if (length + count > Integer.MAX_VALUE)
+            throw new IOException("The request body is larger than " + Integer.MAX_VALUE + " bytes.");
+        if (file == null && length + count > memoryThreshold)
+            spill();
+        if (file == null) {
+            ensureMemoryCapacity((int) length + count);
+            System.arraycopy(bytes, offset, memory, (int) length, count);
+        } else {
+            ByteBuffer source = ByteBuffer.wrap(bytes, offset, count);
+            long position = length;
+            while (source.hasRemaining())
+                position += channel.write(source, position);
+        }
+        length += count;
+    }
+
+    private void ensureMemoryCapacity(int capacity) {
+        if (capacity > memory.length) {
+            int newCapacity = Math.max(INITIAL_CAPACITY, memory.length);
+            while (newCapacity < capacity)
+                newCapacity *= 2;
+            byte[] newMemory = new byte[Math.min(newCapacity, memoryThreshold)];
+            System.arraycopy(memory, 0, newMemory, 0, (int) length);
+            memory = newMemory;
+        }
+    }
+
+    private void spill() throws IOException {
+        file = File.createTempFile("request-body-", ".tmp", temporaryDirectory);
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            channel = randomAccessFile.getChannel();
+            ByteBuffer source = ByteBuffer.wrap(memory, 0, (int) length);
+            while (source.hasRemaining())
+                channel.write(source, source.position());
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        memory = null;
+    }
+
+    /**
+     * Reads up to {@code count} bytes that have been appended before.
+     *
+     * @return the number of bytes that have been read or -1 if the position is at the end of the
+     * buffer.
+     */
+    int read(long position, byte[] bytes, int offset, int count) throws IOException {
+        if (position >= length)
+            return -1;
+        int available = (int) Math.min(count, length - position);
+        if (file == null)
+            System.arraycopy(memory, (int) position, bytes, offset, available);
+        else {
+            ByteBuffer target = ByteBuffer.wrap(bytes, offset, available);
+            while (target.hasRemaining())
+                if (channel.read(target, position + target.position() - offset) < 0)
+                    throw new IOException("The temporary file " + file + " has been truncated.");
+        }
+        return available;
+    }
+
+    /**
+     * Deletes the temporary file. The buffer must not be used afterwards.
+     */
+    void close() {
+        memory = null;
+        if (file != null)
+            try {
+                if (randomAccessFile != null)
+                    randomAccessFile.close();
+            } catch (IOException ignored) {
+                //the file is deleted anyway
+            } finally {
+                if (!file.delete())
+                    file.deleteOnExit();
+            }
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.stefanbirkner.filtertools.filter.http.body;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.*;
+
+/**
+ * A request whose body can be read multiple times. The body is copied to a {@link BodyBuffer}
+ * while it is read for the first time. Subsequent reads are served from the buffer.
+ * <pre>
+ * ReplayableRequest replayableRequest = ReplayableRequest.find(request);
+ * verifySignature(replayableRequest.getInputStream());
+ * replayableRequest.rewind();
+ * filterChain.doFilter(request, response);
+ * </pre>
+ * <p>{@link #getInputStream()} and {@link #getReader()} return the same stream and reader until
+ * {@link #rewind()} is called. Afterwards they return a new stream and reader that start at the
+ * beginning of the body. The body is only read from the client as far as it is needed.
+ *
+ * <p>Parameters of form posts are parsed by the servlet container from the original body. Read
+ * them with {@link #getParameter(String)} before reading the body.
+ *
+ * @since 1.5.0
+ */
+public class ReplayableRequest extends HttpServletRequestWrapper {
+    private static final String DEFAULT_CHARACTER_ENCODING = "ISO-8859-1";
+    private final BodyBuffer buffer;
+    private InputStream originalBody;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    ReplayableRequest(HttpServletRequest request, BodyBuffer buffer) {
+        super(request);
+        this.buffer = buffer;
+    }
+
+    /**
+     * Returns the {@code ReplayableRequest} that wraps the specified request or is the request
+     * itself.
+     *
+     * @param request the request.
+     * @return the {@code ReplayableRequest} or {@code null} if the request has not been wrapped by
+     * the {@link ReplayableRequestFilter}.
+     */
+    public static ReplayableRequest find(ServletRequest request) {
+        ServletRequest currentRequest = request;
+        while (true) {
+            if (currentRequest instanceof ReplayableRequest)
+                return (ReplayableRequest) currentRequest;
+            else if (currentRequest instanceof ServletRequestWrapper)
+                currentRequest = ((ServletRequestWrapper) currentRequest).getRequest();
+            else
+                return null;
+        }
+    }
+
+    /**
+     * Lets the next calls of {@link #getInputStream()} and {@link #getReader()} start at the
+     * beginning of the body.
+     */
+    public void rewind() {
+        inputStream = null;
+        reader = null;
+    }
+
+    /**
+     * Returns a new stream that reads the whole body. It does not affect the stream that is
+     * returned by {@link #getInputStream()}.
+     *
+     * @return a new stream that reads the whole body.
+     */
+    public InputStream openBody() {
+        return new ReplayingInputStream();
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null)
+            inputStream = new ReplayingInputStream();
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String characterEncoding = getCharacterEncoding();
+            reader = new BufferedReader(new InputStreamReader(new ReplayingInputStream(),
+                (characterEncoding == null) ? DEFAULT_CHARACTER_ENCODING : characterEncoding));
+        }
+        return reader;
+    }
+
+    boolean isSpilled() {
+        return buffer.isSpilled();
+    }
+
+    void close() {
+        buffer.close();
+    }
+
+    /**
+     * Reads a part of the body at the specified position. The body is read from the original
+     * request and appended to the buffer if the position is at the end of the buffer.
+     */
+    private synchronized int read(long position, byte[] bytes, int offset, int count) throws IOException {
+        if (count == 0)
+            return 0;
+        if (position < buffer.length())
+            return buffer.read(position, bytes, offset, count);
+        if (originalBody == null)
+            originalBody = getRequest().getInputStream();
+        int length = originalBody.read(bytes, offset, count);
+        if (length > 0)
+            buffer.append(bytes, offset, length);
+        return length;
+    }
+
+    private class ReplayingInputStream extends ServletInputStream {
+        private final byte[] singleByte = new byte[1];
+        private long position = 0;
+        private long mark = 0;
+
+        @Override
+        public int read() throws IOException {
+            return (read(singleByte, 0, 1) == 1) ? singleByte[0] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = ReplayableRequest.this.read(position, bytes, offset, length);
+            if (count > 0)
+                position += count;
+            return count;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+    }
+}
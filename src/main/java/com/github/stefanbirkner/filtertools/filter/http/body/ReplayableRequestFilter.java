@@ -0,0 +1,113 @@
+package com.github.stefanbirkner.filtertools.filter.http.body;
+
+import com.github.stefanbirkner.filtertools.filter.http.HttpFilter;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Wraps the request with a {@link ReplayableRequest}, so that the filters and the servlet after
+ * this filter can read the body multiple times.
+ * <pre>
+ * public class YourFilters extends EncasedFilters {
+ *   public YourFilters() {
+ *     super(new ReplayableRequestFilter(), new SignatureCheckFilter(), new AuditFilter());
+ *   }
+ * }
+ * </pre>
+ * <p>Bodies up to the memory threshold are kept on the heap. Larger bodies are written to a
+ * temporary file and read back by positional reads of the file's {@code FileChannel}. The file is
+ * not memory-mapped, so that it can be deleted immediately. It is created in the servlet
+ * container's temporary directory ({@code javax.servlet.context.tempdir}) or in the default
+ * temporary directory if the container does not provide one. It is deleted when the filter chain
+ * returns or, if the request started asynchronous processing, when the asynchronous processing
+ * has been completed.
+ *
+ * @since 1.5.0
+ */
+public class ReplayableRequestFilter extends HttpFilter {
+    /**
+     * The default memory threshold (64 KiB).
+     */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 64 * 1024;
+    private final int memoryThreshold;
+    private volatile File temporaryDirectory;
+
+    /**
+     * Creates a {@code ReplayableRequestFilter} with the {@link #DEFAULT_MEMORY_THRESHOLD}.
+     */
+    public ReplayableRequestFilter() {
+        this(DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Creates a {@code ReplayableRequestFilter}.
+     *
+     * @param memoryThreshold the maximum number of bytes of a body that are kept on the heap.
+     */
+    public ReplayableRequestFilter(int memoryThreshold) {
+        if (memoryThreshold < 0)
+            throw new IllegalArgumentException(
+                "The memory threshold must not be negative, but it is " + memoryThreshold + ".");
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        Object directory = filterConfig.getServletContext().getAttribute("javax.servlet.context.tempdir");
+        temporaryDirectory = (directory instanceof File) ? (File) directory : null;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (ReplayableRequest.find(request) != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReplayableRequest replayableRequest = new ReplayableRequest(
+            request, new BodyBuffer(memoryThreshold, temporaryDirectory));
+        boolean closeLater = false;
+        try {
+            filterChain.doFilter(replayableRequest, response);
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(new CloseOnComplete(replayableRequest));
+                closeLater = true;
+            }
+        } finally {
+            if (!closeLater)
+                replayableRequest.close();
+        }
+    }
+
+    private static class CloseOnComplete implements AsyncListener {
+        private final ReplayableRequest request;
+
+        CloseOnComplete(ReplayableRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            request.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
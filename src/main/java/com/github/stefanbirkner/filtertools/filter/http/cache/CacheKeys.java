@@ -0,0 +1,40 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+
+/**
+ * Builds the keys that identify equivalent {@code GET} requests.
+ */
+class CacheKeys {
+    /**
+     * Returns a key that consists of the scheme, the server name and port, the request URI, the
+     * query string and the values of the specified headers. The server is part of the key,
+     * because virtual hosts may share the same context.
+     */
+    static String key(HttpServletRequest request, String[] headers) {
+        StringBuilder key = new StringBuilder("GET ");
+        key.append(request.getScheme()).append("://").append(request.getServerName())
+            .append(':').append(request.getServerPort())
+            .append(request.getRequestURI());
+        if (request.getQueryString() != null)
+            key.append('?').append(request.getQueryString());
+        for (String header : headers) {
+            key.append('\n').append(header).append(':');
+            Enumeration<?> values = request.getHeaders(header);
+            while (values != null && values.hasMoreElements())
+                key.append(values.nextElement()).append(',');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Checks whether a {@code Cache-Control} or {@code Pragma} header has a directive.
+     */
+    static boolean hasDirective(String header, String directive) {
+        for (String part : header.split(","))
+            if (part.trim().toLowerCase().startsWith(directive))
+                return true;
+        return false;
+    }
+}
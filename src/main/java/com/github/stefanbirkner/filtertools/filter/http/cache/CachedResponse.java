@@ -0,0 +1,82 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * An immutable response that is stored by the {@link ResponseCache}.
+ */
+class CachedResponse {
+    private static final int OVERHEAD = 128;
+    private static final int CHUNK_SIZE = 8192;
+    private final int status;
+    private final String contentType;
+    private final String[] headerNames;
+    private final String[] headerValues;
+    private final ByteBuffer body;
+    private final long storedAt;
+    private final long expiresAt;
+
+    CachedResponse(int status, String contentType, List<String> headerNames, List<String> headerValues,
+                   byte[] body, int bodyLength, ResponseCache.BodyStorage bodyStorage, long storedAt, long expiresAt) {
+        this.status = status;
+        this.contentType = contentType;
+        this.headerNames = headerNames.toArray(new String[headerNames.size()]);
+        this.headerValues = headerValues.toArray(new String[headerValues.size()]);
+        this.body = storeBody(body, bodyLength, bodyStorage);
+        this.storedAt = storedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    private static ByteBuffer storeBody(byte[] body, int length, ResponseCache.BodyStorage bodyStorage) {
+        ByteBuffer buffer = (bodyStorage == ResponseCache.BodyStorage.OFF_HEAP)
+            ? ByteBuffer.allocateDirect(length)
+            : ByteBuffer.allocate(length);
+        buffer.put(body, 0, length);
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * The estimated number of bytes that are used by this response.
+     */
+    long getWeight() {
+        long weight = OVERHEAD + body.capacity();
+        for (int i = 0; i < headerNames.length; ++i)
+            weight += 2 * (headerNames[i].length() + headerValues[i].length());
+        return weight;
+    }
+
+    boolean isDirect() {
+        return body.isDirect();
+    }
+
+    void writeTo(HttpServletResponse response, boolean includeBody, long now) throws IOException {
+        response.setStatus(status);
+        for (int i = 0; i < headerNames.length; ++i)
+            response.addHeader(headerNames[i], headerValues[i]);
+        if (contentType != null)
+            response.setContentType(contentType);
+        response.setHeader("Age", Long.toString(Math.max(0, now - storedAt) / 1000));
+        response.setContentLength(body.capacity());
+        if (includeBody)
+            writeBody(response.getOutputStream());
+    }
+
+    private void writeBody(ServletOutputStream outputStream) throws IOException {
+        ByteBuffer content = body.duplicate();
+        byte[] chunk = new byte[Math.min(content.remaining(), CHUNK_SIZE)];
+        while (content.hasRemaining()) {
+            int length = Math.min(content.remaining(), chunk.length);
+            content.get(chunk, 0, length);
+            outputStream.write(chunk, 0, length);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import com.github.stefanbirkner.filtertools.filter.http.ResponseWrapperFilter;
+
+import javax.management.JMException;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static com.github.stefanbirkner.filtertools.filter.http.cache.CacheKeys.hasDirective;
+
+/**
+ * Caches responses in memory and answers subsequent requests from the cache without calling the
+ * filter chain.
+ * <pre>
+ * public class YourCachingFilter extends CachingFilter {
+ *   public YourCachingFilter() {
+ *     super(new ResponseCache("pages", 256 * 1024 * 1024, OFF_HEAP), 60, "Accept-Encoding");
+ *   }
+ * }
+ * </pre>
+ * <p>Responses to {@code GET} requests are cached. {@code HEAD} requests are answered from the
+ * cached response to the {@code GET} request. The key of a response is the scheme, the server
+ * name and port, the request URI, the query string and the values of the request headers that are
+ * specified as vary headers. Therefore virtual hosts that share a context do not share responses.
+ * The response is written to the client while it is captured.
+ *
+ * <p>A request bypasses the cache if it has an {@code Authorization} header or if it asks for a
+ * fresh response ({@code Cache-Control: no-cache}, {@code Cache-Control: no-store} or
+ * {@code Pragma: no-cache}).
+ *
+ * <p>A response is cached if
+ * <ul>
+ * <li>its status is cacheable by default (e.g. 200, 301 or 404),</li>
+ * <li>it does not set cookies,</li>
+ * <li>its {@code Cache-Control} header has none of the directives {@code no-store},
+ * {@code no-cache} and {@code private},</li>
+ * <li>its {@code Vary} header only names headers that are vary headers of this filter and</li>
+ * <li>it is not larger than an eighth of the cache.</li>
+ * </ul>
+ * The response is cached for the number of seconds that is specified by the {@code s-maxage} or
+ * {@code max-age} directive of its {@code Cache-Control} header. Without such a directive it is
+ * cached until the date of its {@code Expires} header (relative to its {@code Date} header if it
+ * has one) or for the default time to live if there is no {@code Expires} header. A response with
+ * an invalid {@code Expires} header is not cached.
+ *
+ * <p>The statistics of the cache are registered when the filter is initialized and unregistered
+ * when it is destroyed.
+ *
+ * @since 1.5.0
+ */
+public class CachingFilter extends ResponseWrapperFilter<CachingResponse> {
+    private final ResponseCache cache;
+    private final long defaultTimeToLiveMillis;
+    private final String[] varyHeaders;
+
+    /**
+     * Creates a {@code CachingFilter}.
+     *
+     * @param cache                    the cache that stores the responses.
+     * @param defaultTimeToLiveSeconds the time to live of responses without {@code max-age}
+     *                                 directive. Such responses are not cached if it is 0.
+     * @param varyHeaders              the names of the request headers whose values are part of the key.
+     */
+    public CachingFilter(ResponseCache cache, long defaultTimeToLiveSeconds, String... varyHeaders) {
+        super(CachingResponse.class);
+        if (cache == null)
+            throw new NullPointerException("The cache is missing.");
+        this.cache = cache;
+        this.defaultTimeToLiveMillis = 1000 * defaultTimeToLiveSeconds;
+        this.varyHeaders = varyHeaders.clone();
+        for (String header : this.varyHeaders)
+            if (header == null)
+                throw new NullPointerException("A vary header is missing.");
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        try {
+            cache.register();
+        } catch (JMException e) {
+            throw new ServletException("Cannot register the statistics of " + cache.getName() + ".", e);
+        }
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (isCacheable(request)) {
+            String key = CacheKeys.key(request, varyHeaders);
+            CachedResponse cachedResponse = cache.get(key);
+            if (cachedResponse != null) {
+                boolean includeBody = !request.getMethod().equals("HEAD");
+                cachedResponse.writeTo(response, includeBody, cache.currentTimeMillis());
+                return;
+            }
+            if (request.getMethod().equals("GET") && needsWrapper(request, response)) {
+                capture(request, createWrapper(response), key, filterChain);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    @Override
+    protected CachingResponse createWrapper(HttpServletResponse response) {
+        return new CachingResponse(response);
+    }
+
+    /**
+     * Calls the filter chain with the wrapper and stores the response. The key is computed once
+     * by {@link #doFilter(HttpServletRequest, HttpServletResponse, FilterChain)}.
+     */
+    private void capture(HttpServletRequest request, CachingResponse wrapper, String key,
+                         FilterChain filterChain) throws IOException, ServletException {
+        wrapper.setMaximumBodySize((int) Math.min(cache.getMaximumResponseSize(), Integer.MAX_VALUE));
+        filterChain.doFilter(request, wrapper);
+        if (!isAsyncStarted(request)) {
+            wrapper.finish();
+            store(key, wrapper);
+        }
+    }
+
+    private void store(String key, CapturingResponse response) {
+        if (!response.isCacheable() || !response.hasStatusCacheableByDefault()
+            || !isCoveredByVaryHeaders(response.getCapturedHeader("Vary")))
+            return;
+        long now = cache.currentTimeMillis();
+        long timeToLive = timeToLive(response, now);
+        if (timeToLive <= 0)
+            return;
+        cache.put(key, new CachedResponse(
+            response.getCapturedStatus(), response.getContentType(),
+            response.getCapturedHeaderNames(), response.getCapturedHeaderValues(),
+            response.getCapturedBody(), response.getCapturedBodyLength(), cache.getBodyStorage(),
+            now, now + timeToLive));
+    }
+
+    private boolean isCacheable(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!method.equals("GET") && !method.equals("HEAD"))
+            return false;
+        if (request.getHeader("Authorization") != null)
+            return false;
+        String cacheControl = request.getHeader("Cache-Control");
+        if (cacheControl != null
+            && (hasDirective(cacheControl, "no-cache") || hasDirective(cacheControl, "no-store")))
+            return false;
+        String pragma = request.getHeader("Pragma");
+        return pragma == null || !hasDirective(pragma, "no-cache");
+    }
+
+    private boolean isCoveredByVaryHeaders(String vary) {
+        if (vary == null)
+            return true;
+        for (String header : vary.split(",")) {
+            String name = header.trim();
+            if (name.length() > 0 && !isVaryHeader(name))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isVaryHeader(String name) {
+        for (String header : varyHeaders)
+            if (header.equalsIgnoreCase(name))
+                return true;
+        return false;
+    }
+
+    private long timeToLive(CapturingResponse response, long now) {
+        String cacheControl = response.getCapturedHeader("Cache-Control");
+        if (cacheControl != null) {
+            if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache")
+                || hasDirective(cacheControl, "private"))
+                return 0;
+            long sharedMaxAge = seconds(cacheControl, "s-maxage");
+            if (sharedMaxAge >= 0)
+                return 1000 * sharedMaxAge;
+            long maxAge = seconds(cacheControl, "max-age");
+            if (maxAge >= 0)
+                return 1000 * maxAge;
+        }
+        String expires = response.getCapturedHeader("Expires");
+        if (expires == null)
+            return defaultTimeToLiveMillis;
+        long expiresDate = parseDate(expires);
+        if (expiresDate < 0)
+            return 0; //an invalid date means that the response is already expired
+        long date = parseDate(response.getCapturedHeader("Date"));
+        return expiresDate - ((date < 0) ? now : date);
+    }
+
+    /**
+     * Parses an HTTP date like {@code Sun, 06 Nov 1994 08:49:37 GMT}.
+     *
+     * @return the date in milliseconds or -1 if the date is missing or invalid.
+     */
+    private static long parseDate(String date) {
+        if (date == null)
+            return -1;
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(date.trim()).getTime();
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    private static long seconds(String cacheControl, String directive) {
+        for (String part : cacheControl.split(",")) {
+            String trimmedPart = part.trim().toLowerCase();
+            if (trimmedPart.startsWith(directive + "="))
+                try {
+                    return Long.parseLong(trimmedPart.substring(directive.length() + 1).replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+        }
+        return -1;
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            super.destroy();
+        } finally {
+            cache.unregister();
+        }
+    }
+}
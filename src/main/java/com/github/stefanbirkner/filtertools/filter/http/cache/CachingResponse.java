@@ -0,0 +1,13 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The {@link CapturingResponse} of a {@link CachingFilter}. It has its own class, so that a
+ * {@link CoalescingFilter} does not mistake it for its own wrapper and vice versa.
+ */
+class CachingResponse extends CapturingResponse {
+    CachingResponse(HttpServletResponse response) {
+        super(response);
+    }
+}
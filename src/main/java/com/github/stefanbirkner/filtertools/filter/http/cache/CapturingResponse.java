@@ -0,0 +1,299 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * A response that is written to the client and captured for the {@link ResponseCache} at the
+ * same time. It remembers the status, the headers and the body. The response is not cacheable if
+ * the body is larger than the maximum size, if cookies are set, or if an error or a redirect is
+ * sent.
+ */
+class CapturingResponse extends HttpServletResponseWrapper {
+    private final List<String> headerNames = new ArrayList<String>();
+    private final List<String> headerValues = new ArrayList<String>();
+    private int maximumBodySize = 0;
+    private int status = SC_OK;
+    private boolean cacheable = true;
+    private byte[] body = new byte[0];
+    private int bodyLength = 0;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CapturingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    void setMaximumBodySize(int maximumBodySize) {
+        this.maximumBodySize = maximumBodySize;
+    }
+
+    boolean isCacheable() {
+        return cacheable;
+    }
+
+    int getCapturedStatus() {
+        return status;
+    }
+
+    /**
+     * Checks whether the status is a final status that is cacheable by default (RFC 7231,
+     * section 6.1). Partial content (206) and not modified (304) are not.
+     */
+    boolean hasStatusCacheableByDefault() {
+        switch (status) {
+            case 200:
+            case 203:
+            case 204:
+            case 300:
+            case 301:
+            case 404:
+            case 405:
+            case 410:
+            case 414:
+            case 501:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    List<String> getCapturedHeaderNames() {
+        return headerNames;
+    }
+
+    List<String> getCapturedHeaderValues() {
+        return headerValues;
+    }
+
+    /**
+     * Returns the first value of the specified header or {@code null} if the header has not been
+     * set.
+     */
+    String getCapturedHeader(String name) {
+        for (int i = 0; i < headerNames.size(); ++i)
+            if (headerNames.get(i).equalsIgnoreCase(name))
+                return headerValues.get(i);
+        return null;
+    }
+
+    byte[] getCapturedBody() {
+        return body;
+    }
+
+    int getCapturedBodyLength() {
+        return bodyLength;
+    }
+
+    /**
+     * Flushes the writer, so that the whole body has been captured.
+     */
+    void finish() {
+        if (writer != null)
+            writer.flush();
+    }
+
+    @Override
+    public void setStatus(int status) {
+        this.status = status;
+        super.setStatus(status);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+        this.status = status;
+        super.setStatus(status, message);
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        cacheable = false;
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        cacheable = false;
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        cacheable = false;
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        cacheable = false;
+        super.addCookie(cookie);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        removeHeader(name);
+        captureHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        captureHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        super.setIntHeader(name, value);
+        removeHeader(name);
+        captureHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        super.addIntHeader(name, value);
+        captureHeader(name, Integer.toString(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        super.setDateHeader(name, date);
+        removeHeader(name);
+        captureHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        super.addDateHeader(name, date);
+        captureHeader(name, formatDate(date));
+    }
+
+    private void captureHeader(String name, String value) {
+        if (name.equalsIgnoreCase("Set-Cookie") || name.equalsIgnoreCase("Set-Cookie2"))
+            cacheable = false;
+        else if (!name.equalsIgnoreCase("Content-Type") && !name.equalsIgnoreCase("Content-Length")) {
+            headerNames.add(name);
+            headerValues.add(value);
+        }
+    }
+
+    private void removeHeader(String name) {
+        for (int i = headerNames.size() - 1; i >= 0; --i)
+            if (headerNames.get(i).equalsIgnoreCase(name)) {
+                headerNames.remove(i);
+                headerValues.remove(i);
+            }
+    }
+
+    private static String formatDate(long date) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(date));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null)
+            throw new IllegalStateException("getWriter() has already been called.");
+        return capturingOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null)
+                throw new IllegalStateException("getOutputStream() has already been called.");
+            writer = new PrintWriter(new OutputStreamWriter(capturingOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    private ServletOutputStream capturingOutputStream() throws IOException {
+        if (outputStream == null)
+            outputStream = new CapturingOutputStream(super.getOutputStream());
+        return outputStream;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        finish();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        headerNames.clear();
+        headerValues.clear();
+        status = SC_OK;
+        bodyLength = 0;
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        bodyLength = 0;
+    }
+
+    private void capture(int b) {
+        if (ensureCapacity(1))
+            body[bodyLength++] = (byte) b;
+    }
+
+    private void capture(byte[] bytes, int offset, int length) {
+        if (ensureCapacity(length)) {
+            System.arraycopy(bytes, offset, body, bodyLength, length);
+            bodyLength += length;
+        }
+    }
+
+    private boolean ensureCapacity(int length) {
+        if (!cacheable)
+            return false;
+        if (bodyLength + length > maximumBodySize) {
+            cacheable = false;
+            return false;
+        }
+        if (bodyLength + length > body.length)
+            body = Arrays.copyOf(body, Math.min(Math.max(2 * body.length, bodyLength + length), maximumBodySize));
+        return true;
+    }
+
+    private class CapturingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream outputStream;
+
+        CapturingOutputStream(ServletOutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            outputStream.write(b);
+            capture(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            outputStream.write(bytes, offset, length);
+            capture(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            outputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import com.github.stefanbirkner.filtertools.filter.http.ResponseWrapperFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.stefanbirkner.filtertools.filter.http.cache.CacheKeys.hasDirective;
+
+/**
+ * Coalesces identical {@code GET} requests that arrive while such a request is processed. Only
+ * the first request (the leader) calls the filter chain. The other requests (the followers) wait
+ * for the leader and send a copy of its response without calling the filter chain.
+ * <pre>
+ * public class YourCoalescingFilter extends CoalescingFilter {
+ *   public YourCoalescingFilter() {
+ *     super(2000, 1024, 1024 * 1024, "Accept-Encoding");
+ *   }
+ * }
+ * </pre>
+ * <p>Two requests are identical if they have the same scheme, the same server name and port, the
+ * same request URI, the same query string and the same values of the specified key headers. The key headers must include every request header
+ * that the response depends on. Requests with an {@code Authorization} header are never
+ * coalesced. Neither are conditional requests and range requests (requests with an
+ * {@code If-None-Match}, {@code If-Modified-Since}, {@code If-Match}, {@code If-Unmodified-Since},
+ * {@code If-Range} or {@code Range} header), because their responses depend on these headers.
+ * Their response (e.g. 304 or 206) cannot be sent to a request without them.
+ *
+ * <p>The leader's response is written to the client while it is captured. A follower calls the
+ * filter chain itself if
+ * <ul>
+ * <li>it waited longer than the timeout,</li>
+ * <li>the leader failed with an exception or started asynchronous processing,</li>
+ * <li>the leader's response has a status that is not cacheable by default (everything except
+ * 200, 203, 204, 300, 301, 404, 405, 410, 414 and 501), sets cookies, sends an error or a
+ * redirect,</li>
+ * <li>the leader's response has a {@code Cache-Control} header with the directive
+ * {@code private} or {@code no-store} or</li>
+ * <li>the leader's response body is larger than the maximum body size.</li>
+ * </ul>
+ * <p>The number of requests that may be leaders at the same time is bounded. If there are
+ * already that many leaders then a new request calls the filter chain without being coalesced.
+ *
+ * @since 1.5.0
+ */
+public class CoalescingFilter extends ResponseWrapperFilter<CoalescingResponse> {
+    private static final String FLIGHT_ATTRIBUTE = CoalescingFilter.class.getName() + ".flight";
+    private static final String[] PRECONDITION_HEADERS = {
+        "If-None-Match", "If-Modified-Since", "If-Match", "If-Unmodified-Since", "If-Range", "Range"};
+    private final long timeoutMillis;
+    private final int maximumLeaders;
+    private final int maximumBodySize;
+    private final String[] keyHeaders;
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+
+    /**
+     * Creates a {@code CoalescingFilter}.
+     *
+     * @param timeoutMillis   the maximum time in milliseconds that a follower waits for the leader.
+     * @param maximumLeaders  the maximum number of requests that are leaders at the same time.
+     * @param maximumBodySize the maximum size in bytes of a response that is sent to the followers.
+     * @param keyHeaders      the names of the request headers whose values are part of the key.
+     */
+    public CoalescingFilter(long timeoutMillis, int maximumLeaders, int maximumBodySize, String... keyHeaders) {
+        super(CoalescingResponse.class);
+        if (timeoutMillis <= 0)
+            throw new IllegalArgumentException("The timeout must be positive, but it is " + timeoutMillis + ".");
+        if (maximumLeaders <= 0)
+            throw new IllegalArgumentException(
+                "The maximum number of leaders must be positive, but it is " + maximumLeaders + ".");
+        if (maximumBodySize < 0)
+            throw new IllegalArgumentException(
+                "The maximum body size must not be negative, but it is " + maximumBodySize + ".");
+        this.timeoutMillis = timeoutMillis;
+        this.maximumLeaders = maximumLeaders;
+        this.maximumBodySize = maximumBodySize;
+        this.keyHeaders = keyHeaders.clone();
+        for (String header : this.keyHeaders)
+            if (header == null)
+                throw new NullPointerException("A key header is missing.");
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (!isCoalescable(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = CacheKeys.key(request, keyHeaders);
+        Flight flight = flights.get(key);
+        if (flight == null && flights.size() < maximumLeaders) {
+            Flight newFlight = new Flight();
+            flight = flights.putIfAbsent(key, newFlight);
+            if (flight == null) {
+                lead(request, response, filterChain, key, newFlight);
+                return;
+            }
+        }
+        if (flight == null)
+            filterChain.doFilter(request, response);
+        else
+            follow(request, response, filterChain, flight);
+    }
+
+    private void lead(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                      String key, Flight flight) throws IOException, ServletException {
+        request.setAttribute(FLIGHT_ATTRIBUTE, flight);
+        try {
+            super.doFilter(request, response, filterChain);
+        } finally {
+            request.removeAttribute(FLIGHT_ATTRIBUTE);
+            flights.remove(key, flight);
+            flight.landed.countDown();
+        }
+    }
+
+    private void follow(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                        Flight flight) throws IOException, ServletException {
+        CachedResponse sharedResponse = flight.await(timeoutMillis);
+        if (sharedResponse == null)
+            filterChain.doFilter(request, response);
+        else
+            sharedResponse.writeTo(response, true, System.currentTimeMillis());
+    }
+
+    @Override
+    protected CoalescingResponse createWrapper(HttpServletResponse response) {
+        return new CoalescingResponse(response);
+    }
+
+    @Override
+    protected void doFilterWithWrapper(HttpServletRequest request, CoalescingResponse wrapper,
+                                       FilterChain filterChain) throws IOException, ServletException {
+        wrapper.setMaximumBodySize(maximumBodySize);
+        filterChain.doFilter(request, wrapper);
+        if (!isAsyncStarted(request)) {
+            wrapper.finish();
+            Flight flight = (Flight) request.getAttribute(FLIGHT_ATTRIBUTE);
+            if (flight != null && isShareable(wrapper)) {
+                long now = System.currentTimeMillis();
+                flight.response = new CachedResponse(
+                    wrapper.getCapturedStatus(), wrapper.getContentType(),
+                    wrapper.getCapturedHeaderNames(), wrapper.getCapturedHeaderValues(),
+                    wrapper.getCapturedBody(), wrapper.getCapturedBodyLength(), ResponseCache.BodyStorage.HEAP,
+                    now, now);
+            }
+        }
+    }
+
+    private static boolean isCoalescable(HttpServletRequest request) {
+        if (!request.getMethod().equals("GET") || request.getHeader("Authorization") != null)
+            return false;
+        for (String header : PRECONDITION_HEADERS)
+            if (request.getHeader(header) != null)
+                return false;
+        return true;
+    }
+
+    private static boolean isShareable(CapturingResponse response) {
+        if (!response.isCacheable() || !response.hasStatusCacheableByDefault())
+            return false;
+        String cacheControl = response.getCapturedHeader("Cache-Control");
+        return cacheControl == null
+            || !(hasDirective(cacheControl, "private") || hasDirective(cacheControl, "no-store"));
+    }
+
+    /**
+     * The processing of a leader. It lands when the leader's filter chain returns.
+     */
+    private static class Flight {
+        final CountDownLatch landed = new CountDownLatch(1);
+        volatile CachedResponse response;
+
+        /**
+         * Returns the leader's response or {@code null} if it cannot be shared or the leader did
+         * not land in time.
+         */
+        CachedResponse await(long timeoutMillis) {
+            try {
+                return landed.await(timeoutMillis, TimeUnit.MILLISECONDS) ? response : null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The {@link CapturingResponse} of a {@link CoalescingFilter}. It has its own class, so that a
+ * {@link CachingFilter} does not mistake it for its own wrapper and vice versa.
+ */
+class CoalescingResponse extends CapturingResponse {
+    CoalescingResponse(HttpServletResponse response) {
+        super(response);
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import com.github.stefanbirkner.filtertools.filter.http.ResponseWrapperFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adds strong ETags to responses of {@code GET} requests and answers conditional requests with
+ * 304 (Not Modified) if the client already has the response.
+ * <pre>
+ * public class YourETagFilter extends ETagFilter {
+ *   public YourETagFilter() {
+ *     super(256 * 1024, 10);
+ *   }
+ * }
+ * </pre>
+ * <p>The ETag is the MD5 hash of the body, which is computed while the body is written. The body
+ * is held back until the filter chain returns. If the request's {@code If-None-Match} header
+ * matches the ETag then the body is discarded and the status is set to 304. An ETag that has
+ * been set by the filter chain is used instead of the hash.
+ *
+ * <p>Only responses with status 200 get an ETag. The filter does not add an ETag if the body is
+ * larger than the maximum size or if it is flushed. Such responses are written to the client
+ * immediately.
+ *
+ * <p>The filter can remember the ETag of each URI (including the query string) for a few
+ * seconds. A conditional request that matches the remembered ETag is answered with 304 without
+ * calling the filter chain. Use it only for resources that don't change more often than that,
+ * because changes are not seen until the ETag is forgotten. ETags of responses that set cookies
+ * or have a {@code Vary} header are not remembered.
+ *
+ * @since 1.5.0
+ */
+public class ETagFilter extends ResponseWrapperFilter<ETagResponse> {
+    /**
+     * The maximum size of a body with an ETag for {@link #ETagFilter()}.
+     */
+    public static final int DEFAULT_MAXIMUM_BODY_SIZE = 256 * 1024;
+    private static final int MAX_REMEMBERED_ETAGS = 10000;
+    private final int maximumBodySize;
+    private final long rememberMillis;
+    private final ResponseCache.Clock clock;
+    private final ConcurrentHashMap<String, RememberedETag> rememberedETags
+        = new ConcurrentHashMap<String, RememberedETag>();
+
+    /**
+     * Creates a filter that adds ETags to responses with up to
+     * {@value #DEFAULT_MAXIMUM_BODY_SIZE} bytes and that does not remember ETags.
+     */
+    public ETagFilter() {
+        this(DEFAULT_MAXIMUM_BODY_SIZE, 0);
+    }
+
+    /**
+     * Creates a filter.
+     *
+     * @param maximumBodySize the maximum size of a body with an ETag in bytes.
+     * @param rememberSeconds the number of seconds an ETag is remembered. ETags are not
+     *                        remembered if it is 0.
+     */
+    public ETagFilter(int maximumBodySize, long rememberSeconds) {
+        this(maximumBodySize, rememberSeconds, ResponseCache.SYSTEM_CLOCK);
+    }
+
+    ETagFilter(int maximumBodySize, long rememberSeconds, ResponseCache.Clock clock) {
+        super(ETagResponse.class);
+        if (maximumBodySize < 0)
+            throw new IllegalArgumentException(
+                "The maximum body size must not be negative, but it is " + maximumBodySize + ".");
+        this.maximumBodySize = maximumBodySize;
+        this.rememberMillis = 1000 * rememberSeconds;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (rememberMillis > 0 && isAnsweredByRememberedETag(request, response))
+            return;
+        super.doFilter(request, response, filterChain);
+    }
+
+    private boolean isAnsweredByRememberedETag(HttpServletRequest request, HttpServletResponse response) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null || !request.getMethod().equals("GET"))
+            return false;
+        RememberedETag rememberedETag = rememberedETags.get(uri(request));
+        if (rememberedETag == null || rememberedETag.expiresAt <= clock.currentTimeMillis()
+            || !matches(ifNoneMatch, rememberedETag.eTag))
+            return false;
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        response.setHeader("ETag", rememberedETag.eTag);
+        return true;
+    }
+
+    @Override
+    protected boolean needsWrapper(HttpServletRequest request, HttpServletResponse response) {
+        return request.getMethod().equals("GET") && super.needsWrapper(request, response);
+    }
+
+    @Override
+    protected ETagResponse createWrapper(HttpServletResponse response) {
+        return new ETagResponse(response);
+    }
+
+    @Override
+    protected void doFilterWithWrapper(HttpServletRequest request, ETagResponse wrapper, FilterChain filterChain)
+        throws IOException, ServletException {
+        wrapper.setMaximumBodySize(maximumBodySize);
+        filterChain.doFilter(request, wrapper);
+        if (isAsyncStarted(request))
+            wrapper.flushBuffer();
+        else {
+            String eTag = wrapper.finish(request.getHeader("If-None-Match"));
+            if (eTag != null && rememberMillis > 0 && wrapper.isShareable())
+                remember(uri(request), eTag);
+        }
+    }
+
+    private void remember(String uri, String eTag) {
+        long now = clock.currentTimeMillis();
+        if (rememberedETags.size() >= MAX_REMEMBERED_ETAGS)
+            forgetExpiredETags(now);
+        if (rememberedETags.size() < MAX_REMEMBERED_ETAGS)
+            rememberedETags.put(uri, new RememberedETag(eTag, now + rememberMillis));
+    }
+
+    private void forgetExpiredETags(long now) {
+        Iterator<RememberedETag> eTags = rememberedETags.values().iterator();
+        while (eTags.hasNext())
+            if (eTags.next().expiresAt <= now)
+                eTags.remove();
+    }
+
+    private static String uri(HttpServletRequest request) {
+        String queryString = request.getQueryString();
+        return (queryString == null) ? request.getRequestURI() : request.getRequestURI() + '?' + queryString;
+    }
+
+    /**
+     * Checks whether an ETag matches an {@code If-None-Match} header. Weak and strong ETags are
+     * compared by their values.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null)
+            return false;
+        String value = withoutWeakPrefix(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmedCandidate = candidate.trim();
+            if (trimmedCandidate.equals("*") || withoutWeakPrefix(trimmedCandidate).equals(value))
+                return true;
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static class RememberedETag {
+        final String eTag;
+        final long expiresAt;
+
+        RememberedETag(String eTag, long expiresAt) {
+            this.eTag = eTag;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A response that holds back its body and hashes it while it is written. The body is written to
+ * the client by {@link #finish(String)}, unless the client already has it. Closing the output
+ * stream or the writer ends the body, but the underlying stream is not closed before the body is
+ * written. If the body is larger than the maximum size, if it is flushed or if an error or a
+ * redirect is sent, then the response gives up: the body is written to the client immediately and
+ * the response gets no ETag.
+ */
+class ETagResponse extends HttpServletResponseWrapper {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private final MessageDigest digest = newDigest();
+    private final ServletOutputStream outputStream = new HashingOutputStream();
+    private int maximumBodySize = 0;
+    private boolean holdingBack = true;
+    private boolean finishing = false;
+    private boolean outputStreamUsed = false;
+    private boolean closingWriter = false;
+    private boolean closed = false;
+    private PrintWriter writer;
+    private byte[] body = new byte[0];
+    private int bodyLength = 0;
+    private int status = SC_OK;
+    private String contentLength;
+    private String eTag;
+    private boolean varies = false;
+    private boolean setsCookies = false;
+
+    ETagResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    void setMaximumBodySize(int maximumBodySize) {
+        this.maximumBodySize = maximumBodySize;
+    }
+
+    /**
+     * Returns {@code true} if the ETag may be used for other clients, too.
+     */
+    boolean isShareable() {
+        return !varies && !setsCookies;
+    }
+
+    /**
+     * Writes the response with an ETag or answers with 304 (Not Modified) if the client has a
+     * body with the same ETag.
+     *
+     * @param ifNoneMatch the {@code If-None-Match} header of the request.
+     * @return the ETag or {@code null} if the response has no ETag.
+     */
+    String finish(String ifNoneMatch) throws IOException {
+        finishing = true;
+        if (writer != null)
+            writer.flush();
+        if (!holdingBack)
+            return null;
+        holdingBack = false;
+        String eTag = null;
+        if (status != SC_OK)
+            writeHeldBackBody();
+        else {
+            eTag = (this.eTag == null) ? currentETag() : this.eTag;
+            super.setHeader("ETag", eTag);
+            if (ETagFilter.matches(ifNoneMatch, eTag))
+                super.setStatus(SC_NOT_MODIFIED);
+            else
+                writeHeldBackBody();
+        }
+        closeIfClosedByChain();
+        return eTag;
+    }
+
+    private String currentETag() {
+        byte[] hash = digest.digest();
+        char[] eTag = new char[2 * hash.length + 2];
+        eTag[0] = '"';
+        for (int i = 0; i < hash.length; ++i) {
+            eTag[2 * i + 1] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            eTag[2 * i + 2] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        eTag[eTag.length - 1] = '"';
+        return new String(eTag);
+    }
+
+    private void writeHeldBackBody() throws IOException {
+        if (contentLength != null)
+            super.setHeader("Content-Length", contentLength);
+        else if (!isCommitted())
+            super.setContentLength(bodyLength);
+        if (bodyLength > 0)
+            getResponse().getOutputStream().write(body, 0, bodyLength);
+    }
+
+    private void giveUp() throws IOException {
+        if (holdingBack) {
+            holdingBack = false;
+            if (contentLength != null)
+                super.setHeader("Content-Length", contentLength);
+            if (bodyLength > 0)
+                getResponse().getOutputStream().write(body, 0, bodyLength);
+            closeIfClosedByChain();
+        }
+    }
+
+    private void closeIfClosedByChain() throws IOException {
+        if (closed)
+            getResponse().getOutputStream().close();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null)
+            throw new IllegalStateException("getWriter() has already been called.");
+        outputStreamUsed = true;
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStreamUsed)
+                throw new IllegalStateException("getOutputStream() has already been called.");
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding())) {
+                @Override
+                public void close() {
+                    closingWriter = true; //the writer flushes the stream before it closes it
+                    super.close();
+                }
+            };
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null)
+            writer.flush();
+        giveUp();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+        status = SC_OK;
+        contentLength = null;
+        eTag = null;
+        varies = false;
+        setsCookies = false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (holdingBack) {
+            digest.reset();
+            bodyLength = 0;
+        }
+    }
+
+    @Override
+    public void setStatus(int status) {
+        this.status = status;
+        super.setStatus(status);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+        this.status = status;
+        super.setStatus(status, message);
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        giveUp();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        giveUp();
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        giveUp();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        setsCookies = true;
+        super.addCookie(cookie);
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        setHeader("Content-Length", Integer.toString(length));
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!interceptHeader(name, value))
+            super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!interceptHeader(name, value))
+            super.addHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!interceptHeader(name, Integer.toString(value)))
+            super.setIntHeader(name, value);
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!interceptHeader(name, Integer.toString(value)))
+            super.addIntHeader(name, value);
+    }
+
+    private boolean interceptHeader(String name, String value) {
+        if (name.equalsIgnoreCase("Content-Length") && holdingBack) {
+            contentLength = value;
+            return true;
+        } else if (name.equalsIgnoreCase("ETag") && holdingBack) {
+            eTag = value;
+            return true;
+        }
+        if (name.equalsIgnoreCase("Vary"))
+            varies = true;
+        else if (name.equalsIgnoreCase("Set-Cookie") || name.equalsIgnoreCase("Set-Cookie2"))
+            setsCookies = true;
+        return false;
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        if (closed)
+            throw new IOException("The output stream has been closed.");
+        if (holdingBack) {
+            if (bodyLength + length <= maximumBodySize) {
+                if (bodyLength + length > body.length)
+                    body = Arrays.copyOf(body, Math.min(Math.max(2 * body.length, bodyLength + length), maximumBodySize));
+                System.arraycopy(bytes, offset, body, bodyLength, length);
+                bodyLength += length;
+                digest.update(bytes, offset, length);
+                return;
+            }
+            giveUp();
+        }
+        getResponse().getOutputStream().write(bytes, offset, length);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("The JVM does not support MD5.", e);
+        }
+    }
+
+    private class HashingOutputStream extends ServletOutputStream {
+        private final byte[] singleByte = new byte[1];
+
+        @Override
+        public void write(int b) throws IOException {
+            singleByte[0] = (byte) b;
+            ETagResponse.this.write(singleByte, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ETagResponse.this.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!finishing && !closingWriter && !closed) {
+                giveUp();
+                getResponse().getOutputStream().flush();
+            }
+        }
+
+        /**
+         * Ends the body. The held back body is written and the underlying stream is closed by
+         * {@link #finish(String)}.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                if (!holdingBack)
+                    getResponse().getOutputStream().close();
+            }
+        }
+    }
+}
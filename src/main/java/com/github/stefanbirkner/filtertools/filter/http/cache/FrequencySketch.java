@@ -0,0 +1,88 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+/**
+ * Estimates how often a key has been seen recently. It is a count-min sketch with four rows of
+ * 4-bit counters, so that the estimate for a key never exceeds 15. When the sketch has counted
+ * ten times as many keys as it has counters per row, all counters are halved. Therefore the
+ * estimates of keys that are no longer requested decline over time.
+ *
+ * <p>The sketch is not thread-safe.
+ */
+class FrequencySketch {
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_FREQUENCY = 15;
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size = 0;
+
+    /**
+     * Creates a sketch.
+     *
+     * @param expectedKeys the number of keys that are expected to be in the cache. It is
+     *                     rounded up to the next power of two.
+     */
+    FrequencySketch(int expectedKeys) {
+        int tableSize = 16;
+        while (tableSize < expectedKeys && tableSize < (1 << 30))
+            tableSize <<= 1;
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = 10 * tableSize;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < 4; ++i) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; ++i)
+            added |= incrementAt(indexOf(hash, i), start + i);
+        if (added && ++size == sampleSize)
+            reset();
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) == mask)
+            return false;
+        table[index] += 1L << offset;
+        return true;
+    }
+
+    private void reset() {
+        int oddCounters = 0;
+        for (int i = 0; i < table.length; ++i) {
+            oddCounters += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (oddCounters >>> 2);
+    }
+
+    private int indexOf(int hash, int row) {
+        long value = (hash + SEEDS[row]) * SEEDS[row];
+        value += value >>> 32;
+        return (int) value & tableMask;
+    }
+
+    private static int spread(int value) {
+        value = ((value >>> 16) ^ value) * 0x45d9f3b;
+        value = ((value >>> 16) ^ value) * 0x45d9f3b;
+        return (value >>> 16) ^ value;
+    }
+}
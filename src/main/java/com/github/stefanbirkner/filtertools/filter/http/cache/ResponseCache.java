@@ -0,0 +1,374 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The storage of a {@link CachingFilter}. Its size is bounded by the total size of the cached
+ * responses. It is used by a single {@code CachingFilter}.
+ *
+ * <p>The cache uses the W-TinyLFU policy. New responses are added to a small LRU window (1% of
+ * the cache). Responses that are pushed out of the window are only admitted to the main part of
+ * the cache if they have been requested more often than the response that would be evicted for
+ * them. The request frequencies are estimated by a compact sketch that forgets old requests over
+ * time. The main part is a segmented LRU: responses that have been requested again are protected
+ * (up to 80% of the main part) and are evicted after the responses that have been requested only
+ * once. Therefore a burst of requests for responses that are never requested again cannot flush
+ * the popular responses out of the cache.
+ *
+ * <p>Lookups don't block. The policy is updated under a lock. If the lock is held by another
+ * thread then the lookup is not recorded by the policy.
+ *
+ * <p>The bodies of the responses are stored on the heap or in direct buffers
+ * ({@link BodyStorage#OFF_HEAP}). Direct buffers keep large caches out of the garbage collector's
+ * way, but they are limited by {@code -XX:MaxDirectMemorySize} and are freed when the garbage
+ * collector collects the evicted response.
+ *
+ * <p>The statistics of the cache can be published as an MBean with the object name
+ * {@code com.github.stefanbirkner.filtertools:type=ResponseCache,name=<name of the cache>}.
+ *
+ * @since 1.5.0
+ */
+public class ResponseCache implements ResponseCacheMBean {
+    /**
+     * Where the bodies of the cached responses are stored.
+     */
+    public enum BodyStorage {
+        HEAP, OFF_HEAP
+    }
+
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+    private static final int EXPECTED_RESPONSE_SIZE = 4096;
+    private final String name;
+    private final MBeanRegistration registration;
+    private final long maximumSize;
+    private final long maximumWindowSize;
+    private final long maximumProtectedSize;
+    private final BodyStorage bodyStorage;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Node> entries = new ConcurrentHashMap<String, Node>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessOrderQueue window = new AccessOrderQueue();
+    private final AccessOrderQueue probation = new AccessOrderQueue();
+    private final AccessOrderQueue protectedQueue = new AccessOrderQueue();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long windowSize = 0;
+    private long protectedSize = 0;
+    private volatile long size = 0;
+
+    /**
+     * Creates a cache.
+     *
+     * @param name        the name of the cache. It is used for the object name of the MBean.
+     * @param maximumSize the maximum total size of the cached responses in bytes.
+     * @param bodyStorage where the bodies of the responses are stored.
+     */
+    public ResponseCache(String name, long maximumSize, BodyStorage bodyStorage) {
+        this(name, maximumSize, bodyStorage, SYSTEM_CLOCK);
+    }
+
+    ResponseCache(String name, long maximumSize, BodyStorage bodyStorage, Clock clock) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        if (bodyStorage == null)
+            throw new NullPointerException("The body storage is missing.");
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("The maximum size must be positive, but it is " + maximumSize + ".");
+        this.name = name;
+        this.registration = new MBeanRegistration(this, "type=ResponseCache,name=" + ObjectName.quote(name));
+        this.maximumSize = maximumSize;
+        this.maximumWindowSize = Math.max(1, maximumSize / 100);
+        this.maximumProtectedSize = (maximumSize - maximumWindowSize) * 4 / 5;
+        this.bodyStorage = bodyStorage;
+        this.clock = clock;
+        this.sketch = new FrequencySketch((int) Math.min(maximumSize / EXPECTED_RESPONSE_SIZE, 1 << 24));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    BodyStorage getBodyStorage() {
+        return bodyStorage;
+    }
+
+    long currentTimeMillis() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * Responses that are larger than an eighth of the cache are not cached.
+     */
+    long getMaximumResponseSize() {
+        return maximumSize / 8;
+    }
+
+    CachedResponse get(String key) {
+        Node node = entries.get(key);
+        if (node == null) {
+            misses.incrementAndGet();
+            recordMiss(key);
+            return null;
+        } else if (node.response.isExpired(clock.currentTimeMillis())) {
+            misses.incrementAndGet();
+            removeExpired(node);
+            return null;
+        } else {
+            hits.incrementAndGet();
+            recordHit(node);
+            return node.response;
+        }
+    }
+
+    void put(String key, CachedResponse response) {
+        long weight = response.getWeight();
+        if (weight > getMaximumResponseSize())
+            return;
+        lock.lock();
+        try {
+            Node existingNode = entries.get(key);
+            if (existingNode != null)
+                remove(existingNode);
+            Node node = new Node(key, response, weight);
+            entries.put(key, node);
+            window.add(node);
+            windowSize += weight;
+            size += weight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordMiss(String key) {
+        if (lock.tryLock())
+            try {
+                sketch.increment(key);
+            } finally {
+                lock.unlock();
+            }
+    }
+
+    private void recordHit(Node node) {
+        if (lock.tryLock())
+            try {
+                sketch.increment(node.key);
+                if (node.queue != null)
+                    onAccess(node);
+            } finally {
+                lock.unlock();
+            }
+    }
+
+    private void removeExpired(Node node) {
+        lock.lock();
+        try {
+            if (node.queue != null)
+                remove(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onAccess(Node node) {
+        if (node.queue == window || node.queue == protectedQueue)
+            node.queue.moveToTail(node);
+        else {
+            probation.remove(node);
+            protectedQueue.add(node);
+            protectedSize += node.weight;
+            while (protectedSize > maximumProtectedSize) {
+                Node demotedNode = protectedQueue.head;
+                protectedQueue.remove(demotedNode);
+                protectedSize -= demotedNode.weight;
+                probation.add(demotedNode);
+            }
+        }
+    }
+
+    /**
+     * Moves the oldest responses of the window to the probation queue. They are the candidates
+     * for admission. As long as the cache is too large, the frequency of the oldest candidate is
+     * compared with the frequency of the least recently used response that is not a candidate
+     * (the victim) and the less frequent of them is evicted.
+     */
+    private void evict() {
+        Node firstCandidate = null;
+        while (windowSize > maximumWindowSize) {
+            Node node = window.head;
+            window.remove(node);
+            windowSize -= node.weight;
+            probation.add(node);
+            if (firstCandidate == null)
+                firstCandidate = node;
+        }
+        while (size > maximumSize) {
+            Node victim = probation.head;
+            if (victim == null)
+                victim = (protectedQueue.head == null) ? window.head : protectedQueue.head;
+            if (firstCandidate == null || victim == firstCandidate) {
+                if (victim == firstCandidate)
+                    firstCandidate = victim.next;
+                evict(victim);
+            } else if (sketch.frequency(firstCandidate.key) > sketch.frequency(victim.key))
+                evict(victim);
+            else {
+                Node candidate = firstCandidate;
+                firstCandidate = candidate.next;
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node node) {
+        remove(node);
+        evictions.incrementAndGet();
+    }
+
+    private void remove(Node node) {
+        if (node.queue == window)
+            windowSize -= node.weight;
+        else if (node.queue == protectedQueue)
+            protectedSize -= node.weight;
+        node.queue.remove(node);
+        size -= node.weight;
+        entries.remove(node.key, node);
+    }
+
+    /**
+     * Registers the statistics of this cache at the platform MBean server.
+     *
+     * @throws JMException if the MBean cannot be registered, e.g. because there is already an
+     *                     MBean with the same name.
+     * @see MBeanRegistration
+     */
+    public void register() throws JMException {
+        registration.register();
+    }
+
+    /**
+     * Removes the statistics of this cache from the platform MBean server if it has been registered by
+     * {@link #register()}.
+     */
+    public void unregister() {
+        registration.unregister();
+    }
+
+    ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return entries.size();
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            for (Node node : entries.values())
+                if (node.queue != null)
+                    remove(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Node {
+        final String key;
+        final CachedResponse response;
+        final long weight;
+        AccessOrderQueue queue;
+        Node previous;
+        Node next;
+
+        Node(String key, CachedResponse response, long weight) {
+            this.key = key;
+            this.response = response;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes. The head is the least recently used node.
+     */
+    private static class AccessOrderQueue {
+        Node head;
+        Node tail;
+
+        void add(Node node) {
+            node.queue = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null)
+                head = node;
+            else
+                tail.next = node;
+            tail = node;
+        }
+
+        void remove(Node node) {
+            if (node.previous == null)
+                head = node.next;
+            else
+                node.previous.next = node.next;
+            if (node.next == null)
+                tail = node.previous;
+            else
+                node.next.previous = node.previous;
+            node.queue = null;
+            node.previous = null;
+            node.next = null;
+        }
+
+        void moveToTail(Node node) {
+            if (node != tail) {
+                remove(node);
+                add(node);
+            }
+        }
+    }
+}
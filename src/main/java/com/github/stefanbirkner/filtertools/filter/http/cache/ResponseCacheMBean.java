@@ -0,0 +1,41 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+/**
+ * The JMX management interface of {@link ResponseCache}. All sizes are in bytes.
+ *
+ * @since 1.5.0
+ */
+public interface ResponseCacheMBean {
+    /**
+     * Returns the number of requests that have been answered by the cache.
+     *
+     * @return the number of requests that have been answered by the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of requests that could not be answered by the cache.
+     *
+     * @return the number of requests that could not be answered by the cache.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of responses that have been removed in order to make room for other
+     * responses or that have not been admitted to the cache.
+     *
+     * @return the number of evicted responses.
+     */
+    long getEvictionCount();
+
+    long getEntryCount();
+
+    long getSize();
+
+    long getMaximumSize();
+
+    /**
+     * Removes all responses from the cache.
+     */
+    void invalidateAll();
+}
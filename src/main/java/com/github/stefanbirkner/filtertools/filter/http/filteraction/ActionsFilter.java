@@ -1,5 +1,6 @@
 package com.github.stefanbirkner.filtertools.filter.http.filteraction;
 
+import com.github.stefanbirkner.filtertools.filter.ParallelLifecycle;
 import com.github.stefanbirkner.filtertools.filter.http.HttpFilter;
 
 import javax.servlet.FilterConfig;
@@ -18,18 +19,51 @@ import static java.util.Arrays.asList;
  * {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}s. It initialized and destroys the
  * actions. All actions are executed when the sub-class calls
  * {@link #executeAllFilterActions(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}.
+ * <p>The actions are initialized and destroyed one after another unless a
+ * {@link com.github.stefanbirkner.filtertools.filter.ParallelLifecycle} is provided.
  *
  * @since 1.2.0
  */
 public abstract class ActionsFilter extends HttpFilter {
+    private static final ParallelLifecycle.Member<FilterAction> ACTION = new ParallelLifecycle.Member<FilterAction>() {
+        @Override
+        public void init(FilterAction action, FilterConfig filterConfig) throws ServletException {
+            action.init(filterConfig);
+        }
+
+        @Override
+        public void destroy(FilterAction action) {
+            action.destroy();
+        }
+    };
     private final List<FilterAction> actions;
+    private final ParallelLifecycle parallelLifecycle;
 
     public ActionsFilter(FilterAction... actions) {
         this.actions = asList(actions);
+        this.parallelLifecycle = null;
+    }
+
+    /**
+     * Creates a filter whose actions are initialized and destroyed in parallel.
+     *
+     * @param parallelLifecycle initializes and destroys the actions.
+     * @param actions           the actions.
+     * @since 1.5.0
+     */
+    public ActionsFilter(ParallelLifecycle parallelLifecycle, FilterAction... actions) {
+        if (parallelLifecycle == null)
+            throw new NullPointerException("The parallel lifecycle is missing.");
+        this.actions = asList(actions);
+        this.parallelLifecycle = parallelLifecycle;
     }
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
+        if (parallelLifecycle != null) {
+            parallelLifecycle.init(actions, ACTION, filterConfig);
+            return;
+        }
         List<FilterAction> initializedActions = new ArrayList<FilterAction>();
         try {
             for (FilterAction action : actions) {
@@ -53,7 +87,10 @@ public abstract class ActionsFilter extends HttpFilter {
 
     @Override
     public void destroy() {
-        destroyActions(actions);
+        if (parallelLifecycle == null)
+            destroyActions(actions);
+        else
+            parallelLifecycle.destroy(actions, ACTION);
     }
 
     private void destroyActions(List<FilterAction> actionsToDestroy) {
@@ -0,0 +1,89 @@
+package com.github.stefanbirkner.filtertools.filter.http.filteraction;
+
+import com.github.stefanbirkner.filtertools.filter.ParallelLifecycle;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Executes {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}s after the response
+ * has been completed. This is the same as the
+ * {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.PostFilterChainActionsFilter} for ordinary
+ * requests. If the servlet started asynchronous processing then the filter returns immediately and the actions are
+ * executed by an {@link javax.servlet.AsyncListener} when the asynchronous processing has been completed.
+ * The container completes the asynchronous processing after a timeout or an error, too. Therefore the actions are
+ * executed exactly once in all three cases.
+ *
+ * <p>The filter needs a Servlet 3.0 container. It must support asynchronous processing (set
+ * {@code <async-supported>true</async-supported>} in the web.xml) if your servlets do.
+ *
+ * @since 1.5.0
+ */
+public class AsyncAwarePostFilterChainActionsFilter extends ActionsFilter {
+    /**
+     * Create a new filter.
+     * {@link #doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse, javax.servlet.FilterChain)}
+     * executes the actions in the same order as you provide it.
+     *
+     * @param actions a list of {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}s
+     */
+    public AsyncAwarePostFilterChainActionsFilter(FilterAction... actions) {
+        super(actions);
+    }
+
+    /**
+     * Create a new filter whose actions are initialized and destroyed in parallel.
+     *
+     * @param parallelLifecycle initializes and destroys the actions.
+     * @param actions           a list of {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}s
+     */
+    public AsyncAwarePostFilterChainActionsFilter(ParallelLifecycle parallelLifecycle, FilterAction... actions) {
+        super(parallelLifecycle, actions);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        filterChain.doFilter(request, response);
+        if (request.getDispatcherType() == DispatcherType.ASYNC)
+            return; //the listener that has been added by the original dispatch executes the actions
+        if (request.isAsyncStarted())
+            request.getAsyncContext().addListener(new ExecuteActionsOnComplete(), request, response);
+        else
+            executeAllFilterActions(request, response);
+    }
+
+    private class ExecuteActionsOnComplete implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            try {
+                executeAllFilterActions(
+                    (HttpServletRequest) event.getSuppliedRequest(),
+                    (HttpServletResponse) event.getSuppliedResponse());
+            } catch (ServletException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this, event.getSuppliedRequest(), event.getSuppliedResponse());
+        }
+    }
+}
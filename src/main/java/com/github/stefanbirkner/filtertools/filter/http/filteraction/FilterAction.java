@@ -57,6 +57,18 @@ import java.io.IOException;
  *    .when(new APredicate())
  *    .otherwiseExecute(new DoSomethingElse());</pre>
  *
+ * <h2>Select one of many Filter Actions</h2>
+ * <p>The {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterActionLookupSwitch} selects an
+ * action by a key of the request.</p>
+ * <pre>FilterAction actionSwitch = FilterActionLookupSwitch.selectBy(RequestKeys.method())
+ *    .when("GET", new DoSomething())
+ *    .otherwiseExecute(new DoSomethingElse());</pre>
+ *
+ * <h2>Execute independent Filter Actions in parallel</h2>
+ * <p>Filter tools provides {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.ParallelFilterActions}
+ * that executes actions that don't depend on each other in parallel.</p>
+ * <pre>FilterAction lookups = new ParallelFilterActions(new FetchFeatureFlags(), new LookUpTenant());</pre>
+ *
  * @since 1.2.0
  */
 public interface FilterAction {
@@ -0,0 +1,134 @@
+package com.github.stefanbirkner.filtertools.filter.http.filteraction;
+
+import com.github.stefanbirkner.filtertools.filter.KeyExtractor;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Creates a {@link FilterAction} that executes one of many actions based on a key of the request, e.g. its HTTP
+ * method or its {@code Host} header. The key is extracted once and the action is looked up in a table. Therefore the
+ * cost of the switch does not depend on the number of actions. The switch is created by an Fluent API.
+ * <pre>FilterAction actionSwitch = FilterActionLookupSwitch.selectBy(RequestKeys.method())
+ *    .when("GET", new DoSomething())
+ *    .when("POST", new DoSomethingElse())
+ *    .otherwiseExecute(new DoTheDefault());</pre>
+ * <p>The default action is executed if the request has no key or if there is no action for its key. Every action is
+ * initialized and destroyed once, even if it is used for multiple keys.
+ *
+ * @param <K> the type of the key.
+ * @since 1.5.0
+ */
+public class FilterActionLookupSwitch<K> implements FilterAction {
+    /**
+     * Start to build a {@code FilterActionLookupSwitch}.
+     *
+     * @param keyExtractor extracts the key of a request that is used to select the action.
+     * @param <K>          the type of the key.
+     */
+    public static <K> KeyExtractorSpecified<K> selectBy(KeyExtractor<? super HttpServletRequest, K> keyExtractor) {
+        return new KeyExtractorSpecified<K>(keyExtractor);
+    }
+
+    public static class KeyExtractorSpecified<K> {
+        private final KeyExtractor<? super HttpServletRequest, K> keyExtractor;
+        private final Map<K, FilterAction> actions = new LinkedHashMap<K, FilterAction>();
+
+        private KeyExtractorSpecified(KeyExtractor<? super HttpServletRequest, K> keyExtractor) {
+            this.keyExtractor = notNull(keyExtractor, "key extractor");
+        }
+
+        /**
+         * Specify the action for a key.
+         *
+         * @param key    the key.
+         * @param action the {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction} that is
+         *               executed for requests with this key.
+         * @throws IllegalArgumentException if there is already an action for the key.
+         */
+        public KeyExtractorSpecified<K> when(K key, FilterAction action) {
+            notNull(key, "key");
+            notNull(action, "action");
+            if (actions.containsKey(key))
+                throw new IllegalArgumentException("There is already an action for the key " + key + ".");
+            actions.put(key, action);
+            return this;
+        }
+
+        /**
+         * Creates the switch.
+         *
+         * @param action the {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction} that is
+         *               executed if there is no action for the request's key.
+         * @return the switch.
+         */
+        public FilterAction otherwiseExecute(FilterAction action) {
+            notNull(action, "action");
+            return new FilterActionLookupSwitch<K>(keyExtractor, actions, action);
+        }
+    }
+
+    private static <T> T notNull(T object, String name) {
+        if (object == null)
+            throw new NullPointerException("The " + name + " is missing");
+        else
+            return object;
+    }
+
+    private final KeyExtractor<? super HttpServletRequest, K> keyExtractor;
+    private final Map<K, FilterAction> actionsByKey;
+    private final FilterAction defaultAction;
+    private final FilterAction[] distinctActions;
+
+    private FilterActionLookupSwitch(KeyExtractor<? super HttpServletRequest, K> keyExtractor,
+                                     Map<K, FilterAction> actionsByKey, FilterAction defaultAction) {
+        this.keyExtractor = keyExtractor;
+        this.actionsByKey = new HashMap<K, FilterAction>(actionsByKey);
+        this.defaultAction = defaultAction;
+        this.distinctActions = distinctActions(actionsByKey.values(), defaultAction);
+    }
+
+    private static FilterAction[] distinctActions(Collection<FilterAction> actions, FilterAction defaultAction) {
+        Set<FilterAction> distinctActions = Collections.newSetFromMap(new IdentityHashMap<FilterAction, Boolean>());
+        List<FilterAction> orderedActions = new ArrayList<FilterAction>();
+        for (FilterAction action : actions)
+            if (distinctActions.add(action))
+                orderedActions.add(action);
+        if (distinctActions.add(defaultAction))
+            orderedActions.add(defaultAction);
+        return orderedActions.toArray(new FilterAction[orderedActions.size()]);
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        for (FilterAction action : distinctActions)
+            action.init(filterConfig);
+    }
+
+    @Override
+    public void execute(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        K key = keyExtractor.extract(request);
+        FilterAction action = (key == null) ? null : actionsByKey.get(key);
+        if (action == null)
+            action = defaultAction;
+        action.execute(request, response);
+    }
+
+    @Override
+    public void destroy() {
+        destroyRemainingActions(0);
+    }
+
+    private void destroyRemainingActions(int index) {
+        if (index < distinctActions.length)
+            try {
+                distinctActions[index].destroy();
+            } finally {
+                destroyRemainingActions(index + 1);
+            }
+    }
+}
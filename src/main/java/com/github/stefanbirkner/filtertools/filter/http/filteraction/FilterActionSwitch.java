@@ -42,16 +42,16 @@ public class FilterActionSwitch implements FilterAction {
          *                  which {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}
          *                  is executed.
          */
-        public PredicateSpecified when(Predicate<HttpServletRequest> predicate) {
+        public PredicateSpecified when(Predicate<? super HttpServletRequest> predicate) {
             return new PredicateSpecified(actionForSuccessfulTest, predicate);
         }
     }
 
     public static class PredicateSpecified {
         private FilterAction actionForSuccessfulTest;
-        private Predicate<HttpServletRequest> predicate;
+        private Predicate<? super HttpServletRequest> predicate;
 
-        private PredicateSpecified(FilterAction actionForSuccessfulTest, Predicate<HttpServletRequest> predicate) {
+        private PredicateSpecified(FilterAction actionForSuccessfulTest, Predicate<? super HttpServletRequest> predicate) {
             this.actionForSuccessfulTest = actionForSuccessfulTest;
             this.predicate = notNull(predicate, "predicate");
         }
@@ -78,10 +78,10 @@ public class FilterActionSwitch implements FilterAction {
 
     private final FilterAction actionForSuccessfulTest;
     private final FilterAction actionForFailingTest;
-    private final Predicate<HttpServletRequest> predicate;
+    private final Predicate<? super HttpServletRequest> predicate;
 
     private FilterActionSwitch(FilterAction actionForSuccessfulTest, FilterAction actionForFailingTest,
-                               Predicate<HttpServletRequest> predicate) {
+                               Predicate<? super HttpServletRequest> predicate) {
         this.actionForSuccessfulTest = actionForSuccessfulTest;
         this.actionForFailingTest = actionForFailingTest;
         this.predicate = predicate;
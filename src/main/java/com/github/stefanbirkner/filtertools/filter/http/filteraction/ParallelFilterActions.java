@@ -0,0 +1,212 @@
+package com.github.stefanbirkner.filtertools.filter.http.filteraction;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.util.Arrays.asList;
+
+/**
+ * A {@link FilterAction} that executes independent actions in parallel. It returns after all
+ * actions have been executed. Use it for actions that are waiting for other systems, e.g. a
+ * feature flag service and a tenant database.
+ * <pre>
+ * public class YourFilter extends PreFilterChainActionsFilter {
+ *   public YourFilter() {
+ *       super(
+ *           new ParallelFilterActions(new FetchFeatureFlags(), new LookUpTenant(), new CheckEntitlements()),
+ *           new ActionThatNeedsTheResultsOfTheOtherActions());
+ *   }
+ * }
+ * </pre>
+ * <p>The first action is executed by the thread that calls {@code execute}, the other actions are executed by an
+ * {@link java.util.concurrent.Executor}. An action whose execution is rejected by the executor is executed by the
+ * calling thread, too. If some of the actions fail then the exception of the first failing action
+ * (in the order of the actions) is rethrown.
+ * <p><em>Caution!</em> The actions use the same request and response concurrently. Request and response are usually
+ * not thread-safe. Therefore an action should not modify them while other actions are running. E.g. setting request
+ * attributes from parallel actions is not safe with every servlet container.
+ *
+ * @since 1.5.0
+ */
+public class ParallelFilterActions implements FilterAction {
+    private final FilterAction[] actions;
+    private final Executor providedExecutor;
+    private ExecutorService ownExecutor;
+
+    /**
+     * Creates an action that executes the specified actions on its own executor. It uses virtual threads if the
+     * runtime supports them and a cached thread pool otherwise. The executor is created when the action is
+     * initialized and shut down when the action is destroyed.
+     *
+     * @param actions the actions that are executed in parallel.
+     */
+    public ParallelFilterActions(FilterAction... actions) {
+        this(null, actions);
+    }
+
+    /**
+     * Creates an action that executes the specified actions on the specified executor. The executor is not shut down
+     * when the action is destroyed.
+     *
+     * @param executor the executor for all but the first action.
+     * @param actions  the actions that are executed in parallel.
+     */
+    public ParallelFilterActions(Executor executor, FilterAction... actions) {
+        this.providedExecutor = executor;
+        this.actions = actions.clone();
+        for (FilterAction action : this.actions)
+            if (action == null)
+                throw new NullPointerException("An action is missing.");
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        List<FilterAction> initializedActions = new ArrayList<FilterAction>();
+        try {
+            for (FilterAction action : actions) {
+                action.init(filterConfig);
+                initializedActions.add(action);
+            }
+        } catch (ServletException e) {
+            destroyRemainingActions(initializedActions, 0);
+            throw e;
+        } catch (RuntimeException e) {
+            destroyRemainingActions(initializedActions, 0);
+            throw e;
+        }
+        if (providedExecutor == null)
+            ownExecutor = createExecutor();
+    }
+
+    @Override
+    public void execute(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        if (actions.length == 0)
+            return;
+        Executor executor = (providedExecutor == null) ? ownExecutor : providedExecutor;
+        if (executor == null)
+            throw new IllegalStateException("The action has not been initialized.");
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(actions.length - 1);
+        for (int i = 1; i < actions.length; ++i) {
+            FutureTask<Void> task = new FutureTask<Void>(new ExecuteAction(actions[i], request, response));
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+            tasks.add(task);
+        }
+        Throwable firstFailure = null;
+        try {
+            actions[0].execute(request, response);
+        } catch (Throwable e) {
+            firstFailure = e;
+        }
+        for (FutureTask<Void> task : tasks) {
+            Throwable failure = waitFor(task);
+            if (firstFailure == null)
+                firstFailure = failure;
+        }
+        if (firstFailure != null)
+            rethrow(firstFailure);
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            destroyRemainingActions(asList(actions), 0);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+                ownExecutor = null;
+            }
+        }
+    }
+
+    private void destroyRemainingActions(List<FilterAction> actionsToDestroy, int index) {
+        if (index < actionsToDestroy.size())
+            try {
+                actionsToDestroy.get(index).destroy();
+            } finally {
+                destroyRemainingActions(actionsToDestroy, index + 1);
+            }
+    }
+
+    private Throwable waitFor(FutureTask<Void> task) {
+        boolean interrupted = false;
+        try {
+            while (true)
+                try {
+                    task.get();
+                    return null;
+                } catch (InterruptedException e) {
+                    //the request must not continue while actions are still using it
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    return e.getCause();
+                } catch (CancellationException e) {
+                    return e;
+                }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void rethrow(Throwable failure) throws IOException, ServletException {
+        if (failure instanceof IOException)
+            throw (IOException) failure;
+        else if (failure instanceof ServletException)
+            throw (ServletException) failure;
+        else if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        else if (failure instanceof Error)
+            throw (Error) failure;
+        else
+            throw new ServletException(failure);
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception virtualThreadsAreNotSupported) {
+            return Executors.newCachedThreadPool(new DaemonThreadFactory());
+        }
+    }
+
+    private static class ExecuteAction implements Callable<Void> {
+        private final FilterAction action;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+
+        ExecuteAction(FilterAction action, HttpServletRequest request, HttpServletResponse response) {
+            this.action = action;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            action.execute(request, response);
+            return null;
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.stefanbirkner.filtertools.filter.http.filteraction;
 
+import com.github.stefanbirkner.filtertools.filter.ParallelLifecycle;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -25,6 +26,17 @@ public class PreFilterChainActionsFilter extends ActionsFilter {
         super(actions);
     }
 
+    /**
+     * Create a new filter whose actions are initialized and destroyed in parallel.
+     *
+     * @param parallelLifecycle initializes and destroys the actions.
+     * @param actions           a list of {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}s
+     * @since 1.5.0
+     */
+    public PreFilterChainActionsFilter(ParallelLifecycle parallelLifecycle, FilterAction... actions) {
+        super(parallelLifecycle, actions);
+    }
+
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
         throws IOException, ServletException {
@@ -0,0 +1,42 @@
+package com.github.stefanbirkner.filtertools.filter.http.gzip;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The {@link Deflater}, the checksum and the buffers of a {@link GzipOutputStream}. Compressors are
+ * reused by subsequent responses (see {@link CompressorPool}).
+ */
+class Compressor {
+    private static final int COMPRESSED_BUFFER_SIZE = 8192;
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    final CRC32 crc = new CRC32();
+    final byte[] pendingBytes;
+    final byte[] compressedBytes = new byte[COMPRESSED_BUFFER_SIZE];
+
+    /**
+     * Creates a compressor.
+     *
+     * @param minimumSize the number of bytes that are buffered before the stream decides about
+     *                    compression.
+     */
+    Compressor(int minimumSize) {
+        pendingBytes = new byte[minimumSize];
+    }
+
+    /**
+     * Discards the state of the compressed body. The content of the buffers is not cleared,
+     * because the stream never reads bytes that it has not written.
+     */
+    void reset() {
+        deflater.reset();
+        crc.reset();
+    }
+
+    /**
+     * Releases the native memory of the {@code Deflater}.
+     */
+    void end() {
+        deflater.end();
+    }
+}
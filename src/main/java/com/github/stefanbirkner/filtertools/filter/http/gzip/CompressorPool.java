@@ -0,0 +1,78 @@
+package com.github.stefanbirkner.filtertools.filter.http.gzip;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free pool of {@link Compressor}s. {@link #acquire()} creates a new
+ * {@code Compressor} if the pool is empty and {@link #release(Compressor)} ends the
+ * {@code Compressor} if the pool is full. Therefore the pool never blocks.
+ *
+ * <p>Only {@code Compressor}s are pooled. They cannot escape a request, because the
+ * {@link GzipOutputStream} drops its reference when it releases the {@code Compressor}.
+ */
+class CompressorPool {
+    private final AtomicReferenceArray<Compressor> slots;
+    private final int mask;
+    private final int minimumSize;
+
+    /**
+     * Creates a pool. The size is rounded up to the next power of two.
+     *
+     * @param size        the maximum number of pooled {@code Compressor}s.
+     * @param minimumSize the size of the {@code Compressor}s' buffer for pending bytes.
+     */
+    CompressorPool(int size, int minimumSize) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < size)
+            powerOfTwo <<= 1;
+        slots = new AtomicReferenceArray<Compressor>(powerOfTwo);
+        mask = powerOfTwo - 1;
+        this.minimumSize = minimumSize;
+    }
+
+    Compressor acquire() {
+        int start = startIndex();
+        for (int i = 0; i < slots.length(); ++i) {
+            int index = (start + i) & mask;
+            if (slots.get(index) != null) {
+                Compressor compressor = slots.getAndSet(index, null);
+                if (compressor != null)
+                    return compressor;
+            }
+        }
+        return new Compressor(minimumSize);
+    }
+
+    /**
+     * Resets a {@code Compressor} and returns it to the pool. The caller must not use it
+     * afterwards.
+     */
+    void release(Compressor compressor) {
+        compressor.reset();
+        int start = startIndex();
+        for (int i = 0; i < slots.length(); ++i) {
+            int index = (start + i) & mask;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, compressor))
+                return;
+        }
+        compressor.end();
+    }
+
+    /**
+     * Ends all pooled {@code Compressor}s.
+     */
+    void clear() {
+        for (int i = 0; i < slots.length(); ++i) {
+            Compressor compressor = slots.getAndSet(i, null);
+            if (compressor != null)
+                compressor.end();
+        }
+    }
+
+    /**
+     * Threads start at different slots, so that they don't compete for the same slot.
+     */
+    private int startIndex() {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+}
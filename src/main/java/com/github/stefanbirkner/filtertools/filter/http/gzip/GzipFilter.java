@@ -0,0 +1,181 @@
+package com.github.stefanbirkner.filtertools.filter.http.gzip;
+
+import com.github.stefanbirkner.filtertools.filter.http.ResponseWrapperFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Compresses responses with gzip if the client accepts it. The body is compressed while it is
+ * written, so that the filter does not buffer whole responses.
+ * <pre>
+ * public class YourGzipFilter extends GzipFilter {
+ *   public YourGzipFilter() {
+ *     super(2048);
+ *   }
+ * }
+ * </pre>
+ * <p>A response is compressed if
+ * <ul>
+ * <li>the request's {@code Accept-Encoding} header accepts {@code gzip},</li>
+ * <li>the request is not a {@code HEAD} request,</li>
+ * <li>the response's status allows a body (not 1xx, 204 or 304),</li>
+ * <li>the response does not have a {@code Content-Encoding} header,</li>
+ * <li>its content type is compressible (see {@link #isCompressible(String)}) and</li>
+ * <li>its body is not empty and has at least the minimum size.</li>
+ * </ul>
+ * The first bytes of the body are buffered until the body reaches the minimum size. If the body
+ * is flushed before, it is compressed regardless of its size, so that streaming responses are
+ * not delayed. A flush before the first byte of the body decides nothing. A flush writes all
+ * bytes that have been written so far to the client (with Java 7 and later).
+ *
+ * <p>A strong {@code ETag} of a compressed response is weakened ({@code W/"..."}), because the
+ * compressed body is not byte-for-byte the body that the ETag has been computed for.
+ *
+ * <p>The filter reuses {@link java.util.zip.Deflater}s and their buffers, because they are
+ * expensive to create. A response takes a {@code Deflater} and its buffers from a bounded pool when
+ * the first bytes are written and returns them when the body is passed through or finished. The
+ * response wrappers are not reused (see
+ * {@link ResponseWrapperFilter}). Responses of requests that
+ * start asynchronous processing are only compressed if the body has been compressed before.
+ * Then it is finished when the filter chain returns.
+ *
+ * @since 1.5.0
+ */
+public class GzipFilter extends ResponseWrapperFilter<GzipResponse> {
+    /**
+     * The minimum size of {@link #GzipFilter()}.
+     */
+    public static final int DEFAULT_MINIMUM_SIZE = 1024;
+    private static final int POOL_SIZE = 4 * Runtime.getRuntime().availableProcessors();
+    private final int minimumSize;
+    private final CompressorPool compressors;
+
+    /**
+     * Creates a filter that compresses responses with at least {@value #DEFAULT_MINIMUM_SIZE}
+     * bytes.
+     */
+    public GzipFilter() {
+        this(DEFAULT_MINIMUM_SIZE);
+    }
+
+    /**
+     * Creates a filter that compresses responses with at least the specified number of bytes.
+     *
+     * @param minimumSize the minimum size of a compressed response's body in bytes.
+     */
+    public GzipFilter(int minimumSize) {
+        super(GzipResponse.class);
+        if (minimumSize < 0)
+            throw new IllegalArgumentException("The minimum size must not be negative, but it is " + minimumSize + ".");
+        this.minimumSize = minimumSize;
+        this.compressors = new CompressorPool(POOL_SIZE, minimumSize);
+    }
+
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    /**
+     * Decides whether responses with the specified content type are compressed. Returns
+     * {@code false} for images, audio and video (except SVG) and for archives, because they are
+     * already compressed, and for responses without content type. Override it if you need other
+     * rules.
+     *
+     * @param contentType the content type of the response, may be {@code null}.
+     * @return {@code true} if the response is compressed.
+     */
+    protected boolean isCompressible(String contentType) {
+        if (contentType == null)
+            return false;
+        String mimeType = contentType.toLowerCase();
+        int parameters = mimeType.indexOf(';');
+        if (parameters >= 0)
+            mimeType = mimeType.substring(0, parameters);
+        mimeType = mimeType.trim();
+        if (mimeType.startsWith("image/"))
+            return mimeType.equals("image/svg+xml");
+        return !mimeType.startsWith("audio/")
+            && !mimeType.startsWith("video/")
+            && !mimeType.startsWith("font/woff")
+            && !mimeType.equals("application/zip")
+            && !mimeType.equals("application/gzip")
+            && !mimeType.equals("application/x-gzip")
+            && !mimeType.equals("application/x-bzip2")
+            && !mimeType.equals("application/x-7z-compressed")
+            && !mimeType.equals("application/x-rar-compressed")
+            && !mimeType.equals("application/octet-stream");
+    }
+
+    @Override
+    protected boolean needsWrapper(HttpServletRequest request, HttpServletResponse response) {
+        return !request.getMethod().equals("HEAD") && acceptsGzip(request.getHeader("Accept-Encoding"))
+            && super.needsWrapper(request, response);
+    }
+
+    @Override
+    protected GzipResponse createWrapper(HttpServletResponse response) {
+        return new GzipResponse(response, this, minimumSize, compressors);
+    }
+
+    @Override
+    protected void releaseWrapper(GzipResponse wrapper) {
+        wrapper.release();
+    }
+
+    @Override
+    protected void doFilterWithWrapper(HttpServletRequest request, GzipResponse wrapper, FilterChain filterChain)
+        throws IOException, ServletException {
+        filterChain.doFilter(request, wrapper);
+        if (isAsyncStarted(request))
+            wrapper.finishForAsyncProcessing();
+        else
+            wrapper.finish();
+    }
+
+    /**
+     * Ends the pooled {@link java.util.zip.Deflater}s.
+     */
+    @Override
+    public void destroy() {
+        compressors.clear();
+    }
+
+    /**
+     * Returns {@code true} if the client accepts gzip. An explicit {@code gzip} or {@code x-gzip}
+     * overrides {@code *}, e.g. {@code gzip;q=0, *} refuses gzip (RFC 7231, section 5.3.4).
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        boolean refusesGzip = false;
+        boolean acceptsAnyCoding = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                if (!hasQualityZero(parts))
+                    return true;
+                refusesGzip = true;
+            } else if (name.equals("*") && !hasQualityZero(parts))
+                acceptsAnyCoding = true;
+        }
+        return acceptsAnyCoding && !refusesGzip;
+    }
+
+    private static boolean hasQualityZero(String[] parts) {
+        for (int i = 1; i < parts.length; ++i) {
+            String parameter = parts[i].trim().toLowerCase();
+            if (parameter.startsWith("q="))
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,262 @@
+package com.github.stefanbirkner.filtertools.filter.http.gzip;
+
+import javax.servlet.ServletOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.zip.Deflater;
+
+/**
+ * The output stream of a {@link GzipResponse}. It buffers the first bytes of the body until it
+ * knows whether the body is large enough for compression. Afterwards it either compresses the
+ * body while it is written or passes it through.
+ *
+ * <p>The {@link Deflater} and the buffers are taken from a {@link CompressorPool} when the first
+ * bytes are written. They are returned when the stream passes the body through, when the body is
+ * finished or when the stream is {@link #release() released}. The stream does not use them
+ * afterwards.
+ */
+class GzipOutputStream extends ServletOutputStream {
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int SYNC_FLUSH = 2;
+    private static final Method DEFLATE_WITH_FLUSH_MODE = deflateWithFlushMode();
+
+    private enum State {
+        UNDECIDED, COMPRESSING, PASSING_THROUGH, FINISHED
+    }
+
+    private final GzipResponse response;
+    private final CompressorPool compressors;
+    private final int minimumSize;
+    private final byte[] singleByte = new byte[1];
+    private Compressor compressor;
+    private State state = State.UNDECIDED;
+    private int numberOfPendingBytes = 0;
+    private boolean headerWritten = false;
+    private boolean finishing = false;
+    private ServletOutputStream outputStream;
+
+    GzipOutputStream(GzipResponse response, int minimumSize, CompressorPool compressors) {
+        this.response = response;
+        this.compressors = compressors;
+        this.minimumSize = minimumSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0)
+            return;
+        if (state == State.UNDECIDED) {
+            if (numberOfPendingBytes + length < minimumSize) {
+                System.arraycopy(bytes, offset, compressor().pendingBytes, numberOfPendingBytes, length);
+                numberOfPendingBytes += length;
+                return;
+            }
+            decide(true);
+        }
+        if (state == State.COMPRESSING)
+            compress(bytes, offset, length);
+        else if (state == State.PASSING_THROUGH)
+            outputStream().write(bytes, offset, length);
+        else
+            throw new IOException("The compressed response has already been finished.");
+    }
+
+    /**
+     * Writes all bytes that have been written so far to the client. It has to decide whether the
+     * body is compressed, because the bytes cannot be delayed until there are enough bytes for a
+     * decision. A flushed body is considered to be a stream and is compressed regardless of its
+     * size. Nothing is decided as long as there is no body, because a response without body must
+     * not be compressed.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (state == State.UNDECIDED) {
+            if (finishing || numberOfPendingBytes == 0)
+                return;
+            decide(true);
+        }
+        if (state == State.COMPRESSING)
+            syncFlush();
+        if (state != State.FINISHED)
+            outputStream().flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        outputStream().close();
+    }
+
+    /**
+     * Prevents a {@link #flush()} from deciding about compression while the response is
+     * finished.
+     */
+    void startFinishing() {
+        finishing = true;
+    }
+
+    /**
+     * Writes the buffered bytes and the end of the compressed body.
+     */
+    void finish() throws IOException {
+        if (state == State.UNDECIDED)
+            decide(numberOfPendingBytes > 0 && numberOfPendingBytes >= minimumSize);
+        if (state == State.COMPRESSING) {
+            writeHeaderIfNecessary();
+            Deflater deflater = compressor.deflater;
+            deflater.finish();
+            while (!deflater.finished())
+                writeCompressedBytes(deflater.deflate(compressor.compressedBytes));
+            writeTrailer();
+            state = State.FINISHED;
+            releaseCompressor();
+        }
+    }
+
+    /**
+     * Passes the body through if the compression has not started yet.
+     */
+    void disableCompression() {
+        if (state == State.UNDECIDED)
+            state = State.PASSING_THROUGH;
+    }
+
+    /**
+     * Discards the state of the body, so that the stream can start again with the same
+     * decision. The underlying response has discarded its buffer.
+     */
+    void resetBuffer() {
+        numberOfPendingBytes = 0;
+        if (compressor != null)
+            compressor.reset();
+        headerWritten = false;
+    }
+
+    /**
+     * Discards the whole state of the response.
+     */
+    void reset() {
+        resetBuffer();
+        state = State.UNDECIDED;
+        finishing = false;
+        outputStream = null;
+    }
+
+    /**
+     * Returns the compressor to the pool. A body that has not been finished, e.g. because the
+     * filter chain failed, cannot be written anymore.
+     */
+    void release() {
+        if (compressor != null) {
+            releaseCompressor();
+            state = State.FINISHED;
+        }
+    }
+
+    private Compressor compressor() {
+        if (compressor == null)
+            compressor = compressors.acquire();
+        return compressor;
+    }
+
+    private void releaseCompressor() {
+        compressors.release(compressor);
+        compressor = null;
+    }
+
+    private void decide(boolean largeEnough) throws IOException {
+        if (largeEnough && response.shouldCompress()) {
+            response.startCompression();
+            state = State.COMPRESSING;
+            compress(compressor().pendingBytes, 0, numberOfPendingBytes);
+        } else {
+            response.startPassingThrough(numberOfPendingBytes, finishing);
+            state = State.PASSING_THROUGH;
+            if (numberOfPendingBytes > 0)
+                outputStream().write(compressor.pendingBytes, 0, numberOfPendingBytes);
+            if (compressor != null)
+                releaseCompressor();
+        }
+        numberOfPendingBytes = 0;
+    }
+
+    private void compress(byte[] bytes, int offset, int length) throws IOException {
+        writeHeaderIfNecessary();
+        compressor.crc.update(bytes, offset, length);
+        Deflater deflater = compressor.deflater;
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput())
+            writeCompressedBytes(deflater.deflate(compressor.compressedBytes));
+    }
+
+    private void writeHeaderIfNecessary() throws IOException {
+        if (!headerWritten) {
+            outputStream().write(HEADER);
+            headerWritten = true;
+        }
+    }
+
+    private void syncFlush() throws IOException {
+        writeHeaderIfNecessary();
+        if (DEFLATE_WITH_FLUSH_MODE == null)
+            return; //Java 6 cannot flush a Deflater
+        int length;
+        do {
+            length = deflateWithSyncFlush();
+            writeCompressedBytes(length);
+        } while (length == compressor.compressedBytes.length);
+    }
+
+    private int deflateWithSyncFlush() throws IOException {
+        try {
+            byte[] compressedBytes = compressor.compressedBytes;
+            return (Integer) DEFLATE_WITH_FLUSH_MODE.invoke(
+                compressor.deflater, compressedBytes, 0, compressedBytes.length, SYNC_FLUSH);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Cannot flush the compressed response.", e);
+        } catch (InvocationTargetException e) {
+            throw new IOException("Cannot flush the compressed response.", e.getCause());
+        }
+    }
+
+    private void writeCompressedBytes(int length) throws IOException {
+        if (length > 0)
+            outputStream().write(compressor.compressedBytes, 0, length);
+    }
+
+    /**
+     * Writes the trailer by the buffer for compressed bytes, which is not needed anymore.
+     */
+    private void writeTrailer() throws IOException {
+        byte[] trailer = compressor.compressedBytes;
+        writeInt(trailer, 0, compressor.crc.getValue());
+        writeInt(trailer, 4, compressor.deflater.getBytesRead());
+        outputStream().write(trailer, 0, 8);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, long value) {
+        for (int i = 0; i < 4; ++i)
+            bytes[offset + i] = (byte) (value >>> (8 * i));
+    }
+
+    private ServletOutputStream outputStream() throws IOException {
+        if (outputStream == null)
+            outputStream = response.getResponse().getOutputStream();
+        return outputStream;
+    }
+
+    private static Method deflateWithFlushMode() {
+        try {
+            return Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null; //Java 6
+        }
+    }
+}
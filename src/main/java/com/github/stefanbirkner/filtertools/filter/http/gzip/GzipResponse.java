@@ -0,0 +1,235 @@
+package com.github.stefanbirkner.filtertools.filter.http.gzip;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * A response whose body is compressed by a {@link GzipOutputStream}. The {@code Content-Length}
+ * header is withheld until it is clear that the body is not compressed. A strong {@code ETag} is
+ * weakened when the body is compressed, because the compressed body is a different
+ * representation.
+ */
+class GzipResponse extends HttpServletResponseWrapper {
+    private final GzipOutputStream outputStream;
+    private final GzipFilter filter;
+    private boolean outputStreamUsed = false;
+    private PrintWriter writer;
+    private long contentLength = -1;
+    private int status = SC_OK;
+    private String eTag;
+    private boolean compressing = false;
+    private boolean encoded = false;
+    private boolean asyncStarted = false;
+
+    GzipResponse(HttpServletResponse response, GzipFilter filter, int minimumSize, CompressorPool compressors) {
+        super(response);
+        this.filter = filter;
+        this.outputStream = new GzipOutputStream(this, minimumSize, compressors);
+    }
+
+    boolean shouldCompress() {
+        return !encoded && !asyncStarted && mayHaveBody()
+            && (contentLength < 0 || (contentLength > 0 && contentLength >= filter.getMinimumSize()))
+            && !isCommitted() && filter.isCompressible(getContentType());
+    }
+
+    void startCompression() {
+        compressing = true;
+        super.setHeader("Content-Encoding", "gzip");
+        super.addHeader("Vary", "Accept-Encoding");
+        if (eTag != null)
+            super.setHeader("ETag", weak(eTag));
+    }
+
+    /**
+     * Responses with status 1xx, 204 (No Content) and 304 (Not Modified) have no body.
+     */
+    private boolean mayHaveBody() {
+        return status >= 200 && status != SC_NO_CONTENT && status != SC_NOT_MODIFIED;
+    }
+
+    void startPassingThrough(int numberOfBufferedBytes, boolean complete) {
+        if (contentLength >= 0)
+            super.setHeader("Content-Length", Long.toString(contentLength));
+        else if (complete && !isCommitted())
+            super.setContentLength(numberOfBufferedBytes);
+    }
+
+    /**
+     * Writes the rest of the body.
+     */
+    void finish() throws IOException {
+        outputStream.startFinishing();
+        if (writer != null)
+            writer.flush();
+        outputStream.finish();
+    }
+
+    /**
+     * Writes the compressed part of the body. The rest of the body is not compressed, because it
+     * is written after the request started asynchronous processing.
+     */
+    void finishForAsyncProcessing() throws IOException {
+        asyncStarted = true;
+        outputStream.startFinishing();
+        if (writer != null)
+            writer.flush();
+        outputStream.finish();
+    }
+
+    /**
+     * Returns the {@link java.util.zip.Deflater} and the buffers to the pool.
+     */
+    void release() {
+        outputStream.release();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (writer != null)
+            throw new IllegalStateException("getWriter() has already been called.");
+        outputStreamUsed = true;
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStreamUsed)
+                throw new IllegalStateException("getOutputStream() has already been called.");
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null)
+            writer.flush();
+        outputStream.flush();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        outputStream.reset();
+        contentLength = -1;
+        status = SC_OK;
+        eTag = null;
+        compressing = false;
+        encoded = false;
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        outputStream.resetBuffer();
+    }
+
+    @Override
+    public void setStatus(int status) {
+        this.status = status;
+        super.setStatus(status);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+        this.status = status;
+        super.setStatus(status, message);
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+        outputStream.disableCompression();
+        super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+        outputStream.disableCompression();
+        super.sendError(status, message);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        outputStream.disableCompression();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void setContentLength(int length) {
+        contentLength = length;
+    }
+
+    /**
+     * Overrides the method of Servlet 3.1 containers.
+     *
+     * @param length the length of the body.
+     */
+    public void setContentLengthLong(long length) {
+        contentLength = length;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (name.equalsIgnoreCase("ETag"))
+            super.setHeader(name, eTag(value));
+        else if (!interceptHeader(name, value))
+            super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (name.equalsIgnoreCase("ETag"))
+            super.setHeader(name, eTag(value));
+        else if (!interceptHeader(name, value))
+            super.addHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!interceptHeader(name, Integer.toString(value)))
+            super.setIntHeader(name, value);
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!interceptHeader(name, Integer.toString(value)))
+            super.addIntHeader(name, value);
+    }
+
+    /**
+     * Remembers the ETag, so that it can be weakened if compression starts later.
+     *
+     * @return the ETag that is sent to the client.
+     */
+    private String eTag(String value) {
+        eTag = value;
+        return compressing ? weak(value) : value;
+    }
+
+    private static String weak(String eTag) {
+        return eTag.startsWith("W/") ? eTag : "W/" + eTag;
+    }
+
+    private boolean interceptHeader(String name, String value) {
+        if (name.equalsIgnoreCase("Content-Length")) {
+            try {
+                contentLength = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                contentLength = -1;
+            }
+            return true;
+        } else {
+            if (name.equalsIgnoreCase("Content-Encoding"))
+                encoded = true;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import com.github.stefanbirkner.filtertools.filter.http.HttpFilter;
+
+import javax.management.JMException;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Sheds load by limiting the number of concurrent requests. The limit is adapted to the latency
+ * of the requests by a {@link ConcurrencyLimiter}. Requests above the limit are answered with 503
+ * (Service Unavailable) immediately instead of waiting for a thread of the downstream servlet.
+ * <pre>
+ * public class YourConcurrencyLimitFilter extends ConcurrencyLimitFilter {
+ *   public YourConcurrencyLimitFilter() {
+ *     super(new ConcurrencyLimiter("api"), new IsHealthCheck());
+ *   }
+ * }
+ * </pre>
+ * <p>Requests that match the exemption predicate (e.g. health checks) are neither limited nor
+ * measured. A request that starts asynchronous processing counts until the filter chain
+ * returns.
+ *
+ * <p>The statistics of the limiter are registered when the filter is initialized and
+ * unregistered when it is destroyed.
+ *
+ * @since 1.5.0
+ */
+public class ConcurrencyLimitFilter extends HttpFilter {
+    private static final Predicate<Object> NOTHING = new Predicate<Object>() {
+        @Override
+        public boolean test(Object object) {
+            return false;
+        }
+    };
+    private final ConcurrencyLimiter limiter;
+    private final Predicate<? super HttpServletRequest> exemption;
+
+    /**
+     * Creates a filter that limits all requests.
+     *
+     * @param limiter the limiter.
+     */
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter) {
+        this(limiter, NOTHING);
+    }
+
+    /**
+     * Creates a filter that limits all requests that don't match the exemption.
+     *
+     * @param limiter   the limiter.
+     * @param exemption matches requests that are not limited.
+     */
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, Predicate<? super HttpServletRequest> exemption) {
+        if (limiter == null)
+            throw new NullPointerException("The limiter is missing.");
+        if (exemption == null)
+            throw new NullPointerException("The exemption is missing.");
+        this.limiter = limiter;
+        this.exemption = exemption;
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        try {
+            limiter.register();
+        } catch (JMException e) {
+            throw new ServletException("Cannot register the statistics of " + limiter.getName() + ".", e);
+        }
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (exemption.test(request))
+            filterChain.doFilter(request, response);
+        else if (limiter.tryAcquire()) {
+            long start = System.nanoTime();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                limiter.release(start);
+            }
+        } else
+            reject(response);
+    }
+
+    /**
+     * Answers a request that exceeds the limit. Sets the status 503. Override it if you need
+     * another response.
+     *
+     * @param response the response.
+     * @throws IOException if an input or output exception occurs
+     */
+    protected void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    @Override
+    public void destroy() {
+        limiter.unregister();
+    }
+}
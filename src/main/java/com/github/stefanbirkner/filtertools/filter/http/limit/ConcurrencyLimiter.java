@@ -0,0 +1,219 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent requests and adapts the limit to the measured latency.
+ *
+ * <p>The latencies are averaged over windows of at least {@value #MIN_SAMPLES_PER_WINDOW}
+ * requests and 100 ms. After each window the average (the short-term latency) is compared with
+ * a long-term moving average. As long as the short-term latency is not more than 50% above the
+ * long-term latency, the limit grows by the square root of the limit. Otherwise the limit shrinks
+ * proportionally to the ratio of the latencies (to at least half of the limit). The changes are
+ * smoothed. The limit does not change if less than half of the limit has been used, because
+ * such a window tells nothing about the capacity.
+ *
+ * <p>The statistics can be published as an MBean with the object name
+ * {@code com.github.stefanbirkner.filtertools:type=ConcurrencyLimiter,name=<name>}.
+ *
+ * @since 1.5.0
+ */
+public class ConcurrencyLimiter implements ConcurrencyLimiterMBean {
+    static final int MIN_SAMPLES_PER_WINDOW = 10;
+    private static final long WINDOW_NANOS = 100000000L;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_TERM_WEIGHT = 0.01;
+    private final String name;
+    private final MBeanRegistration registration;
+    private final int minimumLimit;
+    private final int maximumLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong windowLatencySum = new AtomicLong();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean(false);
+    private volatile long windowStart = System.nanoTime();
+    private volatile double limit;
+    private volatile double rejectionRate = 0;
+    private long windowAcceptedAtStart = 0;
+    private long windowRejectedAtStart = 0;
+    private double longTermLatency = 0;
+
+    /**
+     * Creates a limiter with an initial limit of 20 that adapts the limit between 1 and 1000.
+     *
+     * @param name the name of the limiter. It is used for the object name of the MBean.
+     */
+    public ConcurrencyLimiter(String name) {
+        this(name, 20, 1, 1000);
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param name         the name of the limiter. It is used for the object name of the MBean.
+     * @param initialLimit the limit until the first latencies have been measured.
+     * @param minimumLimit the lowest limit.
+     * @param maximumLimit the highest limit.
+     */
+    public ConcurrencyLimiter(String name, int initialLimit, int minimumLimit, int maximumLimit) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        if (minimumLimit < 1 || minimumLimit > initialLimit || initialLimit > maximumLimit)
+            throw new IllegalArgumentException("The limits must fulfill 1 <= minimum limit (" + minimumLimit
+                + ") <= initial limit (" + initialLimit + ") <= maximum limit (" + maximumLimit + ").");
+        this.name = name;
+        this.registration = new MBeanRegistration(this, "type=ConcurrencyLimiter,name=" + ObjectName.quote(name));
+        this.limit = initialLimit;
+        this.minimumLimit = minimumLimit;
+        this.maximumLimit = maximumLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Starts a request if the limit has not been reached.
+     *
+     * @return {@code true} if the request may be processed. It must call {@link #release(long)}
+     * afterwards.
+     */
+    public boolean tryAcquire() {
+        int currentLimit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.incrementAndGet();
+                updateMaxInFlight(current + 1);
+                return true;
+            }
+        }
+    }
+
+    private void updateMaxInFlight(int value) {
+        int max = windowMaxInFlight.get();
+        while (max < value && !windowMaxInFlight.compareAndSet(max, value))
+            max = windowMaxInFlight.get();
+    }
+
+    /**
+     * Finishes a request that has been started by {@link #tryAcquire()}.
+     *
+     * @param startNanos the value of {@link System#nanoTime()} when the request has been started.
+     */
+    public void release(long startNanos) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        windowLatencySum.addAndGet(now - startNanos);
+        int samples = windowSamples.incrementAndGet();
+        if (samples >= MIN_SAMPLES_PER_WINDOW && now - windowStart >= WINDOW_NANOS
+            && updating.compareAndSet(false, true))
+            try {
+                closeWindow(now);
+            } finally {
+                updating.set(false);
+            }
+    }
+
+    private void closeWindow(long now) {
+        int samples = windowSamples.getAndSet(0);
+        long latencySum = windowLatencySum.getAndSet(0);
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        windowStart = now;
+        long acceptedNow = accepted.get();
+        long rejectedNow = rejected.get();
+        long windowAccepted = acceptedNow - windowAcceptedAtStart;
+        long windowRejected = rejectedNow - windowRejectedAtStart;
+        windowAcceptedAtStart = acceptedNow;
+        windowRejectedAtStart = rejectedNow;
+        rejectionRate = (windowAccepted + windowRejected == 0)
+            ? 0 : (double) windowRejected / (windowAccepted + windowRejected);
+        if (samples > 0)
+            update((double) latencySum / samples, maxInFlight);
+    }
+
+    /**
+     * Adapts the limit to the average latency of a window.
+     *
+     * @param shortTermLatency the average latency of the window.
+     * @param maxInFlight      the maximum number of concurrent requests in the window.
+     */
+    void update(double shortTermLatency, int maxInFlight) {
+        double latency = Math.max(shortTermLatency, 1);
+        if (longTermLatency == 0)
+            longTermLatency = latency;
+        else
+            longTermLatency = (1 - LONG_TERM_WEIGHT) * longTermLatency + LONG_TERM_WEIGHT * latency;
+        if (longTermLatency > 2 * latency)
+            longTermLatency *= 0.9; //the latency recovered, forget the overload faster
+        double currentLimit = limit;
+        if (maxInFlight < currentLimit / 2)
+            return;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longTermLatency / latency));
+        double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+        newLimit = (1 - SMOOTHING) * currentLimit + SMOOTHING * newLimit;
+        limit = Math.max(minimumLimit, Math.min(maximumLimit, newLimit));
+    }
+
+    /**
+     * Registers the statistics of this limiter at the platform MBean server.
+     *
+     * @throws JMException if the MBean cannot be registered, e.g. because there is already an
+     *                     MBean with the same name.
+     * @see MBeanRegistration
+     */
+    public void register() throws JMException {
+        registration.register();
+    }
+
+    /**
+     * Removes the statistics of this limiter from the platform MBean server if it has been registered by
+     * {@link #register()}.
+     */
+    public void unregister() {
+        registration.unregister();
+    }
+
+    ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    @Override
+    public double getRejectionRate() {
+        return rejectionRate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+/**
+ * The JMX management interface of {@link ConcurrencyLimiter}.
+ *
+ * @since 1.5.0
+ */
+public interface ConcurrencyLimiterMBean {
+    /**
+     * Returns the current maximum number of concurrent requests.
+     *
+     * @return the current maximum number of concurrent requests.
+     */
+    int getLimit();
+
+    /**
+     * Returns the number of requests that are currently processed.
+     *
+     * @return the number of requests that are currently processed.
+     */
+    int getInFlight();
+
+    long getAcceptedCount();
+
+    long getRejectedCount();
+
+    /**
+     * Returns the share of rejected requests in the last measurement window.
+     *
+     * @return a value between 0 and 1.
+     */
+    double getRejectionRate();
+}
@@ -0,0 +1,106 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import com.github.stefanbirkner.filtertools.filter.KeyExtractor;
+import com.github.stefanbirkner.filtertools.filter.http.HttpFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Limits the rate of requests per client with token buckets. Every client has its own bucket
+ * that holds up to {@code capacity} tokens and is refilled with {@code tokensPerSecond} tokens.
+ * A request takes a token. If there is no token then the filter answers with 429 (Too Many
+ * Requests) and a {@code Retry-After} header without calling the filter chain.
+ * <pre>
+ * public class ApiRateLimitFilter extends RateLimitFilter&lt;String&gt; {
+ *   public ApiRateLimitFilter() {
+ *     super(RequestKeys.header("X-Api-Key"), 20, 10.0);
+ *   }
+ * }
+ * </pre>
+ * <p>The client is identified by a {@link KeyExtractor}, e.g.
+ * {@link com.github.stefanbirkner.filtertools.filter.http.RequestKeys#remoteAddress()}.
+ * Requests without key are not limited. Wrap the filter with an
+ * {@link com.github.stefanbirkner.filtertools.filter.OptionalFilter} if only some requests should
+ * be limited.
+ *
+ * <p>The tokens are refilled lazily when a request arrives, so the filter needs no background
+ * thread. Taking a token is lock-free. The number of buckets is bounded (100,000 by default).
+ * Idle buckets are removed when the limit is reached. If there are still too many buckets, then
+ * new clients share a bucket until buckets become idle.
+ *
+ * @param <K> the type of the key.
+ * @since 1.5.0
+ */
+public class RateLimitFilter<K> extends HttpFilter {
+    /**
+     * The status code 429 (Too Many Requests), which is not defined by
+     * {@link HttpServletResponse}.
+     */
+    public static final int SC_TOO_MANY_REQUESTS = 429;
+    public static final int DEFAULT_MAXIMUM_NUMBER_OF_CLIENTS = 100000;
+    private final KeyExtractor<? super HttpServletRequest, K> keyExtractor;
+    private final TokenBuckets<K> buckets;
+
+    /**
+     * Creates a filter for up to {@value #DEFAULT_MAXIMUM_NUMBER_OF_CLIENTS} clients.
+     *
+     * @param keyExtractor    extracts the key of the client.
+     * @param capacity        the maximum number of tokens of a client, i.e. the size of bursts.
+     * @param tokensPerSecond the number of tokens that a client gets per second.
+     */
+    public RateLimitFilter(KeyExtractor<? super HttpServletRequest, K> keyExtractor, int capacity,
+                           double tokensPerSecond) {
+        this(keyExtractor, capacity, tokensPerSecond, DEFAULT_MAXIMUM_NUMBER_OF_CLIENTS);
+    }
+
+    /**
+     * Creates a filter.
+     *
+     * @param keyExtractor            extracts the key of the client.
+     * @param capacity                the maximum number of tokens of a client, i.e. the size of
+     *                                bursts.
+     * @param tokensPerSecond         the number of tokens that a client gets per second.
+     * @param maximumNumberOfClients  the maximum number of clients whose buckets are stored.
+     */
+    public RateLimitFilter(KeyExtractor<? super HttpServletRequest, K> keyExtractor, int capacity,
+                           double tokensPerSecond, int maximumNumberOfClients) {
+        if (keyExtractor == null)
+            throw new NullPointerException("The key extractor is missing.");
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity must be positive, but it is " + capacity + ".");
+        if (!(tokensPerSecond > 0))
+            throw new IllegalArgumentException(
+                "The number of tokens per second must be positive, but it is " + tokensPerSecond + ".");
+        this.keyExtractor = keyExtractor;
+        this.buckets = new TokenBuckets<K>(capacity, tokensPerSecond, maximumNumberOfClients);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        K key = keyExtractor.extract(request);
+        long nanosUntilNextToken = (key == null) ? 0 : buckets.tryAcquire(key, System.nanoTime());
+        if (nanosUntilNextToken == 0)
+            filterChain.doFilter(request, response);
+        else
+            reject(response, nanosUntilNextToken);
+    }
+
+    /**
+     * Answers a request that exceeds the limit. Sets the status 429 and the {@code Retry-After}
+     * header. Override it if you need another response.
+     *
+     * @param response            the response.
+     * @param nanosUntilNextToken the time until the client gets the next token.
+     * @throws IOException if an input or output exception occurs
+     */
+    protected void reject(HttpServletResponse response, long nanosUntilNextToken) throws IOException {
+        long seconds = (nanosUntilNextToken + 999999999L) / 1000000000L;
+        response.setStatus(SC_TOO_MANY_REQUESTS);
+        response.setHeader("Retry-After", Long.toString(seconds));
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded set of token buckets, one for each key.
+ *
+ * <p>A bucket is a single {@link AtomicLong}: the time at which the bucket will be full again
+ * (the theoretical arrival time of the generic cell rate algorithm). Taking a token moves this
+ * time one refill interval into the future. The request is rejected if the time would be more
+ * than {@code capacity} intervals ahead of now. Therefore the tokens are refilled lazily and a
+ * token is taken by a single compare-and-set.
+ *
+ * <p>The buckets are spread over stripes. If a stripe is full then the buckets that are full
+ * again (the idle buckets) are removed. Removing them loses nothing, because a removed bucket
+ * starts full when its key returns. Buckets that are not full are never removed, because a
+ * client could get new tokens by making other clients push its bucket out. Instead the limiter
+ * fails closed: while a stripe is full, new keys share the stripe's overflow bucket.
+ */
+class TokenBuckets<K> {
+    private static final int NUMBER_OF_STRIPES = 16;
+    private final long interval;
+    private final long tolerance;
+    private final int maximumBucketsPerStripe;
+    private final Stripe<K>[] stripes;
+
+    /**
+     * Creates token buckets.
+     *
+     * @param capacity               the maximum number of tokens of a bucket.
+     * @param tokensPerSecond        the refill rate of a bucket.
+     * @param maximumNumberOfBuckets the maximum number of buckets.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) //Java cannot create an array of Stripe<K>
+    TokenBuckets(int capacity, double tokensPerSecond, int maximumNumberOfBuckets) {
+        this.interval = Math.max(1, (long) (1000000000L / tokensPerSecond));
+        this.tolerance = capacity * interval;
+        this.maximumBucketsPerStripe = Math.max(1, (maximumNumberOfBuckets + NUMBER_OF_STRIPES - 1) / NUMBER_OF_STRIPES);
+        this.stripes = new Stripe[NUMBER_OF_STRIPES];
+        for (int i = 0; i < NUMBER_OF_STRIPES; ++i)
+            stripes[i] = new Stripe<K>();
+    }
+
+    /**
+     * Takes a token from the key's bucket.
+     *
+     * @param key the key.
+     * @param now the current value of {@link System#nanoTime()}.
+     * @return 0 if a token has been taken, otherwise the number of nanoseconds until the next
+     * token is available.
+     */
+    long tryAcquire(K key, long now) {
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long fullAt = bucket.get();
+            long newFullAt = ((fullAt - now < 0) ? now : fullAt) + interval;
+            long ahead = newFullAt - now;
+            if (ahead > tolerance)
+                return ahead - tolerance;
+            if (bucket.compareAndSet(fullAt, newFullAt))
+                return 0;
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe<K> stripe : stripes)
+            size += stripe.buckets.size();
+        return size;
+    }
+
+    private AtomicLong bucket(K key, long now) {
+        Stripe<K> stripe = stripes[spread(key.hashCode()) & (NUMBER_OF_STRIPES - 1)];
+        AtomicLong bucket = stripe.buckets.get(key);
+        if (bucket == null) {
+            if (stripe.buckets.size() >= maximumBucketsPerStripe) {
+                stripe.removeIdleBuckets(now);
+                if (stripe.buckets.size() >= maximumBucketsPerStripe)
+                    return stripe.overflowBucket(now);
+            }
+            AtomicLong newBucket = new AtomicLong(now);
+            bucket = stripe.buckets.putIfAbsent(key, newBucket);
+            if (bucket == null)
+                bucket = newBucket;
+        }
+        return bucket;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16) ^ (hash >>> 8);
+    }
+
+    private static class Stripe<K> {
+        final ConcurrentHashMap<K, AtomicLong> buckets = new ConcurrentHashMap<K, AtomicLong>();
+        final ReentrantLock evictionLock = new ReentrantLock();
+        private volatile AtomicLong overflowBucket;
+        private volatile boolean stillFull = false;
+        private volatile long nextIdleAt;
+
+        /**
+         * Returns the bucket that is shared by the keys that have no bucket of their own. It is
+         * created lazily, because it has to start full at the current time.
+         */
+        AtomicLong overflowBucket(long now) {
+            AtomicLong bucket = overflowBucket;
+            if (bucket == null)
+                synchronized (this) {
+                    bucket = overflowBucket;
+                    if (bucket == null)
+                        overflowBucket = bucket = new AtomicLong(now);
+                }
+            return bucket;
+        }
+
+        /**
+         * Removes the buckets that are full again. If no bucket has been removed, then the stripe
+         * is not scanned again before the earliest bucket becomes full, so that a flood of new keys
+         * does not scan a full stripe for every request.
+         */
+        void removeIdleBuckets(long now) {
+            if ((stillFull && now - nextIdleAt < 0) || !evictionLock.tryLock())
+                return; //nothing became idle or another thread is removing the buckets
+            try {
+                long earliestFullAt = now + Long.MAX_VALUE / 2;
+                boolean removed = false;
+                Iterator<AtomicLong> iterator = buckets.values().iterator();
+                while (iterator.hasNext()) {
+                    long fullAt = iterator.next().get();
+                    if (fullAt - now <= 0) {
+                        iterator.remove();
+                        removed = true;
+                    } else if (fullAt - earliestFullAt < 0)
+                        earliestFullAt = fullAt;
+                }
+                nextIdleAt = earliestFullAt;
+                stillFull = !removed;
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+}
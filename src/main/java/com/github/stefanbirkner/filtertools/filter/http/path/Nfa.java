@@ -0,0 +1,173 @@
+package com.github.stefanbirkner.filtertools.filter.http.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A nondeterministic finite automaton over the characters of a path. It is only used while the
+ * patterns are compiled into a {@link PathAutomaton}.
+ *
+ * <p>A transition consumes a single character. It either matches a specific character, every
+ * character except {@code '/'} or every character. The patterns are added like words to a trie:
+ * patterns that start with the same tokens share the states of these tokens. This keeps the sets
+ * of states small, that are created by the subset construction.
+ */
+class Nfa {
+    static final int CHARACTER = 0;
+    static final int NOT_SLASH = 1;
+    static final int ANY = 2;
+
+    private final List<List<int[]>> transitions = new ArrayList<List<int[]>>();
+    private final List<List<Integer>> epsilons = new ArrayList<List<Integer>>();
+    private final BitSet accepting = new BitSet();
+    private final Map<Long, Integer> statesAfterToken = new HashMap<Long, Integer>();
+    private final int start = newState();
+
+    int getStart() {
+        return start;
+    }
+
+    /**
+     * Adds a pattern.
+     */
+    void add(PathPattern pattern) {
+        int state = start;
+        for (int token : pattern.getTokens()) {
+            Long key = ((long) state << 32) | (token & 0xffffffffL);
+            Integer next = statesAfterToken.get(key);
+            if (next == null) {
+                next = addToken(state, token);
+                statesAfterToken.put(key, next);
+            }
+            state = next;
+        }
+        accepting.set(state);
+    }
+
+    private int addToken(int state, int token) {
+        int next = newState();
+        switch (token) {
+            case PathPattern.QUESTION_MARK:
+                addTransition(state, NOT_SLASH, '\0', next);
+                return next;
+            case PathPattern.STAR:
+                addEpsilon(state, next);
+                addTransition(next, NOT_SLASH, '\0', next);
+                return next;
+            case PathPattern.DOUBLE_STAR:
+                addEpsilon(state, next);
+                addTransition(next, ANY, '\0', next);
+                return next;
+            case PathPattern.SEGMENTS:
+                int segments = newState();
+                addEpsilon(state, segments);
+                addEpsilon(state, next);
+                addTransition(segments, ANY, '\0', segments);
+                addTransition(segments, CHARACTER, '/', next);
+                return next;
+            case PathPattern.TRAILING_SEGMENTS:
+                int trailingSegments = newState();
+                addEpsilon(state, next);
+                addTransition(state, CHARACTER, '/', trailingSegments);
+                addTransition(trailingSegments, ANY, '\0', trailingSegments);
+                addEpsilon(trailingSegments, next);
+                return next;
+            default:
+                addTransition(state, CHARACTER, (char) token, next);
+                return next;
+        }
+    }
+
+    private int newState() {
+        transitions.add(new ArrayList<int[]>());
+        epsilons.add(new ArrayList<Integer>());
+        return transitions.size() - 1;
+    }
+
+    int numberOfStates() {
+        return transitions.size();
+    }
+
+    private void addTransition(int from, int kind, char c, int to) {
+        transitions.get(from).add(new int[]{kind, c, to});
+    }
+
+    private void addEpsilon(int from, int to) {
+        epsilons.get(from).add(to);
+    }
+
+    boolean accepts(BitSet states) {
+        return states.intersects(accepting);
+    }
+
+    /**
+     * Returns all characters that are matched by {@link #CHARACTER} transitions.
+     */
+    BitSet characters() {
+        BitSet characters = new BitSet();
+        for (List<int[]> transitionsOfState : transitions)
+            for (int[] transition : transitionsOfState)
+                if (transition[0] == CHARACTER)
+                    characters.set(transition[1]);
+        return characters;
+    }
+
+    /**
+     * Adds all states that can be reached by epsilon transitions.
+     */
+    BitSet closure(BitSet states) {
+        BitSet closure = (BitSet) states.clone();
+        List<Integer> work = new ArrayList<Integer>();
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1))
+            work.add(state);
+        while (!work.isEmpty()) {
+            int state = work.remove(work.size() - 1);
+            for (int target : epsilons.get(state))
+                if (!closure.get(target)) {
+                    closure.set(target);
+                    work.add(target);
+                }
+        }
+        return closure;
+    }
+
+    /**
+     * Returns the states that are reached from the specified states by consuming a character of
+     * each of the character classes.
+     *
+     * @param states          the current states.
+     * @param representatives a character of every class. -1 represents the characters that are
+     *                        neither {@code '/'} nor matched by a {@link #CHARACTER} transition.
+     * @return the states for every class.
+     */
+    BitSet[] moves(BitSet states, int[] representatives) {
+        BitSet[] targets = new BitSet[representatives.length];
+        for (int i = 0; i < targets.length; ++i)
+            targets[i] = new BitSet();
+        BitSet notSlashTargets = new BitSet();
+        BitSet anyTargets = new BitSet();
+        for (int state = states.nextSetBit(0); state >= 0; state = states.nextSetBit(state + 1))
+            for (int[] transition : transitions.get(state))
+                if (transition[0] == NOT_SLASH)
+                    notSlashTargets.set(transition[2]);
+                else if (transition[0] == ANY)
+                    anyTargets.set(transition[2]);
+                else {
+                    //the representatives are sorted after the first one, which is -1
+                    int index = Arrays.binarySearch(representatives, 1, representatives.length, transition[1]);
+                    if (index > 0)
+                        targets[index].set(transition[2]);
+                }
+        for (int i = 0; i < targets.length; ++i) {
+            targets[i].or(anyTargets);
+            if (representatives[i] != '/')
+                targets[i].or(notSlashTargets);
+            targets[i] = closure(targets[i]);
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.stefanbirkner.filtertools.filter.http.path;
+
+import java.util.*;
+
+/**
+ * A deterministic finite automaton that decides whether a path matches at least one of a set of
+ * {@link PathPattern}s. The patterns are compiled into an {@link Nfa} that is converted into the
+ * automaton by the subset construction.
+ *
+ * <p>The characters are grouped into classes: every character that occurs in a pattern has its own
+ * class, {@code '/'} has its own class and all other characters share a class. The class of an
+ * ASCII character is looked up in a table and the class of other characters is found by a binary
+ * search. The transitions are stored in a single array. Matching reads every character of the path
+ * at most once and does not allocate memory.
+ */
+class PathAutomaton {
+    /**
+     * The maximum number of states. Patterns with many wildcards may need a number of states that
+     * grows exponentially with the number of patterns.
+     */
+    static final int MAXIMUM_STATES = 20000;
+    private static final int DEAD = -1;
+    private static final int OTHER_CLASS = 0;
+    private final int[] asciiClasses = new int[128];
+    private final char[] nonAsciiCharacters;
+    private final int[] nonAsciiClasses;
+    private final int numberOfClasses;
+    private final int[] transitions;
+    private final boolean[] accepting;
+    private final boolean[] acceptsEverySuffix;
+
+    PathAutomaton(List<PathPattern> patterns) {
+        Nfa nfa = new Nfa();
+        for (PathPattern pattern : patterns)
+            nfa.add(pattern);
+        BitSet characters = nfa.characters();
+        characters.set('/');
+        int[] representatives = new int[characters.cardinality() + 1];
+        representatives[OTHER_CLASS] = -1;
+        List<Character> nonAscii = new ArrayList<Character>();
+        int characterClass = 1;
+        for (int c = characters.nextSetBit(0); c >= 0; c = characters.nextSetBit(c + 1), ++characterClass) {
+            representatives[characterClass] = c;
+            if (c < asciiClasses.length)
+                asciiClasses[c] = characterClass;
+            else
+                nonAscii.add((char) c);
+        }
+        numberOfClasses = representatives.length;
+        nonAsciiCharacters = new char[nonAscii.size()];
+        nonAsciiClasses = new int[nonAscii.size()];
+        for (int i = 0; i < nonAscii.size(); ++i) {
+            nonAsciiCharacters[i] = nonAscii.get(i);
+            nonAsciiClasses[i] = representatives.length - nonAscii.size() + i;
+        }
+
+        Map<BitSet, Integer> stateNumbers = new HashMap<BitSet, Integer>();
+        List<BitSet> states = new ArrayList<BitSet>();
+        BitSet startState = new BitSet();
+        startState.set(nfa.getStart());
+        startState = nfa.closure(startState);
+        stateNumbers.put(startState, 0);
+        states.add(startState);
+        List<int[]> rows = new ArrayList<int[]>();
+        for (int state = 0; state < states.size(); ++state) {
+            int[] row = new int[numberOfClasses];
+            BitSet[] targets = nfa.moves(states.get(state), representatives);
+            for (int i = 0; i < numberOfClasses; ++i) {
+                BitSet target = targets[i];
+                if (target.isEmpty())
+                    row[i] = DEAD;
+                else {
+                    Integer number = stateNumbers.get(target);
+                    if (number == null) {
+                        if (states.size() == MAXIMUM_STATES)
+                            throw new IllegalArgumentException("The patterns " + patterns
+                                + " need more than " + MAXIMUM_STATES + " states.");
+                        number = states.size();
+                        stateNumbers.put(target, number);
+                        states.add(target);
+                    }
+                    row[i] = number;
+                }
+            }
+            rows.add(row);
+        }
+        transitions = new int[states.size() * numberOfClasses];
+        accepting = new boolean[states.size()];
+        acceptsEverySuffix = new boolean[states.size()];
+        for (int state = 0; state < states.size(); ++state) {
+            int[] row = rows.get(state);
+            System.arraycopy(row, 0, transitions, state * numberOfClasses, numberOfClasses);
+            accepting[state] = nfa.accepts(states.get(state));
+            acceptsEverySuffix[state] = accepting[state] && loopsForEveryClass(state, row);
+        }
+    }
+
+    private static boolean loopsForEveryClass(int state, int[] row) {
+        for (int target : row)
+            if (target != state)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the characters from {@code start} to the end of the text match at
+     * least one of the patterns.
+     */
+    boolean matches(String text, int start) {
+        return matches(text, start, null);
+    }
+
+    /**
+     * Returns {@code true} if the characters from {@code start} to the end of the text followed
+     * by the suffix match at least one of the patterns. The texts are not concatenated, so that
+     * matching does not allocate memory.
+     *
+     * @param suffix the suffix, may be {@code null}.
+     */
+    boolean matches(String text, int start, String suffix) {
+        int state = run(0, text, start);
+        if (suffix != null && state >= 0 && !acceptsEverySuffix[state])
+            state = run(state, suffix, 0);
+        return state >= 0 && accepting[state];
+    }
+
+    /**
+     * Returns the state after reading the characters from {@code start} to the end of the text,
+     * or {@link #DEAD}. It stops early in a state that accepts every suffix.
+     */
+    private int run(int state, String text, int start) {
+        for (int i = start; i < text.length(); ++i) {
+            if (acceptsEverySuffix[state])
+                return state;
+            state = transitions[state * numberOfClasses + classOf(text.charAt(i))];
+            if (state == DEAD)
+                return DEAD;
+        }
+        return state;
+    }
+
+    int numberOfStates() {
+        return accepting.length;
+    }
+
+    private int classOf(char c) {
+        if (c < asciiClasses.length)
+            return asciiClasses[c];
+        int index = Arrays.binarySearch(nonAsciiCharacters, c);
+        return (index < 0) ? OTHER_CLASS : nonAsciiClasses[index];
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.stefanbirkner.filtertools.filter.http.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pattern for paths. It is parsed into a sequence of tokens, which are added to an {@link Nfa}.
+ * A token is either a character or one of the wildcards.
+ *
+ * <p>Glob patterns support the wildcards {@code ?} (a single character except {@code '/'}),
+ * {@code *} (any number of characters except {@code '/'}) and {@code **} (any number of
+ * characters). Ant patterns support the same wildcards, but {@code **} is only special if it is a
+ * whole segment of the path. Then it matches zero or more segments. Within a segment it behaves
+ * like {@code *}.
+ */
+class PathPattern {
+    /**
+     * A single character except {@code '/'}.
+     */
+    static final int QUESTION_MARK = -1;
+
+    /**
+     * Any number of characters except {@code '/'}.
+     */
+    static final int STAR = -2;
+
+    /**
+     * Any number of characters.
+     */
+    static final int DOUBLE_STAR = -3;
+
+    /**
+     * Zero or more segments, each of them followed by {@code '/'}.
+     */
+    static final int SEGMENTS = -4;
+
+    /**
+     * Nothing or {@code '/'} followed by any number of characters.
+     */
+    static final int TRAILING_SEGMENTS = -5;
+
+    private final String description;
+    private final int[] tokens;
+
+    private PathPattern(String type, String pattern, List<Integer> tokens) {
+        this.description = type + "(" + pattern + ")";
+        this.tokens = new int[tokens.size()];
+        for (int i = 0; i < this.tokens.length; ++i)
+            this.tokens[i] = tokens.get(i);
+    }
+
+    static PathPattern exact(String path) {
+        return new PathPattern("exact", path, characters(notNull(path)));
+    }
+
+    static PathPattern prefix(String prefix) {
+        List<Integer> tokens = characters(notNull(prefix));
+        tokens.add(DOUBLE_STAR);
+        return new PathPattern("prefix", prefix, tokens);
+    }
+
+    static PathPattern suffix(String suffix) {
+        List<Integer> tokens = new ArrayList<Integer>();
+        tokens.add(DOUBLE_STAR);
+        tokens.addAll(characters(notNull(suffix)));
+        return new PathPattern("suffix", suffix, tokens);
+    }
+
+    static PathPattern glob(String pattern) {
+        List<Integer> tokens = new ArrayList<Integer>();
+        addGlob(tokens, notNull(pattern), true);
+        return new PathPattern("glob", pattern, tokens);
+    }
+
+    static PathPattern ant(String pattern) {
+        if (!notNull(pattern).startsWith("/"))
+            throw new IllegalArgumentException("The pattern '" + pattern + "' does not start with '/'.");
+        List<Integer> tokens = new ArrayList<Integer>();
+        String[] segments = pattern.substring(1).split("/", -1);
+        boolean afterSegments = false;
+        for (int i = 0; i < segments.length; ++i) {
+            if (!segments[i].equals("**")) {
+                if (!afterSegments)
+                    tokens.add((int) '/');
+                addGlob(tokens, segments[i], false);
+                afterSegments = false;
+            } else if (i == segments.length - 1)
+                tokens.add(afterSegments ? DOUBLE_STAR : TRAILING_SEGMENTS);
+            else {
+                if (!afterSegments)
+                    tokens.add((int) '/');
+                tokens.add(SEGMENTS);
+                afterSegments = true; //the segments end with '/'
+            }
+        }
+        return new PathPattern("ant", pattern, tokens);
+    }
+
+    private static String notNull(String pattern) {
+        if (pattern == null)
+            throw new NullPointerException("The pattern is missing.");
+        return pattern;
+    }
+
+    private static List<Integer> characters(String text) {
+        List<Integer> tokens = new ArrayList<Integer>();
+        for (int i = 0; i < text.length(); ++i)
+            tokens.add((int) text.charAt(i));
+        return tokens;
+    }
+
+    private static void addGlob(List<Integer> tokens, String glob, boolean doubleStarMatchesSlash) {
+        for (int i = 0; i < glob.length(); ++i) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                boolean doubleStar = i + 1 < glob.length() && glob.charAt(i + 1) == '*';
+                if (doubleStar)
+                    ++i;
+                tokens.add(doubleStar && doubleStarMatchesSlash ? DOUBLE_STAR : STAR);
+            } else if (c == '?')
+                tokens.add(QUESTION_MARK);
+            else
+                tokens.add((int) c);
+        }
+    }
+
+    int[] getTokens() {
+        return tokens;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.stefanbirkner.filtertools.filter.http.path;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Predicate} that matches requests whose path matches at least one of its patterns. The
+ * path of a request is its servlet path followed by its path info. Requests that are not
+ * {@link HttpServletRequest}s never match. Predicates are created by {@link PathPredicates}.
+ *
+ * <p>The container decodes and normalizes the servlet path and the path info. E.g. the request
+ * URI {@code /shop/static/..;jsessionid=1/%61dmin} has the path {@code /admin}. The raw request URI
+ * is not used, because a client could bypass a pattern like {@code /admin/**} by encoding
+ * characters, by adding {@code ..} segments or by adding path parameters.
+ *
+ * <p>The patterns are compiled into a deterministic finite automaton when the predicate is
+ * created. Testing a request reads the path once and does not allocate memory, no matter how many
+ * patterns the predicate has.
+ *
+ * @since 1.5.0
+ */
+public class PathPredicate implements Predicate<ServletRequest> {
+    private final List<PathPattern> patterns;
+    private final PathAutomaton automaton;
+
+    PathPredicate(List<PathPattern> patterns) {
+        this.patterns = Collections.unmodifiableList(new ArrayList<PathPattern>(patterns));
+        this.automaton = new PathAutomaton(this.patterns);
+    }
+
+    List<PathPattern> getPatterns() {
+        return patterns;
+    }
+
+    @Override
+    public boolean test(ServletRequest request) {
+        if (!(request instanceof HttpServletRequest))
+            return false;
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String servletPath = httpRequest.getServletPath();
+        return automaton.matches((servletPath == null) ? "" : servletPath, 0, httpRequest.getPathInfo());
+    }
+
+    /**
+     * Returns {@code true} if the path matches at least one of the patterns.
+     *
+     * @param path the path.
+     * @return {@code true} if the path matches at least one of the patterns.
+     */
+    public boolean matches(String path) {
+        if (path == null)
+            throw new NullPointerException("The path is missing.");
+        return automaton.matches(path, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "PathPredicate" + patterns;
+    }
+}
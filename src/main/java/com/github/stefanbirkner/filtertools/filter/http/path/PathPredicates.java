@@ -0,0 +1,121 @@
+package com.github.stefanbirkner.filtertools.filter.http.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Creates {@link PathPredicate}s for the {@link com.github.stefanbirkner.filtertools.filter.OptionalFilter}
+ * and the {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterActionSwitch}.
+ * <pre>
+ * public class StaticResourcesFilter extends OptionalFilter {
+ *   public StaticResourcesFilter() {
+ *     super(
+ *       anyOf(prefix("/static/"), ant("/**&#47;*.css"), exact("/favicon.ico")),
+ *       new CacheHeadersFilter());
+ *   }
+ * }
+ * </pre>
+ * <p>Combine many patterns with {@link #anyOf(PathPredicate...)} instead of
+ * {@link com.github.stefanbirkner.filtertools.filter.Predicates#or(com.github.stefanbirkner.filtertools.filter.Predicate[])}.
+ * It compiles all patterns into a single automaton, so that the path is read only once.
+ *
+ * <h3>Patterns</h3>
+ * <ul>
+ * <li>{@link #glob(String)}: {@code ?} matches a single character except {@code '/'}, {@code *}
+ * matches any number of characters except {@code '/'} and {@code **} matches any number of
+ * characters. {@code /api/*&#47;orders} matches {@code /api/v1/orders}.</li>
+ * <li>{@link #ant(String)}: like glob, but {@code **} matches zero or more whole segments.
+ * {@code /api/**&#47;orders} matches {@code /api/orders} and {@code /api/v1/shop/orders}. A trailing
+ * {@code /**} also matches the path without it, e.g. {@code /api/**} matches {@code /api}.</li>
+ * </ul>
+ *
+ * @since 1.5.0
+ */
+public class PathPredicates {
+    /**
+     * Returns a predicate that matches a single path.
+     *
+     * @param path the path, e.g. {@code /login}.
+     * @return the predicate.
+     */
+    public static PathPredicate exact(String path) {
+        return new PathPredicate(singletonList(PathPattern.exact(path)));
+    }
+
+    /**
+     * Returns a predicate that matches paths that start with the specified prefix.
+     *
+     * @param prefix the prefix, e.g. {@code /static/}.
+     * @return the predicate.
+     */
+    public static PathPredicate prefix(String prefix) {
+        return new PathPredicate(singletonList(PathPattern.prefix(prefix)));
+    }
+
+    /**
+     * Returns a predicate that matches paths that end with the specified suffix.
+     *
+     * @param suffix the suffix, e.g. {@code .css}.
+     * @return the predicate.
+     */
+    public static PathPredicate suffix(String suffix) {
+        return new PathPredicate(singletonList(PathPattern.suffix(suffix)));
+    }
+
+    /**
+     * Returns a predicate for a glob pattern.
+     *
+     * @param pattern the pattern, e.g. {@code /images/*.png}.
+     * @return the predicate.
+     */
+    public static PathPredicate glob(String pattern) {
+        return new PathPredicate(singletonList(PathPattern.glob(pattern)));
+    }
+
+    /**
+     * Returns a predicate for an Ant-style pattern.
+     *
+     * @param pattern the pattern, e.g. {@code /api/**&#47;orders}.
+     * @return the predicate.
+     * @throws IllegalArgumentException if the pattern does not start with {@code '/'}.
+     */
+    public static PathPredicate ant(String pattern) {
+        return new PathPredicate(singletonList(PathPattern.ant(pattern)));
+    }
+
+    /**
+     * Returns a predicate that matches paths that match at least one of the specified
+     * predicates. Their patterns are compiled into a single automaton.
+     *
+     * @param predicates the predicates.
+     * @return the predicate.
+     * @throws IllegalArgumentException if the automaton would have more than 20000 states.
+     */
+    public static PathPredicate anyOf(PathPredicate... predicates) {
+        List<PathPattern> patterns = new ArrayList<PathPattern>();
+        for (PathPredicate predicate : predicates) {
+            if (predicate == null)
+                throw new NullPointerException("The predicate is missing.");
+            patterns.addAll(predicate.getPatterns());
+        }
+        return new PathPredicate(patterns);
+    }
+
+    /**
+     * Returns a predicate that matches paths that match at least one of the specified Ant-style
+     * patterns. The patterns are compiled into a single automaton.
+     *
+     * @param patterns the patterns.
+     * @return the predicate.
+     * @throws IllegalArgumentException if a pattern does not start with {@code '/'} or the
+     *                                  automaton would have more than 20000 states.
+     */
+    public static PathPredicate anyOfAnt(String... patterns) {
+        List<PathPattern> antPatterns = new ArrayList<PathPattern>();
+        for (String pattern : patterns)
+            antPatterns.add(PathPattern.ant(pattern));
+        return new PathPredicate(antPatterns);
+    }
+}
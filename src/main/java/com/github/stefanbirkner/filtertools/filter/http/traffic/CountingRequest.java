@@ -0,0 +1,112 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A request that counts the bytes of the body that are read by the application. Characters that
+ * are read by the {@link #getReader() reader} are converted to bytes by {@link EncodedLength}.
+ * The counter is not thread-safe, because a body is read by a single thread at a time.
+ */
+class CountingRequest extends HttpServletRequestWrapper {
+    private long bytesRead = 0;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+
+    CountingRequest(HttpServletRequest request) {
+        super(request);
+    }
+
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null)
+            inputStream = new CountingInputStream(super.getInputStream());
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null)
+            reader = new BufferedReader(
+                new CountingReader(super.getReader(), EncodedLength.of(getCharacterEncoding())));
+        return reader;
+    }
+
+    private class CountingInputStream extends ServletInputStream {
+        private final ServletInputStream inputStream;
+
+        CountingInputStream(ServletInputStream inputStream) {
+            this.inputStream = inputStream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = inputStream.read();
+            if (b >= 0)
+                ++bytesRead;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int numberOfBytes = inputStream.read(buffer, offset, length);
+            if (numberOfBytes > 0)
+                bytesRead += numberOfBytes;
+            return numberOfBytes;
+        }
+
+        @Override
+        public int readLine(byte[] buffer, int offset, int length) throws IOException {
+            int numberOfBytes = inputStream.readLine(buffer, offset, length);
+            if (numberOfBytes > 0)
+                bytesRead += numberOfBytes;
+            return numberOfBytes;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return inputStream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+
+    private class CountingReader extends Reader {
+        private final Reader reader;
+        private final EncodedLength encodedLength;
+
+        CountingReader(Reader reader, EncodedLength encodedLength) {
+            this.reader = reader;
+            this.encodedLength = encodedLength;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int numberOfCharacters = reader.read(buffer, offset, length);
+            if (numberOfCharacters > 0)
+                bytesRead += encodedLength.of(buffer, offset, numberOfCharacters);
+            return numberOfCharacters;
+        }
+
+        @Override
+        public boolean ready() throws IOException {
+            return reader.ready();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * A response that counts the bytes of the body that are written by the application and notes
+ * the time of the first write. Characters that are written to the {@link #getWriter() writer}
+ * are converted to bytes by {@link EncodedLength}. The writer is not buffered, so that the
+ * container's writer still decides when the body is sent.
+ */
+class CountingResponse extends HttpServletResponseWrapper {
+    private volatile long bytesWritten = 0;
+    private volatile long firstByteNanos = 0;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CountingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the time when the first byte has been written.
+     *
+     * @return the value of {@link System#nanoTime()} at the first write or 0 if nothing has been
+     * written.
+     */
+    long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    private void count(long numberOfBytes) {
+        if (numberOfBytes > 0) {
+            if (firstByteNanos == 0)
+                firstByteNanos = System.nanoTime();
+            bytesWritten += numberOfBytes; //written by a single thread at a time
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null)
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null)
+            writer = new PrintWriter(
+                new CountingWriter(super.getWriter(), EncodedLength.of(getCharacterEncoding())));
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null)
+            writer.flush();
+        super.flushBuffer();
+    }
+
+    private class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream outputStream;
+
+        CountingOutputStream(ServletOutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            count(1);
+            outputStream.write(b);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            count(length);
+            outputStream.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            outputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            outputStream.close();
+        }
+    }
+
+    private class CountingWriter extends Writer {
+        private final Writer writer;
+        private final EncodedLength encodedLength;
+
+        CountingWriter(Writer writer, EncodedLength encodedLength) {
+            this.writer = writer;
+            this.encodedLength = encodedLength;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            count(encodedLength.of(c));
+            writer.write(c);
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            count(encodedLength.of(buffer, offset, length));
+            writer.write(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            count(encodedLength.of(text, offset, length));
+            writer.write(text, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
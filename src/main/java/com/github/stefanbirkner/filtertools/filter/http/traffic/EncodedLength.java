@@ -0,0 +1,89 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * Calculates the number of bytes of encoded characters without encoding them. The length is exact
+ * for UTF-8 and single byte charsets. It is estimated by the charset's average number of bytes
+ * per character for other charsets.
+ */
+abstract class EncodedLength {
+    private static final EncodedLength UTF_8 = new EncodedLength() {
+        @Override
+        long of(int c) {
+            if (c < 0x80)
+                return 1;
+            else if (c < 0x800 || (c >= 0xd800 && c <= 0xdfff))
+                return 2; //a surrogate pair is encoded with four bytes
+            else
+                return 3;
+        }
+    };
+    private static final EncodedLength ONE_BYTE_PER_CHARACTER = new FixedLength(1);
+
+    /**
+     * Returns the {@code EncodedLength} of a charset.
+     *
+     * @param charsetName the name of the charset or {@code null} for ISO-8859-1.
+     * @return the {@code EncodedLength} of the charset. It assumes a single byte per character if
+     * the charset is not supported.
+     */
+    static EncodedLength of(String charsetName) {
+        if (charsetName == null)
+            return ONE_BYTE_PER_CHARACTER;
+        try {
+            Charset charset = Charset.forName(charsetName);
+            if (charset.name().equals("UTF-8"))
+                return UTF_8;
+            float averageBytesPerChar = charset.newEncoder().averageBytesPerChar();
+            return (averageBytesPerChar <= 1) ? ONE_BYTE_PER_CHARACTER : new FixedLength(Math.round(averageBytesPerChar));
+        } catch (IllegalCharsetNameException e) {
+            return ONE_BYTE_PER_CHARACTER;
+        } catch (UnsupportedCharsetException e) {
+            return ONE_BYTE_PER_CHARACTER;
+        } catch (UnsupportedOperationException e) {
+            return ONE_BYTE_PER_CHARACTER; //the charset can only decode
+        }
+    }
+
+    abstract long of(int c);
+
+    long of(char[] characters, int offset, int length) {
+        long bytes = 0;
+        for (int i = offset; i < offset + length; ++i)
+            bytes += of(characters[i]);
+        return bytes;
+    }
+
+    long of(CharSequence characters, int offset, int length) {
+        long bytes = 0;
+        for (int i = offset; i < offset + length; ++i)
+            bytes += of(characters.charAt(i));
+        return bytes;
+    }
+
+    private static class FixedLength extends EncodedLength {
+        private final int bytesPerCharacter;
+
+        FixedLength(int bytesPerCharacter) {
+            this.bytesPerCharacter = bytesPerCharacter;
+        }
+
+        @Override
+        long of(int c) {
+            return bytesPerCharacter;
+        }
+
+        @Override
+        long of(char[] characters, int offset, int length) {
+            return (long) length * bytesPerCharacter;
+        }
+
+        @Override
+        long of(CharSequence characters, int offset, int length) {
+            return (long) length * bytesPerCharacter;
+        }
+    }
+}
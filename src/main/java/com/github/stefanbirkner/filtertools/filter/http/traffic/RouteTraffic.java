@@ -0,0 +1,119 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+import com.github.stefanbirkner.filtertools.timing.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The traffic of a route. The time to first byte is the time from the start of the request until
+ * the application writes the first byte of the response body. The time to last byte is the time
+ * until the response is complete. Responses without a body have no time to first byte.
+ *
+ * @since 1.5.0
+ */
+public class RouteTraffic implements RouteTrafficMBean {
+    private final String filterName;
+    private final String route;
+    private final MBeanRegistration registration;
+    private final StripedCounter requests = new StripedCounter();
+    private final StripedCounter bytesRead = new StripedCounter();
+    private final StripedCounter bytesWritten = new StripedCounter();
+    private final LatencyHistogram timesToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram timesToLastByte = new LatencyHistogram();
+    private volatile long startNanos = System.nanoTime();
+
+    RouteTraffic(String filterName, String route) {
+        this.filterName = filterName;
+        this.route = route;
+        this.registration = new MBeanRegistration(this,
+            "type=Traffic,name=" + ObjectName.quote(filterName) + ",route=" + ObjectName.quote(route));
+    }
+
+    void record(long read, long written, long timeToFirstByte, long timeToLastByte) {
+        requests.add(1);
+        bytesRead.add(read);
+        bytesWritten.add(written);
+        if (timeToFirstByte >= 0)
+            timesToFirstByte.record(timeToFirstByte);
+        timesToLastByte.record(timeToLastByte);
+    }
+
+    void register() throws JMException {
+        registration.register();
+    }
+
+    void unregister() {
+        registration.unregister();
+    }
+
+    ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+
+    @Override
+    public String getRoute() {
+        return route;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double getReadRate() {
+        return perSecond(getBytesRead());
+    }
+
+    @Override
+    public double getWriteRate() {
+        return perSecond(getBytesWritten());
+    }
+
+    private double perSecond(long bytes) {
+        long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+        return bytes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public long getTimeToFirstByteP50() {
+        return timesToFirstByte.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getTimeToFirstByteP99() {
+        return timesToFirstByte.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getTimeToLastByteP50() {
+        return timesToLastByte.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getTimeToLastByteP99() {
+        return timesToLastByte.getValueAtPercentile(99);
+    }
+
+    @Override
+    public void reset() {
+        requests.reset();
+        bytesRead.reset();
+        bytesWritten.reset();
+        timesToFirstByte.reset();
+        timesToLastByte.reset();
+        startNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+/**
+ * The JMX management interface of {@link RouteTraffic}. All durations are in nanoseconds.
+ *
+ * @since 1.5.0
+ */
+public interface RouteTrafficMBean {
+    String getRoute();
+
+    long getRequestCount();
+
+    /**
+     * Returns the number of bytes of the request bodies that have been read by the application.
+     *
+     * @return the number of bytes that have been read.
+     */
+    long getBytesRead();
+
+    /**
+     * Returns the number of bytes of the response bodies that have been written by the
+     * application.
+     *
+     * @return the number of bytes that have been written.
+     */
+    long getBytesWritten();
+
+    /**
+     * Returns the average number of bytes that have been read per second since the statistics
+     * have been created or reset.
+     *
+     * @return the average read rate in bytes per second.
+     */
+    double getReadRate();
+
+    /**
+     * Returns the average number of bytes that have been written per second since the statistics
+     * have been created or reset.
+     *
+     * @return the average write rate in bytes per second.
+     */
+    double getWriteRate();
+
+    long getTimeToFirstByteP50();
+
+    long getTimeToFirstByteP99();
+
+    long getTimeToLastByteP50();
+
+    long getTimeToLastByteP99();
+
+    /**
+     * Sets all counters to zero.
+     */
+    void reset();
+}
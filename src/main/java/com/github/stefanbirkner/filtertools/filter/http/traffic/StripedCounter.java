@@ -0,0 +1,43 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A sum that can be updated by many threads with little contention, like Java 8's
+ * {@code LongAdder}. Each thread adds to the cell that belongs to its id. The cells are far enough
+ * apart that they don't share a cache line. The cells are added up when the sum is read.
+ */
+class StripedCounter {
+    private static final int MAX_CELLS = 16;
+    private static final int PADDING = 8; //8 longs are 64 bytes
+    private final AtomicLongArray cells;
+    private final int cellMask;
+
+    StripedCounter() {
+        int powerOfTwo = 1;
+        while (powerOfTwo < Math.min(Runtime.getRuntime().availableProcessors(), MAX_CELLS))
+            powerOfTwo <<= 1;
+        cells = new AtomicLongArray(powerOfTwo * PADDING);
+        cellMask = powerOfTwo - 1;
+    }
+
+    void add(long value) {
+        int cell = (int) Thread.currentThread().getId() & cellMask;
+        cells.addAndGet(cell * PADDING, value);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING)
+            sum += cells.get(i);
+        return sum;
+    }
+
+    /**
+     * Sets the sum to zero. Values that are added concurrently may get lost.
+     */
+    void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING)
+            cells.set(i, 0);
+    }
+}
@@ -0,0 +1,221 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import com.github.stefanbirkner.filtertools.filter.KeyExtractor;
+import com.github.stefanbirkner.filtertools.filter.http.HttpFilter;
+
+import javax.management.JMException;
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counts the bytes of the request bodies that are read and the bytes of the response bodies that
+ * are written per route and measures the time to first byte and the time to last byte of the
+ * responses (see {@link RouteTraffic}).
+ * <pre>
+ * public class YourFilters extends EncasedFilters {
+ *   public YourFilters() {
+ *     super(
+ *       new TrafficAccountingFilter("shop", new KeyExtractor&lt;HttpServletRequest, String&gt;() {
+ *         public String extract(HttpServletRequest request) {
+ *           return request.getServletPath();
+ *         }
+ *       }, 100),
+ *       new YourFilter());
+ *   }
+ * }
+ * </pre>
+ * <p>The route of a request is determined by a {@link KeyExtractor} before the filter chain is
+ * called, because later filters or an asynchronous dispatch may change the request's path or
+ * attributes. The number of routes is bounded. Requests whose route is {@code null} or that would
+ * exceed the maximum number of routes are counted for the route {@value #OTHER_ROUTE}.
+ *
+ * <p>Every request counts its bytes in plain fields and adds them to the route's striped counters
+ * once, when the response is complete. The statistics of every route are registered as an MBean
+ * with the object name
+ * {@code com.github.stefanbirkner.filtertools:type=Traffic,name=<name of the filter>,route=<route>}
+ * while the filter is initialized.
+ *
+ * @since 1.5.0
+ */
+public class TrafficAccountingFilter extends HttpFilter {
+    /**
+     * The route of requests without a route or whose route exceeds the maximum number of routes.
+     */
+    public static final String OTHER_ROUTE = "other";
+    private final String name;
+    private final KeyExtractor<HttpServletRequest, String> routeExtractor;
+    private final int maximumRoutes;
+    private final ConcurrentMap<String, RouteTraffic> routes = new ConcurrentHashMap<String, RouteTraffic>();
+    private final RouteTraffic otherRoute;
+    private volatile boolean registered = false;
+
+    /**
+     * Creates a {@code TrafficAccountingFilter}.
+     *
+     * @param name           the name of the filter. It is used for the object names of the MBeans.
+     * @param routeExtractor extracts the route from a request.
+     * @param maximumRoutes  the maximum number of routes besides {@value #OTHER_ROUTE}.
+     */
+    public TrafficAccountingFilter(String name, KeyExtractor<HttpServletRequest, String> routeExtractor,
+                                   int maximumRoutes) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        if (routeExtractor == null)
+            throw new NullPointerException("The route extractor is missing.");
+        if (maximumRoutes < 0)
+            throw new IllegalArgumentException(
+                "The maximum number of routes must not be negative, but it is " + maximumRoutes + ".");
+        this.name = name;
+        this.routeExtractor = routeExtractor;
+        this.maximumRoutes = maximumRoutes;
+        this.otherRoute = new RouteTraffic(name, OTHER_ROUTE);
+    }
+
+    @Override
+    public synchronized void init(FilterConfig filterConfig) throws ServletException {
+        try {
+            otherRoute.register();
+            for (RouteTraffic route : routes.values())
+                route.register();
+        } catch (JMException e) {
+            unregisterAll();
+            throw new ServletException("Cannot register the traffic statistics of " + name + ".", e);
+        }
+        registered = true;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        long start = System.nanoTime();
+        RouteTraffic route = getRoute(request);
+        CountingRequest countingRequest = new CountingRequest(request);
+        CountingResponse countingResponse = new CountingResponse(response);
+        boolean recordLater = false;
+        try {
+            filterChain.doFilter(countingRequest, countingResponse);
+            if (isAsyncStarted(request)) {
+                request.getAsyncContext().addListener(
+                    new RecordOnComplete(route, countingRequest, countingResponse, start));
+                recordLater = true;
+            }
+        } finally {
+            if (!recordLater)
+                record(route, countingRequest, countingResponse, start);
+        }
+    }
+
+    private static void record(RouteTraffic route, CountingRequest countingRequest,
+                               CountingResponse countingResponse, long start) {
+        long end = System.nanoTime();
+        long firstByte = countingResponse.getFirstByteNanos();
+        route.record(countingRequest.getBytesRead(), countingResponse.getBytesWritten(),
+            (firstByte == 0) ? -1 : firstByte - start, end - start);
+    }
+
+    private RouteTraffic getRoute(HttpServletRequest request) {
+        String key = routeExtractor.extract(request);
+        if (key == null)
+            return otherRoute;
+        RouteTraffic route = routes.get(key);
+        if (route == null) {
+            if (routes.size() >= maximumRoutes)
+                return otherRoute;
+            route = addRoute(key);
+        }
+        return route;
+    }
+
+    private synchronized RouteTraffic addRoute(String key) {
+        RouteTraffic route = routes.get(key);
+        if (route != null)
+            return route;
+        if (routes.size() >= maximumRoutes)
+            return otherRoute;
+        route = new RouteTraffic(name, key);
+        if (registered)
+            try {
+                route.register();
+            } catch (JMException e) {
+                return otherRoute; //e.g. another filter with the same name registered the route
+            }
+        routes.put(key, route);
+        return route;
+    }
+
+    /**
+     * Returns the statistics of all routes including the route {@value #OTHER_ROUTE}.
+     *
+     * @return the statistics of all routes.
+     */
+    public Collection<RouteTraffic> getRoutes() {
+        List<RouteTraffic> allRoutes = new ArrayList<RouteTraffic>(routes.values());
+        allRoutes.add(otherRoute);
+        return allRoutes;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        registered = false;
+        unregisterAll();
+    }
+
+    private void unregisterAll() {
+        try {
+            otherRoute.unregister();
+        } finally {
+            unregisterRoutes(new ArrayList<RouteTraffic>(routes.values()), 0);
+        }
+    }
+
+    private void unregisterRoutes(List<RouteTraffic> routesToUnregister, int index) {
+        if (index < routesToUnregister.size())
+            try {
+                routesToUnregister.get(index).unregister();
+            } finally {
+                unregisterRoutes(routesToUnregister, index + 1);
+            }
+    }
+
+    private static class RecordOnComplete implements AsyncListener {
+        private final RouteTraffic route;
+        private final CountingRequest countingRequest;
+        private final CountingResponse countingResponse;
+        private final long start;
+
+        RecordOnComplete(RouteTraffic route, CountingRequest countingRequest,
+                         CountingResponse countingResponse, long start) {
+            this.route = route;
+            this.countingRequest = countingRequest;
+            this.countingResponse = countingResponse;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(route, countingRequest, countingResponse, start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
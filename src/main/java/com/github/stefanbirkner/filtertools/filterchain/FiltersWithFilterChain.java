@@ -0,0 +1,68 @@
+package com.github.stefanbirkner.filtertools.filterchain;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * Merge an array of {@link Filter}s and a {@link FilterChain} into a new {@code FilterChain}.
+ *
+ * <p>Calling {@link #doFilter(ServletRequest, ServletResponse)} on the
+ * {@code FiltersWithFilterChain} calls the first filter with the {@code FiltersWithFilterChain}
+ * itself as filter chain. Every further call of {@code doFilter} moves on to the next filter
+ * and the {@code basisFilterChain} is called after the last filter. This is the same as nesting
+ * {@link FilterWithFilterChain}s, but it needs a single object per request instead of one object
+ * per filter.
+ *
+ * <p>The position within the array is restored when a filter returns. Therefore a filter may call
+ * the filter chain more than once while it is running. A filter must not call the filter chain
+ * after it returned (e.g. from an asynchronous task), because the chain does not know the
+ * position of that filter anymore. Such a call would run the filter itself again instead of the
+ * next filter. Calls after the whole chain returned are rejected with an
+ * {@link IllegalStateException}. Use nested {@link FilterWithFilterChain}s for filters that call
+ * the chain later. A {@code FiltersWithFilterChain} must not be used by multiple threads
+ * concurrently.
+ *
+ * @since 1.5.0
+ */
+public class FiltersWithFilterChain implements FilterChain {
+    private final Filter[] filters;
+    private final FilterChain basisFilterChain;
+    private int position = 0;
+    private boolean completed = false;
+
+    /**
+     * Creates a filter chain for the specified filters. The array is not copied, because this
+     * class is usually created for every request. It must not be modified while the filter chain
+     * is in use.
+     *
+     * @param filters          the filters that are called in the order of the array.
+     * @param basisFilterChain the filter chain that is called after the last filter.
+     */
+    public FiltersWithFilterChain(Filter[] filters, FilterChain basisFilterChain) {
+        if (filters == null)
+            throw new NullPointerException("The filters are missing.");
+        this.filters = filters;
+        if (basisFilterChain == null)
+            throw new NullPointerException("The base filter chain is missing.");
+        this.basisFilterChain = basisFilterChain;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+        if (completed)
+            throw new IllegalStateException(
+                "The filter chain has already returned. A filter must not call it after it returned.");
+        int currentPosition = position;
+        try {
+            if (currentPosition == filters.length)
+                basisFilterChain.doFilter(request, response);
+            else {
+                position = currentPosition + 1;
+                filters[currentPosition].doFilter(request, response, this);
+            }
+        } finally {
+            position = currentPosition;
+            completed = currentPosition == 0;
+        }
+    }
+}
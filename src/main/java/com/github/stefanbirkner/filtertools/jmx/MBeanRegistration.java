@@ -0,0 +1,152 @@
+package com.github.stefanbirkner.filtertools.jmx;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The registration of an MBean of Filter Tools at the platform MBean server. The object names of
+ * the MBeans have the domain {@value #DOMAIN}.
+ * <pre>
+ * private final MBeanRegistration registration
+ *   = new MBeanRegistration(this, "type=Stage,name=" + ObjectName.quote(name));
+ * </pre>
+ * <p>A registration only unregisters the MBean if it registered the MBean itself. Therefore an
+ * object whose registration failed, because another object already uses the object name, can be
+ * cleaned up without removing the other object's MBean.
+ *
+ * <p>An object that replaces another object at runtime (e.g. a new delegate of a
+ * {@link com.github.stefanbirkner.filtertools.filter.SwappableFilter}) can take over the object
+ * names of the other object. Its registrations take over the object names while the current
+ * thread is between {@link #beginHandOver()} and {@link #endHandOver()}. The MBean of the previous
+ * registration is unregistered and the previous registration does nothing when it is
+ * unregistered later. Only object names that are registered by a {@code MBeanRegistration} are
+ * taken over.
+ *
+ * @since 1.5.0
+ */
+public class MBeanRegistration {
+    /**
+     * The domain of the object names.
+     */
+    public static final String DOMAIN = "com.github.stefanbirkner.filtertools";
+    private static final Object LOCK = new Object();
+    private static final Map<ObjectName, MBeanRegistration> OWNERS
+        = new HashMap<ObjectName, MBeanRegistration>(); //guarded by LOCK
+    private static final ThreadLocal<Integer> HAND_OVERS = new ThreadLocal<Integer>();
+    private final Object mbean;
+    private final ObjectName objectName;
+    private boolean registered = false; //guarded by LOCK
+
+    /**
+     * Creates a registration for an MBean.
+     *
+     * @param mbean         the MBean.
+     * @param keyProperties the key properties of the object name, e.g.
+     *                      {@code type=Stage,name="first"}.
+     * @throws IllegalArgumentException if the key properties are not valid.
+     */
+    public MBeanRegistration(Object mbean, String keyProperties) {
+        if (mbean == null)
+            throw new NullPointerException("The MBean is missing.");
+        if (keyProperties == null)
+            throw new NullPointerException("The key properties are missing.");
+        this.mbean = mbean;
+        try {
+            this.objectName = new ObjectName(DOMAIN + ":" + keyProperties);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("The key properties " + keyProperties + " are not valid.", e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Starts a hand-over for the current thread. Registrations take over the object names of
+     * other registrations until {@link #endHandOver()} is called. Hand-overs can be nested.
+     * <pre>
+     * MBeanRegistration.beginHandOver();
+     * try {
+     *   newFilter.init(filterConfig);
+     * } finally {
+     *   MBeanRegistration.endHandOver();
+     * }
+     * </pre>
+     */
+    public static void beginHandOver() {
+        Integer handOvers = HAND_OVERS.get();
+        HAND_OVERS.set((handOvers == null) ? 1 : handOvers + 1);
+    }
+
+    /**
+     * Returns {@code true} if the current thread is in a hand-over. Code that initializes filters
+     * by other threads (e.g. {@link com.github.stefanbirkner.filtertools.filter.ParallelLifecycle})
+     * has to start a hand-over in these threads, too.
+     *
+     * @return {@code true} if the current thread is in a hand-over.
+     */
+    public static boolean isHandingOver() {
+        return HAND_OVERS.get() != null;
+    }
+
+    /**
+     * Ends a hand-over that has been started by {@link #beginHandOver()}.
+     */
+    public static void endHandOver() {
+        Integer handOvers = HAND_OVERS.get();
+        if (handOvers == null || handOvers == 1)
+            HAND_OVERS.remove();
+        else
+            HAND_OVERS.set(handOvers - 1);
+    }
+
+    /**
+     * Registers the MBean at the platform MBean server. During a hand-over (see
+     * {@link #beginHandOver()}) it takes over the object name from another registration.
+     *
+     * @throws JMException if the MBean cannot be registered, e.g. because there is already an
+     *                     MBean with the same object name.
+     */
+    public void register() throws JMException {
+        synchronized (LOCK) {
+            MBeanRegistration previousOwner = OWNERS.get(objectName);
+            if (previousOwner != null && previousOwner != this && HAND_OVERS.get() != null)
+                previousOwner.unregister();
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, objectName);
+            registered = true;
+            OWNERS.put(objectName, this);
+        }
+    }
+
+    /**
+     * Removes the MBean from the platform MBean server. Does nothing if the MBean has not been
+     * registered by this registration or if another registration took over the object name.
+     */
+    public void unregister() {
+        synchronized (LOCK) {
+            if (!registered)
+                return;
+            registered = false;
+            OWNERS.remove(objectName);
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (InstanceNotFoundException e) {
+                //somebody else removed it
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot unregister the MBean " + objectName + ".", e);
+            }
+        }
+    }
+
+    public boolean isRegistered() {
+        synchronized (LOCK) {
+            return registered;
+        }
+    }
+}
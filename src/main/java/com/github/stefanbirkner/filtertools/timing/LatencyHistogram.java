@@ -0,0 +1,132 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds with a fixed memory footprint. It can be updated by
+ * many threads concurrently without locks.
+ *
+ * <p>Durations are counted in logarithmic buckets. Every power of two is divided into
+ * {@value #SUB_BUCKETS} linear sub-buckets. Therefore the values that are reported by
+ * {@link #getValueAtPercentile(double)} have a relative error of less than 1/{@value #SUB_BUCKETS}.
+ * Durations below {@value #SUB_BUCKETS} nanoseconds are counted exactly and durations longer than
+ * 2<sup>{@value #MAX_EXPONENT}</sup> nanoseconds (about 18 minutes) are counted as
+ * 2<sup>{@value #MAX_EXPONENT}</sup> nanoseconds.
+ *
+ * <p>The counters are striped. Each thread updates the stripe that belongs to its id, so that
+ * threads on different CPUs don't contend for the same cache lines. The stripes are merged when
+ * the histogram is read.
+ *
+ * @since 1.5.0
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int NUMBER_OF_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 16;
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Creates a histogram with a stripe for every available processor (but at most 16).
+     */
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a histogram with the specified number of stripes. The number is rounded up to the
+     * next power of two.
+     *
+     * @param numberOfStripes the number of stripes.
+     */
+    public LatencyHistogram(int numberOfStripes) {
+        int powerOfTwo = 1;
+        while (powerOfTwo < Math.min(numberOfStripes, MAX_STRIPES))
+            powerOfTwo <<= 1;
+        stripes = new AtomicLongArray[powerOfTwo];
+        for (int i = 0; i < powerOfTwo; ++i)
+            stripes[i] = new AtomicLongArray(NUMBER_OF_BUCKETS);
+        stripeMask = powerOfTwo - 1;
+    }
+
+    /**
+     * Counts a duration.
+     *
+     * @param nanos the duration in nanoseconds. Negative durations are counted as zero.
+     */
+    public void record(long nanos) {
+        int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        stripes[stripe].incrementAndGet(bucketIndex(nanos));
+    }
+
+    /**
+     * Returns the number of durations that have been recorded.
+     *
+     * @return the number of durations that have been recorded.
+     */
+    public long getCount() {
+        long count = 0;
+        for (long bucket : mergedBuckets())
+            count += bucket;
+        return count;
+    }
+
+    /**
+     * Returns the duration that is greater than or equal to the specified percentage of the
+     * recorded durations.
+     *
+     * @param percentile the percentage (e.g. {@code 99.9}).
+     * @return the duration in nanoseconds or 0 if no duration has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] buckets = mergedBuckets();
+        long count = 0;
+        for (long bucket : buckets)
+            count += bucket;
+        long rank = (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; ++i) {
+            seen += buckets[i];
+            if (seen > 0 && seen >= rank)
+                return highestValueOfBucket(i);
+        }
+        return 0;
+    }
+
+    /**
+     * Sets all counters to zero. Durations that are recorded concurrently may get lost.
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes)
+            for (int i = 0; i < stripe.length(); ++i)
+                stripe.set(i, 0);
+    }
+
+    private long[] mergedBuckets() {
+        long[] buckets = new long[NUMBER_OF_BUCKETS];
+        for (AtomicLongArray stripe : stripes)
+            for (int i = 0; i < NUMBER_OF_BUCKETS; ++i)
+                buckets[i] += stripe.get(i);
+        return buckets;
+    }
+
+    static int bucketIndex(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValueOfBucket(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * A {@link com.github.stefanbirkner.filtertools.filterchain.FiltersWithFilterChain} that measures
+ * the inclusive time and the self time of every filter. The self time of a filter is its inclusive
+ * time without the time of its calls to the filter chain. Like the {@code FiltersWithFilterChain}
+ * it must not be called by a filter after that filter returned.
+ */
+class ProfiledFiltersWithFilterChain implements FilterChain {
+    private final Filter[] filters;
+    private final StageStatistics[] stages;
+    private final FilterChain basisFilterChain;
+    private final long[] chainTimes;
+    private int position = 0;
+    private boolean completed = false;
+
+    ProfiledFiltersWithFilterChain(Filter[] filters, StageStatistics[] stages, FilterChain basisFilterChain) {
+        this.filters = filters;
+        this.stages = stages;
+        this.basisFilterChain = basisFilterChain;
+        this.chainTimes = new long[filters.length];
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+        if (completed)
+            throw new IllegalStateException(
+                "The filter chain has already returned. A filter must not call it after it returned.");
+        int currentPosition = position;
+        long start = System.nanoTime();
+        try {
+            if (currentPosition == filters.length)
+                basisFilterChain.doFilter(request, response);
+            else
+                doFilter(currentPosition, start, request, response);
+        } finally {
+            if (currentPosition > 0)
+                chainTimes[currentPosition - 1] += System.nanoTime() - start;
+            completed = currentPosition == 0;
+        }
+    }
+
+    private void doFilter(int currentPosition, long start, ServletRequest request, ServletResponse response)
+        throws IOException, ServletException {
+        long chainTimeBefore = chainTimes[currentPosition];
+        try {
+            position = currentPosition + 1;
+            filters[currentPosition].doFilter(request, response, this);
+        } finally {
+            position = currentPosition;
+            long inclusiveTime = System.nanoTime() - start;
+            long chainTime = chainTimes[currentPosition] - chainTimeBefore;
+            stages[currentPosition].record(inclusiveTime, inclusiveTime - chainTime);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import com.github.stefanbirkner.filtertools.filterchain.FiltersWithFilterChain;
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.management.*;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Profiles a sample of the requests that pass a chain of filters. One out of every
+ * {@code samplingInterval} requests is chosen at random. The inclusive time and the self time of
+ * every filter are measured for the chosen requests (see {@link StageStatistics}). All other
+ * requests are passed to a plain {@link FiltersWithFilterChain} and don't read the clock at all.
+ * <pre>
+ * public class MyEncasedFilters extends EncasedFilters {
+ *   public MyEncasedFilters() {
+ *     super(new SamplingProfiler("my filters", 100), new MyFirstFilter(), new MySecondFilter());
+ *   }
+ * }
+ * </pre>
+ * <p>The sampling interval can be changed at runtime. The profiler is published as an MBean with
+ * the object name
+ * {@code com.github.stefanbirkner.filtertools:type=SamplingProfiler,name=<name of the profiler>}
+ * while the filters are initialized. {@link #dump()} writes the statistics of all filters.
+ *
+ * <p>A chain type other than {@link com.github.stefanbirkner.filtertools.filter.EncasedFilters}
+ * supports profiling by calling {@link #attach(Filter[])} once and creating the filter chain of
+ * every request with {@link #createFilterChain(Filter[], FilterChain)}.
+ *
+ * @since 1.5.0
+ */
+public class SamplingProfiler implements SamplingProfilerMBean {
+    //The value is a long[], so that the thread local does not keep the web application's class
+    //loader alive.
+    private static final ThreadLocal<long[]> RANDOM_STATES = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            long seed = System.nanoTime() ^ (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+            return new long[]{seed == 0 ? 1 : seed};
+        }
+    };
+    private final String name;
+    private final MBeanRegistration registration;
+    private volatile int samplingInterval;
+    private volatile StageStatistics[] stages;
+
+    /**
+     * Creates a {@code SamplingProfiler}.
+     *
+     * @param name             the name of the profiler. It is used for the object name of the
+     *                         MBean.
+     * @param samplingInterval one request out of this number of requests is profiled. Zero means
+     *                         that no request is profiled.
+     */
+    public SamplingProfiler(String name, int samplingInterval) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        this.name = name;
+        this.registration = new MBeanRegistration(this, "type=SamplingProfiler,name=" + ObjectName.quote(name));
+        setSamplingInterval(samplingInterval);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Creates the statistics for the filters of a chain. A profiler can only be attached to a
+     * single chain.
+     *
+     * @param filters the filters of the chain.
+     * @throws IllegalStateException if the profiler has already been attached to a chain.
+     */
+    public synchronized void attach(Filter[] filters) {
+        if (filters == null)
+            throw new NullPointerException("The filters are missing.");
+        if (stages != null)
+            throw new IllegalStateException("The profiler " + name + " is already attached to filters.");
+        StageStatistics[] newStages = new StageStatistics[filters.length];
+        for (int i = 0; i < filters.length; ++i)
+            newStages[i] = new StageStatistics(
+                "#" + (i + 1) + " " + filters[i].getClass().getName());
+        stages = newStages;
+    }
+
+    /**
+     * Returns the statistics of the filters in the order of the filters.
+     *
+     * @return the statistics of the filters.
+     */
+    public List<StageStatistics> getStatistics() {
+        StageStatistics[] currentStages = stages;
+        if (currentStages == null)
+            return Collections.emptyList();
+        else
+            return Collections.unmodifiableList(Arrays.asList(currentStages));
+    }
+
+    /**
+     * Creates the filter chain for a single request. The chain measures every filter if the
+     * request is chosen for profiling.
+     *
+     * @param filters          the filters that have been attached to this profiler.
+     * @param basisFilterChain the filter chain that is called after the last filter.
+     * @return the filter chain for the request.
+     */
+    public FilterChain createFilterChain(Filter[] filters, FilterChain basisFilterChain) {
+        StageStatistics[] currentStages = stages;
+        if (currentStages != null && currentStages.length == filters.length && isSampled())
+            return new ProfiledFiltersWithFilterChain(filters, currentStages, basisFilterChain);
+        else
+            return new FiltersWithFilterChain(filters, basisFilterChain);
+    }
+
+    private boolean isSampled() {
+        int interval = samplingInterval;
+        if (interval <= 1)
+            return interval == 1;
+        long[] state = RANDOM_STATES.get();
+        long x = state[0];
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        state[0] = x;
+        return (x >>> 1) % interval == 0;
+    }
+
+    /**
+     * Registers this profiler at the platform MBean server.
+     *
+     * @throws JMException if the MBean cannot be registered, e.g. because there is already an
+     *                     MBean with the same name.
+     * @see MBeanRegistration
+     */
+    public void register() throws JMException {
+        registration.register();
+    }
+
+    /**
+     * Removes this profiler from the platform MBean server if it has been registered by
+     * {@link #register()}.
+     */
+    public void unregister() {
+        registration.unregister();
+    }
+
+    ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+
+    @Override
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    @Override
+    public void setSamplingInterval(int samplingInterval) {
+        if (samplingInterval < 0)
+            throw new IllegalArgumentException(
+                "The sampling interval must not be negative, but it is " + samplingInterval + ".");
+        this.samplingInterval = samplingInterval;
+    }
+
+    @Override
+    public long getSampleCount() {
+        StageStatistics[] currentStages = stages;
+        if (currentStages == null || currentStages.length == 0)
+            return 0;
+        else
+            return currentStages[0].getCount();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder report = new StringBuilder();
+        report.append("Profile of ").append(name).append(" (1 in ").append(samplingInterval)
+            .append(" requests, ").append(getSampleCount()).append(" samples, times in microseconds)\n");
+        for (StageStatistics stage : getStatistics())
+            report.append(stage.getName())
+                .append(": count=").append(stage.getCount())
+                .append(" inclusive p50=").append(micros(stage.getInclusiveTimeP50()))
+                .append(" p99=").append(micros(stage.getInclusiveTimeP99()))
+                .append(" self p50=").append(micros(stage.getSelfTimeP50()))
+                .append(" p99=").append(micros(stage.getSelfTimeP99()))
+                .append('\n');
+        return report.toString();
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    @Override
+    public void reset() {
+        for (StageStatistics stage : getStatistics())
+            stage.reset();
+    }
+}
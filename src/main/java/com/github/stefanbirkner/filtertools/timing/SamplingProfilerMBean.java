@@ -0,0 +1,44 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+/**
+ * The JMX management interface of {@link SamplingProfiler}.
+ *
+ * @since 1.5.0
+ */
+public interface SamplingProfilerMBean {
+    /**
+     * Returns the sampling interval. One request out of this number of requests is profiled on
+     * average. Zero means that no request is profiled.
+     *
+     * @return the sampling interval.
+     */
+    int getSamplingInterval();
+
+    /**
+     * Changes the sampling interval. The new interval is used by requests that start afterwards.
+     *
+     * @param samplingInterval one request out of this number of requests is profiled. Zero stops
+     *                         profiling.
+     */
+    void setSamplingInterval(int samplingInterval);
+
+    /**
+     * Returns the number of requests that have been profiled.
+     *
+     * @return the number of requests that have been profiled.
+     */
+    long getSampleCount();
+
+    /**
+     * Returns a report with a line for every filter. A line contains the number of samples and
+     * the 50th and 99th percentile of the filter's inclusive time and self time in microseconds.
+     *
+     * @return the report.
+     */
+    String dump();
+
+    /**
+     * Discards the samples that have been recorded so far.
+     */
+    void reset();
+}
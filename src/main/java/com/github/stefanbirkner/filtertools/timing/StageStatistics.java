@@ -0,0 +1,125 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import com.github.stefanbirkner.filtertools.jmx.MBeanRegistration;
+
+import javax.management.*;
+
+/**
+ * Latency statistics of a stage of request processing, i.e. a {@link javax.servlet.Filter} or a
+ * {@link com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction}. The
+ * inclusive time is the whole time that is spent in the stage. The self time is the inclusive time
+ * without the time that is spent in the filter chain that is called by the stage.
+ *
+ * <p>The statistics can be published as an MBean with the object name
+ * {@code com.github.stefanbirkner.filtertools:type=Stage,name=<name of the stage>}.
+ *
+ * @since 1.5.0
+ */
+public class StageStatistics implements StageStatisticsMBean {
+    private final String name;
+    private final MBeanRegistration registration;
+    private final LatencyHistogram inclusiveTimes = new LatencyHistogram();
+    private final LatencyHistogram selfTimes = new LatencyHistogram();
+
+    /**
+     * Creates statistics for a stage.
+     *
+     * @param name the name of the stage. It is used for the object name of the MBean.
+     */
+    public StageStatistics(String name) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        this.name = name;
+        this.registration = new MBeanRegistration(this, "type=Stage,name=" + ObjectName.quote(name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Records an invocation of the stage.
+     *
+     * @param inclusiveNanos the whole time that has been spent in the stage.
+     * @param selfNanos      the time that has been spent in the stage without calling the filter
+     *                       chain.
+     */
+    public void record(long inclusiveNanos, long selfNanos) {
+        inclusiveTimes.record(inclusiveNanos);
+        selfTimes.record(selfNanos);
+    }
+
+    /**
+     * Registers these statistics at the platform MBean server.
+     *
+     * @throws JMException if the MBean cannot be registered, e.g. because there is already an
+     *                     MBean with the same name.
+     * @see MBeanRegistration
+     */
+    public void register() throws JMException {
+        registration.register();
+    }
+
+    /**
+     * Removes these statistics from the platform MBean server if they have been registered by
+     * {@link #register()}.
+     */
+    public void unregister() {
+        registration.unregister();
+    }
+
+    ObjectName getObjectName() {
+        return registration.getObjectName();
+    }
+
+    @Override
+    public long getCount() {
+        return inclusiveTimes.getCount();
+    }
+
+    @Override
+    public long getInclusiveTimeP50() {
+        return inclusiveTimes.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getInclusiveTimeP90() {
+        return inclusiveTimes.getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getInclusiveTimeP99() {
+        return inclusiveTimes.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getInclusiveTimeP999() {
+        return inclusiveTimes.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getSelfTimeP50() {
+        return selfTimes.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getSelfTimeP90() {
+        return selfTimes.getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getSelfTimeP99() {
+        return selfTimes.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getSelfTimeP999() {
+        return selfTimes.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public void reset() {
+        inclusiveTimes.reset();
+        selfTimes.reset();
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+/**
+ * The JMX management interface of {@link StageStatistics}. All durations are in nanoseconds.
+ *
+ * @since 1.5.0
+ */
+public interface StageStatisticsMBean {
+    /**
+     * Returns the number of invocations of the stage.
+     *
+     * @return the number of invocations of the stage.
+     */
+    long getCount();
+
+    long getInclusiveTimeP50();
+
+    long getInclusiveTimeP90();
+
+    long getInclusiveTimeP99();
+
+    long getInclusiveTimeP999();
+
+    long getSelfTimeP50();
+
+    long getSelfTimeP90();
+
+    long getSelfTimeP99();
+
+    long getSelfTimeP999();
+
+    /**
+     * Sets all counters to zero.
+     */
+    void reset();
+}
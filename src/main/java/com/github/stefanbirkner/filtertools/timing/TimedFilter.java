@@ -0,0 +1,105 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import javax.management.JMException;
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * Measures the inclusive time and the self time of a filter and publishes them via JMX (see
+ * {@link StageStatistics}). Wrap the filters of an
+ * {@link com.github.stefanbirkner.filtertools.filter.EncasedFilters} to see which filter is slow.
+ * <pre>
+ * public class MyEncasedFilters extends EncasedFilters {
+ *   public MyEncasedFilters() {
+ *     super(
+ *       new TimedFilter("first", new MyFirstFilter()),
+ *       new TimedFilter("second", new MySecondFilter()));
+ *   }
+ * }
+ * </pre>
+ * <p>The statistics are registered when the filter is initialized and unregistered when it is
+ * destroyed.
+ *
+ * @since 1.5.0
+ */
+public class TimedFilter implements Filter {
+    private final Filter filter;
+    private final StageStatistics statistics;
+
+    /**
+     * Creates a {@code TimedFilter}.
+     *
+     * @param name   the name of the filter's statistics.
+     * @param filter the filter that is measured.
+     */
+    public TimedFilter(String name, Filter filter) {
+        if (filter == null)
+            throw new NullPointerException("The filter is missing.");
+        this.filter = filter;
+        this.statistics = new StageStatistics(name);
+    }
+
+    public StageStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        try {
+            statistics.register();
+        } catch (JMException e) {
+            throw new ServletException("Cannot register the statistics of " + statistics.getName() + ".", e);
+        }
+        try {
+            filter.init(filterConfig);
+        } catch (ServletException e) {
+            statistics.unregister();
+            throw e;
+        } catch (RuntimeException e) {
+            statistics.unregister();
+            throw e;
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        TimedFilterChain timedFilterChain = new TimedFilterChain(filterChain);
+        long start = System.nanoTime();
+        try {
+            filter.doFilter(request, response, timedFilterChain);
+        } finally {
+            long inclusiveTime = System.nanoTime() - start;
+            statistics.record(inclusiveTime, inclusiveTime - timedFilterChain.time);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            filter.destroy();
+        } finally {
+            statistics.unregister();
+        }
+    }
+
+    private static class TimedFilterChain implements FilterChain {
+        private final FilterChain filterChain;
+        long time = 0;
+
+        TimedFilterChain(FilterChain filterChain) {
+            this.filterChain = filterChain;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response)
+            throws IOException, ServletException {
+            long start = System.nanoTime();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                time += System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+
+import javax.management.JMException;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Measures the time of a {@link FilterAction} and publishes it via JMX (see
+ * {@link StageStatistics}). An action does not call the filter chain. Therefore its inclusive
+ * time and its self time are the same.
+ * <pre>
+ * public class YourFilter extends PreFilterChainActionsFilter {
+ *   public YourFilter() {
+ *       super(new TimedFilterAction("first", new FirstAction()), new SecondAction());
+ *   }
+ * }
+ * </pre>
+ * <p>The statistics are registered when the action is initialized and unregistered when it is
+ * destroyed.
+ *
+ * @since 1.5.0
+ */
+public class TimedFilterAction implements FilterAction {
+    private final FilterAction action;
+    private final StageStatistics statistics;
+
+    /**
+     * Creates a {@code TimedFilterAction}.
+     *
+     * @param name   the name of the action's statistics.
+     * @param action the action that is measured.
+     */
+    public TimedFilterAction(String name, FilterAction action) {
+        if (action == null)
+            throw new NullPointerException("The action is missing.");
+        this.action = action;
+        this.statistics = new StageStatistics(name);
+    }
+
+    public StageStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        try {
+            statistics.register();
+        } catch (JMException e) {
+            throw new ServletException("Cannot register the statistics of " + statistics.getName() + ".", e);
+        }
+        try {
+            action.init(filterConfig);
+        } catch (ServletException e) {
+            statistics.unregister();
+            throw e;
+        } catch (RuntimeException e) {
+            statistics.unregister();
+            throw e;
+        }
+    }
+
+    @Override
+    public void execute(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        long start = System.nanoTime();
+        try {
+            action.execute(request, response);
+        } finally {
+            long time = System.nanoTime() - start;
+            statistics.record(time, time);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        try {
+            action.destroy();
+        } finally {
+            statistics.unregister();
+        }
+    }
+}
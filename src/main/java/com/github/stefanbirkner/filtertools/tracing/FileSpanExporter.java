@@ -0,0 +1,87 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import java.io.*;
+
+/**
+ * Appends the spans to a file. Every span is written as a line of JSON, e.g.
+ * <pre>
+ * {"traceId":"4bf92f3577b34da6a3ce929d0e0e4736","spanId":"00f067aa0ba902b7","parentSpanId":"53995c3f42cd8ad8","name":"GET","startTimeMicros":1500000000000000,"durationNanos":1234567,"outcome":"OK"}
+ * </pre>
+ * <p>The attribute {@code parentSpanId} is omitted for spans without a parent and the attribute
+ * {@code exception} is added for spans whose invocation threw an exception. The file is opened
+ * when the first trace is exported.
+ *
+ * @since 1.5.0
+ */
+public class FileSpanExporter implements SpanExporter {
+    private final File file;
+    private Writer writer;
+
+    /**
+     * Creates a {@code FileSpanExporter}.
+     *
+     * @param file the file. Spans are appended if it already exists.
+     */
+    public FileSpanExporter(File file) {
+        if (file == null)
+            throw new NullPointerException("The file is missing.");
+        this.file = file;
+    }
+
+    @Override
+    public void export(Trace trace) throws IOException {
+        if (writer == null)
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+        for (Span span : trace.getSpans())
+            write(trace, span);
+    }
+
+    private void write(Trace trace, Span span) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        line.append("{\"traceId\":\"").append(trace.getTraceId())
+            .append("\",\"spanId\":\"").append(span.getSpanId()).append('"');
+        if (span.getParentSpanId() != null)
+            line.append(",\"parentSpanId\":\"").append(span.getParentSpanId()).append('"');
+        line.append(",\"name\":");
+        appendString(line, span.getName());
+        line.append(",\"startTimeMicros\":").append(span.getStartTimeMicros())
+            .append(",\"durationNanos\":").append(span.getDurationNanos())
+            .append(",\"outcome\":\"").append(span.getOutcome()).append('"');
+        if (span.getException() != null) {
+            line.append(",\"exception\":");
+            appendString(line, span.getException().toString());
+        }
+        writer.write(line.append("}\n").toString());
+    }
+
+    private static void appendString(StringBuilder line, String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                line.append('\\').append(c);
+            else if (c < 0x20) {
+                String hex = Integer.toHexString(c);
+                line.append("\\u00").append(hex.length() == 1 ? "0" : "").append(hex);
+            } else
+                line.append(c);
+        }
+        line.append('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null)
+            writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null)
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the exported traces in memory. It is intended for tests.
+ * <pre>
+ * InMemorySpanExporter exporter = new InMemorySpanExporter();
+ * TracingFilter filter = new TracingFilter(exporter);
+ * ...
+ * List&lt;Trace&gt; traces = exporter.awaitTraces(1, 1000);
+ * </pre>
+ *
+ * @since 1.5.0
+ */
+public class InMemorySpanExporter implements SpanExporter {
+    private final List<Trace> traces = new ArrayList<Trace>();
+
+    @Override
+    public synchronized void export(Trace trace) {
+        traces.add(trace);
+        notifyAll();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Returns the traces that have been exported so far.
+     *
+     * @return the exported traces.
+     */
+    public synchronized List<Trace> getTraces() {
+        return new ArrayList<Trace>(traces);
+    }
+
+    /**
+     * Waits until the specified number of traces has been exported.
+     *
+     * @param numberOfTraces the expected number of traces.
+     * @param timeoutMillis  the maximum time to wait.
+     * @return the traces that have been exported. There are less traces than expected if the
+     * timeout elapsed.
+     * @throws InterruptedException if the thread has been interrupted while it was waiting.
+     */
+    public synchronized List<Trace> awaitTraces(int numberOfTraces, long timeoutMillis)
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (traces.size() < numberOfTraces && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return getTraces();
+    }
+
+    /**
+     * Discards the exported traces.
+     */
+    public synchronized void clear() {
+        traces.clear();
+    }
+}
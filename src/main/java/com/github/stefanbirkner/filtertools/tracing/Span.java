@@ -0,0 +1,103 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+/**
+ * A span of a {@link Trace}, i.e. the invocation of a filter, a filter action or the whole
+ * request. Spans are created by the exporters' thread from the data that has been recorded by
+ * the request.
+ *
+ * @since 1.5.0
+ */
+public final class Span {
+    /**
+     * The outcome of a span.
+     */
+    public enum Outcome {
+        /**
+         * The invocation returned normally.
+         */
+        OK,
+
+        /**
+         * The invocation threw an exception.
+         */
+        ERROR,
+
+        /**
+         * The invocation did not end before the request ended.
+         */
+        UNFINISHED
+    }
+
+    private final String name;
+    private final String spanId;
+    private final String parentSpanId;
+    private final long startTimeMicros;
+    private final long durationNanos;
+    private final Outcome outcome;
+    private final Throwable exception;
+
+    Span(String name, String spanId, String parentSpanId, long startTimeMicros, long durationNanos,
+         Outcome outcome, Throwable exception) {
+        this.name = name;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.startTimeMicros = startTimeMicros;
+        this.durationNanos = durationNanos;
+        this.outcome = outcome;
+        this.exception = exception;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the id of the span (16 lowercase hex digits).
+     *
+     * @return the id of the span.
+     */
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * Returns the id of the parent span. The parent of the root span is the span of the caller
+     * that has been provided by the {@code traceparent} header.
+     *
+     * @return the id of the parent span or {@code null} if the span has no parent.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * Returns the start of the span in microseconds since the epoch.
+     *
+     * @return the start of the span.
+     */
+    public long getStartTimeMicros() {
+        return startTimeMicros;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Returns the exception that has been thrown by the invocation.
+     *
+     * @return the exception or {@code null} if the invocation did not throw an exception.
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        return "Span[" + name + ", " + spanId + ", " + outcome + ", " + durationNanos + " ns]";
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import java.io.IOException;
+
+/**
+ * Sends the spans of finished requests to a tracing system. The methods are called by a single
+ * thread of the {@link TracingFilter}, never by the request threads.
+ *
+ * @since 1.5.0
+ */
+public interface SpanExporter {
+    /**
+     * Exports the spans of a request. The exporter may buffer them until {@link #flush()} is
+     * called.
+     *
+     * @param trace the trace of the request.
+     * @throws IOException if the spans cannot be exported.
+     */
+    void export(Trace trace) throws IOException;
+
+    /**
+     * Exports buffered spans. It is called when there are no more traces waiting.
+     *
+     * @throws IOException if the spans cannot be exported.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Releases the exporter's resources. It is called when the {@link TracingFilter} is destroyed
+     * after the remaining traces have been exported.
+     *
+     * @throws IOException if the resources cannot be released.
+     */
+    void close() throws IOException;
+}
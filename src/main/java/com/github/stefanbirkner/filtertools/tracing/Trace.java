@@ -0,0 +1,229 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import javax.servlet.ServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The spans of a single request. The {@link TracingFilter} creates the trace and stores it as a
+ * request attribute. The {@link TracedFilter}s and {@link TracedFilterAction}s of the request add
+ * their spans to it.
+ *
+ * <p>The data of the spans is stored in arrays that are allocated when the trace is created.
+ * Recording a span does not allocate memory. Spans that don't fit into the arrays are counted and
+ * dropped. The {@link Span} objects are only created when {@link #getSpans()} is called by a
+ * {@link SpanExporter}.
+ *
+ * <p>Call {@link #getTraceParent()} for the {@code traceparent} header of outgoing requests. It
+ * makes the current span the parent of the callee's spans.
+ *
+ * @since 1.5.0
+ */
+public final class Trace {
+    private static final String ATTRIBUTE = Trace.class.getName();
+    private static final int NO_SPAN = -1;
+    private static final ThreadLocal<Random> RANDOMS = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+    private final String traceId;
+    private final String remoteParentId;
+    private final int flags;
+    private final long startTimeMillis;
+    private final long startNanos;
+    private final String[] names;
+    private final long[] spanIds;
+    private final int[] parents;
+    private final long[] startOffsets;
+    private final long[] durations;
+    private final Throwable[] exceptions;
+    private final boolean[] ended;
+    private int numberOfSpans = 0;
+    private int droppedSpans = 0;
+    private int currentSpan = NO_SPAN;
+    private boolean finished = false;
+
+    /**
+     * Creates a trace and starts its root span.
+     *
+     * @param parent       the {@code traceparent} of the caller or {@code null} if a new trace is
+     *                     started.
+     * @param rootName     the name of the root span.
+     * @param maximumSpans the maximum number of spans including the root span.
+     */
+    Trace(TraceParent parent, String rootName, int maximumSpans) {
+        Random random = RANDOMS.get();
+        if (parent == null) {
+            traceId = hex(nonZero(random), nonZero(random));
+            remoteParentId = null;
+            flags = 0x01;
+        } else {
+            traceId = parent.getTraceId();
+            remoteParentId = parent.getParentId();
+            flags = parent.getFlags();
+        }
+        startTimeMillis = System.currentTimeMillis();
+        startNanos = System.nanoTime();
+        names = new String[maximumSpans];
+        spanIds = new long[maximumSpans];
+        parents = new int[maximumSpans];
+        startOffsets = new long[maximumSpans];
+        durations = new long[maximumSpans];
+        exceptions = new Throwable[maximumSpans];
+        ended = new boolean[maximumSpans];
+        if (startSpan(rootName) == NO_SPAN)
+            spanIds[0] = nonZero(random); //the callees of an unsampled trace need a parent id
+    }
+
+    /**
+     * Returns the trace of a request.
+     *
+     * @param request the request.
+     * @return the trace or {@code null} if the request is not traced by a {@link TracingFilter}.
+     */
+    public static Trace find(ServletRequest request) {
+        return (Trace) request.getAttribute(ATTRIBUTE);
+    }
+
+    void storeIn(ServletRequest request) {
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Returns {@code true} if the spans of this trace are recorded. A trace is not recorded if
+     * the caller's {@code traceparent} header does not have the sampled flag.
+     *
+     * @return {@code true} if the spans are recorded.
+     */
+    public boolean isSampled() {
+        return (flags & 0x01) != 0;
+    }
+
+    /**
+     * Returns the start time of the request.
+     *
+     * @return the start time of the request in milliseconds since the epoch.
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * Returns the {@code traceparent} header for a request that is sent by the current span.
+     *
+     * @return the {@code traceparent} header.
+     */
+    public synchronized TraceParent getTraceParent() {
+        long spanId = spanIds[currentSpan == NO_SPAN ? 0 : currentSpan];
+        return new TraceParent(traceId, hex(spanId), flags);
+    }
+
+    public synchronized int getDroppedSpanCount() {
+        return droppedSpans;
+    }
+
+    /**
+     * Returns the recorded spans. The root span is the first span.
+     *
+     * @return the recorded spans.
+     */
+    public synchronized List<Span> getSpans() {
+        List<Span> spans = new ArrayList<Span>(numberOfSpans);
+        for (int i = 0; i < numberOfSpans; ++i) {
+            Span.Outcome outcome = !ended[i] ? Span.Outcome.UNFINISHED
+                : exceptions[i] == null ? Span.Outcome.OK : Span.Outcome.ERROR;
+            String parentId = parents[i] == NO_SPAN ? remoteParentId : hex(spanIds[parents[i]]);
+            spans.add(new Span(names[i], hex(spanIds[i]), parentId,
+                startTimeMillis * 1000 + startOffsets[i] / 1000, durations[i], outcome, exceptions[i]));
+        }
+        return Collections.unmodifiableList(spans);
+    }
+
+    /**
+     * Starts a span that is the parent of the spans that are started before it ends. This is
+     * used for filters, which call the filter chain.
+     *
+     * @param name the name of the span.
+     * @return the index of the span or -1 if the span is not recorded.
+     */
+    synchronized int startSpan(String name) {
+        int span = startLeafSpan(name);
+        if (span != NO_SPAN)
+            currentSpan = span;
+        return span;
+    }
+
+    /**
+     * Starts a span that has no children. It does not change the parent of other spans and
+     * therefore can be used for actions that are executed in parallel.
+     *
+     * @param name the name of the span.
+     * @return the index of the span or -1 if the span is not recorded.
+     */
+    synchronized int startLeafSpan(String name) {
+        if (!isSampled() || finished)
+            return NO_SPAN;
+        if (numberOfSpans == names.length) {
+            ++droppedSpans;
+            return NO_SPAN;
+        }
+        int span = numberOfSpans++;
+        names[span] = name;
+        spanIds[span] = nonZero(RANDOMS.get());
+        parents[span] = currentSpan;
+        startOffsets[span] = System.nanoTime() - startNanos;
+        return span;
+    }
+
+    /**
+     * Ends a span.
+     *
+     * @param span      the index that has been returned when the span was started.
+     * @param exception the exception that has been thrown or {@code null}.
+     */
+    synchronized void endSpan(int span, Throwable exception) {
+        if (span == NO_SPAN || finished)
+            return;
+        durations[span] = System.nanoTime() - startNanos - startOffsets[span];
+        exceptions[span] = exception;
+        ended[span] = true;
+        if (currentSpan == span)
+            currentSpan = parents[span];
+    }
+
+    /**
+     * Ends the root span. Spans cannot be added afterwards.
+     *
+     * @param exception the exception that has been thrown by the filter chain or {@code null}.
+     * @return {@code true} if the trace should be exported.
+     */
+    synchronized boolean finish(Throwable exception) {
+        endSpan(0, exception);
+        finished = true;
+        return isSampled();
+    }
+
+    private static long nonZero(Random random) {
+        long value;
+        do
+            value = random.nextLong();
+        while (value == 0);
+        return value;
+    }
+
+    private static String hex(long... values) {
+        char[] digits = new char[16 * values.length];
+        for (int i = 0; i < values.length; ++i)
+            for (int digit = 0; digit < 16; ++digit)
+                digits[16 * i + digit] = Character.forDigit((int) (values[i] >>> (60 - 4 * digit)) & 0xf, 16);
+        return new String(digits);
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+/**
+ * The value of a W3C {@code traceparent} header, e.g.
+ * {@code 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01}. It consists of the version, the
+ * trace id, the id of the parent span and the trace flags.
+ *
+ * @see <a href="https://www.w3.org/TR/trace-context/">Trace Context</a>
+ * @since 1.5.0
+ */
+public final class TraceParent {
+    /**
+     * The name of the header.
+     */
+    public static final String HEADER = "traceparent";
+    private static final int SAMPLED = 0x01;
+    private static final int LENGTH = 55;
+    private final String traceId;
+    private final String parentId;
+    private final int flags;
+
+    /**
+     * Creates a {@code TraceParent}.
+     *
+     * @param traceId  the trace id (32 lowercase hex digits).
+     * @param parentId the id of the parent span (16 lowercase hex digits).
+     * @param flags    the trace flags.
+     */
+    public TraceParent(String traceId, String parentId, int flags) {
+        if (traceId == null)
+            throw new NullPointerException("The trace id is missing.");
+        if (traceId.length() != 32 || !isId(traceId, 0, 32))
+            throw new IllegalArgumentException("The trace id " + traceId + " is invalid.");
+        if (parentId == null)
+            throw new NullPointerException("The parent id is missing.");
+        if (parentId.length() != 16 || !isId(parentId, 0, 16))
+            throw new IllegalArgumentException("The parent id " + parentId + " is invalid.");
+        if (flags < 0 || flags > 0xff)
+            throw new IllegalArgumentException("The flags must be between 0 and 255, but they are " + flags + ".");
+        this.traceId = traceId;
+        this.parentId = parentId;
+        this.flags = flags;
+    }
+
+    /**
+     * Parses the value of a {@code traceparent} header. Versions that are newer than version 00
+     * are parsed like version 00 and their additional fields are ignored.
+     *
+     * @param header the value of the header. May be {@code null}.
+     * @return the parsed value or {@code null} if the header is missing or invalid.
+     */
+    public static TraceParent parse(String header) {
+        if (header == null || header.length() < LENGTH)
+            return null;
+        if (!isHex(header, 0, 2) || header.startsWith("ff"))
+            return null;
+        if (header.startsWith("00") ? header.length() != LENGTH : header.length() > LENGTH && header.charAt(LENGTH) != '-')
+            return null;
+        if (header.charAt(2) != '-' || header.charAt(35) != '-' || header.charAt(52) != '-')
+            return null;
+        if (!isId(header, 3, 35) || !isId(header, 36, 52) || !isHex(header, 53, 55))
+            return null;
+        return new TraceParent(header.substring(3, 35), header.substring(36, 52),
+            Integer.parseInt(header.substring(53, 55), 16));
+    }
+
+    private static boolean isId(String text, int start, int end) {
+        boolean allZeros = true;
+        for (int i = start; i < end; ++i) {
+            char c = text.charAt(i);
+            if (!isHexDigit(c))
+                return false;
+            allZeros &= c == '0';
+        }
+        return !allZeros;
+    }
+
+    private static boolean isHex(String text, int start, int end) {
+        for (int i = start; i < end; ++i)
+            if (!isHexDigit(text.charAt(i)))
+                return false;
+        return true;
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Returns {@code true} if the caller may have recorded the trace.
+     *
+     * @return {@code true} if the sampled flag is set.
+     */
+    public boolean isSampled() {
+        return (flags & SAMPLED) != 0;
+    }
+
+    /**
+     * Returns the value of the header in version 00.
+     *
+     * @return the value of the header.
+     */
+    @Override
+    public String toString() {
+        StringBuilder header = new StringBuilder(LENGTH);
+        header.append("00-").append(traceId).append('-').append(parentId).append('-');
+        if (flags < 0x10)
+            header.append('0');
+        return header.append(Integer.toHexString(flags)).toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof TraceParent))
+            return false;
+        TraceParent that = (TraceParent) other;
+        return traceId.equals(that.traceId) && parentId.equals(that.parentId) && flags == that.flags;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * traceId.hashCode() + parentId.hashCode()) + flags;
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+/**
+ * Adds a span for a filter to the request's {@link Trace}. The spans of the filters and actions
+ * that are called by the filter's chain are children of this span. The filter is called without a
+ * span if the request has no trace.
+ * <pre>
+ * public class YourFilters extends EncasedFilters {
+ *   public YourFilters() {
+ *     super(
+ *       new TracingFilter(new FileSpanExporter(new File("/var/log/shop/spans.log"))),
+ *       new TracedFilter("authentication", new AuthenticationFilter()));
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 1.5.0
+ */
+public class TracedFilter implements Filter {
+    private final String name;
+    private final Filter filter;
+
+    /**
+     * Creates a {@code TracedFilter}.
+     *
+     * @param name   the name of the filter's spans.
+     * @param filter the filter that is traced.
+     */
+    public TracedFilter(String name, Filter filter) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        this.name = name;
+        if (filter == null)
+            throw new NullPointerException("The filter is missing.");
+        this.filter = filter;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        filter.init(filterConfig);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        Trace trace = Trace.find(request);
+        if (trace == null) {
+            filter.doFilter(request, response, filterChain);
+            return;
+        }
+        int span = trace.startSpan(name);
+        Throwable exception = null;
+        try {
+            filter.doFilter(request, response, filterChain);
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        } catch (ServletException e) {
+            exception = e;
+            throw e;
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } catch (Error e) {
+            exception = e;
+            throw e;
+        } finally {
+            trace.endSpan(span, exception);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        filter.destroy();
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Adds a span for a {@link FilterAction} to the request's {@link Trace}. The span is a child of
+ * the span of the enclosing filter. Actions that are executed in parallel get sibling spans. The
+ * action is executed without a span if the request has no trace.
+ * <pre>
+ * public class YourFilter extends PreFilterChainActionsFilter {
+ *   public YourFilter() {
+ *       super(new TracedFilterAction("feature flags", new FetchFeatureFlags()));
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 1.5.0
+ */
+public class TracedFilterAction implements FilterAction {
+    private final String name;
+    private final FilterAction action;
+
+    /**
+     * Creates a {@code TracedFilterAction}.
+     *
+     * @param name   the name of the action's spans.
+     * @param action the action that is traced.
+     */
+    public TracedFilterAction(String name, FilterAction action) {
+        if (name == null)
+            throw new NullPointerException("The name is missing.");
+        this.name = name;
+        if (action == null)
+            throw new NullPointerException("The action is missing.");
+        this.action = action;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        action.init(filterConfig);
+    }
+
+    @Override
+    public void execute(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        Trace trace = Trace.find(request);
+        if (trace == null) {
+            action.execute(request, response);
+            return;
+        }
+        int span = trace.startLeafSpan(name);
+        Throwable exception = null;
+        try {
+            action.execute(request, response);
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        } catch (ServletException e) {
+            exception = e;
+            throw e;
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } catch (Error e) {
+            exception = e;
+            throw e;
+        } finally {
+            trace.endSpan(span, exception);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        action.destroy();
+    }
+}
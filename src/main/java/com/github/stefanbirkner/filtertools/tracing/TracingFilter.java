@@ -0,0 +1,252 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import com.github.stefanbirkner.filtertools.filter.http.HttpFilter;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates a {@link Trace} for every request. The trace's root span covers the whole filter chain.
+ * Wrap the filters and filter actions with {@link TracedFilter} and {@link TracedFilterAction} to
+ * add a span for each of them.
+ * <pre>
+ * public class YourFilters extends EncasedFilters {
+ *   public YourFilters() {
+ *     super(
+ *       new TracingFilter(new FileSpanExporter(new File("/var/log/shop/spans.log"))),
+ *       new TracedFilter("authentication", new AuthenticationFilter()),
+ *       new TracedFilter("compression", new GzipFilter()));
+ *   }
+ * }
+ * </pre>
+ * <p>The trace continues the trace of the caller if the request has a valid W3C
+ * {@code traceparent} header (see {@link TraceParent}). Otherwise a new trace is started. Spans
+ * are not recorded if the caller did not sample its trace. Use {@link Trace#find(ServletRequest)}
+ * and {@link Trace#getTraceParent()} to propagate the trace to other services.
+ *
+ * <p>The trace is handed off to a queue when the request ends. A single thread takes the traces
+ * from the queue and passes them to the {@link SpanExporter}. Traces are dropped and counted if
+ * the queue is full. The thread is started when the filter is initialized and it exports the
+ * remaining traces and closes the exporter when the filter is destroyed.
+ *
+ * @since 1.5.0
+ */
+public class TracingFilter extends HttpFilter {
+    /**
+     * The default maximum number of spans of a request (64).
+     */
+    public static final int DEFAULT_MAXIMUM_SPANS = 64;
+
+    /**
+     * The default number of traces that can wait for the exporter (4096).
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final long POLL_MILLIS = 100;
+    private static final long STOP_TIMEOUT_MILLIS = 10000;
+    private final SpanExporter exporter;
+    private final int maximumSpans;
+    private final BlockingQueue<Trace> queue;
+    private final AtomicLong droppedTraces = new AtomicLong();
+    private volatile long exportedTraces = 0;
+    private volatile long exportFailures = 0;
+    private volatile boolean running = false;
+    private Thread exporterThread;
+
+    /**
+     * Creates a {@code TracingFilter} with the {@link #DEFAULT_MAXIMUM_SPANS} and the
+     * {@link #DEFAULT_QUEUE_CAPACITY}.
+     *
+     * @param exporter the exporter of the traces.
+     */
+    public TracingFilter(SpanExporter exporter) {
+        this(exporter, DEFAULT_MAXIMUM_SPANS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a {@code TracingFilter}.
+     *
+     * @param exporter      the exporter of the traces.
+     * @param maximumSpans  the maximum number of spans of a request including the root span.
+     * @param queueCapacity the number of traces that can wait for the exporter.
+     */
+    public TracingFilter(SpanExporter exporter, int maximumSpans, int queueCapacity) {
+        if (exporter == null)
+            throw new NullPointerException("The exporter is missing.");
+        if (maximumSpans <= 0)
+            throw new IllegalArgumentException(
+                "The maximum number of spans must be positive, but it is " + maximumSpans + ".");
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException(
+                "The queue capacity must be positive, but it is " + queueCapacity + ".");
+        this.exporter = exporter;
+        this.maximumSpans = maximumSpans;
+        this.queue = new ArrayBlockingQueue<Trace>(queueCapacity);
+    }
+
+    @Override
+    public synchronized void init(FilterConfig filterConfig) throws ServletException {
+        running = true;
+        exporterThread = new Thread(new Exporter(), "span-exporter");
+        exporterThread.setDaemon(true);
+        exporterThread.start();
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws IOException, ServletException {
+        if (Trace.find(request) != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Trace trace = new Trace(
+            TraceParent.parse(request.getHeader(TraceParent.HEADER)), request.getMethod(), maximumSpans);
+        trace.storeIn(request);
+        Throwable exception = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException e) {
+            exception = e;
+            throw e;
+        } catch (ServletException e) {
+            exception = e;
+            throw e;
+        } catch (RuntimeException e) {
+            exception = e;
+            throw e;
+        } catch (Error e) {
+            exception = e;
+            throw e;
+        } finally {
+            if (exception == null && isAsyncStarted(request))
+                request.getAsyncContext().addListener(new FinishOnComplete(trace));
+            else
+                finish(trace, exception);
+        }
+    }
+
+    private void finish(Trace trace, Throwable exception) {
+        if (trace.finish(exception) && !(running && queue.offer(trace)))
+            droppedTraces.incrementAndGet();
+    }
+
+    @Override
+    public void destroy() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = exporterThread;
+        }
+        if (thread != null)
+            try {
+                thread.join(STOP_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+    }
+
+    /**
+     * Returns the number of traces that have been dropped because the queue was full or the
+     * filter was not initialized.
+     *
+     * @return the number of dropped traces.
+     */
+    public long getDroppedTraceCount() {
+        return droppedTraces.get();
+    }
+
+    public long getExportedTraceCount() {
+        return exportedTraces;
+    }
+
+    public long getExportFailureCount() {
+        return exportFailures;
+    }
+
+    private class Exporter implements Runnable {
+        private boolean unflushed = false;
+
+        @Override
+        public void run() {
+            try {
+                while (running || !queue.isEmpty()) {
+                    Trace trace = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (trace != null)
+                        export(trace);
+                    if (unflushed && queue.isEmpty())
+                        flush();
+                }
+            } catch (InterruptedException e) {
+                //stop exporting
+            } finally {
+                close();
+            }
+        }
+
+        private void export(Trace trace) {
+            try {
+                exporter.export(trace);
+                ++exportedTraces; //there is a single writer
+                unflushed = true;
+            } catch (IOException e) {
+                ++exportFailures;
+            } catch (RuntimeException e) {
+                ++exportFailures;
+            }
+        }
+
+        private void flush() {
+            try {
+                exporter.flush();
+                unflushed = false;
+            } catch (IOException e) {
+                ++exportFailures;
+            } catch (RuntimeException e) {
+                ++exportFailures;
+            }
+        }
+
+        private void close() {
+            try {
+                exporter.close();
+            } catch (IOException e) {
+                ++exportFailures;
+            } catch (RuntimeException e) {
+                ++exportFailures;
+            }
+        }
+    }
+
+    private class FinishOnComplete implements AsyncListener {
+        private final Trace trace;
+
+        FinishOnComplete(Trace trace) {
+            this.trace = trace;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            finish(trace, null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            //the container calls onComplete afterwards
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.github.stefanbirkner.filtertools.filter;
 
+import com.github.stefanbirkner.filtertools.timing.SamplingProfiler;
 import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import javax.management.ObjectName;
 import javax.servlet.*;
+import java.lang.management.ManagementFactory;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.any;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.*;
 
@@ -67,4 +75,89 @@ public class EncasedFiltersTest {
             verify(secondFilter).destroy();
         }
     }
+
+    @Test
+    public void callsFiltersInOrder() throws Exception {
+        EncasedFilters encasedFilters = new EncasedFilters(firstFilter, secondFilter);
+        doAnswer(callFilterChain()).when(firstFilter).doFilter(
+            argThat(is(sameInstance(request))),
+            argThat(is(sameInstance(response))),
+            argThat(is(any(FilterChain.class))));
+        encasedFilters.doFilter(request, response, filterChain);
+        InOrder inOrder = inOrder(firstFilter, secondFilter);
+        inOrder.verify(firstFilter).doFilter(
+            argThat(is(sameInstance(request))),
+            argThat(is(sameInstance(response))),
+            argThat(is(any(FilterChain.class))));
+        inOrder.verify(secondFilter).doFilter(
+            argThat(is(sameInstance(request))),
+            argThat(is(sameInstance(response))),
+            argThat(is(any(FilterChain.class))));
+    }
+
+    @Test
+    public void doesNotInitializeRemainingFiltersIfInitializationOfAFilterFails() throws Exception {
+        doThrow(new ServletException()).when(firstFilter).init(config);
+        EncasedFilters encasedFilters = new EncasedFilters(firstFilter, secondFilter);
+        try {
+            encasedFilters.init(config);
+            fail("Expected exception has not been thrown.");
+        } catch (ServletException expected) {
+            verify(secondFilter, never()).init(config);
+        }
+    }
+
+    @Test
+    public void destroysInitializedFiltersIfInitializationOfAFilterFails() throws Exception {
+        doThrow(new ServletException()).when(secondFilter).init(config);
+        EncasedFilters encasedFilters = new EncasedFilters(firstFilter, secondFilter);
+        try {
+            encasedFilters.init(config);
+            fail("Expected exception has not been thrown.");
+        } catch (ServletException expected) {
+            verify(firstFilter).destroy();
+            verify(secondFilter, never()).destroy();
+        }
+    }
+
+    @Test
+    public void initializesAndDestroysEveryFilterWithParallelLifecycle() throws Exception {
+        EncasedFilters encasedFilters = new EncasedFilters(
+            new ParallelLifecycle(2, 1000), firstFilter, secondFilter);
+        encasedFilters.init(config);
+        verify(firstFilter).init(config);
+        verify(secondFilter).init(config);
+        encasedFilters.destroy();
+        verify(firstFilter).destroy();
+        verify(secondFilter).destroy();
+    }
+
+    @Test
+    public void failedRegistrationDoesNotUnregisterProfilerOfAnotherChain() throws Exception {
+        EncasedFilters first = new EncasedFilters(new SamplingProfiler("shared", 10), new NoOpFilter());
+        EncasedFilters second = new EncasedFilters(new SamplingProfiler("shared", 10), new NoOpFilter());
+        first.init(config);
+        try {
+            try {
+                second.init(config);
+                fail("The second chain has been initialized.");
+            } catch (ServletException expected) {
+            }
+            assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(
+                "com.github.stefanbirkner.filtertools:type=SamplingProfiler,name=\"shared\"")), is(true));
+        } finally {
+            first.destroy();
+        }
+    }
+
+    private Answer<Void> callFilterChain() {
+        return new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                FilterChain chain = (FilterChain) invocation.getArguments()[2];
+                chain.doFilter(request, response);
+                return null;
+            }
+        };
+    }
 }
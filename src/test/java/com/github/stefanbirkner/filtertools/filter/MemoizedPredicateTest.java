@@ -0,0 +1,140 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.ServletRequest;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.*;
+
+public class MemoizedPredicateTest {
+    private final Predicate<ServletRequest> basePredicate = mock(Predicate.class);
+    private final Predicate<ServletRequest> otherBasePredicate = mock(Predicate.class);
+    private final MemoizedPredicate.Scope scope = new MemoizedPredicate.Scope();
+    private final MemoizedPredicate<ServletRequest> predicate
+        = new MemoizedPredicate<ServletRequest>(scope, basePredicate);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void returnsResultOfBasePredicate() {
+        ServletRequest request = requestWithAttributes();
+        when(basePredicate.test(request)).thenReturn(true);
+        assertThat(predicate.test(request), is(true));
+    }
+
+    @Test
+    public void evaluatesBasePredicateOncePerRequest() {
+        ServletRequest request = requestWithAttributes();
+        when(basePredicate.test(request)).thenReturn(false);
+        predicate.test(request);
+        assertThat(predicate.test(request), is(false));
+        verify(basePredicate, times(1)).test(request);
+    }
+
+    @Test
+    public void evaluatesBasePredicateForEveryRequest() {
+        ServletRequest firstRequest = requestWithAttributes();
+        ServletRequest secondRequest = requestWithAttributes();
+        when(basePredicate.test(firstRequest)).thenReturn(true);
+        when(basePredicate.test(secondRequest)).thenReturn(false);
+        predicate.test(firstRequest);
+        assertThat(predicate.test(secondRequest), is(false));
+    }
+
+    @Test
+    public void storesResultsOfDifferentPredicatesSeparately() {
+        ServletRequest request = requestWithAttributes();
+        when(basePredicate.test(request)).thenReturn(true);
+        when(otherBasePredicate.test(request)).thenReturn(false);
+        MemoizedPredicate<ServletRequest> otherPredicate
+            = new MemoizedPredicate<ServletRequest>(scope, otherBasePredicate);
+        predicate.test(request);
+        otherPredicate.test(request);
+        assertThat(predicate.test(request), is(true));
+        assertThat(otherPredicate.test(request), is(false));
+    }
+
+    @Test
+    public void storesAllResultsInASingleAttribute() {
+        ServletRequest request = requestWithAttributes();
+        predicate.test(request);
+        new MemoizedPredicate<ServletRequest>(scope, otherBasePredicate).test(request);
+        verify(request, times(1)).setAttribute(eq(scope.getAttribute()), any());
+    }
+
+    @Test
+    public void storesResultsOfDifferentScopesSeparately() {
+        ServletRequest request = requestWithAttributes();
+        when(basePredicate.test(request)).thenReturn(true);
+        MemoizedPredicate<ServletRequest> predicateOfOtherScope
+            = new MemoizedPredicate<ServletRequest>(new MemoizedPredicate.Scope(), basePredicate);
+        predicate.test(request);
+        predicateOfOtherScope.test(request);
+        verify(basePredicate, times(2)).test(request);
+        verify(request, times(2)).setAttribute(anyString(), any());
+    }
+
+    @Test
+    public void evaluatesBasePredicateOnceForConcurrentTests() throws Exception {
+        final ServletRequest request = requestWithAttributes();
+        when(basePredicate.test(request)).thenReturn(true);
+        predicate.test(request);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; ++j)
+                        predicate.test(request);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        verify(basePredicate, times(1)).test(request);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPredicate() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The predicate is missing.");
+        new MemoizedPredicate<ServletRequest>(scope, null);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutScope() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The scope is missing.");
+        new MemoizedPredicate<ServletRequest>(null, basePredicate);
+    }
+
+    private ServletRequest requestWithAttributes() {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        ServletRequest request = mock(ServletRequest.class);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        }).when(request).getAttribute(anyString());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(request).setAttribute(anyString(), any());
+        return request;
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class ParallelLifecycleTest {
+    private final FilterConfig config = mock(FilterConfig.class);
+    private final ParallelLifecycle lifecycle = new ParallelLifecycle(4, 2000);
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void initializesAllMembers() throws Exception {
+        List<Member> members = members(3);
+        lifecycle.init(members, Member.LIFECYCLE, config);
+        for (Member member : members) {
+            assertThat(member.initialized, is(true));
+            assertThat(member.config, is(sameInstance(config)));
+        }
+    }
+
+    @Test
+    public void initializesMembersConcurrently() throws Exception {
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<Member> members = members(3);
+        for (Member member : members)
+            member.waitForOthers = allStarted;
+        lifecycle.init(members, Member.LIFECYCLE, config);
+        assertThat(allStarted.getCount(), is(0L));
+    }
+
+    @Test
+    public void destroysInitializedMembersIfInitializationOfAMemberFails() {
+        List<Member> members = members(3);
+        members.get(1).initFailure = new ServletException("dummy failure");
+        try {
+            lifecycle.init(members, Member.LIFECYCLE, config);
+            fail("The initialization did not fail.");
+        } catch (ServletException e) {
+            assertThat(e, is(sameInstance(members.get(1).initFailure)));
+        }
+        for (Member member : members)
+            assertThat(member.initialized, is(false));
+        assertThat(members.get(0).destroyed, is(true));
+        assertThat(members.get(2).destroyed, is(true));
+    }
+
+    @Test
+    public void rethrowsRuntimeExceptionOfMember() throws Exception {
+        List<Member> members = members(2);
+        members.get(0).initFailure = new IllegalStateException("dummy failure");
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("dummy failure");
+        lifecycle.init(members, Member.LIFECYCLE, config);
+    }
+
+    @Test
+    public void initializationFailsAfterTimeout() throws Exception {
+        ParallelLifecycle lifecycleWithShortTimeout = new ParallelLifecycle(4, 50);
+        List<Member> members = members(2);
+        members.get(1).initDelayMillis = 5000;
+        try {
+            lifecycleWithShortTimeout.init(members, Member.LIFECYCLE, config);
+            fail("The initialization did not fail.");
+        } catch (ServletException e) {
+            assertThat(e.getMessage(), is(equalTo("The initialization did not finish within 50 ms.")));
+        }
+        assertThat(members.get(0).destroyed, is(true));
+    }
+
+    @Test
+    public void slowMemberIsDestroyedWhenItsInitializationReturnsAfterTimeout() throws Exception {
+        ParallelLifecycle lifecycleWithShortTimeout = new ParallelLifecycle(4, 50);
+        Member slowMember = new Member();
+        slowMember.initDelayMillis = 200;
+        slowMember.ignoreInterrupt = true;
+        try {
+            lifecycleWithShortTimeout.init(Collections.singletonList(slowMember), Member.LIFECYCLE, config);
+            fail("The initialization did not fail.");
+        } catch (ServletException expected) {
+        }
+        assertThat(slowMember.destroyedLatch.await(2, TimeUnit.SECONDS), is(true));
+        assertThat(slowMember.initialized, is(false));
+    }
+
+    @Test
+    public void destroysAllMembers() {
+        List<Member> members = members(3);
+        lifecycle.destroy(members, Member.LIFECYCLE);
+        for (Member member : members)
+            assertThat(member.destroyed, is(true));
+    }
+
+    @Test
+    public void destroysAllMembersAndRethrowsFirstFailure() {
+        List<Member> members = members(3);
+        members.get(0).destroyFailure = new IllegalStateException("first failure");
+        members.get(2).destroyFailure = new IllegalStateException("second failure");
+        try {
+            lifecycle.destroy(members, Member.LIFECYCLE);
+            fail("The destruction did not fail.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is(equalTo("first failure")));
+        }
+        assertThat(members.get(1).destroyed, is(true));
+    }
+
+    @Test
+    public void destroyReturnsAfterTimeout() {
+        ParallelLifecycle lifecycleWithShortTimeout = new ParallelLifecycle(4, 50);
+        Member slowMember = new Member();
+        slowMember.destroyDelayMillis = 5000;
+        long start = System.nanoTime();
+        lifecycleWithShortTimeout.destroy(asList(slowMember, new Member()), Member.LIFECYCLE);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), is(lessThan(2000L)));
+    }
+
+    @Test
+    public void doesNothingWithoutMembers() throws Exception {
+        lifecycle.init(Collections.<Member>emptyList(), Member.LIFECYCLE, config);
+        lifecycle.destroy(Collections.<Member>emptyList(), Member.LIFECYCLE);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPositiveNumberOfThreads() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The number of threads must be positive, but it is 0.");
+        new ParallelLifecycle(0, 1000);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPositiveTimeout() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The timeout must be positive, but it is 0.");
+        new ParallelLifecycle(4, 0);
+    }
+
+    private static List<Member> members(int number) {
+        List<Member> members = new ArrayList<Member>();
+        for (int i = 0; i < number; ++i)
+            members.add(new Member());
+        return members;
+    }
+
+    private static class Member {
+        static final ParallelLifecycle.Member<Member> LIFECYCLE = new ParallelLifecycle.Member<Member>() {
+            @Override
+            public void init(Member member, FilterConfig filterConfig) throws ServletException {
+                member.init(filterConfig);
+            }
+
+            @Override
+            public void destroy(Member member) {
+                member.destroy();
+            }
+        };
+        final CountDownLatch destroyedLatch = new CountDownLatch(1);
+        volatile boolean initialized = false;
+        volatile boolean destroyed = false;
+        volatile FilterConfig config;
+        CountDownLatch waitForOthers;
+        long initDelayMillis = 0;
+        long destroyDelayMillis = 0;
+        boolean ignoreInterrupt = false;
+        Exception initFailure;
+        RuntimeException destroyFailure;
+
+        void init(FilterConfig filterConfig) throws ServletException {
+            config = filterConfig;
+            if (waitForOthers != null) {
+                waitForOthers.countDown();
+                await(waitForOthers);
+            }
+            sleep(initDelayMillis);
+            if (initFailure instanceof ServletException)
+                throw (ServletException) initFailure;
+            else if (initFailure != null)
+                throw (RuntimeException) initFailure;
+            initialized = true;
+        }
+
+        void destroy() {
+            sleep(destroyDelayMillis);
+            initialized = false;
+            destroyed = true;
+            destroyedLatch.countDown();
+            if (destroyFailure != null)
+                throw destroyFailure;
+        }
+
+        private void sleep(long millis) {
+            long end = System.currentTimeMillis() + millis;
+            while (System.currentTimeMillis() < end)
+                try {
+                    Thread.sleep(Math.max(1, end - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    if (!ignoreInterrupt)
+                        return;
+                }
+        }
+
+        private static void await(CountDownLatch latch) {
+            try {
+                latch.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
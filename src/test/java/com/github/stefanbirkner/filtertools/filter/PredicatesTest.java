@@ -0,0 +1,146 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static com.github.stefanbirkner.filtertools.filter.Predicates.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.*;
+
+public class PredicatesTest {
+    private static final Predicate<Object> TRUE = new Constant(true);
+    private static final Predicate<Object> FALSE = new Constant(false);
+    private final Predicate<Object> predicate = mock(Predicate.class);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void notNegatesPredicate() {
+        assertThat(Predicates.not(TRUE).test("dummy"), is(false));
+        assertThat(Predicates.not(FALSE).test("dummy"), is(true));
+    }
+
+    @Test
+    public void andMatchesIfAllPredicatesMatch() {
+        assertThat(and(TRUE, TRUE).test("dummy"), is(true));
+        assertThat(and(TRUE, FALSE).test("dummy"), is(false));
+        assertThat(and().test("dummy"), is(true));
+    }
+
+    @Test
+    public void andStopsAtFirstPredicateThatDoesNotMatch() {
+        and(FALSE, predicate).test("dummy");
+        verifyZeroInteractions(predicate);
+    }
+
+    @Test
+    public void orMatchesIfAPredicateMatches() {
+        assertThat(or(FALSE, TRUE).test("dummy"), is(true));
+        assertThat(or(FALSE, FALSE).test("dummy"), is(false));
+        assertThat(or().test("dummy"), is(false));
+    }
+
+    @Test
+    public void orStopsAtFirstPredicateThatMatches() {
+        or(TRUE, predicate).test("dummy");
+        verifyZeroInteractions(predicate);
+    }
+
+    @Test
+    public void adaptivePredicatesHaveSameResultAsPlainPredicates() {
+        Predicate<Integer> isEven = new IsDivisibleBy(2);
+        Predicate<Integer> isDivisibleByThree = new IsDivisibleBy(3);
+        Predicate<Integer> isDivisibleByFive = new IsDivisibleBy(5);
+        Predicate<Integer> adaptiveAnd = adaptiveAnd(isEven, isDivisibleByThree, isDivisibleByFive);
+        Predicate<Integer> adaptiveOr = adaptiveOr(isEven, isDivisibleByThree, isDivisibleByFive);
+        Predicate<Integer> and = and(isEven, isDivisibleByThree, isDivisibleByFive);
+        Predicate<Integer> or = or(isEven, isDivisibleByThree, isDivisibleByFive);
+        for (int i = 0; i < 100000; ++i) {
+            assertThat(adaptiveAnd.test(i), is(and.test(i)));
+            assertThat(adaptiveOr.test(i), is(or.test(i)));
+        }
+    }
+
+    @Test
+    public void adaptiveAndEvaluatesCheapPredicateThatUsuallyFailsFirst() {
+        Predicate<Object> expensiveAndUsuallyTrue = new Expensive(true);
+        AdaptivePredicate<Object> adaptiveAnd = (AdaptivePredicate<Object>) adaptiveAnd(expensiveAndUsuallyTrue, FALSE);
+        evaluateUntilReordered(adaptiveAnd);
+        assertThat(adaptiveAnd.currentOrder(), contains(FALSE, expensiveAndUsuallyTrue));
+    }
+
+    @Test
+    public void adaptiveOrEvaluatesCheapPredicateThatUsuallyMatchesFirst() {
+        Predicate<Object> expensiveAndUsuallyFalse = new Expensive(false);
+        AdaptivePredicate<Object> adaptiveOr = (AdaptivePredicate<Object>) adaptiveOr(expensiveAndUsuallyFalse, TRUE);
+        evaluateUntilReordered(adaptiveOr);
+        assertThat(adaptiveOr.currentOrder(), contains(TRUE, expensiveAndUsuallyFalse));
+    }
+
+    @Test
+    public void cannotCombineMissingPredicate() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The predicate is missing.");
+        and(TRUE, null);
+    }
+
+    @Test
+    public void cannotNegateMissingPredicate() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The predicate is missing.");
+        Predicates.not(null);
+    }
+
+    private void evaluateUntilReordered(Predicate<Object> predicate) {
+        int evaluations = AdaptivePredicate.SAMPLING_INTERVAL * AdaptivePredicate.SAMPLES_PER_REORDERING;
+        for (int i = 0; i < evaluations; ++i)
+            predicate.test("dummy");
+    }
+
+    private static class Constant implements Predicate<Object> {
+        private final boolean value;
+
+        Constant(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Object object) {
+            return value;
+        }
+    }
+
+    private static class Expensive implements Predicate<Object> {
+        private final boolean value;
+
+        Expensive(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Object object) {
+            long end = System.nanoTime() + 2000;
+            while (System.nanoTime() < end) {
+                //burn time
+            }
+            return value;
+        }
+    }
+
+    private static class IsDivisibleBy implements Predicate<Integer> {
+        private final int divisor;
+
+        IsDivisibleBy(int divisor) {
+            this.divisor = divisor;
+        }
+
+        @Override
+        public boolean test(Integer number) {
+            return number % divisor == 0;
+        }
+    }
+}
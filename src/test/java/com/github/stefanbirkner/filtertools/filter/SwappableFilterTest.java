@@ -0,0 +1,215 @@
+package com.github.stefanbirkner.filtertools.filter;
+
+import com.github.stefanbirkner.filtertools.timing.TimedFilter;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class SwappableFilterTest {
+    private final Filter oldFilter = mock(Filter.class);
+    private final Filter newFilter = mock(Filter.class);
+    private final FilterConfig config = mock(FilterConfig.class);
+    private final ServletRequest request = mock(ServletRequest.class);
+    private final ServletResponse response = mock(ServletResponse.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private final SwappableFilter filter = new SwappableFilter(oldFilter);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @After
+    public void shutDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void initializesFilter() throws Exception {
+        filter.init(config);
+        verify(oldFilter).init(config);
+    }
+
+    @Test
+    public void delegatesRequestsToFilter() throws Exception {
+        filter.doFilter(request, response, filterChain);
+        verify(oldFilter).doFilter(request, response, filterChain);
+    }
+
+    @Test
+    public void newRequestsAreProcessedByNewFilterAfterSwap() throws Exception {
+        filter.init(config);
+        filter.swap(newFilter);
+        filter.doFilter(request, response, filterChain);
+        verify(newFilter).doFilter(request, response, filterChain);
+        verify(oldFilter, never()).doFilter(request, response, filterChain);
+        assertThat(filter.getFilter(), is(sameInstance(newFilter)));
+    }
+
+    @Test
+    public void initializesNewFilterWithConfigurationOfSwappableFilter() throws Exception {
+        filter.init(config);
+        filter.swap(newFilter);
+        verify(newFilter).init(config);
+    }
+
+    @Test
+    public void doesNotInitializeNewFilterIfSwappableFilterHasNotBeenInitialized() throws Exception {
+        filter.swap(newFilter);
+        verify(newFilter, never()).init(config);
+        verify(oldFilter, never()).destroy();
+    }
+
+    @Test
+    public void destroysOldFilterImmediatelyIfItHasNoRequests() throws Exception {
+        filter.init(config);
+        filter.swap(newFilter);
+        verify(oldFilter).destroy();
+    }
+
+    @Test
+    public void destroysOldFilterAfterItsLastRequest() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                entered.countDown();
+                release.await();
+                return null;
+            }
+        }).when(oldFilter).doFilter(request, response, filterChain);
+        filter.init(config);
+        Future<?> inFlightRequest = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                filter.doFilter(request, response, filterChain);
+                return null;
+            }
+        });
+        entered.await();
+        filter.swap(newFilter);
+        verify(oldFilter, never()).destroy();
+        filter.doFilter(request, response, filterChain);
+        verify(newFilter).doFilter(request, response, filterChain);
+        release.countDown();
+        inFlightRequest.get();
+        verify(oldFilter).destroy();
+    }
+
+    @Test
+    public void keepsOldFilterIfNewFilterCannotBeInitialized() throws Exception {
+        ServletException failure = new ServletException("dummy failure");
+        doThrow(failure).when(newFilter).init(config);
+        filter.init(config);
+        try {
+            filter.swap(newFilter);
+            fail("The swap did not fail.");
+        } catch (ServletException e) {
+            assertThat(e, is(sameInstance(failure)));
+        }
+        assertThat(filter.getFilter(), is(sameInstance(oldFilter)));
+        verify(oldFilter, never()).destroy();
+    }
+
+    @Test
+    public void requestDoesNotFailIfOldFilterCannotBeDestroyed() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                entered.countDown();
+                release.await();
+                return null;
+            }
+        }).when(oldFilter).doFilter(request, response, filterChain);
+        doThrow(new IllegalStateException()).when(oldFilter).destroy();
+        filter.init(config);
+        Future<?> inFlightRequest = executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                filter.doFilter(request, response, filterChain);
+                return null;
+            }
+        });
+        entered.await();
+        filter.swap(newFilter);
+        release.countDown();
+        inFlightRequest.get();
+        verify(oldFilter).destroy();
+    }
+
+    @Test
+    public void destroysCurrentFilter() throws Exception {
+        filter.init(config);
+        filter.swap(newFilter);
+        filter.destroy();
+        verify(newFilter).destroy();
+    }
+
+    @Test
+    public void newFilterTakesOverMBeansOfOldFilter() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("com.github.stefanbirkner.filtertools:type=Stage,name=\"swapped\"");
+        SwappableFilter swappableFilter = new SwappableFilter(
+            new EncasedFilters(new TimedFilter("swapped", mock(Filter.class))));
+        swappableFilter.init(config);
+        try {
+            swappableFilter.swap(new EncasedFilters(new TimedFilter("swapped", mock(Filter.class))));
+            swappableFilter.doFilter(request, response, filterChain);
+            assertThat(server.getAttribute(objectName, "Count"), is((Object) 1L));
+        } finally {
+            swappableFilter.destroy();
+        }
+        assertThat(server.isRegistered(objectName), is(false));
+    }
+
+    @Test
+    public void newFilterWithParallelLifecycleTakesOverMBeansOfOldFilter() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(
+            "com.github.stefanbirkner.filtertools:type=Stage,name=\"swapped-in-parallel\"");
+        SwappableFilter swappableFilter = new SwappableFilter(new EncasedFilters(
+            new ParallelLifecycle(2, 10000),
+            new TimedFilter("swapped-in-parallel", mock(Filter.class)), mock(Filter.class)));
+        swappableFilter.init(config);
+        try {
+            swappableFilter.swap(new EncasedFilters(
+                new ParallelLifecycle(2, 10000),
+                new TimedFilter("swapped-in-parallel", mock(Filter.class)), mock(Filter.class)));
+            swappableFilter.doFilter(request, response, filterChain);
+            assertThat(server.getAttribute(objectName, "Count"), is((Object) 1L));
+        } finally {
+            swappableFilter.destroy();
+        }
+        assertThat(server.isRegistered(objectName), is(false));
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutFilter() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The filter is missing.");
+        new SwappableFilter(null);
+    }
+
+    @Test
+    public void cannotSwapInMissingFilter() throws Exception {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The filter is missing.");
+        filter.swap(null);
+    }
+}
@@ -66,6 +66,19 @@ public class DisableEncodeUrlFilterTest {
         });
     }
 
+    @Test
+    public void disablesEncodeURLForSubsequentRequests() throws Exception {
+        when(response.encodeURL(anyString())).thenReturn("encoded url");
+        ResponseAction encodeUrl = new ResponseAction() {
+            @Override
+            public String callMethodOfResponse(HttpServletResponse response) {
+                return response.encodeURL("not encoded url");
+            }
+        };
+        assertThatUrlIsNotEncoded(encodeUrl);
+        assertThatUrlIsNotEncoded(encodeUrl);
+    }
+
     private void assertThatUrlIsNotEncoded(final ResponseAction action)
         throws IOException, ServletException {
         filter.doFilter(request, response, new FilterChain() {
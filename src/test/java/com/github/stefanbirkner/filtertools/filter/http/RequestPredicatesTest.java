@@ -0,0 +1,224 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Enumeration;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.enumeration;
+
+import static com.github.stefanbirkner.filtertools.filter.http.RequestPredicates.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class RequestPredicatesTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void queryParameterPresentMatchesParameterWithAndWithoutValue() {
+        Predicate<ServletRequest> predicate = queryParameterPresent("debug");
+        assertThat(predicate.test(requestWithQuery("a=1&debug=true")), is(true));
+        assertThat(predicate.test(requestWithQuery("a=1&debug")), is(true));
+        assertThat(predicate.test(requestWithQuery("debug=")), is(true));
+    }
+
+    @Test
+    public void queryParameterPresentDoesNotMatchOtherParameters() {
+        Predicate<ServletRequest> predicate = queryParameterPresent("debug");
+        assertThat(predicate.test(requestWithQuery("debugging=true&x=debug")), is(false));
+        assertThat(predicate.test(requestWithQuery("")), is(false));
+        assertThat(predicate.test(requestWithQuery(null)), is(false));
+    }
+
+    @Test
+    public void queryParameterEqualsMatchesValueOfAnyOccurrence() {
+        Predicate<ServletRequest> predicate = queryParameterEquals("mode", "beta");
+        assertThat(predicate.test(requestWithQuery("mode=alpha&mode=beta")), is(true));
+        assertThat(predicate.test(requestWithQuery("mode=betas")), is(false));
+        assertThat(predicate.test(requestWithQuery("mode=Beta")), is(false));
+        assertThat(predicate.test(requestWithQuery("mode")), is(false));
+    }
+
+    @Test
+    public void queryParameterEqualsMatchesEmptyValue() {
+        Predicate<ServletRequest> predicate = queryParameterEquals("flag", "");
+        assertThat(predicate.test(requestWithQuery("flag")), is(true));
+        assertThat(predicate.test(requestWithQuery("flag=")), is(true));
+        assertThat(predicate.test(requestWithQuery("flag=1")), is(false));
+    }
+
+    @Test
+    public void queryParameterEqualsDecodesNamesAndValues() {
+        Predicate<ServletRequest> predicate = queryParameterEquals("first name", "J\u00fcrgen & Co");
+        assertThat(predicate.test(requestWithQuery("first+name=J%C3%BCrgen+%26+Co")), is(true));
+        assertThat(predicate.test(requestWithQuery("first%20name=J\u00fcrgen%20%26%20Co")), is(true));
+        assertThat(predicate.test(requestWithQuery("first+name=J%C3%BCrgen")), is(false));
+    }
+
+    @Test
+    public void queryParameterEqualsMatchesCharactersOutsideOfBasicPlane() {
+        Predicate<ServletRequest> predicate = queryParameterEquals("q", "\ud83d\ude00");
+        assertThat(predicate.test(requestWithQuery("q=%F0%9F%98%80")), is(true));
+        assertThat(predicate.test(requestWithQuery("q=\ud83d\ude00")), is(true));
+    }
+
+    @Test
+    public void queryParameterEqualsTakesInvalidEscapeLiterally() {
+        Predicate<ServletRequest> predicate = queryParameterEquals("q", "100%");
+        assertThat(predicate.test(requestWithQuery("q=100%")), is(true));
+        assertThat(predicate.test(requestWithQuery("q=100%25")), is(true));
+    }
+
+    @Test(timeout = 1000)
+    public void queryParameterPresentScansLongQueryWithoutEqualsSignInLinearTime() {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < 500000; ++i)
+            query.append("a&");
+        query.append('b');
+        assertThat(queryParameterPresent("b").test(requestWithQuery(query.toString())), is(true));
+    }
+
+    @Test
+    public void queryParameterEqualsIgnoreCaseIgnoresCaseOfValue() {
+        Predicate<ServletRequest> predicate = queryParameterEqualsIgnoreCase("mode", "beta");
+        assertThat(predicate.test(requestWithQuery("mode=BETA")), is(true));
+        assertThat(predicate.test(requestWithQuery("MODE=beta")), is(false));
+    }
+
+    @Test
+    public void cookiePresentMatchesCookieByName() {
+        Predicate<ServletRequest> predicate = cookiePresent("session");
+        assertThat(predicate.test(requestWithHeader("Cookie", "theme=dark; session=abc")), is(true));
+        assertThat(predicate.test(requestWithHeader("Cookie", "session=")), is(true));
+        assertThat(predicate.test(requestWithHeader("Cookie", "sessions=abc; Session=abc")), is(false));
+        assertThat(predicate.test(requestWithHeader("Cookie", "theme=session")), is(false));
+        assertThat(predicate.test(requestWithHeader("Cookie", null)), is(false));
+    }
+
+    @Test
+    public void cookieEqualsMatchesQuotedAndUnquotedValue() {
+        Predicate<ServletRequest> predicate = cookieEquals("theme", "dark");
+        assertThat(predicate.test(requestWithHeader("Cookie", "a=1;theme=dark")), is(true));
+        assertThat(predicate.test(requestWithHeader("Cookie", "theme=\"dark\"; a=1")), is(true));
+        assertThat(predicate.test(requestWithHeader("Cookie", "theme=darker")), is(false));
+    }
+
+    @Test
+    public void cookiePredicatesInspectAllCookieHeaders() {
+        HttpServletRequest request = requestWithHeaders("Cookie", "a=1", "theme=dark");
+        assertThat(cookieEquals("theme", "dark").test(request), is(true));
+        assertThat(cookiePresent("a").test(request), is(true));
+        assertThat(cookiePresent("session").test(request), is(false));
+    }
+
+    @Test
+    public void headerHasTokenMatchesTokenOfListIgnoringCaseAndParameters() {
+        Predicate<ServletRequest> predicate = headerHasToken("Accept-Encoding", "gzip");
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "gzip")), is(true));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "deflate, GZIP ;q=0.8")), is(true));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "x-gzip, br")), is(false));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "")), is(false));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", null)), is(false));
+    }
+
+    @Test
+    public void headerHasTokenTreatsTokenWithQualityZeroAsAbsent() {
+        Predicate<ServletRequest> predicate = headerHasToken("Accept-Encoding", "gzip");
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "gzip;q=0")), is(false));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "br, GZIP ; Q = 0.000")), is(false));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "gzip;level=1;q=0.")), is(false));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "gzip;q=0.5")), is(true));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "gzip;q=0.001")), is(true));
+        assertThat(predicate.test(requestWithHeader("Accept-Encoding", "gzip;q=0, gzip")), is(true));
+    }
+
+    @Test
+    public void headerHasTokenInspectsAllHeadersWithTheName() {
+        Predicate<ServletRequest> predicate = headerHasToken("Accept-Encoding", "gzip");
+        assertThat(predicate.test(requestWithHeaders("Accept-Encoding", "br", "gzip")), is(true));
+        assertThat(predicate.test(requestWithHeaders("Accept-Encoding", "br", "deflate")), is(false));
+    }
+
+    @Test
+    public void headerPredicatesDoNotReadAllHeadersIfFirstHeaderMatches() {
+        HttpServletRequest request = requestWithHeaders("Cookie", "a=1", "b=2");
+        cookiePresent("a").test(request);
+        verify(request, never()).getHeaders(anyString());
+    }
+
+    @Test
+    public void predicatesNeitherParseParametersNorCreateCookiesNorReadBody() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getQueryString()).thenReturn("a=1");
+        when(request.getHeader("Cookie")).thenReturn("b=2");
+        when(request.getHeader("Accept")).thenReturn("text/html");
+        queryParameterEquals("a", "1").test(request);
+        cookieEquals("b", "2").test(request);
+        headerHasToken("Accept", "text/html").test(request);
+        verify(request, never()).getParameter(anyString());
+        verify(request, never()).getParameterMap();
+        verify(request, never()).getCookies();
+        verify(request, never()).getInputStream();
+        verify(request, never()).getReader();
+    }
+
+    @Test
+    public void predicatesDoNotMatchRequestThatIsNotAnHttpServletRequest() {
+        ServletRequest request = mock(ServletRequest.class);
+        assertThat(queryParameterPresent("a").test(request), is(false));
+        assertThat(cookiePresent("a").test(request), is(false));
+        assertThat(headerHasToken("Accept", "a").test(request), is(false));
+    }
+
+    @Test
+    public void cannotCreateQueryParameterPredicateWithoutName() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The name is missing.");
+        queryParameterEquals(null, "value");
+    }
+
+    @Test
+    public void cannotCreateCookiePredicateWithoutValue() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The value is missing.");
+        cookieEquals("name", null);
+    }
+
+    @Test
+    public void cannotCreateHeaderPredicateWithoutToken() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The token is missing.");
+        headerHasToken("Accept", null);
+    }
+
+    private static HttpServletRequest requestWithQuery(String query) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getQueryString()).thenReturn(query);
+        return request;
+    }
+
+    private static HttpServletRequest requestWithHeader(String name, String value) {
+        return value == null ? requestWithHeaders(name) : requestWithHeaders(name, value);
+    }
+
+    private static HttpServletRequest requestWithHeaders(String name, final String... values) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getHeader(name)).thenReturn(values.length == 0 ? null : values[0]);
+        when(request.getHeaders(name)).thenAnswer(new Answer<Enumeration<String>>() {
+            @Override
+            public Enumeration<String> answer(InvocationOnMock invocation) {
+                return enumeration(asList(values));
+            }
+        });
+        return request;
+    }
+}
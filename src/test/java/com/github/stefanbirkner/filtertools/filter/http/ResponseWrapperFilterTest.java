@@ -0,0 +1,188 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResponseWrapperFilterTest {
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final RecordingFilterChain filterChain = new RecordingFilterChain();
+    private final TestFilter filter = new TestFilter();
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void callsFilterChainWithWrappedResponse() throws Exception {
+        filter.doFilter(request, response, filterChain);
+        assertThat(filterChain.wrappedResponses.get(0), is(sameInstance((ServletResponse) response)));
+    }
+
+    @Test
+    public void createsNewWrapperForSubsequentRequest() throws Exception {
+        filter.doFilter(request, response, filterChain);
+        filter.doFilter(request, mock(HttpServletResponse.class), filterChain);
+        assertThat(filterChain.responses.get(1), is(not(sameInstance(filterChain.responses.get(0)))));
+        assertThat(filter.createdWrappers, is(2));
+    }
+
+    @Test
+    public void staleWrapperDoesNotReferenceResponseOfSubsequentRequest() throws Exception {
+        filter.doFilter(request, response, filterChain);
+        HttpServletResponse secondResponse = mock(HttpServletResponse.class);
+        filter.doFilter(request, secondResponse, filterChain);
+        TestResponse staleWrapper = (TestResponse) filterChain.responses.get(0);
+        assertThat(staleWrapper.getResponse(), is(sameInstance((ServletResponse) response)));
+    }
+
+    @Test
+    public void releasesWrapperAfterRequest() throws Exception {
+        filter.doFilter(request, response, filterChain);
+        assertThat(((TestResponse) filterChain.responses.get(0)).releases, is(1));
+    }
+
+    @Test
+    public void releasesWrapperIfFilterChainFails() throws Exception {
+        try {
+            filter.doFilter(request, response, new FailingFilterChain());
+        } catch (ServletException expected) {
+        }
+        assertThat(filter.releasedWrappers, is(1));
+    }
+
+    @Test
+    public void doesNotReleaseWrapperIfAsyncProcessingHasBeenStarted() throws Exception {
+        when(request.isAsyncStarted()).thenReturn(true);
+        filter.doFilter(request, response, filterChain);
+        assertThat(filter.releasedWrappers, is(0));
+    }
+
+    @Test
+    public void reusingFilterRetargetsWrapperToResponseOfSubsequentRequest() throws Exception {
+        TestFilter reusingFilter = new TestFilter(4);
+        reusingFilter.doFilter(request, response, filterChain);
+        HttpServletResponse secondResponse = mock(HttpServletResponse.class);
+        reusingFilter.doFilter(request, secondResponse, filterChain);
+        assertThat(filterChain.responses.get(1), is(sameInstance(filterChain.responses.get(0))));
+        assertThat(filterChain.wrappedResponses.get(1), is(sameInstance((ServletResponse) secondResponse)));
+        assertThat(reusingFilter.createdWrappers, is(1));
+    }
+
+    @Test
+    public void reusingFilterInvalidatesWrapperAfterRequest() throws Exception {
+        new TestFilter(4).doFilter(request, response, filterChain);
+        TestResponse staleWrapper = (TestResponse) filterChain.responses.get(0);
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("The response wrapper has been used after the request has been processed.");
+        staleWrapper.getStatus();
+    }
+
+    @Test
+    public void reusingFilterDoesNotReuseWrapperIfAsyncProcessingHasBeenStarted() throws Exception {
+        TestFilter reusingFilter = new TestFilter(4);
+        when(request.isAsyncStarted()).thenReturn(true);
+        reusingFilter.doFilter(request, response, filterChain);
+        when(request.isAsyncStarted()).thenReturn(false);
+        reusingFilter.doFilter(request, mock(HttpServletResponse.class), filterChain);
+        assertThat(filterChain.wrappedResponses.get(0), is(sameInstance((ServletResponse) response)));
+        assertThat(reusingFilter.createdWrappers, is(2));
+    }
+
+    @Test
+    public void cannotBeCreatedWithNonPositiveMaximumNumberOfPooledWrappers() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The maximum number of pooled wrappers must be positive, but it is 0.");
+        new TestFilter(0);
+    }
+
+    @Test
+    public void doesNotWrapResponseThatIsAlreadyWrapped() throws Exception {
+        TestResponse alreadyWrapped = new HttpServletResponseWrapperForTest(new TestResponse(response));
+        filter.doFilter(request, alreadyWrapped, filterChain);
+        assertThat(filterChain.responses.get(0), is(sameInstance((ServletResponse) alreadyWrapped)));
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutWrapperClass() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The wrapper class is missing.");
+        new ResponseWrapperFilter<TestResponse>(null) {
+            @Override
+            protected TestResponse createWrapper(HttpServletResponse response) {
+                return null;
+            }
+        };
+    }
+
+    private static class TestFilter extends ResponseWrapperFilter<TestResponse> {
+        int createdWrappers = 0;
+        int releasedWrappers = 0;
+
+        TestFilter() {
+            super(TestResponse.class);
+        }
+
+        TestFilter(int maximumPooledWrappers) {
+            super(TestResponse.class, maximumPooledWrappers);
+        }
+
+        @Override
+        protected TestResponse createWrapper(HttpServletResponse response) {
+            ++createdWrappers;
+            return new TestResponse(response);
+        }
+
+        @Override
+        protected void releaseWrapper(TestResponse wrapper) {
+            ++wrapper.releases;
+            ++releasedWrappers;
+        }
+    }
+
+    private static class TestResponse extends HttpServletResponseWrapper {
+        int releases = 0;
+
+        TestResponse(HttpServletResponse response) {
+            super(response);
+        }
+    }
+
+    private static class HttpServletResponseWrapperForTest extends TestResponse {
+        HttpServletResponseWrapperForTest(HttpServletResponse response) {
+            super(response);
+        }
+    }
+
+    private static class RecordingFilterChain implements FilterChain {
+        final List<ServletResponse> responses = new ArrayList<ServletResponse>();
+        final List<ServletResponse> wrappedResponses = new ArrayList<ServletResponse>();
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) {
+            responses.add(response);
+            if (response instanceof ServletResponseWrapper)
+                wrappedResponses.add(((ServletResponseWrapper) response).getResponse());
+        }
+    }
+
+    private static class FailingFilterChain implements FilterChain {
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws ServletException {
+            throw new ServletException();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.stefanbirkner.filtertools.filter.http;
+
+import com.github.stefanbirkner.filtertools.filter.EncasedFilters;
+import com.github.stefanbirkner.filtertools.filter.OptionalFilter;
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.stefanbirkner.filtertools.filter.http.RoutedFilters.bind;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.*;
+
+public class RoutedFiltersTest {
+    private static final String[] PATTERNS = {
+        "/*", "/api/*", "/api/orders", "/api/orders/*", "/apis", "/", "/login", "/a/b/c/*", "/api"
+    };
+    private static final String[] PATHS = {
+        "", "/", "/api", "/api/", "/api/orders", "/api/orders/", "/api/orders/42", "/api/order",
+        "/apis", "/apis/", "/apix", "/login", "/login/", "/logins", "/a", "/a/b", "/a/b/c",
+        "/a/b/c/d", "/a/b/cd", "/other/path", "/api/ordersx"
+    };
+    private static final HttpServletResponse DUMMY_RESPONSE = mock(HttpServletResponse.class);
+    private final FilterConfig config = mock(FilterConfig.class);
+    private final Filter firstFilter = mock(Filter.class);
+    private final Filter secondFilter = mock(Filter.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private final List<String> calledFilters = new ArrayList<String>();
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void callsSameFiltersAsOptionalFiltersWithPathPredicates() throws Exception {
+        RoutedFilters routedFilters = new RoutedFilters(bindingsForAllPatterns());
+        EncasedFilters optionalFilters = new EncasedFilters(optionalFiltersForAllPatterns());
+        for (String path : PATHS) {
+            HttpServletRequest request = requestWithPath("/context", path);
+            optionalFilters.doFilter(request, DUMMY_RESPONSE, filterChain);
+            List<String> expectedFilters = new ArrayList<String>(calledFilters);
+            calledFilters.clear();
+            routedFilters.doFilter(request, DUMMY_RESPONSE, filterChain);
+            assertThat("Filters for " + path, calledFilters, is(equalTo(expectedFilters)));
+            calledFilters.clear();
+        }
+    }
+
+    @Test
+    public void callsFilterChainIfNoPatternMatches() throws Exception {
+        HttpServletRequest request = requestWithPath("", "/other");
+        new RoutedFilters(bind("/api/*", firstFilter)).doFilter(request, DUMMY_RESPONSE, filterChain);
+        verifyZeroInteractions(firstFilter);
+        verify(filterChain).doFilter(request, DUMMY_RESPONSE);
+    }
+
+    @Test
+    public void callsFilterChainAfterLastFilter() throws Exception {
+        HttpServletRequest request = requestWithPath("", "/api/orders");
+        new RoutedFilters(bind("/api/*", new RecordingFilter("first")))
+            .doFilter(request, DUMMY_RESPONSE, filterChain);
+        verify(filterChain).doFilter(request, DUMMY_RESPONSE);
+    }
+
+    @Test
+    public void callsFilterForEncodedRequestUri() throws Exception {
+        HttpServletRequest request = request("/context/%61pi/x", "/context", "/api", "/x");
+        new RoutedFilters(bind("/api/*", new RecordingFilter("/api/*")))
+            .doFilter(request, DUMMY_RESPONSE, filterChain);
+        assertThat(calledFilters, is(equalTo(singletonList("/api/*"))));
+    }
+
+    @Test
+    public void callsFilterForRequestUriWithDotDotSegment() throws Exception {
+        HttpServletRequest request = request("/context/foo/../api/x", "/context", "/api", "/x");
+        new RoutedFilters(bind("/api/*", new RecordingFilter("/api/*")))
+            .doFilter(request, DUMMY_RESPONSE, filterChain);
+        assertThat(calledFilters, is(equalTo(singletonList("/api/*"))));
+    }
+
+    @Test
+    public void callsFilterForRequestUriWithPathParameter() throws Exception {
+        HttpServletRequest request = request("/context/api;jsessionid=1/x", "/context", "/api", "/x");
+        new RoutedFilters(bind("/api/*", new RecordingFilter("/api/*")))
+            .doFilter(request, DUMMY_RESPONSE, filterChain);
+        assertThat(calledFilters, is(equalTo(singletonList("/api/*"))));
+    }
+
+    @Test
+    public void matchesPathOfServletPathAndPathInfo() throws Exception {
+        HttpServletRequest request = request("/api/orders", "", "", "/api/orders");
+        new RoutedFilters(bind("/api/orders", new RecordingFilter("/api/orders")))
+            .doFilter(request, DUMMY_RESPONSE, filterChain);
+        assertThat(calledFilters, is(equalTo(singletonList("/api/orders"))));
+    }
+
+    @Test
+    public void initializesEveryFilter() throws Exception {
+        RoutedFilters routedFilters = new RoutedFilters(bind("/a", firstFilter), bind("/b", secondFilter));
+        routedFilters.init(config);
+        verify(firstFilter).init(config);
+        verify(secondFilter).init(config);
+    }
+
+    @Test
+    public void destroysEveryFilter() throws Exception {
+        RoutedFilters routedFilters = new RoutedFilters(bind("/a", firstFilter), bind("/b", secondFilter));
+        routedFilters.destroy();
+        verify(firstFilter).destroy();
+        verify(secondFilter).destroy();
+    }
+
+    @Test
+    public void destroySecondFilterEvenIfItFailsToDestroyFirstFilter() {
+        doThrow(new RuntimeException()).when(firstFilter).destroy();
+        RoutedFilters routedFilters = new RoutedFilters(bind("/a", firstFilter), bind("/b", secondFilter));
+        try {
+            routedFilters.destroy();
+        } catch (RuntimeException e) {
+            verify(secondFilter).destroy();
+        }
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutBinding() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("A binding is missing.");
+        new RoutedFilters(bind("/a", firstFilter), null);
+    }
+
+    @Test
+    public void cannotBindWithoutPattern() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The pattern is missing.");
+        bind(null, firstFilter);
+    }
+
+    @Test
+    public void cannotBindWithoutFilter() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The filter is missing.");
+        bind("/a", null);
+    }
+
+    @Test
+    public void cannotBindPatternThatDoesNotStartWithSlash() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The pattern '*.jsp' does not start with '/'.");
+        bind("*.jsp", firstFilter);
+    }
+
+    @Test
+    public void cannotBindPatternWithWildcardInTheMiddle() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The pattern '/a/*/b' has a wildcard that is not at the end.");
+        bind("/a/*/b", firstFilter);
+    }
+
+    private RoutedFilters.Binding[] bindingsForAllPatterns() {
+        RoutedFilters.Binding[] bindings = new RoutedFilters.Binding[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; ++i)
+            bindings[i] = bind(PATTERNS[i], new RecordingFilter(PATTERNS[i]));
+        return bindings;
+    }
+
+    private Filter[] optionalFiltersForAllPatterns() {
+        Filter[] filters = new Filter[PATTERNS.length];
+        for (int i = 0; i < PATTERNS.length; ++i)
+            filters[i] = new OptionalFilter(
+                new PathPredicate(PATTERNS[i]), new RecordingFilter(PATTERNS[i]));
+        return filters;
+    }
+
+    private HttpServletRequest requestWithPath(String contextPath, String path) {
+        int slash = path.indexOf('/', 1);
+        return (slash < 0)
+            ? request(contextPath + path, contextPath, path, null)
+            : request(contextPath + path, contextPath, path.substring(0, slash), path.substring(slash));
+    }
+
+    private HttpServletRequest request(String uri, String contextPath, String servletPath, String pathInfo) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn(uri);
+        when(request.getContextPath()).thenReturn(contextPath);
+        when(request.getServletPath()).thenReturn(servletPath);
+        when(request.getPathInfo()).thenReturn(pathInfo);
+        return request;
+    }
+
+    private static class PathPredicate implements Predicate<ServletRequest> {
+        private final String pattern;
+
+        PathPredicate(String pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public boolean test(ServletRequest request) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            String path = httpRequest.getServletPath()
+                + (httpRequest.getPathInfo() == null ? "" : httpRequest.getPathInfo());
+            if (pattern.endsWith("/*")) {
+                String prefix = pattern.substring(0, pattern.length() - 2);
+                return path.equals(prefix) || path.startsWith(prefix + "/");
+            } else
+                return path.equals(pattern);
+        }
+    }
+
+    private class RecordingFilter implements Filter {
+        private final String name;
+
+        RecordingFilter(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+            calledFilters.add(name);
+            filterChain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
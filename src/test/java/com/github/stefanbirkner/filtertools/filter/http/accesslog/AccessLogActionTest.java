@@ -0,0 +1,175 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.ObjectName;
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AccessLogActionTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<AccessLogAction> actions = new ArrayList<AccessLogAction>();
+
+    @After
+    public void destroyActions() {
+        for (AccessLogAction action : actions)
+            action.destroy();
+    }
+
+    @Test
+    public void writesEntryInCommonLogFormat() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "access.log");
+        AccessLogAction action = initializedAction(AccessLogAction.writeTo(file));
+        action.execute(request("GET", "/index.html", "a=1"), response(200));
+        action.destroy();
+        String entry = read(file);
+        assertThat(entry, startsWith("127.0.0.1 - frank ["));
+        assertThat(entry, endsWith("] \"GET /index.html?a=1 HTTP/1.1\" 200 -\n"));
+        assertThat(entry.matches(".*\\[\\d\\d/\\w{3}/\\d{4}:\\d\\d:\\d\\d:\\d\\d [+-]\\d{4}\\].*\n"), is(true));
+    }
+
+    @Test
+    public void writesAllEntriesBeforeItIsDestroyed() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "access.log");
+        AccessLogAction action = initializedAction(AccessLogAction.writeTo(file)
+            .whenFull(AccessLogAction.OverflowPolicy.BLOCK).withCapacity(4));
+        for (int i = 0; i < 100; ++i)
+            action.execute(request("GET", "/" + i, null), response(200));
+        action.destroy();
+        assertThat(read(file).split("\n").length, is(100));
+        assertThat(action.getWrittenEntryCount(), is(100L));
+        assertThat(action.getDroppedEntryCount(), is(0L));
+    }
+
+    @Test
+    public void dropsAndCountsEntriesIfItIsNotRunning() throws Exception {
+        AccessLogAction action = AccessLogAction.writeTo(new File(temporaryFolder.getRoot(), "access.log")).build();
+        action.execute(request("GET", "/", null), response(200));
+        assertThat(action.getDroppedEntryCount(), is(1L));
+    }
+
+    @Test
+    public void rotatesFileWhenItExceedsMaximumSize() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "access.log");
+        AccessLogAction action = initializedAction(AccessLogAction.writeTo(file).rotateAtSize(100));
+        for (int i = 0; i < 3; ++i) {
+            action.execute(request("GET", "/" + i, null), response(200));
+            waitUntilWritten(action, i + 1);
+        }
+        action.destroy();
+        assertThat(action.getRotationCount(), is(2L));
+        assertThat(temporaryFolder.getRoot().list().length, is(3));
+        assertThat(read(file), containsString("GET /2 "));
+    }
+
+    @Test
+    public void usesCustomFormat() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "access.log");
+        AccessLogAction customAction = initializedAction(new CustomFormat(file));
+        customAction.execute(request("GET", "/index.html", null), response(404));
+        customAction.destroy();
+        assertThat(read(file), is(equalTo("GET /index.html 404\n")));
+    }
+
+    @Test
+    public void registersStatisticsWhileInitialized() throws Exception {
+        AccessLogAction action = initializedAction(
+            AccessLogAction.writeTo(new File(temporaryFolder.getRoot(), "access.log")).named("test log"));
+        ObjectName objectName = new ObjectName("com.github.stefanbirkner.filtertools:type=AccessLog,name=\"test log\"");
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), is(true));
+        action.destroy();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), is(false));
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPositiveCapacity() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The capacity must be positive, but it is 0.");
+        AccessLogAction.writeTo(new File("access.log")).withCapacity(0);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutFile() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The file is missing.");
+        AccessLogAction.writeTo(null);
+    }
+
+    private AccessLogAction initializedAction(AccessLogAction.Builder builder) throws Exception {
+        return initializedAction(builder.build());
+    }
+
+    private AccessLogAction initializedAction(AccessLogAction action) throws Exception {
+        actions.add(action);
+        action.init(mock(FilterConfig.class));
+        return action;
+    }
+
+    private static void waitUntilWritten(AccessLogAction action, long count) throws InterruptedException {
+        for (int i = 0; i < 200 && action.getWrittenEntryCount() < count; ++i)
+            Thread.sleep(10);
+    }
+
+    private static HttpServletRequest request(String method, String uri, String queryString) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(request.getRemoteUser()).thenReturn("frank");
+        when(request.getMethod()).thenReturn(method);
+        when(request.getRequestURI()).thenReturn(uri);
+        when(request.getQueryString()).thenReturn(queryString);
+        when(request.getProtocol()).thenReturn("HTTP/1.1");
+        return request;
+    }
+
+    private static HttpServletResponse response(int status) {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getStatus()).thenReturn(status);
+        return response;
+    }
+
+    private static String read(File file) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int length = 0;
+            while (length < bytes.length)
+                length += inputStream.read(bytes, length, bytes.length - length);
+            return new String(bytes, "US-ASCII");
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static class CustomFormat extends AccessLogAction {
+        CustomFormat(File file) {
+            super(AccessLogAction.writeTo(file).named("custom"));
+        }
+
+        @Override
+        protected void format(HttpServletRequest request, HttpServletResponse response, LogEntry entry) {
+            entry.append(request.getMethod()).append(' ').append(request.getRequestURI())
+                .append(' ').append(response.getStatus());
+        }
+    }
+}
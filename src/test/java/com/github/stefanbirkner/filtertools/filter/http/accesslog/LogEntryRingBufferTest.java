@@ -0,0 +1,118 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LogEntryRingBufferTest {
+    @Test
+    public void roundsCapacityUpToPowerOfTwo() {
+        assertThat(new LogEntryRingBuffer(5, 16).capacity(), is(8));
+    }
+
+    @Test
+    public void drainsPublishedEntriesInOrder() throws Exception {
+        LogEntryRingBuffer ringBuffer = new LogEntryRingBuffer(4, 16);
+        add(ringBuffer, "first");
+        add(ringBuffer, "second");
+        assertThat(drain(ringBuffer), is(equalTo("first\nsecond\n")));
+        assertThat(ringBuffer.size(), is(0));
+    }
+
+    @Test
+    public void doesNotDrainClaimedEntryBeforeItIsPublished() throws Exception {
+        LogEntryRingBuffer ringBuffer = new LogEntryRingBuffer(4, 16);
+        long position = ringBuffer.claim();
+        ringBuffer.entry(position).append("first");
+        add(ringBuffer, "second");
+        assertThat(drain(ringBuffer), is(equalTo("")));
+        ringBuffer.publish(position);
+        assertThat(drain(ringBuffer), is(equalTo("first\nsecond\n")));
+    }
+
+    @Test
+    public void cannotClaimSlotIfBufferIsFull() {
+        LogEntryRingBuffer ringBuffer = new LogEntryRingBuffer(2, 16);
+        add(ringBuffer, "first");
+        add(ringBuffer, "second");
+        assertThat(ringBuffer.claim(), is(-1L));
+        assertThat(ringBuffer.size(), is(2));
+    }
+
+    @Test
+    public void slotsCanBeReusedAfterDraining() throws Exception {
+        LogEntryRingBuffer ringBuffer = new LogEntryRingBuffer(2, 16);
+        for (int round = 0; round < 5; ++round) {
+            add(ringBuffer, "a" + round);
+            add(ringBuffer, "b" + round);
+            assertThat(drain(ringBuffer), is(equalTo("a" + round + "\nb" + round + "\n")));
+        }
+    }
+
+    @Test
+    public void stopsDrainingIfNextEntryDoesNotFit() throws Exception {
+        LogEntryRingBuffer ringBuffer = new LogEntryRingBuffer(4, 16);
+        add(ringBuffer, "first");
+        add(ringBuffer, "second");
+        ByteBuffer target = ByteBuffer.allocate(8);
+        assertThat(ringBuffer.drainTo(target), is(1));
+        assertThat(drain(ringBuffer), is(equalTo("second\n")));
+    }
+
+    @Test
+    public void noEntryIsLostWithConcurrentProducers() throws Exception {
+        final LogEntryRingBuffer ringBuffer = new LogEntryRingBuffer(64, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Void>> producers = new ArrayList<Future<Void>>();
+        for (int producer = 0; producer < 4; ++producer) {
+            final int producerNumber = producer;
+            producers.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = 0; i < 1000; ++i) {
+                        long position;
+                        while ((position = ringBuffer.claim()) < 0)
+                            Thread.yield();
+                        ringBuffer.entry(position).append(producerNumber).append('-').append(i);
+                        ringBuffer.publish(position);
+                    }
+                    return null;
+                }
+            }));
+        }
+        Set<String> entries = new HashSet<String>();
+        while (entries.size() < 4000) {
+            for (String entry : drain(ringBuffer).split("\n"))
+                if (entry.length() > 0)
+                    entries.add(entry);
+        }
+        for (Future<Void> producer : producers)
+            producer.get();
+        executor.shutdown();
+        assertThat(entries, hasItems("0-0", "1-999", "3-500"));
+        assertThat(ringBuffer.size(), is(0));
+    }
+
+    private static void add(LogEntryRingBuffer ringBuffer, String text) {
+        long position = ringBuffer.claim();
+        ringBuffer.entry(position).append(text);
+        ringBuffer.publish(position);
+    }
+
+    private static String drain(LogEntryRingBuffer ringBuffer) throws Exception {
+        ByteBuffer target = ByteBuffer.allocate(1024);
+        ringBuffer.drainTo(target);
+        return new String(target.array(), 0, target.position(), "US-ASCII");
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.stefanbirkner.filtertools.filter.http.accesslog;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LogEntryTest {
+    private final LogEntry entry = new LogEntry(64);
+
+    @Test
+    public void appendsText() throws Exception {
+        entry.append("GET").append(' ').append("/index.html");
+        assertThat(text(), is(equalTo("GET /index.html\n")));
+    }
+
+    @Test
+    public void appendsDashForMissingText() throws Exception {
+        entry.append((String) null);
+        assertThat(text(), is(equalTo("-\n")));
+    }
+
+    @Test
+    public void appendsNumbers() throws Exception {
+        entry.append(0).append(' ').append(200).append(' ').append(-42).append(' ').append(Long.MIN_VALUE);
+        assertThat(text(), is(equalTo("0 200 -42 -9223372036854775808\n")));
+    }
+
+    @Test
+    public void replacesLineBreaksAndNonAsciiCharacters() throws Exception {
+        entry.append("a\nb\r\u00e4");
+        assertThat(text(), is(equalTo("a?b??\n")));
+    }
+
+    @Test
+    public void truncatesEntryThatIsTooLong() throws Exception {
+        LogEntry shortEntry = new LogEntry(4);
+        shortEntry.append("abcdef");
+        assertThat(new String(shortEntry.bytes(), 0, shortEntry.terminate(), "US-ASCII"), is(equalTo("abc\n")));
+    }
+
+    @Test
+    public void isEmptyAfterClear() throws Exception {
+        entry.append("text");
+        entry.clear();
+        assertThat(text(), is(equalTo("\n")));
+    }
+
+    private String text() throws Exception {
+        return new String(entry.bytes(), 0, entry.terminate(), "US-ASCII");
+    }
+}
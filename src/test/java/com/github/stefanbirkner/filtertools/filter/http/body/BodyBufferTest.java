@@ -0,0 +1,100 @@
+package com.github.stefanbirkner.filtertools.filter.http.body;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BodyBufferTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private BodyBuffer buffer;
+
+    @After
+    public void closeBuffer() {
+        if (buffer != null)
+            buffer.close();
+    }
+
+    @Test
+    public void keepsSmallBodyInMemory() throws Exception {
+        buffer = new BodyBuffer(16, temporaryFolder.getRoot());
+        append("0123456789");
+        assertThat(buffer.isSpilled(), is(false));
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+        assertThat(readAll(), is(equalTo("0123456789")));
+    }
+
+    @Test
+    public void spillsBodyToFileWhenItExceedsThreshold() throws Exception {
+        buffer = new BodyBuffer(16, temporaryFolder.getRoot());
+        append("0123456789");
+        append("abcdefghij");
+        assertThat(buffer.isSpilled(), is(true));
+        assertThat(temporaryFolder.getRoot().list().length, is(1));
+        assertThat(readAll(), is(equalTo("0123456789abcdefghij")));
+    }
+
+    @Test
+    public void readsBytesThatHaveBeenAppendedAfterReading() throws Exception {
+        buffer = new BodyBuffer(0, temporaryFolder.getRoot());
+        append("first");
+        assertThat(readAll(), is(equalTo("first")));
+        append("second");
+        assertThat(readAll(), is(equalTo("firstsecond")));
+    }
+
+    @Test
+    public void readsFromPosition() throws Exception {
+        buffer = new BodyBuffer(0, temporaryFolder.getRoot());
+        append("0123456789");
+        byte[] bytes = new byte[4];
+        assertThat(buffer.read(7, bytes, 0, 4), is(3));
+        assertThat(new String(bytes, 0, 3, "US-ASCII"), is(equalTo("789")));
+    }
+
+    @Test
+    public void returnsMinusOneAtTheEnd() throws Exception {
+        buffer = new BodyBuffer(16, temporaryFolder.getRoot());
+        append("0123");
+        assertThat(buffer.read(4, new byte[4], 0, 4), is(-1));
+    }
+
+    @Test
+    public void deletesFileWhenClosed() throws Exception {
+        buffer = new BodyBuffer(0, temporaryFolder.getRoot());
+        append("0123456789");
+        buffer.close();
+        buffer = null;
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void deletesFileThatHasBeenReadWhenClosed() throws Exception {
+        buffer = new BodyBuffer(0, temporaryFolder.getRoot());
+        append("0123456789");
+        readAll();
+        buffer.close();
+        buffer = null;
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    private void append(String text) throws IOException {
+        byte[] bytes = text.getBytes("US-ASCII");
+        buffer.append(bytes, 0, bytes.length);
+    }
+
+    private String readAll() throws IOException {
+        byte[] bytes = new byte[(int) buffer.length()];
+        int length = 0;
+        for (int count = 0; count != -1; count = buffer.read(length, bytes, length, 3))
+            length += count;
+        return new String(bytes, 0, length, "US-ASCII");
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.stefanbirkner.filtertools.filter.http.body;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class ReplayableRequestFilterTest {
+    private static final String BODY = "The quick brown fox jumps over the lazy dog.";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final RecordingFilterChain filterChain = new RecordingFilterChain();
+
+    @Test
+    public void bodyCanBeReadAgainAfterRewind() throws Exception {
+        givenBody(BODY);
+        filterChain.readTwice = true;
+        execute(new ReplayableRequestFilter());
+        assertThat(filterChain.bodies, contains(BODY, BODY));
+    }
+
+    @Test
+    public void getInputStreamReturnsSameStreamUntilRewind() throws Exception {
+        givenBody(BODY);
+        final ServletInputStream[] streams = new ServletInputStream[3];
+        execute(new ReplayableRequestFilter(), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                ReplayableRequest replayableRequest = ReplayableRequest.find(request);
+                streams[0] = request.getInputStream();
+                streams[1] = request.getInputStream();
+                replayableRequest.rewind();
+                streams[2] = request.getInputStream();
+            }
+        });
+        assertThat(streams[1], is(sameInstance(streams[0])));
+        assertThat(streams[2], is(not(sameInstance(streams[0]))));
+    }
+
+    @Test
+    public void readerUsesCharacterEncodingOfRequest() throws Exception {
+        givenBody("K\u00e4se");
+        when(request.getCharacterEncoding()).thenReturn("UTF-8");
+        final String[] text = new String[1];
+        execute(new ReplayableRequestFilter(), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                text[0] = request.getReader().readLine();
+            }
+        });
+        assertThat(text[0], is(equalTo("K\u00e4se")));
+    }
+
+    @Test
+    public void openBodyReadsWholeBodyIndependentlyOfInputStream() throws Exception {
+        givenBody(BODY);
+        final String[] bodies = new String[2];
+        execute(new ReplayableRequestFilter(), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                InputStream inputStream = request.getInputStream();
+                inputStream.read(new byte[4]);
+                bodies[0] = read(ReplayableRequest.find(request).openBody());
+                bodies[1] = read(inputStream);
+            }
+        });
+        assertThat(bodies[0], is(equalTo(BODY)));
+        assertThat(bodies[1], is(equalTo(BODY.substring(4))));
+    }
+
+    @Test
+    public void spillsLargeBodyToTemporaryDirectoryOfServletContext() throws Exception {
+        String largeBody = repeat(BODY, 1000);
+        givenBody(largeBody);
+        filterChain.readTwice = true;
+        execute(new ReplayableRequestFilter(1024));
+        assertThat(filterChain.bodies, contains(largeBody, largeBody));
+        assertThat(filterChain.spilled, is(true));
+        assertThat(filterChain.filesInTemporaryFolder, is(1));
+    }
+
+    @Test
+    public void deletesTemporaryFileAfterRequest() throws Exception {
+        givenBody(repeat(BODY, 1000));
+        execute(new ReplayableRequestFilter(1024));
+        assertThat(temporaryFolder.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void findsReplayableRequestBehindOtherWrappers() throws Exception {
+        givenBody(BODY);
+        final ReplayableRequest[] found = new ReplayableRequest[1];
+        execute(new ReplayableRequestFilter(), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                found[0] = ReplayableRequest.find(new HttpServletRequestWrapper((HttpServletRequest) request));
+            }
+        });
+        assertThat(found[0], is(notNullValue()));
+    }
+
+    @Test
+    public void doesNotWrapRequestTwice() throws Exception {
+        givenBody(BODY);
+        final ServletRequest[] requests = new ServletRequest[1];
+        final ReplayableRequestFilter filter = new ReplayableRequestFilter();
+        execute(filter, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                filter.doFilter(request, response, new FilterChain() {
+                    @Override
+                    public void doFilter(ServletRequest request, ServletResponse response) {
+                        requests[0] = request;
+                    }
+                });
+                assertThat(requests[0], is(sameInstance(request)));
+            }
+        });
+    }
+
+    @Test
+    public void cannotBeCreatedWithNegativeMemoryThreshold() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The memory threshold must not be negative, but it is -1.");
+        new ReplayableRequestFilter(-1);
+    }
+
+    private void givenBody(String body) throws IOException {
+        final ByteArrayInputStream content = new ByteArrayInputStream(body.getBytes("UTF-8"));
+        when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() {
+                return content.read();
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                return content.read(bytes, offset, Math.min(length, 100));
+            }
+        });
+    }
+
+    private void execute(ReplayableRequestFilter filter) throws Exception {
+        execute(filter, filterChain);
+    }
+
+    private void execute(ReplayableRequestFilter filter, FilterChain chain) throws Exception {
+        ServletContext servletContext = mock(ServletContext.class);
+        when(servletContext.getAttribute("javax.servlet.context.tempdir")).thenReturn(temporaryFolder.getRoot());
+        FilterConfig filterConfig = mock(FilterConfig.class);
+        when(filterConfig.getServletContext()).thenReturn(servletContext);
+        filter.init(filterConfig);
+        filter.doFilter(request, response, chain);
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[7];
+        for (int length = inputStream.read(chunk); length != -1; length = inputStream.read(chunk))
+            bytes.write(chunk, 0, length);
+        return bytes.toString("UTF-8");
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; ++i)
+            sb.append(text);
+        return sb.toString();
+    }
+
+    private class RecordingFilterChain implements FilterChain {
+        final List<String> bodies = new ArrayList<String>();
+        boolean readTwice = false;
+        boolean spilled = false;
+        int filesInTemporaryFolder = 0;
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            ReplayableRequest replayableRequest = ReplayableRequest.find(request);
+            bodies.add(read(request.getInputStream()));
+            if (readTwice) {
+                replayableRequest.rewind();
+                bodies.add(read(request.getInputStream()));
+            }
+            spilled = replayableRequest.isSpilled();
+            filesInTemporaryFolder = temporaryFolder.getRoot().list().length;
+        }
+    }
+}
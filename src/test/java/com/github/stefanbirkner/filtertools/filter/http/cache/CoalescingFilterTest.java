@@ -0,0 +1,397 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CoalescingFilterTest {
+    private final BlockingFilterChain filterChain = new BlockingFilterChain();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private CoalescingFilter filter = new CoalescingFilter(5000, 16, 1024);
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @After
+    public void shutDown() {
+        filterChain.release.countDown();
+        executor.shutdownNow();
+        filter.destroy();
+    }
+
+    @Test
+    public void followersReceiveResponseOfLeader() throws Exception {
+        filterChain.headerName = "X-Test";
+        filterChain.headerValue = "value";
+        Future<TestResponse> leader = startLeader("/page");
+        Future<TestResponse> follower = startFollower("/page");
+        filterChain.release.countDown();
+        assertThat(leader.get().body(), is(equalTo("content")));
+        TestResponse followerResponse = follower.get();
+        assertThat(followerResponse.body(), is(equalTo("content")));
+        verify(followerResponse.mock).setStatus(200);
+        verify(followerResponse.mock).addHeader("X-Test", "value");
+        assertThat(filterChain.calls.get(), is(1));
+    }
+
+    @Test
+    public void followerCallsFilterChainIfLeaderFails() throws Exception {
+        filterChain.failure = new IllegalStateException("dummy failure");
+        Future<TestResponse> leader = startLeader("/page");
+        Future<TestResponse> follower = startFollower("/page");
+        filterChain.release.countDown();
+        assertThat(follower.get().body(), is(equalTo("content")));
+        assertThat(filterChain.calls.get(), is(2));
+        try {
+            leader.get();
+            fail("The leader did not fail.");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(sameInstance((Throwable) filterChain.failure)));
+        }
+    }
+
+    @Test
+    public void followerCallsFilterChainAfterTimeout() throws Exception {
+        filter = new CoalescingFilter(50, 16, 1024);
+        startLeader("/page");
+        TestResponse follower = execute(request("GET", "/page"));
+        assertThat(follower.body(), is(equalTo("content")));
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void doesNotShareResponseThatSetsCookie() throws Exception {
+        filterChain.cookie = new Cookie("name", "value");
+        assertFollowerCallsFilterChain();
+    }
+
+    @Test
+    public void doesNotSharePrivateResponse() throws Exception {
+        filterChain.headerName = "Cache-Control";
+        filterChain.headerValue = "private";
+        assertFollowerCallsFilterChain();
+    }
+
+    @Test
+    public void doesNotShareServerError() throws Exception {
+        filterChain.status = 503;
+        assertFollowerCallsFilterChain();
+    }
+
+    @Test
+    public void doesNotShareNotModifiedResponse() throws Exception {
+        filterChain.status = 304;
+        assertFollowerCallsFilterChain();
+    }
+
+    @Test
+    public void doesNotSharePartialContent() throws Exception {
+        filterChain.status = 206;
+        assertFollowerCallsFilterChain();
+    }
+
+    @Test
+    public void doesNotShareResponseThatIsLargerThanMaximumBodySize() throws Exception {
+        filterChain.content = new String(new char[2048]).replace('\0', 'x');
+        assertFollowerCallsFilterChain();
+    }
+
+    @Test
+    public void doesNotCoalesceRequestsForDifferentUris() throws Exception {
+        startLeader("/page");
+        TestResponse response = execute(request("GET", "/other"));
+        assertThat(response.body(), is(equalTo("content")));
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void doesNotCoalesceRequestsForDifferentServers() throws Exception {
+        startLeader("/page");
+        HttpServletRequest request = request("GET", "/page");
+        when(request.getServerName()).thenReturn("other.example.org");
+        TestResponse response = execute(request);
+        assertThat(response.body(), is(equalTo("content")));
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void doesNotCoalesceRequestsWithAuthorization() throws Exception {
+        startLeader("/page");
+        HttpServletRequest request = request("GET", "/page");
+        when(request.getHeader("Authorization")).thenReturn("Basic dXNlcjpwYXNzd29yZA==");
+        execute(request);
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void doesNotCoalesceConditionalRequests() throws Exception {
+        startLeader("/page");
+        HttpServletRequest request = request("GET", "/page");
+        when(request.getHeader("If-None-Match")).thenReturn("\"abc\"");
+        execute(request);
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void doesNotCoalesceRangeRequests() throws Exception {
+        startLeader("/page");
+        HttpServletRequest request = request("GET", "/page");
+        when(request.getHeader("Range")).thenReturn("bytes=0-1");
+        execute(request);
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void followersReceiveResponseOfLeaderBehindCachingFilter() throws Exception {
+        final CachingFilter cachingFilter = new CachingFilter(
+            new ResponseCache("coalescing test cache", 1024 * 1024, ResponseCache.BodyStorage.HEAP), 60);
+        FilterChain coalescingChain = new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                throws IOException, ServletException {
+                filter.doFilter(request, response, filterChain);
+            }
+        };
+        Future<TestResponse> leader = start(request("GET", "/page"), cachingFilter, coalescingChain);
+        filterChain.entered.await();
+        Future<TestResponse> follower = start(request("GET", "/page"), cachingFilter, coalescingChain);
+        Thread.sleep(100);
+        filterChain.release.countDown();
+        assertThat(leader.get().body(), is(equalTo("content")));
+        assertThat(follower.get().body(), is(equalTo("content")));
+        assertThat(filterChain.calls.get(), is(1));
+    }
+
+    @Test
+    public void cachingFilterBehindCoalescingFilterCachesResponse() throws Exception {
+        final CachingFilter cachingFilter = new CachingFilter(
+            new ResponseCache("coalescing test cache", 1024 * 1024, ResponseCache.BodyStorage.HEAP), 60);
+        FilterChain cachingChain = new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                throws IOException, ServletException {
+                cachingFilter.doFilter(request, response, filterChain);
+            }
+        };
+        filterChain.release.countDown();
+        filter.doFilter(request("GET", "/page"), new TestResponse().mock, cachingChain);
+        TestResponse response = new TestResponse();
+        filter.doFilter(request("GET", "/page"), response.mock, cachingChain);
+        assertThat(response.body(), is(equalTo("content")));
+        assertThat(filterChain.calls.get(), is(1));
+    }
+
+    @Test
+    public void doesNotCoalescePostRequests() throws Exception {
+        startLeader("/page");
+        execute(request("POST", "/page"));
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void callsFilterChainWithOriginalResponseIfThereAreTooManyLeaders() throws Exception {
+        filter = new CoalescingFilter(5000, 1, 1024);
+        startLeader("/page");
+        TestResponse response = execute(request("GET", "/other"));
+        assertThat(filterChain.lastResponse, is(sameInstance((ServletResponse) response.mock)));
+    }
+
+    @Test
+    public void leaderIsForgottenAfterItsResponse() throws Exception {
+        filterChain.release.countDown();
+        execute(request("GET", "/page"));
+        execute(request("GET", "/page"));
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPositiveTimeout() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The timeout must be positive, but it is 0.");
+        new CoalescingFilter(0, 16, 1024);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPositiveMaximumNumberOfLeaders() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The maximum number of leaders must be positive, but it is 0.");
+        new CoalescingFilter(5000, 0, 1024);
+    }
+
+    @Test
+    public void cannotBeCreatedWithMissingKeyHeader() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("A key header is missing.");
+        new CoalescingFilter(5000, 16, 1024, "Accept", null);
+    }
+
+    private void assertFollowerCallsFilterChain() throws Exception {
+        Future<TestResponse> leader = startLeader("/page");
+        Future<TestResponse> follower = startFollower("/page");
+        filterChain.release.countDown();
+        leader.get();
+        follower.get();
+        assertThat(filterChain.calls.get(), is(2));
+    }
+
+    private Future<TestResponse> startLeader(String uri) throws Exception {
+        Future<TestResponse> leader = start(request("GET", uri));
+        filterChain.entered.await();
+        return leader;
+    }
+
+    /**
+     * Starts a request and gives it enough time to start waiting for the leader.
+     */
+    private Future<TestResponse> startFollower(String uri) throws Exception {
+        Future<TestResponse> follower = start(request("GET", uri));
+        Thread.sleep(100);
+        return follower;
+    }
+
+    private Future<TestResponse> start(final HttpServletRequest request) {
+        return executor.submit(new Callable<TestResponse>() {
+            @Override
+            public TestResponse call() throws Exception {
+                return execute(request);
+            }
+        });
+    }
+
+    private Future<TestResponse> start(final HttpServletRequest request, final Filter outerFilter,
+                                       final FilterChain chain) {
+        return executor.submit(new Callable<TestResponse>() {
+            @Override
+            public TestResponse call() throws Exception {
+                TestResponse response = new TestResponse();
+                outerFilter.doFilter(request, response.mock, chain);
+                return response;
+            }
+        });
+    }
+
+    private TestResponse execute(HttpServletRequest request) throws Exception {
+        TestResponse response = new TestResponse();
+        filter.doFilter(request, response.mock, filterChain);
+        return response;
+    }
+
+    private HttpServletRequest request(String method, String uri) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getRequestURI()).thenReturn(uri);
+        when(request.getHeaders(anyString())).thenReturn(Collections.enumeration(Collections.<String>emptyList()));
+        final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(request).setAttribute(anyString(), anyObject());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.remove(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(request).removeAttribute(anyString());
+        when(request.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+        return request;
+    }
+
+    private static class TestResponse {
+        final HttpServletResponse mock = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        TestResponse() throws IOException {
+            when(mock.getCharacterEncoding()).thenReturn("UTF-8");
+            when(mock.getContentType()).thenReturn("text/plain");
+            when(mock.getOutputStream()).thenReturn(new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+            });
+            when(mock.getWriter()).thenReturn(new PrintWriter(new OutputStreamWriter(body, "UTF-8"), true));
+        }
+
+        String body() throws IOException {
+            return body.toString("UTF-8");
+        }
+    }
+
+    /**
+     * The first call blocks until the chain is released. It fails afterwards if a failure is set.
+     */
+    private static class BlockingFilterChain implements FilterChain {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        volatile ServletResponse lastResponse;
+        int status = 200;
+        String content = "content";
+        String headerName;
+        String headerValue;
+        Cookie cookie;
+        RuntimeException failure;
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            boolean first = calls.incrementAndGet() == 1;
+            lastResponse = response;
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(status);
+            httpResponse.setContentType("text/plain");
+            if (headerName != null)
+                httpResponse.setHeader(headerName, headerValue);
+            if (cookie != null)
+                httpResponse.addCookie(cookie);
+            PrintWriter writer = httpResponse.getWriter();
+            writer.print(content);
+            writer.flush();
+            if (first) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure != null)
+                    throw failure;
+            }
+        }
+    }
+}
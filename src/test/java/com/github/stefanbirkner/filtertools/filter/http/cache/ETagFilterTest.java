@@ -0,0 +1,218 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import org.junit.Test;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ETagFilterTest {
+    private static final String ETAG_OF_CONTENT = "\"9a0364b9e99bb480dd25e1f0284c8555\"";
+    private final ResponseCacheTest.TestClock clock = new ResponseCacheTest.TestClock();
+    private final ETagFilter filter = new ETagFilter(1024, 10, clock);
+    private final WritingFilterChain filterChain = new WritingFilterChain();
+
+    @Test
+    public void addsHashOfBodyAsETag() throws Exception {
+        TestResponse response = execute(request(null));
+        verify(response.mock).setHeader("ETag", ETAG_OF_CONTENT);
+        assertThat(response.body(), is(equalTo("content")));
+        verify(response.mock).setContentLength(7);
+    }
+
+    @Test
+    public void answersWithNotModifiedIfETagMatches() throws Exception {
+        TestResponse response = execute(request(ETAG_OF_CONTENT));
+        verify(response.mock).setStatus(304);
+        assertThat(response.body(), is(equalTo("")));
+    }
+
+    @Test
+    public void answersWithNotModifiedIfOneOfManyETagsMatches() throws Exception {
+        TestResponse response = execute(request("\"other\", " + ETAG_OF_CONTENT));
+        verify(response.mock).setStatus(304);
+    }
+
+    @Test
+    public void writesBodyIfETagDoesNotMatch() throws Exception {
+        TestResponse response = execute(request("\"other\""));
+        verify(response.mock, never()).setStatus(304);
+        assertThat(response.body(), is(equalTo("content")));
+    }
+
+    @Test
+    public void usesETagOfFilterChain() throws Exception {
+        filterChain.eTag = "\"version-1\"";
+        TestResponse response = execute(request("\"version-1\""));
+        verify(response.mock).setHeader("ETag", "\"version-1\"");
+        verify(response.mock).setStatus(304);
+    }
+
+    @Test
+    public void doesNotAddETagToErrorResponse() throws Exception {
+        filterChain.status = 500;
+        TestResponse response = execute(request(null));
+        verify(response.mock, never()).setHeader(eq("ETag"), anyString());
+        assertThat(response.body(), is(equalTo("content")));
+    }
+
+    @Test
+    public void doesNotAddETagToLargeBody() throws Exception {
+        filterChain.content = new String(new char[2000]).replace('\0', 'x');
+        TestResponse response = execute(request(null));
+        verify(response.mock, never()).setHeader(eq("ETag"), anyString());
+        assertThat(response.body().length(), is(2000));
+    }
+
+    @Test
+    public void doesNotAddETagToFlushedBody() throws Exception {
+        filterChain.flush = true;
+        TestResponse response = execute(request(null));
+        verify(response.mock, never()).setHeader(eq("ETag"), anyString());
+        assertThat(response.body(), is(equalTo("content")));
+    }
+
+    @Test
+    public void answersRepeatedConditionalRequestWithoutCallingFilterChain() throws Exception {
+        execute(request(null));
+        TestResponse response = execute(request(ETAG_OF_CONTENT));
+        assertThat(filterChain.calls, is(1));
+        verify(response.mock).setStatus(304);
+        verify(response.mock).setHeader("ETag", ETAG_OF_CONTENT);
+    }
+
+    @Test
+    public void forgetsETagAfterSpecifiedTime() throws Exception {
+        execute(request(null));
+        clock.now = 10000;
+        execute(request(ETAG_OF_CONTENT));
+        assertThat(filterChain.calls, is(2));
+    }
+
+    @Test
+    public void doesNotRememberETagOfResponseWithVaryHeader() throws Exception {
+        filterChain.vary = true;
+        execute(request(null));
+        execute(request(ETAG_OF_CONTENT));
+        assertThat(filterChain.calls, is(2));
+    }
+
+    @Test
+    public void doesNotRememberETagsIfRememberTimeIsZero() throws Exception {
+        ETagFilter filter = new ETagFilter(1024, 0, clock);
+        filter.doFilter(request(null), new TestResponse().mock, filterChain);
+        filter.doFilter(request(ETAG_OF_CONTENT), new TestResponse().mock, filterChain);
+        assertThat(filterChain.calls, is(2));
+    }
+
+    @Test
+    public void ignoresPostRequests() throws Exception {
+        HttpServletRequest request = request(null);
+        when(request.getMethod()).thenReturn("POST");
+        TestResponse response = execute(request);
+        verify(response.mock, never()).setHeader(eq("ETag"), anyString());
+    }
+
+    @Test
+    public void addsETagIfFilterChainClosesWriter() throws Exception {
+        filterChain.close = true;
+        TestResponse response = execute(request(null));
+        verify(response.mock).setHeader("ETag", ETAG_OF_CONTENT);
+        assertThat(response.body(), is(equalTo("content")));
+        assertThat(response.closed, is(true));
+    }
+
+    @Test
+    public void answersWithNotModifiedIfFilterChainClosesWriter() throws Exception {
+        filterChain.close = true;
+        TestResponse response = execute(request(ETAG_OF_CONTENT));
+        verify(response.mock).setStatus(304);
+        assertThat(response.body(), is(equalTo("")));
+    }
+
+    @Test
+    public void weakETagMatchesStrongETag() {
+        assertThat(ETagFilter.matches("W/\"abc\"", "\"abc\""), is(true));
+    }
+
+    @Test
+    public void wildcardMatchesEveryETag() {
+        assertThat(ETagFilter.matches("*", "\"abc\""), is(true));
+    }
+
+    private TestResponse execute(HttpServletRequest request) throws Exception {
+        TestResponse response = new TestResponse();
+        filter.doFilter(request, response.mock, filterChain);
+        return response;
+    }
+
+    private HttpServletRequest request(String ifNoneMatch) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/page");
+        when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        return request;
+    }
+
+    private static class TestResponse {
+        final HttpServletResponse mock = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        boolean closed = false;
+
+        TestResponse() throws IOException {
+            when(mock.getCharacterEncoding()).thenReturn("UTF-8");
+            when(mock.getOutputStream()).thenReturn(new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void close() {
+                    closed = true;
+                }
+            });
+            when(mock.getWriter()).thenReturn(new PrintWriter(body));
+        }
+
+        String body() throws IOException {
+            return body.toString("UTF-8");
+        }
+    }
+
+    private static class WritingFilterChain implements FilterChain {
+        int calls = 0;
+        int status = 200;
+        String content = "content";
+        String eTag;
+        boolean vary = false;
+        boolean flush = false;
+        boolean close = false;
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            ++calls;
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(status);
+            if (eTag != null)
+                httpResponse.setHeader("ETag", eTag);
+            if (vary)
+                httpResponse.setHeader("Vary", "Accept-Language");
+            PrintWriter writer = httpResponse.getWriter();
+            writer.print(content);
+            if (flush)
+                writer.flush();
+            if (close)
+                writer.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FrequencySketchTest {
+    private final FrequencySketch sketch = new FrequencySketch(512);
+
+    @Test
+    public void frequencyOfUnknownKeyIsZero() {
+        assertThat(sketch.frequency("unknown"), is(0));
+    }
+
+    @Test
+    public void countsIncrements() {
+        for (int i = 0; i < 5; ++i)
+            sketch.increment("key");
+        assertThat(sketch.frequency("key"), is(5));
+    }
+
+    @Test
+    public void frequencyIsAtMostFifteen() {
+        for (int i = 0; i < 20; ++i)
+            sketch.increment("key");
+        assertThat(sketch.frequency("key"), is(15));
+    }
+
+    @Test
+    public void halvesFrequenciesAfterManyIncrements() {
+        for (int i = 0; i < 8; ++i)
+            sketch.increment("key");
+        for (int i = 0; i < 10 * 512; ++i)
+            sketch.increment(i);
+        assertThat(sketch.frequency("key"), is(lessThanOrEqualTo(4)));
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.stefanbirkner.filtertools.filter.http.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Collections;
+
+import static com.github.stefanbirkner.filtertools.filter.http.cache.ResponseCache.BodyStorage.HEAP;
+import static com.github.stefanbirkner.filtertools.filter.http.cache.ResponseCache.BodyStorage.OFF_HEAP;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.rules.ExpectedException.none;
+
+public class ResponseCacheTest {
+    private static final int RESPONSE_SIZE = 1000;
+    private final TestClock clock = new TestClock();
+    private final ResponseCache cache = new ResponseCache("test cache", 100 * RESPONSE_SIZE, HEAP, clock);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void returnsStoredResponse() {
+        CachedResponse response = response(HEAP, 1000);
+        cache.put("key", response);
+        assertThat(cache.get("key"), is(sameInstance(response)));
+    }
+
+    @Test
+    public void returnsNullForUnknownKey() {
+        assertThat(cache.get("key"), is(nullValue()));
+    }
+
+    @Test
+    public void doesNotReturnExpiredResponse() {
+        cache.put("key", response(HEAP, 1000));
+        clock.now = 1000;
+        assertThat(cache.get("key"), is(nullValue()));
+        assertThat(cache.getEntryCount(), is(0L));
+    }
+
+    @Test
+    public void replacesResponseForSameKey() {
+        cache.put("key", response(HEAP, 1000));
+        CachedResponse secondResponse = response(HEAP, 1000);
+        cache.put("key", secondResponse);
+        assertThat(cache.get("key"), is(sameInstance(secondResponse)));
+        assertThat(cache.getSize(), is((long) RESPONSE_SIZE));
+    }
+
+    @Test
+    public void doesNotExceedMaximumSize() {
+        for (int i = 0; i < 300; ++i)
+            cache.put("key " + i, response(HEAP, 1000));
+        assertThat(cache.getSize(), is(lessThanOrEqualTo(cache.getMaximumSize())));
+        assertThat(cache.getEvictionCount(), is(200L));
+    }
+
+    @Test
+    public void frequentlyRequestedResponseSurvivesScan() {
+        cache.get("popular");
+        cache.put("popular", response(HEAP, 1000));
+        for (int i = 0; i < 10; ++i)
+            cache.get("popular");
+        for (int i = 0; i < 500; ++i) {
+            cache.get("key " + i);
+            cache.put("key " + i, response(HEAP, 1000));
+        }
+        assertThat(cache.get("popular"), is(notNullValue()));
+    }
+
+    @Test
+    public void doesNotStoreResponseThatIsLargerThanAnEighthOfTheCache() {
+        cache.put("key", new CachedResponse(200, null, Collections.<String>emptyList(),
+            Collections.<String>emptyList(), new byte[20000], 20000, HEAP, 0, 1000));
+        assertThat(cache.get("key"), is(nullValue()));
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        cache.get("key");
+        cache.put("key", response(HEAP, 1000));
+        cache.get("key");
+        cache.get("key");
+        assertThat(cache.getHitCount(), is(2L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void invalidateAllRemovesAllResponses() {
+        cache.put("first key", response(HEAP, 1000));
+        cache.put("second key", response(HEAP, 1000));
+        cache.invalidateAll();
+        assertThat(cache.get("first key"), is(nullValue()));
+        assertThat(cache.getSize(), is(0L));
+    }
+
+    @Test
+    public void storesBodyOffHeap() {
+        assertThat(response(OFF_HEAP, 1000).isDirect(), is(true));
+    }
+
+    @Test
+    public void storesBodyOnHeap() {
+        assertThat(response(HEAP, 1000).isDirect(), is(false));
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutName() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The name is missing.");
+        new ResponseCache(null, 1000, HEAP);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutBodyStorage() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The body storage is missing.");
+        new ResponseCache("test cache", 1000, null);
+    }
+
+    private CachedResponse response(ResponseCache.BodyStorage bodyStorage, long expiresAt) {
+        int bodyLength = RESPONSE_SIZE - 128;
+        return new CachedResponse(200, "text/plain", Collections.<String>emptyList(),
+            Collections.<String>emptyList(), new byte[bodyLength], bodyLength, bodyStorage, clock.now, expiresAt);
+    }
+
+    static class TestClock implements ResponseCache.Clock {
+        long now = 0;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
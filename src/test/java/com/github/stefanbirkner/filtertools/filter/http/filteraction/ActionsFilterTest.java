@@ -1,5 +1,6 @@
 package com.github.stefanbirkner.filtertools.filter.http.filteraction;
 
+import com.github.stefanbirkner.filtertools.filter.ParallelLifecycle;
 import org.junit.Test;
 
 import javax.servlet.Filter;
@@ -76,4 +77,19 @@ public class ActionsFilterTest {
             verify(secondAction).destroy();
         }
     }
+
+    @Test
+    public void destroysInitializedActionsIfParallelInitializationOfAnActionFails() throws Exception {
+        ActionsFilter parallelFilter = new PreFilterChainActionsFilter(
+            new ParallelLifecycle(3, 1000), firstAction, secondAction, thirdAction);
+        doThrow(new RuntimeException()).when(thirdAction).init(DUMMY_FILTER_CONFIG);
+        try {
+            parallelFilter.init(DUMMY_FILTER_CONFIG);
+            fail("Expected exception has not been thrown.");
+        } catch (RuntimeException expected) {
+            verify(firstAction).destroy();
+            verify(secondAction).destroy();
+            verify(thirdAction, never()).destroy();
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package com.github.stefanbirkner.filtertools.filter.http.filteraction;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class AsyncAwarePostFilterChainActionsFilterTest {
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final AsyncContext asyncContext = mock(AsyncContext.class);
+    private final FilterAction firstAction = mock(FilterAction.class);
+    private final FilterAction secondAction = mock(FilterAction.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private final Filter filter = new AsyncAwarePostFilterChainActionsFilter(firstAction, secondAction);
+
+    /* You must copy the tests from ActionsFilterTest if AsyncAwarePostFilterChainActionsFilter doesn't extend
+     * ActionsFilter anymore .
+     */
+
+    @Test
+    public void executesActionsAfterInvokingFilterChainIfAsyncProcessingHasNotBeenStarted() throws Exception {
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        filter.doFilter(request, response, filterChain);
+        InOrder inOrder = inOrder(firstAction, secondAction, filterChain);
+        inOrder.verify(filterChain).doFilter(request, response);
+        inOrder.verify(firstAction).execute(request, response);
+        inOrder.verify(secondAction).execute(request, response);
+    }
+
+    @Test
+    public void doesNotExecuteActionsBeforeAsyncProcessingIsComplete() throws Exception {
+        startAsyncProcessing();
+        filter.doFilter(request, response, filterChain);
+        verifyZeroInteractions(firstAction, secondAction);
+    }
+
+    @Test
+    public void executesActionsWhenAsyncProcessingIsComplete() throws Exception {
+        startAsyncProcessing();
+        filter.doFilter(request, response, filterChain);
+        addedListener().onComplete(new AsyncEvent(asyncContext, request, response));
+        InOrder inOrder = inOrder(firstAction, secondAction);
+        inOrder.verify(firstAction).execute(request, response);
+        inOrder.verify(secondAction).execute(request, response);
+    }
+
+    @Test
+    public void doesNotExecuteActionsTwiceIfAsyncProcessingTimesOut() throws Exception {
+        startAsyncProcessing();
+        filter.doFilter(request, response, filterChain);
+        AsyncListener listener = addedListener();
+        listener.onTimeout(new AsyncEvent(asyncContext, request, response));
+        listener.onComplete(new AsyncEvent(asyncContext, request, response));
+        verify(firstAction, times(1)).execute(request, response);
+    }
+
+    @Test
+    public void addsListenerAgainIfAsyncProcessingIsStartedAgain() throws Exception {
+        startAsyncProcessing();
+        filter.doFilter(request, response, filterChain);
+        AsyncListener listener = addedListener();
+        AsyncContext newAsyncContext = mock(AsyncContext.class);
+        listener.onStartAsync(new AsyncEvent(newAsyncContext, request, response));
+        verify(newAsyncContext).addListener(listener, request, response);
+    }
+
+    @Test
+    public void doesNotExecuteActionsForAsyncDispatch() throws Exception {
+        when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+        filter.doFilter(request, response, filterChain);
+        verify(filterChain).doFilter(request, response);
+        verifyZeroInteractions(firstAction, secondAction);
+    }
+
+    private void startAsyncProcessing() {
+        when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(asyncContext);
+    }
+
+    private AsyncListener addedListener() {
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture(), any(ServletRequest.class), any(ServletResponse.class));
+        return listener.getValue();
+    }
+}
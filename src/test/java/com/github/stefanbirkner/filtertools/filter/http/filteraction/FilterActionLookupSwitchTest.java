@@ -0,0 +1,117 @@
+package com.github.stefanbirkner.filtertools.filter.http.filteraction;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static com.github.stefanbirkner.filtertools.filter.http.RequestKeys.method;
+import static com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterActionLookupSwitch.selectBy;
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.*;
+
+public class FilterActionLookupSwitchTest {
+    private static final FilterConfig DUMMY_FILTER_CONFIG = mock(FilterConfig.class);
+    private static final HttpServletResponse DUMMY_RESPONSE = mock(HttpServletResponse.class);
+    private final FilterAction getAction = mock(FilterAction.class);
+    private final FilterAction postAction = mock(FilterAction.class);
+    private final FilterAction defaultAction = mock(FilterAction.class);
+    private final FilterAction theSwitch = selectBy(method())
+        .when("GET", getAction)
+        .when("HEAD", getAction)
+        .when("POST", postAction)
+        .otherwiseExecute(defaultAction);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void executesActionForKeyOfRequest() throws Exception {
+        HttpServletRequest request = requestWithMethod("POST");
+        theSwitch.execute(request, DUMMY_RESPONSE);
+        verify(postAction).execute(request, DUMMY_RESPONSE);
+        verifyZeroInteractions(getAction, defaultAction);
+    }
+
+    @Test
+    public void executesDefaultActionIfThereIsNoActionForKey() throws Exception {
+        HttpServletRequest request = requestWithMethod("DELETE");
+        theSwitch.execute(request, DUMMY_RESPONSE);
+        verify(defaultAction).execute(request, DUMMY_RESPONSE);
+        verifyZeroInteractions(getAction, postAction);
+    }
+
+    @Test
+    public void executesDefaultActionIfRequestHasNoKey() throws Exception {
+        HttpServletRequest request = requestWithMethod(null);
+        theSwitch.execute(request, DUMMY_RESPONSE);
+        verify(defaultAction).execute(request, DUMMY_RESPONSE);
+    }
+
+    @Test
+    public void initializesEveryActionOnce() throws Exception {
+        theSwitch.init(DUMMY_FILTER_CONFIG);
+        verify(getAction, times(1)).init(DUMMY_FILTER_CONFIG);
+        verify(postAction).init(DUMMY_FILTER_CONFIG);
+        verify(defaultAction).init(DUMMY_FILTER_CONFIG);
+    }
+
+    @Test
+    public void destroysEveryActionOnce() throws Exception {
+        theSwitch.destroy();
+        verify(getAction, times(1)).destroy();
+        verify(postAction).destroy();
+        verify(defaultAction).destroy();
+    }
+
+    @Test
+    public void destroysEveryActionEvenIfItFailsToDestroyAnotherAction() {
+        doThrow(new RuntimeException()).when(getAction).destroy();
+        try {
+            theSwitch.destroy();
+        } catch (RuntimeException e) {
+            verify(postAction).destroy();
+            verify(defaultAction).destroy();
+        }
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutKeyExtractor() {
+        thrown.expect(NullPointerException.class);
+        selectBy(null);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutKey() {
+        thrown.expect(NullPointerException.class);
+        selectBy(method()).when(null, getAction);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutAction() {
+        thrown.expect(NullPointerException.class);
+        selectBy(method()).when("GET", null);
+    }
+
+    @Test
+    public void cannotBeCreatedWithTwoActionsForTheSameKey() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("There is already an action for the key GET.");
+        selectBy(method()).when("GET", getAction).when("GET", postAction);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutDefaultAction() {
+        thrown.expect(NullPointerException.class);
+        selectBy(method()).when("GET", getAction).otherwiseExecute(null);
+    }
+
+    private HttpServletRequest requestWithMethod(String method) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        return request;
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.stefanbirkner.filtertools.filter.http.filteraction;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class ParallelFilterActionsTest {
+    private static final FilterConfig DUMMY_FILTER_CONFIG = mock(FilterConfig.class);
+    private static final HttpServletRequest DUMMY_REQUEST = mock(HttpServletRequest.class);
+    private static final HttpServletResponse DUMMY_RESPONSE = mock(HttpServletResponse.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final FilterAction firstAction = mock(FilterAction.class);
+    private final FilterAction secondAction = mock(FilterAction.class);
+    private final FilterAction thirdAction = mock(FilterAction.class);
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void executesAllActions() throws Exception {
+        FilterAction action = new ParallelFilterActions(executor, firstAction, secondAction, thirdAction);
+        action.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        verify(firstAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        verify(secondAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        verify(thirdAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+    }
+
+    @Test
+    public void executesActionsInParallel() throws Exception {
+        CountDownLatch latch = new CountDownLatch(3);
+        FilterAction action = new ParallelFilterActions(executor,
+            new WaitingAction(latch), new WaitingAction(latch), new WaitingAction(latch));
+        action.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        assertThat(latch.getCount(), is(0L));
+    }
+
+    @Test
+    public void executesActionsWithOwnExecutor() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        FilterAction action = new ParallelFilterActions(new WaitingAction(latch), new WaitingAction(latch));
+        action.init(DUMMY_FILTER_CONFIG);
+        try {
+            action.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+            assertThat(latch.getCount(), is(0L));
+        } finally {
+            action.destroy();
+        }
+    }
+
+    @Test
+    public void waitsForAllActionsBeforeRethrowingTheFirstFailure() throws Exception {
+        IOException firstFailure = new IOException();
+        doThrow(firstFailure).when(firstAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        doThrow(new ServletException()).when(thirdAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        FilterAction action = new ParallelFilterActions(executor, firstAction, secondAction, thirdAction);
+        try {
+            action.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+            fail("Expected exception has not been thrown.");
+        } catch (IOException e) {
+            assertThat(e, is(sameInstance(firstFailure)));
+            verify(secondAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+            verify(thirdAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        }
+    }
+
+    @Test
+    public void rethrowsFailureOfActionThatIsExecutedByTheExecutor() throws Exception {
+        RuntimeException failure = new RuntimeException();
+        doThrow(failure).when(secondAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        FilterAction action = new ParallelFilterActions(executor, firstAction, secondAction);
+        try {
+            action.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+            fail("Expected exception has not been thrown.");
+        } catch (RuntimeException e) {
+            assertThat(e, is(sameInstance(failure)));
+        }
+    }
+
+    @Test
+    public void executesActionsThatAreRejectedByTheExecutor() throws Exception {
+        executor.shutdown();
+        FilterAction action = new ParallelFilterActions(executor, firstAction, secondAction);
+        action.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        verify(secondAction).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+    }
+
+    @Test
+    public void initializesAllActions() throws Exception {
+        new ParallelFilterActions(executor, firstAction, secondAction).init(DUMMY_FILTER_CONFIG);
+        verify(firstAction).init(DUMMY_FILTER_CONFIG);
+        verify(secondAction).init(DUMMY_FILTER_CONFIG);
+    }
+
+    @Test
+    public void destroysInitializedActionsIfInitializationOfAnActionFails() throws Exception {
+        doThrow(new ServletException()).when(thirdAction).init(DUMMY_FILTER_CONFIG);
+        try {
+            new ParallelFilterActions(executor, firstAction, secondAction, thirdAction).init(DUMMY_FILTER_CONFIG);
+            fail("Expected exception has not been thrown.");
+        } catch (ServletException expected) {
+            verify(firstAction).destroy();
+            verify(secondAction).destroy();
+            verify(thirdAction, never()).destroy();
+        }
+    }
+
+    @Test
+    public void destroysAllActionsAlthoughDestroyingTheFirstActionThrewAnException() {
+        doThrow(new RuntimeException()).when(firstAction).destroy();
+        try {
+            new ParallelFilterActions(executor, firstAction, secondAction).destroy();
+            fail("Expected exception has not been thrown.");
+        } catch (RuntimeException expected) {
+            verify(secondAction).destroy();
+        }
+    }
+
+    @Test
+    public void doesNotShutDownProvidedExecutor() {
+        new ParallelFilterActions(executor, firstAction).destroy();
+        assertThat(executor.isShutdown(), is(false));
+    }
+
+    private static class WaitingAction implements FilterAction {
+        private final CountDownLatch latch;
+
+        WaitingAction(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void execute(HttpServletRequest request, HttpServletResponse response) throws ServletException {
+            latch.countDown();
+            try {
+                if (!latch.await(5, TimeUnit.SECONDS))
+                    throw new ServletException("The actions have not been executed in parallel.");
+            } catch (InterruptedException e) {
+                throw new ServletException(e);
+            }
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
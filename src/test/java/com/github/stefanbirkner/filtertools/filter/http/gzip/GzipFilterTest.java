@@ -0,0 +1,388 @@
+package com.github.stefanbirkner.filtertools.filter.http.gzip;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class GzipFilterTest {
+    private static final String LARGE_CONTENT = repeat("The quick brown fox jumps over the lazy dog. ", 100);
+    private final GzipFilter filter = new GzipFilter();
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final TestResponse response = new TestResponse();
+    private final WritingFilterChain filterChain = new WritingFilterChain();
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Before
+    public void useGetRequest() {
+        when(request.getMethod()).thenReturn("GET");
+    }
+
+    @Test
+    public void compressesLargeResponse() throws Exception {
+        acceptEncoding("gzip, deflate");
+        execute();
+        verify(response.mock).setHeader("Content-Encoding", "gzip");
+        assertThat(response.uncompressedBody(), is(equalTo(LARGE_CONTENT)));
+        assertThat(response.body.size(), is(lessThan(LARGE_CONTENT.length())));
+    }
+
+    @Test
+    public void compressesResponseThatIsWrittenToOutputStream() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.useOutputStream = true;
+        execute();
+        assertThat(response.uncompressedBody(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void addsVaryHeaderToCompressedResponse() throws Exception {
+        acceptEncoding("gzip");
+        execute();
+        verify(response.mock).addHeader("Vary", "Accept-Encoding");
+    }
+
+    @Test
+    public void compressesSubsequentResponsesWithReusedDeflater() throws Exception {
+        acceptEncoding("gzip");
+        execute();
+        TestResponse secondResponse = new TestResponse();
+        filter.doFilter(request, secondResponse.mock, filterChain);
+        assertThat(secondResponse.uncompressedBody(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void passesSmallResponseThroughAfterCompressedResponseWithReusedBuffers() throws Exception {
+        acceptEncoding("gzip");
+        execute();
+        filterChain.content = "small";
+        TestResponse secondResponse = new TestResponse();
+        filter.doFilter(request, secondResponse.mock, filterChain);
+        assertThat(secondResponse.body(), is(equalTo("small")));
+    }
+
+    @Test
+    public void compressesResponseAfterSmallResponseWithReusedBuffers() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.content = "small";
+        execute();
+        filterChain.content = LARGE_CONTENT;
+        TestResponse secondResponse = new TestResponse();
+        filter.doFilter(request, secondResponse.mock, filterChain);
+        assertThat(secondResponse.uncompressedBody(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void staleOutputStreamCannotBeUsedAfterFilterChainFailed() throws Exception {
+        acceptEncoding("gzip");
+        final ServletOutputStream[] staleOutputStream = new ServletOutputStream[1];
+        try {
+            filter.doFilter(request, response.mock, new FilterChain() {
+                @Override
+                public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+                    staleOutputStream[0] = response.getOutputStream();
+                    staleOutputStream[0].write(LARGE_CONTENT.getBytes("UTF-8"));
+                    throw new ServletException();
+                }
+            });
+        } catch (ServletException expected) {
+        }
+        thrown.expect(IOException.class);
+        staleOutputStream[0].write(LARGE_CONTENT.getBytes("UTF-8"));
+    }
+
+    @Test
+    public void withholdsContentLengthOfCompressedResponse() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.contentLength = LARGE_CONTENT.length();
+        execute();
+        verify(response.mock, never()).setContentLength(anyInt());
+        verify(response.mock, never()).setHeader(eq("Content-Length"), anyString());
+    }
+
+    @Test
+    public void doesNotCompressSmallResponse() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.content = "small";
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+        verify(response.mock).setContentLength(5);
+        assertThat(response.body(), is(equalTo("small")));
+    }
+
+    @Test
+    public void doesNotCompressResponseWithSmallContentLength() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.content = "small";
+        filterChain.contentLength = 5;
+        filterChain.flush = true;
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+        verify(response.mock).setHeader("Content-Length", "5");
+        assertThat(response.body(), is(equalTo("small")));
+    }
+
+    @Test
+    public void doesNotCompressIfClientDoesNotAcceptGzip() throws Exception {
+        acceptEncoding("deflate");
+        execute();
+        assertThat(response.body(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void doesNotCompressIfGzipHasQualityZero() throws Exception {
+        acceptEncoding("deflate, gzip;q=0");
+        execute();
+        assertThat(response.body(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void doesNotCompressImages() throws Exception {
+        acceptEncoding("gzip");
+        when(response.mock.getContentType()).thenReturn("image/png");
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+        assertThat(response.body(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void doesNotCompressResponseThatIsAlreadyEncoded() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.contentEncoding = "br";
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+        assertThat(response.body(), is(equalTo(LARGE_CONTENT)));
+    }
+
+    @Test
+    public void doesNotCompressResponseToHeadRequest() throws Exception {
+        acceptEncoding("gzip");
+        when(request.getMethod()).thenReturn("HEAD");
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+    }
+
+    @Test
+    public void doesNotCompressNoContentResponse() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.status = 204;
+        filterChain.content = "";
+        filterChain.flush = true;
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+        assertThat(response.body.size(), is(0));
+    }
+
+    @Test
+    public void doesNotCompressNotModifiedResponse() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.status = 304;
+        execute();
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+    }
+
+    @Test
+    public void doesNotCompressEmptyBodyIfMinimumSizeIsZero() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.content = "";
+        filterChain.flush = true;
+        new GzipFilter(0).doFilter(request, response.mock, filterChain);
+        verify(response.mock, never()).setHeader("Content-Encoding", "gzip");
+        assertThat(response.body.size(), is(0));
+    }
+
+    @Test
+    public void weakensStrongETagOfCompressedResponse() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.eTag = "\"abc\"";
+        execute();
+        verify(response.mock).setHeader("ETag", "W/\"abc\"");
+    }
+
+    @Test
+    public void keepsETagOfUncompressedResponse() throws Exception {
+        acceptEncoding("gzip");
+        filterChain.content = "small";
+        filterChain.eTag = "\"abc\"";
+        execute();
+        verify(response.mock, never()).setHeader("ETag", "W/\"abc\"");
+    }
+
+    @Test
+    public void flushWritesCompressedBytesImmediately() throws Exception {
+        acceptEncoding("gzip");
+        filter.doFilter(request, response.mock, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse wrappedResponse) throws IOException {
+                PrintWriter writer = wrappedResponse.getWriter();
+                writer.print("first chunk");
+                writer.flush();
+                assertThat(inflateWithoutHeader(response.body.toByteArray()), is(equalTo("first chunk")));
+            }
+        });
+    }
+
+    @Test
+    public void acceptsGzipWithWildcard() {
+        assertThat(GzipFilter.acceptsGzip("*"), is(true));
+    }
+
+    @Test
+    public void explicitRefusalOfGzipOverridesWildcard() {
+        assertThat(GzipFilter.acceptsGzip("gzip;q=0, *"), is(false));
+        assertThat(GzipFilter.acceptsGzip("*, x-gzip;q=0"), is(false));
+        assertThat(GzipFilter.acceptsGzip("gzip;q=0, x-gzip, *"), is(true));
+        assertThat(GzipFilter.acceptsGzip("deflate;q=0, *"), is(true));
+        assertThat(GzipFilter.acceptsGzip("*;q=0"), is(false));
+    }
+
+    @Test
+    public void acceptsXGzip() {
+        assertThat(GzipFilter.acceptsGzip("x-gzip"), is(true));
+    }
+
+    @Test
+    public void compressesSvgImages() {
+        assertThat(filter.isCompressible("image/svg+xml"), is(true));
+    }
+
+    @Test
+    public void compressesTextWithCharset() {
+        assertThat(filter.isCompressible("text/html; charset=UTF-8"), is(true));
+    }
+
+    @Test
+    public void doesNotCompressArchives() {
+        assertThat(filter.isCompressible("application/zip"), is(false));
+    }
+
+    private void acceptEncoding(String value) {
+        when(request.getHeader("Accept-Encoding")).thenReturn(value);
+    }
+
+    private void execute() throws Exception {
+        filter.doFilter(request, response.mock, filterChain);
+    }
+
+    private static String inflateWithoutHeader(byte[] bytes) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, 10, bytes.length - 10);
+            byte[] result = new byte[1024];
+            int length = inflater.inflate(result);
+            return new String(result, 0, length, "UTF-8");
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; ++i)
+            sb.append(text);
+        return sb.toString();
+    }
+
+    private static class TestResponse {
+        final HttpServletResponse mock = mock(HttpServletResponse.class);
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        TestResponse() {
+            try {
+                when(mock.getCharacterEncoding()).thenReturn("UTF-8");
+                when(mock.getContentType()).thenReturn("text/html");
+                when(mock.getOutputStream()).thenReturn(new ServletOutputStream() {
+                    @Override
+                    public void write(int b) {
+                        body.write(b);
+                    }
+                });
+                when(mock.getWriter()).thenReturn(new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] chars, int offset, int length) throws IOException {
+                        body.write(new String(chars, offset, length).getBytes("UTF-8"));
+                    }
+
+                    @Override
+                    public void flush() {
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                }));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        String body() throws IOException {
+            return body.toString("UTF-8");
+        }
+
+        String uncompressedBody() throws IOException {
+            InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()));
+            ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            for (int length = inputStream.read(buffer); length >= 0; length = inputStream.read(buffer))
+                uncompressed.write(buffer, 0, length);
+            return uncompressed.toString("UTF-8");
+        }
+    }
+
+    private static class WritingFilterChain implements FilterChain {
+        String content = LARGE_CONTENT;
+        int contentLength = -1;
+        String contentEncoding;
+        String eTag;
+        int status = 200;
+        boolean useOutputStream = false;
+        boolean flush = false;
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(status);
+            if (eTag != null)
+                httpResponse.setHeader("ETag", eTag);
+            if (contentLength >= 0)
+                httpResponse.setContentLength(contentLength);
+            if (contentEncoding != null)
+                httpResponse.setHeader("Content-Encoding", contentEncoding);
+            if (useOutputStream) {
+                byte[] bytes = content.getBytes("UTF-8");
+                ServletOutputStream outputStream = response.getOutputStream();
+                outputStream.write(Arrays.copyOfRange(bytes, 0, 10));
+                outputStream.write(Arrays.copyOfRange(bytes, 10, bytes.length));
+            } else
+                response.getWriter().print(content);
+            if (flush)
+                response.flushBuffer();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class ConcurrencyLimitFilterTest {
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter("test limiter", 1, 1, 1);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter, new IsHealthCheck());
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    @After
+    public void destroyFilter() {
+        filter.destroy();
+    }
+
+    @Test
+    public void callsFilterChainBelowLimit() throws Exception {
+        FilterChain filterChain = mock(FilterChain.class);
+        filter.doFilter(request, response, filterChain);
+        verify(filterChain).doFilter(request, response);
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void rejectsRequestAboveLimitWithServiceUnavailable() throws Exception {
+        final HttpServletResponse secondResponse = mock(HttpServletResponse.class);
+        final FilterChain secondFilterChain = mock(FilterChain.class);
+        filter.doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                throws IOException, ServletException {
+                filter.doFilter(request, secondResponse, secondFilterChain);
+            }
+        });
+        verify(secondResponse).setStatus(503);
+        verifyZeroInteractions(secondFilterChain);
+    }
+
+    @Test
+    public void doesNotLimitExemptedRequests() throws Exception {
+        final HttpServletRequest healthCheck = mock(HttpServletRequest.class);
+        when(healthCheck.getRequestURI()).thenReturn("/health");
+        final FilterChain healthCheckFilterChain = mock(FilterChain.class);
+        filter.doFilter(request, response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                throws IOException, ServletException {
+                filter.doFilter(healthCheck, response, healthCheckFilterChain);
+            }
+        });
+        verify(healthCheckFilterChain).doFilter(healthCheck, response);
+    }
+
+    @Test
+    public void releasesSlotIfFilterChainFails() throws Exception {
+        FilterChain filterChain = mock(FilterChain.class);
+        doThrow(new ServletException()).when(filterChain).doFilter(request, response);
+        try {
+            filter.doFilter(request, response, filterChain);
+        } catch (ServletException expected) {
+        }
+        assertThat(limiter.getInFlight(), is(0));
+    }
+
+    @Test
+    public void registersStatisticsWhenInitialized() throws Exception {
+        filter.init(mock(FilterConfig.class));
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(limiter.getObjectName()), is(true));
+    }
+
+    private static class IsHealthCheck implements Predicate<HttpServletRequest> {
+        @Override
+        public boolean test(HttpServletRequest request) {
+            return "/health".equals(request.getRequestURI());
+        }
+    }
+}
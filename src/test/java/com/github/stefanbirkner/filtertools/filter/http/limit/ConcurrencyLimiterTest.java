@@ -0,0 +1,81 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.rules.ExpectedException.none;
+
+public class ConcurrencyLimiterTest {
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter("test limiter", 10, 2, 100);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void acceptsRequestsUpToLimit() {
+        for (int i = 0; i < 10; ++i)
+            assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(false));
+        assertThat(limiter.getInFlight(), is(10));
+        assertThat(limiter.getAcceptedCount(), is(10L));
+        assertThat(limiter.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void releaseFreesSlot() {
+        for (int i = 0; i < 10; ++i)
+            limiter.tryAcquire();
+        limiter.release(System.nanoTime());
+        assertThat(limiter.getInFlight(), is(9));
+        assertThat(limiter.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void increasesLimitIfLatencyIsStable() {
+        for (int i = 0; i < 10; ++i)
+            limiter.update(1000000, 10);
+        assertThat(limiter.getLimit(), is(greaterThan(10)));
+    }
+
+    @Test
+    public void decreasesLimitIfLatencyIncreases() {
+        for (int i = 0; i < 10; ++i)
+            limiter.update(1000000, 10);
+        int limitBeforeOverload = limiter.getLimit();
+        for (int i = 0; i < 5; ++i)
+            limiter.update(10000000, 100);
+        assertThat(limiter.getLimit(), is(lessThan(limitBeforeOverload)));
+    }
+
+    @Test
+    public void doesNotIncreaseLimitIfItIsNotUsed() {
+        for (int i = 0; i < 10; ++i)
+            limiter.update(1000000, 1);
+        assertThat(limiter.getLimit(), is(10));
+    }
+
+    @Test
+    public void limitIsNotBelowMinimum() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test limiter", 10, 8, 100);
+        limiter.update(1000000, 10);
+        for (int i = 0; i < 30; ++i)
+            limiter.update(1000000000, 100);
+        assertThat(limiter.getLimit(), is(8));
+    }
+
+    @Test
+    public void limitIsNotAboveMaximum() {
+        for (int i = 0; i < 1000; ++i)
+            limiter.update(1000000, 1000);
+        assertThat(limiter.getLimit(), is(100));
+    }
+
+    @Test
+    public void cannotBeCreatedWithInitialLimitBelowMinimum() {
+        thrown.expect(IllegalArgumentException.class);
+        new ConcurrencyLimiter("test limiter", 1, 2, 100);
+    }
+}
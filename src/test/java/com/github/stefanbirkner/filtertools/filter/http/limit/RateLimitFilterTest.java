@@ -0,0 +1,63 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import com.github.stefanbirkner.filtertools.filter.http.RequestKeys;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.*;
+
+public class RateLimitFilterTest {
+    private final RateLimitFilter<String> filter = new RateLimitFilter<String>(RequestKeys.remoteAddress(), 2, 0.01);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void callsFilterChainIfClientHasTokens() throws Exception {
+        when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+        filter.doFilter(request, response, filterChain);
+        filter.doFilter(request, response, filterChain);
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
+
+    @Test
+    public void rejectsRequestIfClientHasNoTokens() throws Exception {
+        when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+        filter.doFilter(request, response, filterChain);
+        filter.doFilter(request, response, filterChain);
+        filter.doFilter(request, response, filterChain);
+        verify(filterChain, times(2)).doFilter(request, response);
+        verify(response).setStatus(429);
+        verify(response).setHeader("Retry-After", "100");
+    }
+
+    @Test
+    public void doesNotLimitRequestsWithoutKey() throws Exception {
+        for (int i = 0; i < 5; ++i)
+            filter.doFilter(request, response, filterChain);
+        verify(filterChain, times(5)).doFilter(request, response);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutKeyExtractor() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The key extractor is missing.");
+        new RateLimitFilter<String>(null, 2, 1.0);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutCapacity() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The capacity must be positive, but it is 0.");
+        new RateLimitFilter<String>(RequestKeys.remoteAddress(), 0, 1.0);
+    }
+}
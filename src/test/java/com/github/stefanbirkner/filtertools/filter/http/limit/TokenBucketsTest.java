@@ -0,0 +1,91 @@
+package com.github.stefanbirkner.filtertools.filter.http.limit;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TokenBucketsTest {
+    private static final long SECOND = 1000000000L;
+    private final TokenBuckets<String> buckets = new TokenBuckets<String>(3, 1.0, 1000);
+
+    @Test
+    public void allowsBurstOfCapacity() {
+        for (int i = 0; i < 3; ++i)
+            assertThat(buckets.tryAcquire("client", 0), is(0L));
+    }
+
+    @Test
+    public void rejectsRequestIfBucketIsEmpty() {
+        takeAllTokens("client", 0);
+        assertThat(buckets.tryAcquire("client", 0), is(SECOND));
+    }
+
+    @Test
+    public void refillsBucketOverTime() {
+        takeAllTokens("client", 0);
+        assertThat(buckets.tryAcquire("client", SECOND), is(0L));
+        assertThat(buckets.tryAcquire("client", SECOND), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void doesNotRefillMoreThanCapacity() {
+        takeAllTokens("client", 0);
+        takeAllTokens("client", 100 * SECOND);
+        assertThat(buckets.tryAcquire("client", 100 * SECOND), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void clientsHaveSeparateBuckets() {
+        takeAllTokens("first client", 0);
+        assertThat(buckets.tryAcquire("second client", 0), is(0L));
+    }
+
+    @Test
+    public void worksWithNegativeNanoTime() {
+        takeAllTokens("client", -5 * SECOND);
+        assertThat(buckets.tryAcquire("client", -5 * SECOND), is(SECOND));
+        assertThat(buckets.tryAcquire("client", -4 * SECOND), is(0L));
+    }
+
+    @Test
+    public void numberOfBucketsIsBounded() {
+        for (int i = 0; i < 100000; ++i)
+            buckets.tryAcquire("client " + i, 0);
+        assertThat(buckets.size(), is(lessThanOrEqualTo(1000 + 16)));
+    }
+
+    @Test
+    public void removesIdleBucketsBeforeActiveBuckets() {
+        TokenBuckets<String> buckets = new TokenBuckets<String>(1, 1.0, 160);
+        for (int i = 0; i < 1000; ++i)
+            buckets.tryAcquire("idle client " + i, 0);
+        buckets.tryAcquire("active client", 10 * SECOND);
+        for (int i = 0; i < 100; ++i)
+            buckets.tryAcquire("new client " + i, 10 * SECOND);
+        assertThat(buckets.tryAcquire("active client", 10 * SECOND), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void doesNotRemoveActiveBuckets() {
+        TokenBuckets<String> buckets = new TokenBuckets<String>(1, 1.0, 16);
+        buckets.tryAcquire("active client", 0);
+        for (int i = 0; i < 1000; ++i)
+            buckets.tryAcquire("new client " + i, 0);
+        assertThat(buckets.tryAcquire("active client", 0), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void newClientsShareBucketIfAllBucketsAreActive() {
+        TokenBuckets<String> buckets = new TokenBuckets<String>(1, 1.0, 16);
+        for (int i = 0; i < 1000; ++i)
+            buckets.tryAcquire("client " + i, 0);
+        assertThat(buckets.tryAcquire("another client", 0), is(greaterThan(0L)));
+        assertThat(buckets.tryAcquire("yet another client", 0), is(greaterThan(0L)));
+    }
+
+    private void takeAllTokens(String key, long now) {
+        while (buckets.tryAcquire(key, now) == 0) {
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.stefanbirkner.filtertools.filter.http.path;
+
+import com.github.stefanbirkner.filtertools.filter.Predicate;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static com.github.stefanbirkner.filtertools.filter.http.path.PathPredicates.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PathPredicatesTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void exactMatchesSinglePath() {
+        PathPredicate predicate = exact("/login");
+        assertThat(predicate.matches("/login"), is(true));
+        assertThat(predicate.matches("/login/"), is(false));
+        assertThat(predicate.matches("/logi"), is(false));
+    }
+
+    @Test
+    public void prefixMatchesPathsThatStartWithPrefix() {
+        PathPredicate predicate = prefix("/static/");
+        assertThat(predicate.matches("/static/"), is(true));
+        assertThat(predicate.matches("/static/css/site.css"), is(true));
+        assertThat(predicate.matches("/static"), is(false));
+    }
+
+    @Test
+    public void suffixMatchesPathsThatEndWithSuffix() {
+        PathPredicate predicate = suffix(".css");
+        assertThat(predicate.matches("/site.css"), is(true));
+        assertThat(predicate.matches("/a/b/.css.css"), is(true));
+        assertThat(predicate.matches("/site.css.map"), is(false));
+    }
+
+    @Test
+    public void globSupportsWildcards() {
+        assertThat(glob("/api/*/orders").matches("/api/v1/orders"), is(true));
+        assertThat(glob("/api/*/orders").matches("/api/v1/shop/orders"), is(false));
+        assertThat(glob("/api/**/orders").matches("/api/v1/shop/orders"), is(true));
+        assertThat(glob("/api/**/orders").matches("/api/orders"), is(false));
+        assertThat(glob("/img?.png").matches("/img1.png"), is(true));
+        assertThat(glob("/img?.png").matches("/img/.png"), is(false));
+        assertThat(glob("/*.css").matches("/.css"), is(true));
+    }
+
+    @Test
+    public void antDoubleStarMatchesWholeSegments() {
+        PathPredicate predicate = ant("/api/**/orders");
+        assertThat(predicate.matches("/api/orders"), is(true));
+        assertThat(predicate.matches("/api/v1/orders"), is(true));
+        assertThat(predicate.matches("/api/v1/shop/orders"), is(true));
+        assertThat(predicate.matches("/api/v1orders"), is(false));
+        assertThat(predicate.matches("/apiorders"), is(false));
+    }
+
+    @Test
+    public void antTrailingDoubleStarMatchesPathWithoutIt() {
+        PathPredicate predicate = ant("/api/**");
+        assertThat(predicate.matches("/api"), is(true));
+        assertThat(predicate.matches("/api/"), is(true));
+        assertThat(predicate.matches("/api/v1/orders"), is(true));
+        assertThat(predicate.matches("/apis"), is(false));
+    }
+
+    @Test
+    public void antLeadingDoubleStarMatchesAnyDirectory() {
+        PathPredicate predicate = ant("/**/*.css");
+        assertThat(predicate.matches("/site.css"), is(true));
+        assertThat(predicate.matches("/a/b/site.css"), is(true));
+        assertThat(predicate.matches("/a/b/site.js"), is(false));
+    }
+
+    @Test
+    public void antDoubleStarWithinSegmentBehavesLikeStar() {
+        PathPredicate predicate = ant("/a**b");
+        assertThat(predicate.matches("/axyzb"), is(true));
+        assertThat(predicate.matches("/ax/b"), is(false));
+    }
+
+    @Test
+    public void anyOfMatchesIfOnePredicateMatches() {
+        PathPredicate predicate = anyOf(exact("/favicon.ico"), prefix("/static/"), ant("/**/*.css"));
+        assertThat(predicate.matches("/favicon.ico"), is(true));
+        assertThat(predicate.matches("/static/app.js"), is(true));
+        assertThat(predicate.matches("/a/site.css"), is(true));
+        assertThat(predicate.matches("/a/site.js"), is(false));
+    }
+
+    @Test
+    public void matchesNonAsciiCharacters() {
+        PathPredicate predicate = anyOfAnt("/gr\u00fc\u00dfe/*", "/caf\u00e9");
+        assertThat(predicate.matches("/gr\u00fc\u00dfe/\u00e4"), is(true));
+        assertThat(predicate.matches("/caf\u00e9"), is(true));
+        assertThat(predicate.matches("/cafe"), is(false));
+        assertThat(predicate.matches("/caf\u00e8"), is(false));
+    }
+
+    @Test
+    public void matchesManyPatterns() {
+        String[] patterns = new String[1000];
+        for (int i = 0; i < patterns.length; ++i)
+            patterns[i] = "/area" + i + "/**";
+        PathPredicate predicate = anyOfAnt(patterns);
+        assertThat(predicate.matches("/area999/orders/42"), is(true));
+        assertThat(predicate.matches("/area1000/orders/42"), is(false));
+    }
+
+    @Test
+    public void matchesLikeEquivalentRegularExpressions() {
+        String[] globs = {"/a/*", "/a/**", "*.c?", "/**/b", "/a*b*", "/?/?"};
+        Random random = new Random(42);
+        for (String glob : globs) {
+            PathPredicate predicate = glob(glob);
+            Pattern regex = Pattern.compile(toRegex(glob));
+            for (int i = 0; i < 1000; ++i) {
+                String path = randomPath(random);
+                assertThat(glob + " " + path, predicate.matches(path), is(regex.matcher(path).matches()));
+            }
+        }
+    }
+
+    @Test
+    public void testsServletPathFollowedByPathInfo() {
+        Predicate<ServletRequest> predicate = exact("/shop/login");
+        assertThat(predicate.test(request("/shop", "/login")), is(true));
+        assertThat(predicate.test(request("/shop/login", null)), is(true));
+        assertThat(predicate.test(request("", "/shop/login")), is(true));
+        assertThat(predicate.test(request("/shop", null)), is(false));
+    }
+
+    @Test
+    public void doesNotTestRawRequestUri() {
+        HttpServletRequest request = request("/admin", null);
+        when(request.getRequestURI()).thenReturn("/static/..;jsessionid=1/%61dmin");
+        assertThat(ant("/admin/**").test(request), is(true));
+    }
+
+    @Test
+    public void matchesPrefixThatEndsInServletPath() {
+        assertThat(prefix("/static/").test(request("/static", "/app.css")), is(true));
+        assertThat(ant("/static/**").test(request("/static/app.css", null)), is(true));
+    }
+
+    @Test
+    public void doesNotMatchRequestThatIsNotAnHttpRequest() {
+        assertThat(prefix("").test(mock(ServletRequest.class)), is(false));
+    }
+
+    @Test
+    public void antPatternMustStartWithSlash() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The pattern 'api/**' does not start with '/'.");
+        ant("api/**");
+    }
+
+    @Test
+    public void patternIsMandatory() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The pattern is missing.");
+        glob(null);
+    }
+
+    private static HttpServletRequest request(String servletPath, String pathInfo) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getServletPath()).thenReturn(servletPath);
+        when(request.getPathInfo()).thenReturn(pathInfo);
+        return request;
+    }
+
+    private static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); ++i) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                ++i;
+            } else if (c == '*')
+                regex.append("[^/]*");
+            else if (c == '?')
+                regex.append("[^/]");
+            else
+                regex.append(Pattern.quote(Character.toString(c)));
+        }
+        return regex.toString();
+    }
+
+    private static String randomPath(Random random) {
+        char[] alphabet = {'/', 'a', 'b', 'c', '.', 'x'};
+        int length = random.nextInt(8);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; ++i)
+            text.append(alphabet[random.nextInt(alphabet.length)]);
+        return text.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class StripedCounterTest {
+    private final StripedCounter counter = new StripedCounter();
+
+    @Test
+    public void sumsValuesOfAllThreads() throws Exception {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; ++i)
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; ++j)
+                        counter.add(3);
+                }
+            });
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        assertThat(counter.sum(), is(24000L));
+    }
+
+    @Test
+    public void isZeroAfterReset() {
+        counter.add(42);
+        counter.reset();
+        assertThat(counter.sum(), is(0L));
+    }
+}
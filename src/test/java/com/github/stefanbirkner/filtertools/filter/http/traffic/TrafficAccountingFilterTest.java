@@ -0,0 +1,201 @@
+package com.github.stefanbirkner.filtertools.filter.http.traffic;
+
+import com.github.stefanbirkner.filtertools.filter.KeyExtractor;
+import com.github.stefanbirkner.filtertools.filter.http.RequestKeys;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.management.ObjectName;
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TrafficAccountingFilterTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final TrafficAccountingFilter filter = new TrafficAccountingFilter("test", RequestKeys.method(), 2);
+
+    @After
+    public void destroyFilter() {
+        filter.destroy();
+    }
+
+    @Test
+    public void countsBytesOfStreams() throws Exception {
+        execute(request("POST", "abcdefgh", null), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                InputStream inputStream = request.getInputStream();
+                inputStream.read();
+                inputStream.read(new byte[16], 0, 16);
+                response.getOutputStream().write(new byte[100]);
+                response.getOutputStream().write(1);
+            }
+        });
+        RouteTraffic route = route("POST");
+        assertThat(route.getRequestCount(), is(1L));
+        assertThat(route.getBytesRead(), is(8L));
+        assertThat(route.getBytesWritten(), is(101L));
+    }
+
+    @Test
+    public void countsEncodedBytesOfReaderAndWriter() throws Exception {
+        HttpServletResponse response = response(new StringWriter());
+        when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        execute(request("POST", "h\u00e4llo", "UTF-8"), response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                request.getReader().readLine();
+                response.getWriter().write("\u20ac and \u00e4");
+            }
+        });
+        RouteTraffic route = route("POST");
+        assertThat(route.getBytesRead(), is(6L));
+        assertThat(route.getBytesWritten(), is(10L));
+    }
+
+    @Test
+    public void measuresTimeToFirstByteAndTimeToLastByte() throws Exception {
+        execute(request("GET", "", null), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+                sleep(10);
+                response.getOutputStream().write(1);
+                sleep(20);
+            }
+        });
+        RouteTraffic route = route("GET");
+        assertThat(route.getTimeToFirstByteP50(), is(both(greaterThanOrEqualTo(10000000L)).and(lessThan(30000000L))));
+        assertThat(route.getTimeToLastByteP50(), is(greaterThanOrEqualTo(30000000L)));
+    }
+
+    @Test
+    public void countsRoutesBeyondMaximumAsOtherRoute() throws Exception {
+        for (String method : new String[]{"GET", "POST", "PUT", "DELETE"})
+            execute(request(method, "", null), new EmptyFilterChain());
+        assertThat(route("PUT"), is(nullValue()));
+        assertThat(route(TrafficAccountingFilter.OTHER_ROUTE).getRequestCount(), is(2L));
+        assertThat(filter.getRoutes(), hasSize(3));
+    }
+
+    @Test
+    public void countsRequestWithoutRouteAsOtherRoute() throws Exception {
+        TrafficAccountingFilter filterWithoutRoutes = new TrafficAccountingFilter("no routes",
+            new KeyExtractor<HttpServletRequest, String>() {
+                @Override
+                public String extract(HttpServletRequest request) {
+                    return null;
+                }
+            }, 10);
+        filterWithoutRoutes.doFilter(request("GET", "", null), response(new StringWriter()), new EmptyFilterChain());
+        assertThat(filterWithoutRoutes.getRoutes().iterator().next().getRoute(), is(TrafficAccountingFilter.OTHER_ROUTE));
+        assertThat(filterWithoutRoutes.getRoutes().iterator().next().getRequestCount(), is(1L));
+    }
+
+    @Test
+    public void extractsRouteBeforeFilterChainIsCalled() throws Exception {
+        final String[] currentRoute = {"before"};
+        TrafficAccountingFilter filter = new TrafficAccountingFilter("route changes",
+            new KeyExtractor<HttpServletRequest, String>() {
+                @Override
+                public String extract(HttpServletRequest request) {
+                    return currentRoute[0];
+                }
+            }, 10);
+        filter.doFilter(request("GET", "", null), response(new StringWriter()), new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                currentRoute[0] = "after";
+            }
+        });
+        assertThat(filter.getRoutes(), hasSize(2));
+        assertThat(filter.getRoutes().iterator().next().getRoute(), is(equalTo("before")));
+        assertThat(filter.getRoutes().iterator().next().getRequestCount(), is(1L));
+    }
+
+    @Test
+    public void registersRoutesWhileInitialized() throws Exception {
+        filter.init(mock(FilterConfig.class));
+        execute(request("GET", "", null), new EmptyFilterChain());
+        ObjectName objectName = new ObjectName(
+            "com.github.stefanbirkner.filtertools:type=Traffic,name=\"test\",route=\"GET\"");
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), is(true));
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "RequestCount"),
+            is((Object) 1L));
+        filter.destroy();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName), is(false));
+    }
+
+    @Test
+    public void cannotBeCreatedWithNegativeMaximumNumberOfRoutes() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The maximum number of routes must not be negative, but it is -1.");
+        new TrafficAccountingFilter("test", RequestKeys.method(), -1);
+    }
+
+    private RouteTraffic route(String name) {
+        for (RouteTraffic route : filter.getRoutes())
+            if (route.getRoute().equals(name))
+                return route;
+        return null;
+    }
+
+    private void execute(HttpServletRequest request, FilterChain filterChain) throws Exception {
+        execute(request, response(new StringWriter()), filterChain);
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws Exception {
+        filter.doFilter(request, response, filterChain);
+    }
+
+    private static HttpServletRequest request(String method, String body, String encoding) throws IOException {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getCharacterEncoding()).thenReturn(encoding);
+        final ByteArrayInputStream bytes = new ByteArrayInputStream(body.getBytes("UTF-8"));
+        when(request.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() {
+                return bytes.read();
+            }
+        });
+        when(request.getReader()).thenReturn(new BufferedReader(new StringReader(body)));
+        return request;
+    }
+
+    private static HttpServletResponse response(Writer writer) throws IOException {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        });
+        when(response.getWriter()).thenReturn(new PrintWriter(writer));
+        return response;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class EmptyFilterChain implements FilterChain {
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) {
+        }
+    }
+}
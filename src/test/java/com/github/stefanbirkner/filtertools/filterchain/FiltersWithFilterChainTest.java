@@ -0,0 +1,115 @@
+package com.github.stefanbirkner.filtertools.filterchain;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.servlet.*;
+import java.io.IOException;
+
+import static org.junit.rules.ExpectedException.none;
+import static org.mockito.Mockito.*;
+
+public class FiltersWithFilterChainTest {
+    private final ServletRequest request = mock(ServletRequest.class);
+    private final ServletResponse response = mock(ServletResponse.class);
+    private final FilterChain baseFilterChain = mock(FilterChain.class);
+
+    @Rule
+    public final ExpectedException thrown = none();
+
+    @Test
+    public void callsFilterWithItself() throws Exception {
+        Filter filter = mock(Filter.class);
+        FiltersWithFilterChain filterChain = new FiltersWithFilterChain(
+            new Filter[]{filter}, baseFilterChain);
+        filterChain.doFilter(request, response);
+        verify(filter).doFilter(request, response, filterChain);
+    }
+
+    @Test
+    public void callsBaseFilterChainAfterLastFilter() throws Exception {
+        FiltersWithFilterChain filterChain = new FiltersWithFilterChain(
+            new Filter[]{new CallingFilter(1), new CallingFilter(1)}, baseFilterChain);
+        filterChain.doFilter(request, response);
+        verify(baseFilterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void callsBaseFilterChainWithoutFilters() throws Exception {
+        new FiltersWithFilterChain(new Filter[0], baseFilterChain).doFilter(request, response);
+        verify(baseFilterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void allowsFilterToCallFilterChainMultipleTimes() throws Exception {
+        Filter secondFilter = new CallingFilter(1);
+        FiltersWithFilterChain filterChain = new FiltersWithFilterChain(
+            new Filter[]{new CallingFilter(3), secondFilter}, baseFilterChain);
+        filterChain.doFilter(request, response);
+        verify(baseFilterChain, times(3)).doFilter(request, response);
+    }
+
+    @Test
+    public void rejectsCallAfterChainReturned() throws Exception {
+        RememberingFilter filter = new RememberingFilter();
+        new FiltersWithFilterChain(new Filter[]{filter}, baseFilterChain).doFilter(request, response);
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("The filter chain has already returned.");
+        filter.filterChain.doFilter(request, response);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutFilters() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The filters are missing.");
+        new FiltersWithFilterChain(null, baseFilterChain);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutBaseFilterChain() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The base filter chain is missing.");
+        new FiltersWithFilterChain(new Filter[0], null);
+    }
+
+    private static class RememberingFilter implements Filter {
+        FilterChain filterChain;
+
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain) {
+            this.filterChain = filterChain;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    private static class CallingFilter implements Filter {
+        private final int numberOfCalls;
+
+        CallingFilter(int numberOfCalls) {
+            this.numberOfCalls = numberOfCalls;
+        }
+
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+            for (int i = 0; i < numberOfCalls; ++i)
+                filterChain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.stefanbirkner.filtertools.jmx;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MBeanRegistrationTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final MBeanRegistration registration = new MBeanRegistration(new Dummy(), "type=Dummy,name=\"test\"");
+
+    @After
+    public void unregister() {
+        registration.unregister();
+    }
+
+    @Test
+    public void createsObjectNameWithDomainOfFilterTools() throws Exception {
+        assertThat(registration.getObjectName(),
+            is(equalTo(new ObjectName("com.github.stefanbirkner.filtertools:type=Dummy,name=\"test\""))));
+    }
+
+    @Test
+    public void registersAndUnregistersMBean() throws Exception {
+        registration.register();
+        assertThat(isRegistered(), is(true));
+        registration.unregister();
+        assertThat(isRegistered(), is(false));
+    }
+
+    @Test
+    public void doesNotUnregisterMBeanOfAnotherRegistrationWithSameName() throws Exception {
+        registration.register();
+        MBeanRegistration other = new MBeanRegistration(new Dummy(), "type=Dummy,name=\"test\"");
+        try {
+            other.register();
+        } catch (InstanceAlreadyExistsException e) {
+            other.unregister();
+        }
+        assertThat(isRegistered(), is(true));
+        assertThat(other.isRegistered(), is(false));
+    }
+
+    @Test
+    public void takesOverObjectNameDuringHandOver() throws Exception {
+        registration.register();
+        MBeanRegistration successor = new MBeanRegistration(new Dummy(), "type=Dummy,name=\"test\"");
+        MBeanRegistration.beginHandOver();
+        try {
+            successor.register();
+        } finally {
+            MBeanRegistration.endHandOver();
+        }
+        try {
+            registration.unregister();
+            assertThat(isRegistered(), is(true));
+            assertThat(successor.isRegistered(), is(true));
+            assertThat(registration.isRegistered(), is(false));
+        } finally {
+            successor.unregister();
+        }
+    }
+
+    @Test
+    public void doesNotTakeOverObjectNameAfterHandOver() throws Exception {
+        registration.register();
+        MBeanRegistration.beginHandOver();
+        MBeanRegistration.endHandOver();
+        thrown.expect(InstanceAlreadyExistsException.class);
+        new MBeanRegistration(new Dummy(), "type=Dummy,name=\"test\"").register();
+    }
+
+    @Test
+    public void cannotBeCreatedWithInvalidKeyProperties() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The key properties name are not valid.");
+        new MBeanRegistration(new Dummy(), "name");
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutMBean() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("The MBean is missing.");
+        new MBeanRegistration(null, "type=Dummy");
+    }
+
+    private boolean isRegistered() {
+        return ManagementFactory.getPlatformMBeanServer().isRegistered(registration.getObjectName());
+    }
+
+    public interface DummyMBean {
+    }
+
+    public static class Dummy implements DummyMBean {
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest {
+    private final LatencyHistogram histogram = new LatencyHistogram(4);
+
+    @Test
+    public void countsRecordedValues() {
+        histogram.record(10);
+        histogram.record(1000);
+        histogram.record(1000000);
+        assertThat(histogram.getCount(), is(3L));
+    }
+
+    @Test
+    public void returnsSmallValuesExactly() {
+        for (int i = 1; i <= 10; ++i)
+            histogram.record(i);
+        assertThat(histogram.getValueAtPercentile(50), is(5L));
+        assertThat(histogram.getValueAtPercentile(100), is(10L));
+    }
+
+    @Test
+    public void returnsLargeValuesWithSmallRelativeError() {
+        for (int i = 1; i <= 1000; ++i)
+            histogram.record(i * 1000L);
+        assertThat(histogram.getValueAtPercentile(50), is(both(greaterThanOrEqualTo(500000L)).and(lessThan(532000L))));
+        assertThat(histogram.getValueAtPercentile(99), is(both(greaterThanOrEqualTo(990000L)).and(lessThan(1053000L))));
+        assertThat(histogram.getValueAtPercentile(99.9), is(both(greaterThanOrEqualTo(999000L)).and(lessThan(1062000L))));
+    }
+
+    @Test
+    public void returnsZeroWithoutRecordedValues() {
+        assertThat(histogram.getValueAtPercentile(99), is(0L));
+    }
+
+    @Test
+    public void countsNegativeValuesAsZero() {
+        histogram.record(-5);
+        assertThat(histogram.getValueAtPercentile(100), is(0L));
+    }
+
+    @Test
+    public void countsHugeValuesAsMaximumValue() {
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.getValueAtPercentile(100), is((1L << (LatencyHistogram.MAX_EXPONENT + 1)) - 1));
+    }
+
+    @Test
+    public void everyValueIsInABucketWhoseHighestValueIsNotSmaller() {
+        for (long value = 0; value < 100000; value += 7) {
+            long highestValue = LatencyHistogram.highestValueOfBucket(LatencyHistogram.bucketIndex(value));
+            assertThat(highestValue, is(both(greaterThanOrEqualTo(value))
+                .and(lessThanOrEqualTo(value + value / LatencyHistogram.SUB_BUCKETS))));
+        }
+    }
+
+    @Test
+    public void countsValuesOfMultipleThreads() throws Exception {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; ++j)
+                        histogram.record(j);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertThat(histogram.getCount(), is(40000L));
+    }
+
+    @Test
+    public void resetRemovesAllValues() {
+        histogram.record(10);
+        histogram.reset();
+        assertThat(histogram.getCount(), is(0L));
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import com.github.stefanbirkner.filtertools.filter.EncasedFilters;
+import com.github.stefanbirkner.filtertools.filter.NoOpFilter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import javax.management.Attribute;
+import javax.servlet.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class SamplingProfilerTest {
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final ServletRequest request = mock(ServletRequest.class);
+    private final ServletResponse response = mock(ServletResponse.class);
+
+    @Test
+    public void profilesEveryRequestWithSamplingIntervalOne() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 1);
+        EncasedFilters filters = new EncasedFilters(profiler, new NoOpFilter(), new NoOpFilter());
+        for (int i = 0; i < 10; ++i)
+            filters.doFilter(request, response, mock(FilterChain.class));
+        assertThat(profiler.getSampleCount(), is(10L));
+        assertThat(profiler.getStatistics().get(1).getCount(), is(10L));
+    }
+
+    @Test
+    public void profilesNoRequestWithSamplingIntervalZero() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 0);
+        EncasedFilters filters = new EncasedFilters(profiler, new NoOpFilter());
+        FilterChain filterChain = mock(FilterChain.class);
+        filters.doFilter(request, response, filterChain);
+        verify(filterChain).doFilter(request, response);
+        assertThat(profiler.getSampleCount(), is(0L));
+    }
+
+    @Test
+    public void profilesAboutOneOutOfSamplingIntervalRequests() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 10);
+        EncasedFilters filters = new EncasedFilters(profiler, new NoOpFilter());
+        for (int i = 0; i < 10000; ++i)
+            filters.doFilter(request, response, mock(FilterChain.class));
+        assertThat(profiler.getSampleCount(), is(both(greaterThan(700L)).and(lessThan(1300L))));
+    }
+
+    @Test
+    public void samplingIntervalCanBeChangedAtRuntime() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 0);
+        EncasedFilters filters = new EncasedFilters(profiler, new NoOpFilter());
+        filters.doFilter(request, response, mock(FilterChain.class));
+        profiler.setSamplingInterval(1);
+        filters.doFilter(request, response, mock(FilterChain.class));
+        assertThat(profiler.getSampleCount(), is(1L));
+    }
+
+    @Test
+    public void recordsInclusiveAndSelfTimeOfEveryFilter() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 1);
+        EncasedFilters filters = new EncasedFilters(profiler, new SleepingFilter(2), new SleepingFilter(20));
+        filters.doFilter(request, response, mock(FilterChain.class));
+        StageStatistics first = profiler.getStatistics().get(0);
+        StageStatistics second = profiler.getStatistics().get(1);
+        assertThat(first.getInclusiveTimeP50(), is(greaterThanOrEqualTo(22000000L)));
+        assertThat(first.getSelfTimeP50(), is(both(greaterThanOrEqualTo(2000000L)).and(lessThan(15000000L))));
+        assertThat(second.getSelfTimeP50(), is(greaterThanOrEqualTo(20000000L)));
+    }
+
+    @Test
+    public void dumpsStatisticsOfEveryFilter() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 1);
+        EncasedFilters filters = new EncasedFilters(profiler, new NoOpFilter(), new SleepingFilter(0));
+        filters.doFilter(request, response, mock(FilterChain.class));
+        String report = profiler.dump();
+        assertThat(report, containsString("#1 " + NoOpFilter.class.getName() + ": count=1 "));
+        assertThat(report, containsString("#2 " + SleepingFilter.class.getName() + ": count=1 "));
+    }
+
+    @Test
+    public void isRegisteredWhileFiltersAreInitialized() throws Exception {
+        SamplingProfiler profiler = new SamplingProfiler("test", 1);
+        EncasedFilters filters = new EncasedFilters(profiler, new NoOpFilter());
+        filters.init(mock(FilterConfig.class));
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(profiler.getObjectName()), is(true));
+        ManagementFactory.getPlatformMBeanServer().setAttribute(profiler.getObjectName(),
+            new Attribute("SamplingInterval", 5));
+        assertThat(profiler.getSamplingInterval(), is(5));
+        filters.destroy();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(profiler.getObjectName()), is(false));
+    }
+
+    @Test
+    public void cannotBeAttachedToTwoChains() {
+        SamplingProfiler profiler = new SamplingProfiler("test", 1);
+        new EncasedFilters(profiler, new NoOpFilter());
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("The profiler test is already attached to filters.");
+        new EncasedFilters(profiler, new NoOpFilter());
+    }
+
+    @Test
+    public void cannotBeCreatedWithNegativeSamplingInterval() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The sampling interval must not be negative, but it is -1.");
+        new SamplingProfiler("test", -1);
+    }
+
+    private static class SleepingFilter implements Filter {
+        private final long sleepMillis;
+
+        SleepingFilter(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            filterChain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class TimedFilterActionTest {
+    private static final FilterConfig DUMMY_FILTER_CONFIG = mock(FilterConfig.class);
+    private static final HttpServletRequest DUMMY_REQUEST = mock(HttpServletRequest.class);
+    private static final HttpServletResponse DUMMY_RESPONSE = mock(HttpServletResponse.class);
+    private final FilterAction action = mock(FilterAction.class);
+    private final TimedFilterAction timedAction = new TimedFilterAction("test action", action);
+
+    @After
+    public void destroyAction() {
+        timedAction.getStatistics().unregister();
+    }
+
+    @Test
+    public void executesActionAndRecordsTime() throws Exception {
+        timedAction.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        verify(action).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        assertThat(timedAction.getStatistics().getCount(), is(1L));
+    }
+
+    @Test
+    public void recordsTimeIfActionFails() throws Exception {
+        doThrow(new RuntimeException()).when(action).execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+        try {
+            timedAction.execute(DUMMY_REQUEST, DUMMY_RESPONSE);
+            fail("Expected exception has not been thrown.");
+        } catch (RuntimeException expected) {
+            assertThat(timedAction.getStatistics().getCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void registersStatisticsWhenInitializedAndUnregistersThemWhenDestroyed() throws Exception {
+        timedAction.init(DUMMY_FILTER_CONFIG);
+        verify(action).init(DUMMY_FILTER_CONFIG);
+        assertThat(isRegistered(), is(true));
+        timedAction.destroy();
+        verify(action).destroy();
+        assertThat(isRegistered(), is(false));
+    }
+
+    private boolean isRegistered() throws Exception {
+        return ManagementFactory.getPlatformMBeanServer().isRegistered(
+            timedAction.getStatistics().getObjectName());
+    }
+}
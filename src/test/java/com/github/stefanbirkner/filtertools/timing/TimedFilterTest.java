@@ -0,0 +1,127 @@
+package com.github.stefanbirkner.filtertools.timing;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.servlet.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class TimedFilterTest {
+    private final FilterConfig config = mock(FilterConfig.class);
+    private final ServletRequest request = mock(ServletRequest.class);
+    private final ServletResponse response = mock(ServletResponse.class);
+    private final Filter baseFilter = mock(Filter.class);
+    private final TimedFilter timedFilter = new TimedFilter("test filter", baseFilter);
+
+    @After
+    public void destroyFilter() {
+        timedFilter.getStatistics().unregister();
+    }
+
+    @Test
+    public void callsBaseFilter() throws Exception {
+        FilterChain filterChain = mock(FilterChain.class);
+        TimedFilter filter = new TimedFilter("test filter", new CallingFilter(0));
+        filter.doFilter(request, response, filterChain);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void recordsInclusiveAndSelfTime() throws Exception {
+        TimedFilter filter = new TimedFilter("test filter", new CallingFilter(2));
+        filter.doFilter(request, response, new SleepingFilterChain(20));
+        StageStatistics statistics = filter.getStatistics();
+        assertThat(statistics.getCount(), is(1L));
+        assertThat(statistics.getInclusiveTimeP50(), is(greaterThanOrEqualTo(22000000L)));
+        assertThat(statistics.getSelfTimeP50(), is(both(greaterThanOrEqualTo(2000000L)).and(lessThan(15000000L))));
+    }
+
+    @Test
+    public void registersStatisticsWhenInitialized() throws Exception {
+        timedFilter.init(config);
+        verify(baseFilter).init(config);
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName()), is(true));
+    }
+
+    @Test
+    public void unregistersStatisticsWhenDestroyed() throws Exception {
+        timedFilter.init(config);
+        timedFilter.destroy();
+        verify(baseFilter).destroy();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName()), is(false));
+    }
+
+    @Test
+    public void unregistersStatisticsIfBaseFilterCannotBeInitialized() throws Exception {
+        doThrow(new ServletException()).when(baseFilter).init(config);
+        try {
+            timedFilter.init(config);
+            fail("Expected exception has not been thrown.");
+        } catch (ServletException expected) {
+            assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName()), is(false));
+        }
+    }
+
+    @Test
+    public void publishesPercentilesViaJmx() throws Exception {
+        timedFilter.init(config);
+        timedFilter.doFilter(request, response, mock(FilterChain.class));
+        Object count = ManagementFactory.getPlatformMBeanServer().getAttribute(objectName(), "Count");
+        assertThat(count, is((Object) 1L));
+    }
+
+    private ObjectName objectName() throws Exception {
+        return timedFilter.getStatistics().getObjectName();
+    }
+
+    private static class CallingFilter implements Filter {
+        private final long sleepMillis;
+
+        CallingFilter(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public void init(FilterConfig filterConfig) {
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws IOException, ServletException {
+            sleep(sleepMillis);
+            filterChain.doFilter(request, response);
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    private static class SleepingFilterChain implements FilterChain {
+        private final long sleepMillis;
+
+        SleepingFilterChain(long sleepMillis) {
+            this.sleepMillis = sleepMillis;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) {
+            sleep(sleepMillis);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FileSpanExporterTest {
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesLineOfJsonForEverySpan() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "spans.log");
+        Trace trace = new Trace(TraceParent.parse(TRACEPARENT), "GET", 4);
+        trace.endSpan(trace.startLeafSpan("say \"hello\""), new IOException("broken"));
+        trace.finish(null);
+        FileSpanExporter exporter = new FileSpanExporter(file);
+        exporter.export(trace);
+        exporter.close();
+        String[] lines = read(file).split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], startsWith("{\"traceId\":\"4bf92f3577b34da6a3ce929d0e0e4736\",\"spanId\":\""));
+        assertThat(lines[0], containsString("\"parentSpanId\":\"00f067aa0ba902b7\",\"name\":\"GET\""));
+        assertThat(lines[0], containsString(",\"outcome\":\"OK\"}"));
+        assertThat(lines[1], containsString("\"name\":\"say \\\"hello\\\"\""));
+        assertThat(lines[1], containsString("\"outcome\":\"ERROR\",\"exception\":\"java.io.IOException: broken\"}"));
+    }
+
+    @Test
+    public void appendsToExistingFile() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "spans.log");
+        for (int i = 0; i < 2; ++i) {
+            Trace trace = new Trace(null, "GET", 1);
+            trace.finish(null);
+            FileSpanExporter exporter = new FileSpanExporter(file);
+            exporter.export(trace);
+            exporter.close();
+        }
+        assertThat(read(file).split("\n").length, is(2));
+    }
+
+    private static String read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            StringBuilder text = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null)
+                text.append(line).append('\n');
+            return text.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
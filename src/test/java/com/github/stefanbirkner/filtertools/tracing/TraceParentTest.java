@@ -0,0 +1,56 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TraceParentTest {
+    private static final String HEADER = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void parsesValidHeader() {
+        TraceParent traceParent = TraceParent.parse(HEADER);
+        assertThat(traceParent.getTraceId(), is(equalTo("4bf92f3577b34da6a3ce929d0e0e4736")));
+        assertThat(traceParent.getParentId(), is(equalTo("00f067aa0ba902b7")));
+        assertThat(traceParent.isSampled(), is(true));
+    }
+
+    @Test
+    public void formatsHeader() {
+        assertThat(TraceParent.parse(HEADER).toString(), is(equalTo(HEADER)));
+        assertThat(new TraceParent("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7", 0).toString(),
+            is(equalTo("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00")));
+    }
+
+    @Test
+    public void parsesHeaderOfFutureVersion() {
+        TraceParent traceParent = TraceParent.parse(
+            "cc-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-what-the-future-will-be-like");
+        assertThat(traceParent.getParentId(), is(equalTo("00f067aa0ba902b7")));
+    }
+
+    @Test
+    public void rejectsInvalidHeaders() {
+        assertThat(TraceParent.parse(null), is(nullValue()));
+        assertThat(TraceParent.parse(""), is(nullValue()));
+        assertThat(TraceParent.parse(HEADER + "-"), is(nullValue()));
+        assertThat(TraceParent.parse(HEADER.replace('b', 'B')), is(nullValue()));
+        assertThat(TraceParent.parse("ff" + HEADER.substring(2)), is(nullValue()));
+        assertThat(TraceParent.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"), is(nullValue()));
+        assertThat(TraceParent.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"), is(nullValue()));
+        assertThat(TraceParent.parse("00_4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"), is(nullValue()));
+    }
+
+    @Test
+    public void cannotBeCreatedWithInvalidTraceId() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The trace id 4bf92f is invalid.");
+        new TraceParent("4bf92f", "00f067aa0ba902b7", 1);
+    }
+}
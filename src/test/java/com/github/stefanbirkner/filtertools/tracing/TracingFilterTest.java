@@ -0,0 +1,207 @@
+package com.github.stefanbirkner.filtertools.tracing;
+
+import com.github.stefanbirkner.filtertools.filter.EncasedFilters;
+import com.github.stefanbirkner.filtertools.filter.NoOpFilter;
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.FilterAction;
+import com.github.stefanbirkner.filtertools.filter.http.filteraction.PreFilterChainActionsFilter;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TracingFilterTest {
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Rule
+    public final ExpectedException thrown = ExpectedException.none();
+
+    private final InMemorySpanExporter exporter = new InMemorySpanExporter();
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final FilterChain filterChain = mock(FilterChain.class);
+    private final TracingFilter tracingFilter = new TracingFilter(exporter);
+
+    @After
+    public void destroyFilter() {
+        tracingFilter.destroy();
+    }
+
+    @Test
+    public void exportsRootSpanOfRequest() throws Exception {
+        tracingFilter.init(mock(FilterConfig.class));
+        tracingFilter.doFilter(request(null), response, filterChain);
+        Trace trace = exporter.awaitTraces(1, 5000).get(0);
+        Span root = trace.getSpans().get(0);
+        assertThat(root.getName(), is(equalTo("GET")));
+        assertThat(root.getParentSpanId(), is(nullValue()));
+        assertThat(root.getOutcome(), is(Span.Outcome.OK));
+        assertThat(trace.getTraceId().matches("[0-9a-f]{32}"), is(true));
+    }
+
+    @Test
+    public void continuesTraceOfCaller() throws Exception {
+        tracingFilter.init(mock(FilterConfig.class));
+        tracingFilter.doFilter(request(TRACEPARENT), response, filterChain);
+        Trace trace = exporter.awaitTraces(1, 5000).get(0);
+        assertThat(trace.getTraceId(), is(equalTo("4bf92f3577b34da6a3ce929d0e0e4736")));
+        assertThat(trace.getSpans().get(0).getParentSpanId(), is(equalTo("00f067aa0ba902b7")));
+    }
+
+    @Test
+    public void doesNotRecordTraceThatIsNotSampledByCaller() throws Exception {
+        final TraceParent[] propagated = new TraceParent[1];
+        tracingFilter.init(mock(FilterConfig.class));
+        tracingFilter.doFilter(request(TRACEPARENT.replace("-01", "-00")), response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                propagated[0] = Trace.find(request).getTraceParent();
+            }
+        });
+        tracingFilter.destroy();
+        assertThat(exporter.getTraces(), is(empty()));
+        assertThat(propagated[0].getTraceId(), is(equalTo("4bf92f3577b34da6a3ce929d0e0e4736")));
+        assertThat(propagated[0].isSampled(), is(false));
+    }
+
+    @Test
+    public void nestsSpansOfFiltersAndActions() throws Exception {
+        EncasedFilters filters = new EncasedFilters(
+            tracingFilter,
+            new TracedFilter("outer", new NoOpFilter()),
+            new TracedFilter("inner", new PreFilterChainActionsFilter(
+                new TracedFilterAction("first action", mock(FilterAction.class)),
+                new TracedFilterAction("second action", mock(FilterAction.class)))));
+        filters.init(mock(FilterConfig.class));
+        filters.doFilter(request(null), response, filterChain);
+        List<Span> spans = exporter.awaitTraces(1, 5000).get(0).getSpans();
+        assertThat(spans, hasSize(5));
+        assertThat(spans.get(1).getName(), is(equalTo("outer")));
+        assertThat(spans.get(1).getParentSpanId(), is(equalTo(spans.get(0).getSpanId())));
+        assertThat(spans.get(2).getParentSpanId(), is(equalTo(spans.get(1).getSpanId())));
+        assertThat(spans.get(3).getParentSpanId(), is(equalTo(spans.get(2).getSpanId())));
+        assertThat(spans.get(4).getParentSpanId(), is(equalTo(spans.get(2).getSpanId())));
+    }
+
+    @Test
+    public void propagatesCurrentSpan() throws Exception {
+        final TraceParent[] propagated = new TraceParent[1];
+        tracingFilter.init(mock(FilterConfig.class));
+        tracingFilter.doFilter(request(TRACEPARENT), response, new FilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                new TracedFilter("filter", new NoOpFilter()).doFilter(request, response, new FilterChain() {
+                    @Override
+                    public void doFilter(ServletRequest request, ServletResponse response) {
+                        propagated[0] = Trace.find(request).getTraceParent();
+                    }
+                });
+            }
+        });
+        List<Span> spans = exporter.awaitTraces(1, 5000).get(0).getSpans();
+        assertThat(propagated[0].getTraceId(), is(equalTo("4bf92f3577b34da6a3ce929d0e0e4736")));
+        assertThat(propagated[0].getParentId(), is(equalTo(spans.get(1).getSpanId())));
+    }
+
+    @Test
+    public void recordsException() throws Exception {
+        final IOException exception = new IOException("dummy exception");
+        EncasedFilters filters = new EncasedFilters(tracingFilter, new TracedFilter("failing", new NoOpFilter() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+                throws IOException {
+                throw exception;
+            }
+        }));
+        filters.init(mock(FilterConfig.class));
+        try {
+            filters.doFilter(request(null), response, filterChain);
+            fail("Expected exception has not been thrown.");
+        } catch (IOException expected) {
+            List<Span> spans = exporter.awaitTraces(1, 5000).get(0).getSpans();
+            assertThat(spans.get(0).getOutcome(), is(Span.Outcome.ERROR));
+            assertThat(spans.get(1).getException(), is(sameInstance((Throwable) exception)));
+        }
+    }
+
+    @Test
+    public void dropsSpansThatExceedMaximum() throws Exception {
+        TracingFilter filter = new TracingFilter(exporter, 2, 10);
+        filter.init(mock(FilterConfig.class));
+        try {
+            new EncasedFilters(filter, new TracedFilter("first", new NoOpFilter()),
+                new TracedFilter("second", new NoOpFilter())).doFilter(request(null), response, filterChain);
+            Trace trace = exporter.awaitTraces(1, 5000).get(0);
+            assertThat(trace.getSpans(), hasSize(2));
+            assertThat(trace.getDroppedSpanCount(), is(1));
+        } finally {
+            filter.destroy();
+        }
+    }
+
+    @Test
+    public void dropsTraceIfNotInitialized() throws Exception {
+        tracingFilter.doFilter(request(null), response, filterChain);
+        assertThat(tracingFilter.getDroppedTraceCount(), is(1L));
+    }
+
+    @Test
+    public void exportsRemainingTracesWhenDestroyed() throws Exception {
+        tracingFilter.init(mock(FilterConfig.class));
+        for (int i = 0; i < 100; ++i)
+            tracingFilter.doFilter(request(null), response, filterChain);
+        tracingFilter.destroy();
+        assertThat(exporter.getTraces(), hasSize(100));
+        assertThat(tracingFilter.getExportedTraceCount(), is(100L));
+    }
+
+    @Test
+    public void tracedFilterWorksWithoutTrace() throws Exception {
+        HttpServletRequest request = request(null);
+        new TracedFilter("filter", new NoOpFilter()).doFilter(request, response, filterChain);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    public void cannotBeCreatedWithoutPositiveMaximumNumberOfSpans() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The maximum number of spans must be positive, but it is 0.");
+        new TracingFilter(exporter, 0, 10);
+    }
+
+    private static HttpServletRequest request(String traceparent) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getHeader(TraceParent.HEADER)).thenReturn(traceparent);
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(request).setAttribute(anyString(), anyObject());
+        when(request.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+        return request;
+    }
+}